@@ -0,0 +1,88 @@
+// File: com/wastecollect/common/dto/CollectorPositionDTO.java
+package com.wastecollect.common.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A reported position of a collector.
+ */
+public class CollectorPositionDTO {
+
+    private Long collectorId;
+    private Long municipalityId;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime recordedAt;
+    private Double speed;
+    private Double accuracy;
+
+    public CollectorPositionDTO() {
+    }
+
+    public CollectorPositionDTO(Long collectorId, Long municipalityId, Double latitude, Double longitude,
+                                LocalDateTime recordedAt, Double speed, Double accuracy) {
+        this.collectorId = collectorId;
+        this.municipalityId = municipalityId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.recordedAt = recordedAt;
+        this.speed = speed;
+        this.accuracy = accuracy;
+    }
+
+    public Long getCollectorId() {
+        return collectorId;
+    }
+
+    public void setCollectorId(Long collectorId) {
+        this.collectorId = collectorId;
+    }
+
+    public Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    public void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(Double speed) {
+        this.speed = speed;
+    }
+
+    public Double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(Double accuracy) {
+        this.accuracy = accuracy;
+    }
+}
@@ -0,0 +1,72 @@
+// File: com/wastecollect/common/dto/CollectorRatingSummaryDTO.java
+package com.wastecollect.common.dto;
+
+import java.util.List;
+
+/**
+ * The ratings received by a collector, in aggregate.
+ */
+public class CollectorRatingSummaryDTO {
+
+    private Long collectorId;
+    private long ratingCount;
+    private double averageRating;
+
+    // Average in which older ratings weigh less (halved every half-life); 0 without ratings
+    private double recentAverageRating;
+
+    // Number of ratings with 1 to 5 stars, in that order
+    private List<Long> starCounts;
+
+    public CollectorRatingSummaryDTO() {
+    }
+
+    public CollectorRatingSummaryDTO(Long collectorId, long ratingCount, double averageRating, double recentAverageRating,
+                                     List<Long> starCounts) {
+        this.collectorId = collectorId;
+        this.ratingCount = ratingCount;
+        this.averageRating = averageRating;
+        this.recentAverageRating = recentAverageRating;
+        this.starCounts = starCounts;
+    }
+
+    public Long getCollectorId() {
+        return collectorId;
+    }
+
+    public void setCollectorId(Long collectorId) {
+        this.collectorId = collectorId;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public double getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(double averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public double getRecentAverageRating() {
+        return recentAverageRating;
+    }
+
+    public void setRecentAverageRating(double recentAverageRating) {
+        this.recentAverageRating = recentAverageRating;
+    }
+
+    public List<Long> getStarCounts() {
+        return starCounts;
+    }
+
+    public void setStarCounts(List<Long> starCounts) {
+        this.starCounts = starCounts;
+    }
+}
@@ -0,0 +1,77 @@
+// File: com/wastecollect/common/dto/CursorPageDTO.java
+package com.wastecollect.common.dto;
+
+import java.util.List;
+
+/**
+ * A slice of results fetched with keyset (seek) pagination.
+ * Unlike a Spring {@code Page}, it carries an opaque cursor pointing after the last element
+ * instead of a page number, so fetching a deep page costs the same as fetching the first one.
+ *
+ * @param <T> The type of the elements in the slice.
+ */
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+
+    // Opaque token to pass back as "cursor" to fetch the next slice; null when there is none.
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    private int size;
+
+    // Only populated when the caller explicitly asks for a total, since it requires a COUNT query.
+    private Long totalElements;
+
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> content, String nextCursor, boolean hasNext, int size, Long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
@@ -0,0 +1,71 @@
+// File: com/wastecollect/common/dto/GpsPingDTO.java
+package com.wastecollect.common.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One GPS fix sent by a collector's device. Devices may send several fixes per request.
+ */
+public class GpsPingDTO {
+
+    private Double latitude;
+    private Double longitude;
+
+    // When the fix was taken, by the device's clock; the reception time if omitted
+    private LocalDateTime recordedAt;
+
+    // Optional, in m/s and metres
+    private Double speed;
+    private Double accuracy;
+
+    public GpsPingDTO() {
+    }
+
+    public GpsPingDTO(Double latitude, Double longitude, LocalDateTime recordedAt, Double speed, Double accuracy) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.recordedAt = recordedAt;
+        this.speed = speed;
+        this.accuracy = accuracy;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(Double speed) {
+        this.speed = speed;
+    }
+
+    public Double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(Double accuracy) {
+        this.accuracy = accuracy;
+    }
+}
@@ -38,6 +38,11 @@ public class NotificationDTO {
     private Long serviceRequestId;
     private Long paymentId;
     private Long disputeId;
+
+    // True for an audience-wide broadcast merged into the inbox: id is then null and broadcastId is set,
+    // since broadcast IDs come from another sequence than personal notification IDs
+    private Boolean broadcast = false;
+    private Long broadcastId;
 	
     
     
@@ -129,5 +134,17 @@ public class NotificationDTO {
 	public void setDisputeId(Long disputeId) {
 		this.disputeId = disputeId;
 	}
+	public Boolean getBroadcast() {
+		return broadcast;
+	}
+	public void setBroadcast(Boolean broadcast) {
+		this.broadcast = broadcast;
+	}
+	public Long getBroadcastId() {
+		return broadcastId;
+	}
+	public void setBroadcastId(Long broadcastId) {
+		this.broadcastId = broadcastId;
+	}
     
 }
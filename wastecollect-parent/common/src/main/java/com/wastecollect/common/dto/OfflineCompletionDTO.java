@@ -0,0 +1,82 @@
+// File: com/wastecollect/common/dto/OfflineCompletionDTO.java
+package com.wastecollect.common.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pickup completed by a collector while offline, uploaded later in a batch.
+ */
+public class OfflineCompletionDTO {
+
+    // Generated by the device once per completion and kept across retries, so that a re-upload is recognised
+    private String clientId;
+
+    private Long serviceRequestId;
+
+    // When the pickup was done, by the device's clock; the upload time if omitted
+    private LocalDateTime completedAt;
+
+    private Double actualWeight;
+    private Double latitude;
+    private Double longitude;
+    private String note;
+
+    public OfflineCompletionDTO() {
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getServiceRequestId() {
+        return serviceRequestId;
+    }
+
+    public void setServiceRequestId(Long serviceRequestId) {
+        this.serviceRequestId = serviceRequestId;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public Double getActualWeight() {
+        return actualWeight;
+    }
+
+    public void setActualWeight(Double actualWeight) {
+        this.actualWeight = actualWeight;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+}
@@ -0,0 +1,72 @@
+// File: com/wastecollect/common/dto/OfflineCompletionResultDTO.java
+package com.wastecollect.common.dto;
+
+import com.wastecollect.common.utils.CompletionOutcome;
+
+/**
+ * Outcome of one completion of an offline batch, in the order of the upload.
+ */
+public class OfflineCompletionResultDTO {
+
+    private String clientId;
+    private Long serviceRequestId;
+    private CompletionOutcome outcome;
+
+    // Set for COMPLETED and DUPLICATE
+    private Long wasteCollectionId;
+
+    // Why the completion was not recorded
+    private String message;
+
+    public OfflineCompletionResultDTO() {
+    }
+
+    public OfflineCompletionResultDTO(String clientId, Long serviceRequestId, CompletionOutcome outcome,
+                                      Long wasteCollectionId, String message) {
+        this.clientId = clientId;
+        this.serviceRequestId = serviceRequestId;
+        this.outcome = outcome;
+        this.wasteCollectionId = wasteCollectionId;
+        this.message = message;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public Long getServiceRequestId() {
+        return serviceRequestId;
+    }
+
+    public void setServiceRequestId(Long serviceRequestId) {
+        this.serviceRequestId = serviceRequestId;
+    }
+
+    public CompletionOutcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(CompletionOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public Long getWasteCollectionId() {
+        return wasteCollectionId;
+    }
+
+    public void setWasteCollectionId(Long wasteCollectionId) {
+        this.wasteCollectionId = wasteCollectionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -18,6 +18,7 @@ public class ServiceRequestDTO {
     private LocalDateTime updatedAt;
     private String householdAddress; // Field to store the household's address
     private HouseholdDTO household;  // Field to store basic household info
+    private Double distanceKm; // Distance from the collector, only set in the collector's work queue
 
     // Constructor, getters, and setters
     public ServiceRequestDTO() {
@@ -166,4 +167,12 @@ public class ServiceRequestDTO {
 	public void setAddress(String address) {
 		this.address = address;
 	}
+
+	public Double getDistanceKm() {
+		return distanceKm;
+	}
+
+	public void setDistanceKm(Double distanceKm) {
+		this.distanceKm = distanceKm;
+	}
 }
\ No newline at end of file
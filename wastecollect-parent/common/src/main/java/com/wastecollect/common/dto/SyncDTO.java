@@ -0,0 +1,141 @@
+// File: com/wastecollect/common/dto/SyncDTO.java
+package com.wastecollect.common.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes to a collector's service requests, notifications, broadcasts and payments since a sync token.
+ * Rows are sent in their current state; a row that was deleted, or that the collector can no longer see, is
+ * only sent as an ID. When {@code reset} is set the lists are a full snapshot and the client replaces its copy.
+ */
+public class SyncDTO {
+
+    // Opaque token to pass back as "token" on the next sync
+    private String token;
+
+    // True when the token was missing or too old: the lists hold everything, not changes
+    private boolean reset;
+
+    // More changes are waiting; sync again right away with the new token
+    private boolean hasMore;
+
+    private List<ServiceRequestDTO> serviceRequests = new ArrayList<>();
+
+    private List<Long> deletedServiceRequestIds = new ArrayList<>();
+
+    private List<NotificationDTO> notifications = new ArrayList<>();
+
+    private List<Long> deletedNotificationIds = new ArrayList<>();
+
+    // Broadcast notifications visible to the collector, identified by their broadcastId (another ID sequence)
+    private List<NotificationDTO> broadcasts = new ArrayList<>();
+
+    private List<Long> deletedBroadcastIds = new ArrayList<>();
+
+    // Every notification and broadcast held before this sync was marked as read; the listed ones still carry their own state
+    private boolean allNotificationsRead;
+
+    private List<PaymentDTO> payments = new ArrayList<>();
+
+    private List<Long> deletedPaymentIds = new ArrayList<>();
+
+    public SyncDTO() {
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public void setReset(boolean reset) {
+        this.reset = reset;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<ServiceRequestDTO> getServiceRequests() {
+        return serviceRequests;
+    }
+
+    public void setServiceRequests(List<ServiceRequestDTO> serviceRequests) {
+        this.serviceRequests = serviceRequests;
+    }
+
+    public List<Long> getDeletedServiceRequestIds() {
+        return deletedServiceRequestIds;
+    }
+
+    public void setDeletedServiceRequestIds(List<Long> deletedServiceRequestIds) {
+        this.deletedServiceRequestIds = deletedServiceRequestIds;
+    }
+
+    public List<NotificationDTO> getNotifications() {
+        return notifications;
+    }
+
+    public void setNotifications(List<NotificationDTO> notifications) {
+        this.notifications = notifications;
+    }
+
+    public List<Long> getDeletedNotificationIds() {
+        return deletedNotificationIds;
+    }
+
+    public void setDeletedNotificationIds(List<Long> deletedNotificationIds) {
+        this.deletedNotificationIds = deletedNotificationIds;
+    }
+
+    public List<NotificationDTO> getBroadcasts() {
+        return broadcasts;
+    }
+
+    public void setBroadcasts(List<NotificationDTO> broadcasts) {
+        this.broadcasts = broadcasts;
+    }
+
+    public List<Long> getDeletedBroadcastIds() {
+        return deletedBroadcastIds;
+    }
+
+    public void setDeletedBroadcastIds(List<Long> deletedBroadcastIds) {
+        this.deletedBroadcastIds = deletedBroadcastIds;
+    }
+
+    public boolean isAllNotificationsRead() {
+        return allNotificationsRead;
+    }
+
+    public void setAllNotificationsRead(boolean allNotificationsRead) {
+        this.allNotificationsRead = allNotificationsRead;
+    }
+
+    public List<PaymentDTO> getPayments() {
+        return payments;
+    }
+
+    public void setPayments(List<PaymentDTO> payments) {
+        this.payments = payments;
+    }
+
+    public List<Long> getDeletedPaymentIds() {
+        return deletedPaymentIds;
+    }
+
+    public void setDeletedPaymentIds(List<Long> deletedPaymentIds) {
+        this.deletedPaymentIds = deletedPaymentIds;
+    }
+}
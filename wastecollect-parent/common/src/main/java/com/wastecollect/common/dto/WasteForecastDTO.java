@@ -0,0 +1,94 @@
+// File: com/wastecollect/common/dto/WasteForecastDTO.java
+package com.wastecollect.common.dto;
+
+import com.wastecollect.common.utils.WasteType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Forecast of the weight collected in a municipality for one waste type, day by day over the horizon.
+ */
+public class WasteForecastDTO {
+
+    // 0 for collections without a municipality
+    private Long municipalityId;
+    private WasteType wasteType;
+
+    // Last day of observed data the forecast starts from
+    private LocalDate lastObservedDay;
+    private int horizonDays;
+    private List<WasteForecastPointDTO> days;
+
+    // Sum over the horizon; the interval is the sum of the daily ones, which errs on the wide side
+    private double totalExpectedWeightKg;
+    private double totalLowerWeightKg;
+    private double totalUpperWeightKg;
+
+    public WasteForecastDTO() {
+    }
+
+    public Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    public void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    public WasteType getWasteType() {
+        return wasteType;
+    }
+
+    public void setWasteType(WasteType wasteType) {
+        this.wasteType = wasteType;
+    }
+
+    public LocalDate getLastObservedDay() {
+        return lastObservedDay;
+    }
+
+    public void setLastObservedDay(LocalDate lastObservedDay) {
+        this.lastObservedDay = lastObservedDay;
+    }
+
+    public int getHorizonDays() {
+        return horizonDays;
+    }
+
+    public void setHorizonDays(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+
+    public List<WasteForecastPointDTO> getDays() {
+        return days;
+    }
+
+    public void setDays(List<WasteForecastPointDTO> days) {
+        this.days = days;
+    }
+
+    public double getTotalExpectedWeightKg() {
+        return totalExpectedWeightKg;
+    }
+
+    public void setTotalExpectedWeightKg(double totalExpectedWeightKg) {
+        this.totalExpectedWeightKg = totalExpectedWeightKg;
+    }
+
+    public double getTotalLowerWeightKg() {
+        return totalLowerWeightKg;
+    }
+
+    public void setTotalLowerWeightKg(double totalLowerWeightKg) {
+        this.totalLowerWeightKg = totalLowerWeightKg;
+    }
+
+    public double getTotalUpperWeightKg() {
+        return totalUpperWeightKg;
+    }
+
+    public void setTotalUpperWeightKg(double totalUpperWeightKg) {
+        this.totalUpperWeightKg = totalUpperWeightKg;
+    }
+}
@@ -0,0 +1,57 @@
+// File: com/wastecollect/common/dto/WasteForecastPointDTO.java
+package com.wastecollect.common.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Expected collected weight for one day, with its prediction interval.
+ */
+public class WasteForecastPointDTO {
+
+    private LocalDate day;
+    private double expectedWeightKg;
+    private double lowerWeightKg;
+    private double upperWeightKg;
+
+    public WasteForecastPointDTO() {
+    }
+
+    public WasteForecastPointDTO(LocalDate day, double expectedWeightKg, double lowerWeightKg, double upperWeightKg) {
+        this.day = day;
+        this.expectedWeightKg = expectedWeightKg;
+        this.lowerWeightKg = lowerWeightKg;
+        this.upperWeightKg = upperWeightKg;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public double getExpectedWeightKg() {
+        return expectedWeightKg;
+    }
+
+    public void setExpectedWeightKg(double expectedWeightKg) {
+        this.expectedWeightKg = expectedWeightKg;
+    }
+
+    public double getLowerWeightKg() {
+        return lowerWeightKg;
+    }
+
+    public void setLowerWeightKg(double lowerWeightKg) {
+        this.lowerWeightKg = lowerWeightKg;
+    }
+
+    public double getUpperWeightKg() {
+        return upperWeightKg;
+    }
+
+    public void setUpperWeightKg(double upperWeightKg) {
+        this.upperWeightKg = upperWeightKg;
+    }
+}
@@ -0,0 +1,140 @@
+package com.wastecollect.common.dto.notification;
+
+import com.wastecollect.common.utils.BroadcastJobStatus;
+import com.wastecollect.common.utils.NotificationType;
+import java.time.LocalDateTime;
+
+/**
+ * Progress view of a notification broadcast job, returned when the broadcast is submitted and by the progress endpoint.
+ */
+public class BroadcastJobDTO {
+
+    private Long id;
+    private String subject;
+    private NotificationType notificationType;
+    private String targetAudience;
+    private String targetRole;
+    private BroadcastJobStatus status;
+    private Long processedCount;
+    private Long totalRecipients;
+    private Double progressPercent;
+    private Long broadcastNotificationId;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public BroadcastJobDTO() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(NotificationType notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public String getTargetAudience() {
+        return targetAudience;
+    }
+
+    public void setTargetAudience(String targetAudience) {
+        this.targetAudience = targetAudience;
+    }
+
+    public String getTargetRole() {
+        return targetRole;
+    }
+
+    public void setTargetRole(String targetRole) {
+        this.targetRole = targetRole;
+    }
+
+    public BroadcastJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BroadcastJobStatus status) {
+        this.status = status;
+    }
+
+    public Long getProcessedCount() {
+        return processedCount;
+    }
+
+    public void setProcessedCount(Long processedCount) {
+        this.processedCount = processedCount;
+    }
+
+    public Long getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(Long totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public Double getProgressPercent() {
+        return progressPercent;
+    }
+
+    public void setProgressPercent(Double progressPercent) {
+        this.progressPercent = progressPercent;
+    }
+
+    public Long getBroadcastNotificationId() {
+        return broadcastNotificationId;
+    }
+
+    public void setBroadcastNotificationId(Long broadcastNotificationId) {
+        this.broadcastNotificationId = broadcastNotificationId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -8,7 +8,8 @@ public class ReportDTO {
     private String type;
     private String period;
     private LocalDateTime generatedDate;
-    private String status; // e.g., "completed", "processing", "failed"
+    private String status; // e.g., "completed", "processing", "failed", "cancelled"
+    private Integer progress; // Percentage of the generation done, while pending or processing
     private String format;
     private String fileSize;
     private String municipalityName; // Name of the municipality the report is for, or "Toutes"
@@ -79,6 +80,14 @@ public class ReportDTO {
         this.status = status;
     }
 
+    public Integer getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Integer progress) {
+        this.progress = progress;
+    }
+
     public String getFormat() {
         return format;
     }
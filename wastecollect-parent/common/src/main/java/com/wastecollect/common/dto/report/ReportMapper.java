@@ -17,7 +17,7 @@ public class ReportMapper {
         if (report == null) {
             return null;
         }
-        return new ReportDTO(
+        ReportDTO dto = new ReportDTO(
                 report.getId(),
                 report.getTitle(),
                 report.getType(),
@@ -29,6 +29,8 @@ public class ReportMapper {
                 report.getMunicipalityName(),
                 report.getGeneratedBy()
         );
+        dto.setProgress(report.getProgress());
+        return dto;
     }
 
     /**
@@ -50,6 +52,7 @@ public class ReportMapper {
         report.setPeriod(reportDTO.getPeriod());
         report.setGeneratedDate(reportDTO.getGeneratedDate());
         report.setStatus(reportDTO.getStatus());
+        report.setProgress(reportDTO.getProgress());
         report.setFormat(reportDTO.getFormat());
         report.setFileSize(reportDTO.getFileSize());
         report.setMunicipalityName(reportDTO.getMunicipalityName());
@@ -0,0 +1,66 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How far the archival job has gone for one hot table.
+ * The watermark is raised before the first row below it is moved, so every row at or after it is still in the hot
+ * table, and rows before it may be in either table (each row is in exactly one of them at any time).
+ */
+@Entity
+@Table(name = "archive_watermarks", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_archive_watermarks_table", columnNames = {"table_name"})
+})
+public class ArchiveWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Hot table the watermark belongs to, e.g. waste_collections
+    @Column(name = "table_name", length = 64, nullable = false)
+    private String tableName;
+
+    // Rows dated strictly before this instant may have been archived
+    @Column(name = "archived_before", nullable = false)
+    private LocalDateTime archivedBefore;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // No-argument constructor (required by JPA)
+    public ArchiveWatermark() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public LocalDateTime getArchivedBefore() {
+        return archivedBefore;
+    }
+
+    public void setArchivedBefore(LocalDateTime archivedBefore) {
+        this.archivedBefore = archivedBefore;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,104 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.wastecollect.common.utils.NotificationType;
+import com.wastecollect.common.utils.RoleName;
+
+/**
+ * A notification addressed to a whole audience (every user, or every user holding a role), stored once.
+ * Recipients see it merged into their inbox at read time; whether a given user has read it is tracked by
+ * {@link BroadcastNotificationRead}, so publishing costs one row regardless of the audience size.
+ */
+@Entity
+@Table(name = "broadcast_notifications", indexes = {
+        @Index(name = "idx_broadcast_notifications_created", columnList = "created_at, id")
+})
+public class BroadcastNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subject", length = 255, nullable = false)
+    private String subject;
+
+    @Column(name = "message", columnDefinition = "TEXT", nullable = false)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", length = 50, nullable = false)
+    private NotificationType notificationType;
+
+    // Role the broadcast is restricted to; null means every user
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_role", length = 50)
+    private RoleName targetRole;
+
+    // Users created after this instant do not see the broadcast, as if it had been delivered per recipient
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by", length = 100)
+    private String createdBy;
+
+    // No-argument constructor (required by JPA)
+    public BroadcastNotification() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(NotificationType notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public RoleName getTargetRole() {
+        return targetRole;
+    }
+
+    public void setTargetRole(RoleName targetRole) {
+        this.targetRole = targetRole;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+}
@@ -0,0 +1,89 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read marker of a {@link BroadcastNotification} for one user. A broadcast is unread for a user as long as
+ * no marker exists; the primary key starts with the user so a user's markers are one contiguous index range.
+ */
+@Entity
+@Table(name = "broadcast_notification_reads")
+@IdClass(BroadcastNotificationRead.Key.class)
+public class BroadcastNotificationRead {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "broadcast_id")
+    private Long broadcastId;
+
+    @Column(name = "read_at", nullable = false)
+    private LocalDateTime readAt;
+
+    // No-argument constructor (required by JPA)
+    public BroadcastNotificationRead() {}
+
+    public BroadcastNotificationRead(Long userId, Long broadcastId, LocalDateTime readAt) {
+        this.userId = userId;
+        this.broadcastId = broadcastId;
+        this.readAt = readAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+
+    public void setBroadcastId(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+
+    public LocalDateTime getReadAt() {
+        return readAt;
+    }
+
+    public void setReadAt(LocalDateTime readAt) {
+        this.readAt = readAt;
+    }
+
+    /**
+     * Composite primary key (user_id, broadcast_id).
+     */
+    public static class Key implements Serializable {
+
+        private Long userId;
+        private Long broadcastId;
+
+        public Key() {}
+
+        public Key(Long userId, Long broadcastId) {
+            this.userId = userId;
+            this.broadcastId = broadcastId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && Objects.equals(broadcastId, key.broadcastId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, broadcastId);
+        }
+    }
+}
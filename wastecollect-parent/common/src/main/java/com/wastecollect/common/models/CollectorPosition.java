@@ -0,0 +1,113 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A point of a collector's persisted GPS track.
+ * Only a downsampled subset of the received fixes is written, in batches, by the telemetry service; the latest
+ * fixes live in memory. Rows are pruned after the configured retention.
+ */
+@Entity
+@Table(name = "collector_positions", indexes = {
+        // Track of a collector over a period
+        @Index(name = "idx_collector_positions_collector_time", columnList = "collector_id, recorded_at"),
+        // Retention sweep
+        @Index(name = "idx_collector_positions_time", columnList = "recorded_at")
+})
+public class CollectorPosition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "collector_id", nullable = false)
+    private Long collectorId;
+
+    @Column(name = "municipality_id")
+    private Long municipalityId;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    @Column(name = "latitude", nullable = false)
+    private Double latitude;
+
+    @Column(name = "longitude", nullable = false)
+    private Double longitude;
+
+    // m/s, when the device reports it
+    @Column(name = "speed")
+    private Float speed;
+
+    // Metres, when the device reports it
+    @Column(name = "accuracy")
+    private Float accuracy;
+
+    // No-argument constructor (required by JPA)
+    public CollectorPosition() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCollectorId() {
+        return collectorId;
+    }
+
+    public void setCollectorId(Long collectorId) {
+        this.collectorId = collectorId;
+    }
+
+    public Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    public void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(Float speed) {
+        this.speed = speed;
+    }
+
+    public Float getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(Float accuracy) {
+        this.accuracy = accuracy;
+    }
+}
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "rating")
+@Table(name = "rating", indexes = {
+        // Latest feedback of a collector
+        @Index(name = "idx_rating_collector_date", columnList = "collector_id, rating_date")
+})
 public class CollectorRating {
 
     @Id
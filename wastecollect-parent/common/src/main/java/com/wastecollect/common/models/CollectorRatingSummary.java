@@ -0,0 +1,155 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Maintained aggregate of the ratings received by a collector.
+ * The row is created from the collector's ratings the first time it is needed, then adjusted by the transaction that
+ * inserts each new rating, so reading a collector's rating figures is a primary-key lookup.
+ * <p>
+ * The recent average weighs each rating by {@code 0.5^(age / half-life)}: {@code decayedSum} and {@code decayedWeight}
+ * are both expressed at {@code decayedAt}, and since decaying them further scales both alike, their ratio is the recent
+ * average at any later time.
+ */
+@Entity
+@Table(name = "collector_rating_summaries")
+public class CollectorRatingSummary {
+
+    @Id
+    @Column(name = "collector_id")
+    private Long collectorId;
+
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    // Histogram of the overall ratings, one column per star
+    @Column(name = "stars_1", nullable = false)
+    private Long stars1 = 0L;
+
+    @Column(name = "stars_2", nullable = false)
+    private Long stars2 = 0L;
+
+    @Column(name = "stars_3", nullable = false)
+    private Long stars3 = 0L;
+
+    @Column(name = "stars_4", nullable = false)
+    private Long stars4 = 0L;
+
+    @Column(name = "stars_5", nullable = false)
+    private Long stars5 = 0L;
+
+    @Column(name = "decayed_sum", nullable = false)
+    private Double decayedSum = 0.0;
+
+    @Column(name = "decayed_weight", nullable = false)
+    private Double decayedWeight = 0.0;
+
+    @Column(name = "decayed_at", nullable = false)
+    private LocalDateTime decayedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // No-argument constructor (required by JPA)
+    public CollectorRatingSummary() {}
+
+    public Long getCollectorId() {
+        return collectorId;
+    }
+
+    public void setCollectorId(Long collectorId) {
+        this.collectorId = collectorId;
+    }
+
+    public Long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Long getStars1() {
+        return stars1;
+    }
+
+    public void setStars1(Long stars1) {
+        this.stars1 = stars1;
+    }
+
+    public Long getStars2() {
+        return stars2;
+    }
+
+    public void setStars2(Long stars2) {
+        this.stars2 = stars2;
+    }
+
+    public Long getStars3() {
+        return stars3;
+    }
+
+    public void setStars3(Long stars3) {
+        this.stars3 = stars3;
+    }
+
+    public Long getStars4() {
+        return stars4;
+    }
+
+    public void setStars4(Long stars4) {
+        this.stars4 = stars4;
+    }
+
+    public Long getStars5() {
+        return stars5;
+    }
+
+    public void setStars5(Long stars5) {
+        this.stars5 = stars5;
+    }
+
+    public Double getDecayedSum() {
+        return decayedSum;
+    }
+
+    public void setDecayedSum(Double decayedSum) {
+        this.decayedSum = decayedSum;
+    }
+
+    public Double getDecayedWeight() {
+        return decayedWeight;
+    }
+
+    public void setDecayedWeight(Double decayedWeight) {
+        this.decayedWeight = decayedWeight;
+    }
+
+    public LocalDateTime getDecayedAt() {
+        return decayedAt;
+    }
+
+    public void setDecayedAt(LocalDateTime decayedAt) {
+        this.decayedAt = decayedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
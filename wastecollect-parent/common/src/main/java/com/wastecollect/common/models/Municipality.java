@@ -2,16 +2,31 @@
 package com.wastecollect.common.models;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Set;
 
 @Entity
-@Table(name = "municipalities") // Changed from @DiscriminatorValue("MUNICIPALITY")
+@Table(name = "municipalities", indexes = { // Changed from @DiscriminatorValue("MUNICIPALITY")
+        // MAX(last_modified) of the report cache watermark
+        @Index(name = "idx_municipalities_last_modified", columnList = "last_modified")
+})
+// Reference data that is read on almost every DTO conversion and only rarely edited by an admin
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "municipalities")
 public class Municipality { // No longer extends User directly, manages its own ID
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Set by MySQL on every insert and update, including plain SQL writes; the report cache uses the
+    // latest value across a report's source tables as its data watermark
+    @Column(name = "last_modified", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime lastModified;
+
     @Column(name = "municipality_name", nullable = false)
     private String municipalityName;
 
@@ -112,4 +127,8 @@ public class Municipality { // No longer extends User directly, manages its own
     public void setServiceRequests(Set<ServiceRequest> serviceRequests) {
         this.serviceRequests = serviceRequests;
     }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
 }
\ No newline at end of file
@@ -12,7 +12,12 @@ import org.hibernate.annotations.CreationTimestamp; // For automatic timestampin
  * Notifications can be linked to specific entities like ServiceRequests, Payments, or Disputes.
  */
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Supports keyset pagination of a recipient's inbox ordered by (created_at DESC, id DESC)
+        @Index(name = "idx_notifications_recipient_created", columnList = "recipient_user_id, created_at, id"),
+        // Lets the retention sweep find expired rows of a type and read state without scanning the table
+        @Index(name = "idx_notifications_type_read_created", columnList = "notification_type, is_read, created_at")
+})
 public class Notification {
 
     @Id
@@ -65,6 +70,10 @@ public class Notification {
     @JoinColumn(name = "dispute_id")
     private Dispute dispute;
 
+    // Optional: ID of the outbox event this notification was rendered from; unique so redelivery is a no-op
+    @Column(name = "source_event_id", length = 36, unique = true)
+    private String sourceEventId;
+
     public Notification() {
 		super();
 	}
@@ -200,5 +209,13 @@ public class Notification {
 		this.dispute = dispute;
 	}
 
+	public String getSourceEventId() {
+		return sourceEventId;
+	}
+
+	public void setSourceEventId(String sourceEventId) {
+		this.sourceEventId = sourceEventId;
+	}
+
 
 }
@@ -0,0 +1,273 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.wastecollect.common.utils.BroadcastJobStatus;
+import com.wastecollect.common.utils.NotificationType;
+
+/**
+ * A notification broadcast sent by an administrator to a whole audience (all users, a role, or a list of users).
+ * The job is written in chunks of recipients ordered by user ID; each chunk commits together with the
+ * job's progress, so an interrupted job resumes exactly after its last committed chunk.
+ */
+@Entity
+@Table(name = "notification_broadcast_jobs")
+public class NotificationBroadcastJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subject", length = 255, nullable = false)
+    private String subject;
+
+    @Column(name = "message", columnDefinition = "TEXT", nullable = false)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type", length = 50, nullable = false)
+    private NotificationType notificationType;
+
+    @Column(name = "target_audience", length = 20, nullable = false)
+    private String targetAudience;
+
+    @Column(name = "target_role", length = 50)
+    private String targetRole;
+
+    // Comma-separated recipient IDs for the SPECIFIC_USERS audience
+    @Column(name = "target_user_ids", columnDefinition = "TEXT")
+    private String targetUserIds;
+
+    @Column(name = "service_request_id")
+    private Long serviceRequestId;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "dispute_id")
+    private Long disputeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private BroadcastJobStatus status;
+
+    // Highest user ID already covered by a committed chunk: the resume point after a crash
+    @Column(name = "last_processed_user_id", nullable = false)
+    private Long lastProcessedUserId = 0L;
+
+    // Number of notifications written so far
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    // Recipient count computed when the job is submitted, for progress reporting
+    @Column(name = "total_recipients")
+    private Long totalRecipients;
+
+    // Set when the broadcast was published once for the whole audience instead of per recipient
+    @Column(name = "broadcast_notification_id")
+    private Long broadcastNotificationId;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_by", length = 100)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Refreshed by the instance running the job with every chunk; a RUNNING job whose heartbeat is old was interrupted
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // Written by the instance that claimed the job; its progress and status writes only apply while the job carries it
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    // No-argument constructor (required by JPA)
+    public NotificationBroadcastJob() {}
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(NotificationType notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public String getTargetAudience() {
+        return targetAudience;
+    }
+
+    public void setTargetAudience(String targetAudience) {
+        this.targetAudience = targetAudience;
+    }
+
+    public String getTargetRole() {
+        return targetRole;
+    }
+
+    public void setTargetRole(String targetRole) {
+        this.targetRole = targetRole;
+    }
+
+    public String getTargetUserIds() {
+        return targetUserIds;
+    }
+
+    public void setTargetUserIds(String targetUserIds) {
+        this.targetUserIds = targetUserIds;
+    }
+
+    public Long getServiceRequestId() {
+        return serviceRequestId;
+    }
+
+    public void setServiceRequestId(Long serviceRequestId) {
+        this.serviceRequestId = serviceRequestId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public Long getDisputeId() {
+        return disputeId;
+    }
+
+    public void setDisputeId(Long disputeId) {
+        this.disputeId = disputeId;
+    }
+
+    public BroadcastJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BroadcastJobStatus status) {
+        this.status = status;
+    }
+
+    public Long getLastProcessedUserId() {
+        return lastProcessedUserId;
+    }
+
+    public void setLastProcessedUserId(Long lastProcessedUserId) {
+        this.lastProcessedUserId = lastProcessedUserId;
+    }
+
+    public Long getProcessedCount() {
+        return processedCount;
+    }
+
+    public void setProcessedCount(Long processedCount) {
+        this.processedCount = processedCount;
+    }
+
+    public Long getTotalRecipients() {
+        return totalRecipients;
+    }
+
+    public void setTotalRecipients(Long totalRecipients) {
+        this.totalRecipients = totalRecipients;
+    }
+
+    public Long getBroadcastNotificationId() {
+        return broadcastNotificationId;
+    }
+
+    public void setBroadcastNotificationId(Long broadcastNotificationId) {
+        this.broadcastNotificationId = broadcastNotificationId;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+}
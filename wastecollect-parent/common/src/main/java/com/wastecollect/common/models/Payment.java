@@ -7,13 +7,26 @@ import com.wastecollect.common.utils.PaymentMethod;
 import com.wastecollect.common.utils.PaymentStatus;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        // Supports keyset pagination of a household's payment history ordered by (payment_date DESC, id DESC)
+        @Index(name = "idx_payments_household_date", columnList = "household_id, payment_date, id"),
+        // Date-ordered scans of the financial report
+        @Index(name = "idx_payments_date", columnList = "payment_date"),
+        // MAX(last_modified) of the report cache watermark
+        @Index(name = "idx_payments_last_modified", columnList = "last_modified")
+})
 public class Payment {
     
     // Unique identifier for the payment (primary key)
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    // Set by MySQL on every insert and update, including plain SQL writes; the report cache uses the
+    // latest value across a report's source tables as its data watermark
+    @Column(name = "last_modified", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime lastModified;
     
     // Payment amount
     @Column(name = "amount", nullable = false)
@@ -155,4 +168,8 @@ public class Payment {
     public void updatePaymentStatus(PaymentStatus newStatus) {
         this.status = newStatus;
     }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
 }
\ No newline at end of file
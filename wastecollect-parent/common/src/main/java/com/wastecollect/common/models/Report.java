@@ -8,7 +8,10 @@ import java.time.LocalDateTime;
  * Stocke les métadonnées des rapports, leur statut et d'autres informations pertinentes.
  */
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+        @Index(name = "idx_reports_status_updated", columnList = "status, updated_at"),
+        @Index(name = "idx_reports_cache", columnList = "cache_key, data_watermark")
+})
 public class Report {
 
     @Id
@@ -28,9 +31,40 @@ public class Report {
     private LocalDateTime generatedDate; // Date et heure de génération du rapport
 
     @Column(name = "status", nullable = false, length = 20)
-    // Statut du rapport (ex: "pending", "processing", "completed", "failed")
+    // Statut du rapport (ex: "pending", "processing", "completed", "failed", "cancelled", "expired")
     private String status;
 
+    @Column(name = "progress")
+    private Integer progress; // Avancement de la génération, en pourcentage (0 à 100)
+
+    // Dernière écriture du générateur ; un rapport "processing" qui n'est plus mis à jour est considéré comme abandonné
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Jeton du générateur qui a réclamé le rapport ; ses écritures n'aboutissent que tant qu'il le détient
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    // Configuration de la demande (JSON), conservée pour relancer la génération après un redémarrage
+    @Column(name = "config", columnDefinition = "TEXT")
+    private String config;
+
+    // Empreinte canonique de la configuration (SHA-256) : deux demandes identiques ont la même clé
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    // Dernière modification des tables sources prise en compte par le rapport ; il reste valable tant qu'elle n'a pas changé
+    @Column(name = "data_watermark")
+    private LocalDateTime dataWatermark;
+
+    // Nombre de lignes des tables sources à ce moment : une suppression ou un archivage ne change pas le watermark
+    @Column(name = "data_rows")
+    private Long dataRows;
+
+    // Dernier téléchargement ou réutilisation du rapport, pour l'éviction des fichiers les moins utilisés
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt;
+
     @Column(name = "format", nullable = false, length = 10)
     private String format; // Format du fichier (ex: "pdf", "excel", "both")
 
@@ -112,6 +146,70 @@ public class Report {
         this.status = status;
     }
 
+    public Integer getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Integer progress) {
+        this.progress = progress;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getConfig() {
+        return config;
+    }
+
+    public void setConfig(String config) {
+        this.config = config;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public LocalDateTime getDataWatermark() {
+        return dataWatermark;
+    }
+
+    public void setDataWatermark(LocalDateTime dataWatermark) {
+        this.dataWatermark = dataWatermark;
+    }
+
+    public Long getDataRows() {
+        return dataRows;
+    }
+
+    public void setDataRows(Long dataRows) {
+        this.dataRows = dataRows;
+    }
+
+    public LocalDateTime getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
+
     public String getFormat() {
         return format;
     }
@@ -3,9 +3,14 @@ package com.wastecollect.common.models;
 import com.wastecollect.common.utils.RoleName;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "roles")
+// Les rôles ne changent jamais après leur création : cache de second niveau en lecture seule
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "roles")
 public class Role {
     
     // Identifiant unique du rôle (clé primaire)
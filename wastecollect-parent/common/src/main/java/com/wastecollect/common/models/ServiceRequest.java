@@ -7,7 +7,14 @@ import com.wastecollect.common.utils.ServiceRequestStatus;
 import com.wastecollect.common.utils.WasteType;
 
 @Entity
-@Table(name = "service_requests")
+@Table(name = "service_requests", indexes = {
+		// MAX(last_modified) of the report cache watermark
+		@Index(name = "idx_service_requests_last_modified", columnList = "last_modified"),
+		// Open requests loaded by the automatic dispatcher
+		@Index(name = "idx_service_requests_status_municipality", columnList = "status, municipality_id"),
+		// Recent requests scanned when the demand heatmap is rebuilt
+		@Index(name = "idx_service_requests_created_at", columnList = "created_at")
+})
 public class ServiceRequest {
 
 	// Unique identifier for the service request (primary key)
@@ -15,6 +22,12 @@ public class ServiceRequest {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private Long id;
 
+	// Set by MySQL on every insert and update, including plain SQL writes; the report cache uses the
+	// latest value across a report's source tables as its data watermark
+	@Column(name = "last_modified", insertable = false, updatable = false,
+	        columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+	private LocalDateTime lastModified;
+
 	// Description of the service request
 	@Column(name = "description", length = 500)
 	private String description;
@@ -205,4 +218,8 @@ public class ServiceRequest {
 		this.status = newStatus;
 		this.updatedAt = LocalDateTime.now();
 	}
+
+	public LocalDateTime getLastModified() {
+		return lastModified;
+	}
 }
\ No newline at end of file
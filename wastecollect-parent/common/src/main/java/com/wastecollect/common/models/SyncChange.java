@@ -0,0 +1,106 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
+
+/**
+ * One entry of the change log read by the mobile delta sync: "this row changed" in a scope, at a sequence number.
+ * Only the identity of the row is logged; a sync reads its current state, and reports it as deleted if it is gone
+ * or no longer visible to the collector. Entries are pruned after the configured retention.
+ */
+@Entity
+@Table(name = "sync_changes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sync_changes_scope_seq", columnNames = {"scope_type", "scope_id", "seq"})
+}, indexes = {
+        // Retention sweep
+        @Index(name = "idx_sync_changes_changed_at", columnList = "changed_at")
+})
+public class SyncChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope_type", length = 20, nullable = false)
+    private SyncScope scopeType;
+
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    @Column(name = "seq", nullable = false)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 30, nullable = false)
+    private SyncEntityType entityType;
+
+    // Null for changes that cover every row of the scope (e.g. all notifications marked as read)
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // No-argument constructor (required by JPA)
+    public SyncChange() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SyncScope getScopeType() {
+        return scopeType;
+    }
+
+    public void setScopeType(SyncScope scopeType) {
+        this.scopeType = scopeType;
+    }
+
+    public Long getScopeId() {
+        return scopeId;
+    }
+
+    public void setScopeId(Long scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public SyncEntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(SyncEntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
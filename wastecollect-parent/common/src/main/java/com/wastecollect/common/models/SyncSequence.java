@@ -0,0 +1,67 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+
+import com.wastecollect.common.utils.SyncScope;
+
+/**
+ * Change sequence of one sync scope (a user or a municipality).
+ * A transaction takes the next numbers of a scope just before it commits and keeps the row locked until then,
+ * so the numbers of a scope become visible in order and a reader that has seen number N has seen all below it.
+ */
+@Entity
+@Table(name = "sync_sequences", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sync_sequences_scope", columnNames = {"scope_type", "scope_id"})
+})
+public class SyncSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope_type", length = 20, nullable = false)
+    private SyncScope scopeType;
+
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+
+    // Last number handed out in the scope
+    @Column(name = "seq", nullable = false)
+    private Long seq = 0L;
+
+    // No-argument constructor (required by JPA)
+    public SyncSequence() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public SyncScope getScopeType() {
+        return scopeType;
+    }
+
+    public void setScopeType(SyncScope scopeType) {
+        this.scopeType = scopeType;
+    }
+
+    public Long getScopeId() {
+        return scopeId;
+    }
+
+    public void setScopeId(Long scopeId) {
+        this.scopeId = scopeId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+}
@@ -2,6 +2,8 @@
 
     import com.wastecollect.common.utils.RoleName;
     import jakarta.persistence.*;
+    import org.hibernate.annotations.Cache;
+    import org.hibernate.annotations.CacheConcurrencyStrategy;
     import org.springframework.data.annotation.CreatedBy;
     import org.springframework.data.annotation.CreatedDate;
     import org.springframework.data.annotation.LastModifiedBy;
@@ -18,16 +20,29 @@
     import java.util.stream.Collectors;
 
     @Entity
-    @Table(name = "users")
+    @Table(name = "users", indexes = {
+            // MAX(last_modified) of the report cache watermark
+            @Index(name = "idx_users_last_modified", columnList = "last_modified")
+    })
     @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
     @DiscriminatorColumn(name = "user_type")
     @EntityListeners(AuditingEntityListener.class)
+    // Second-level cache region shared by the whole hierarchy (Collector, Household, MunicipalManager, Admin);
+    // the short TTL of the "users" region is configured in ehcache.xml
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
     public class User implements UserDetails {
 
         @Id
         @GeneratedValue(strategy = GenerationType.IDENTITY)
         private Long id;
 
+        // Set by MySQL on every insert and update, including plain SQL writes; the report cache uses the
+        // latest value across a report's source tables as its data watermark
+        @Column(name = "last_modified", insertable = false, updatable = false,
+                columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+        private LocalDateTime lastModified;
+
         @Column(name = "first_name", nullable = false)
         private String firstName;
 
@@ -64,6 +79,7 @@
         private String lastModifiedBy; // Store username or ID of last modifier
 
         @ManyToMany(fetch = FetchType.EAGER)
+        @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users.roles")
         @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -272,5 +288,9 @@
         public boolean isEnabled() {
             return this.enabled; // Now returns the field's value
         }
+
+        public LocalDateTime getLastModified() {
+            return lastModified;
+        }
     }
     
\ No newline at end of file
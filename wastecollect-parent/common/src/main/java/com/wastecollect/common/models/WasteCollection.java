@@ -6,13 +6,28 @@ import java.time.LocalDateTime;
 import com.wastecollect.common.utils.ServiceRequestStatus;
 
 @Entity
-@Table(name = "waste_collections")
+@Table(name = "waste_collections", indexes = {
+        // Range scans by municipality and date, and the archival job's date cutoff
+        @Index(name = "idx_waste_collections_municipality_date", columnList = "municipality_id, collection_date"),
+        @Index(name = "idx_waste_collections_date", columnList = "collection_date"),
+        // MAX(last_modified) of the report cache watermark
+        @Index(name = "idx_waste_collections_last_modified", columnList = "last_modified")
+}, uniqueConstraints = {
+        // A completion uploaded twice from a collector's offline queue is recorded once
+        @UniqueConstraint(name = "uk_waste_collections_client_completion", columnNames = {"collector_id", "client_completion_id"})
+})
 public class WasteCollection {
     
     // Unique identifier for the waste collection (primary key)
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+
+    // Set by MySQL on every insert and update, including plain SQL writes; the report cache uses the
+    // latest value across a report's source tables as its data watermark
+    @Column(name = "last_modified", insertable = false, updatable = false,
+            columnDefinition = "DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime lastModified;
     
     // Date and time of the collection
     @Column(name = "collection_date", nullable = false)
@@ -64,6 +79,10 @@ public class WasteCollection {
     @Column(name = "status", length = 20)
     private ServiceRequestStatus status;
 
+    // ID generated by the collector's device for an offline completion; null for online completions
+    @Column(name = "client_completion_id", length = 64)
+    private String clientCompletionId;
+
     // No-argument constructor (required by JPA)
     public WasteCollection() {}
 
@@ -184,4 +203,16 @@ public class WasteCollection {
 	public void setStatus(ServiceRequestStatus status) {
 		this.status = status;
 	}
+
+	public String getClientCompletionId() {
+		return clientCompletionId;
+	}
+
+	public void setClientCompletionId(String clientCompletionId) {
+		this.clientCompletionId = clientCompletionId;
+	}
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
 }
\ No newline at end of file
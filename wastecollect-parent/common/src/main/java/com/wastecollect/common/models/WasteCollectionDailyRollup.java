@@ -0,0 +1,107 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.wastecollect.common.utils.WasteType;
+
+/**
+ * Daily aggregate of waste collections, per municipality and waste type.
+ * Rows are written by the forecasting job shortly after each day ends, and restated for a few days to catch late
+ * uploads, so the daily weight series can be read without scanning {@code waste_collections}. Unlike the monthly
+ * rollups they are kept for days still in the hot table too.
+ */
+@Entity
+@Table(name = "waste_collection_daily_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_rollup_municipality_day_type", columnNames = {"municipality_id", "period_day", "waste_type"})
+}, indexes = {
+        // Series reads over a range of days
+        @Index(name = "idx_daily_rollup_day", columnList = "period_day")
+})
+public class WasteCollectionDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Municipality of the aggregated collections (0 when the collections had no municipality)
+    @Column(name = "municipality_id", nullable = false)
+    private Long municipalityId;
+
+    @Column(name = "period_day", nullable = false)
+    private LocalDate periodDay;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "waste_type", length = 50, nullable = false)
+    private WasteType wasteType;
+
+    @Column(name = "collection_count", nullable = false)
+    private Long collectionCount;
+
+    @Column(name = "total_weight_kg", nullable = false)
+    private Double totalWeightKg;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // No-argument constructor (required by JPA)
+    public WasteCollectionDailyRollup() {}
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    public void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    public LocalDate getPeriodDay() {
+        return periodDay;
+    }
+
+    public void setPeriodDay(LocalDate periodDay) {
+        this.periodDay = periodDay;
+    }
+
+    public WasteType getWasteType() {
+        return wasteType;
+    }
+
+    public void setWasteType(WasteType wasteType) {
+        this.wasteType = wasteType;
+    }
+
+    public Long getCollectionCount() {
+        return collectionCount;
+    }
+
+    public void setCollectionCount(Long collectionCount) {
+        this.collectionCount = collectionCount;
+    }
+
+    public Double getTotalWeightKg() {
+        return totalWeightKg;
+    }
+
+    public void setTotalWeightKg(Double totalWeightKg) {
+        this.totalWeightKg = totalWeightKg;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,127 @@
+package com.wastecollect.common.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.wastecollect.common.utils.WasteType;
+
+/**
+ * Monthly aggregate of archived waste collections, per municipality and waste type.
+ * Rows are accumulated by the archival job before detailed collections are moved out of the hot
+ * {@code waste_collections} table, so historical analytics can keep reading totals without touching the archive.
+ */
+@Entity
+@Table(name = "waste_collection_monthly_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_municipality_month_type", columnNames = {"municipality_id", "period_month", "waste_type"})
+})
+public class WasteCollectionMonthlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Municipality of the aggregated collections (0 when the collections had no municipality)
+    @Column(name = "municipality_id", nullable = false)
+    private Long municipalityId;
+
+    // First day of the aggregated month
+    @Column(name = "period_month", nullable = false)
+    private LocalDate periodMonth;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "waste_type", length = 50, nullable = false)
+    private WasteType wasteType;
+
+    @Column(name = "collection_count", nullable = false)
+    private Long collectionCount;
+
+    @Column(name = "total_weight_kg", nullable = false)
+    private Double totalWeightKg;
+
+    // Sum and count of household ratings, to rebuild the average rating of the period
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // No-argument constructor (required by JPA)
+    public WasteCollectionMonthlyRollup() {}
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    public void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    public LocalDate getPeriodMonth() {
+        return periodMonth;
+    }
+
+    public void setPeriodMonth(LocalDate periodMonth) {
+        this.periodMonth = periodMonth;
+    }
+
+    public WasteType getWasteType() {
+        return wasteType;
+    }
+
+    public void setWasteType(WasteType wasteType) {
+        this.wasteType = wasteType;
+    }
+
+    public Long getCollectionCount() {
+        return collectionCount;
+    }
+
+    public void setCollectionCount(Long collectionCount) {
+        this.collectionCount = collectionCount;
+    }
+
+    public Double getTotalWeightKg() {
+        return totalWeightKg;
+    }
+
+    public void setTotalWeightKg(Double totalWeightKg) {
+        this.totalWeightKg = totalWeightKg;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.wastecollect.common.utils;
+
+/**
+ * Defines the possible states of a notification broadcast job.
+ */
+public enum BroadcastJobStatus {
+    PENDING,    // The job is persisted but no chunk has been written yet.
+    RUNNING,    // Chunks are being written; lastProcessedUserId tells where to resume.
+    COMPLETED,  // Every recipient has received the notification.
+    FAILED      // An error stopped the job; it can be resumed from its last committed chunk.
+}
@@ -0,0 +1,16 @@
+package com.wastecollect.common.utils;
+
+/**
+ * Result of one completion of an offline batch.
+ */
+public enum CompletionOutcome {
+    // Recorded by this upload
+    COMPLETED,
+    // Already recorded by an earlier upload of the same client ID
+    DUPLICATE,
+    // The request is not held by the collector, or no longer open for completion
+    CONFLICT,
+    NOT_FOUND,
+    // The completion itself is malformed (missing IDs, out of range values)
+    INVALID
+}
@@ -0,0 +1,42 @@
+package com.wastecollect.common.utils;
+
+/**
+ * Domain events recorded in the notification outbox, with the template of the notification each one produces.
+ * Placeholders like {@code {serviceRequestId}} are replaced with the values stored in the event payload.
+ */
+public enum NotificationEventType {
+    SERVICE_REQUEST_ACCEPTED(NotificationType.SERVICE_REQUEST_UPDATE,
+            "Service Request Accepted",
+            "Your service request (ID: {serviceRequestId}) has been accepted by {collectorName}. Expected collection date: {preferredDate}"),
+    SERVICE_REQUEST_STARTED(NotificationType.SERVICE_REQUEST_UPDATE,
+            "Service Request In Progress",
+            "Your service request (ID: {serviceRequestId}) is now in progress. The collector is on their way."),
+    SERVICE_REQUEST_COMPLETED(NotificationType.SERVICE_REQUEST_UPDATE,
+            "Service Request Completed",
+            "Your service request (ID: {serviceRequestId}) has been successfully completed by {collectorName}. Thank you!"),
+    SERVICE_REQUEST_REJECTED(NotificationType.SERVICE_REQUEST_UPDATE,
+            "Service Request Rejected",
+            "Your service request (ID: {serviceRequestId}) was rejected due to: {reason}");
+
+    private final NotificationType notificationType;
+    private final String subjectTemplate;
+    private final String messageTemplate;
+
+    NotificationEventType(NotificationType notificationType, String subjectTemplate, String messageTemplate) {
+        this.notificationType = notificationType;
+        this.subjectTemplate = subjectTemplate;
+        this.messageTemplate = messageTemplate;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public String getSubjectTemplate() {
+        return subjectTemplate;
+    }
+
+    public String getMessageTemplate() {
+        return messageTemplate;
+    }
+}
@@ -0,0 +1,14 @@
+package com.wastecollect.common.utils;
+
+/**
+ * Kind of row a sync change points to.
+ */
+public enum SyncEntityType {
+    SERVICE_REQUEST,
+    NOTIFICATION,
+    // Every notification of the user was marked as read at once; the change carries no entity ID
+    NOTIFICATIONS_READ,
+    PAYMENT,
+    // A broadcast notification, published for a role or read/unread by the user
+    BROADCAST
+}
@@ -0,0 +1,11 @@
+package com.wastecollect.common.utils;
+
+/**
+ * Audience of a sync change: the user it belongs to, every collector of a municipality, or every user of a role
+ * (the scope ID is then the ID of the role in {@code roles}).
+ */
+public enum SyncScope {
+    USER,
+    MUNICIPALITY,
+    ROLE
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Classe principale de l'application Spring Boot pour le backend de Waste Collect.
@@ -12,11 +13,13 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
  * - @EntityScan: Scanne les entités JPA dans le package 'com.wastecollect.common.models'.
  * - @EnableJpaRepositories: Scanne les dépôts JPA dans le package 'com.wastecollect.backend.repositories'.
  * - @EnableCaching: Active la prise en charge du cache dans l'application.
+ * - @EnableScheduling: Active les tâches planifiées (archivage des données anciennes, etc.).
  */
 @SpringBootApplication(scanBasePackages = {"com.wastecollect.backend", "com.wastecollect.common"})
 @EntityScan("com.wastecollect.common.models")
 @EnableJpaRepositories("com.wastecollect.backend.repository")
 @EnableCaching
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
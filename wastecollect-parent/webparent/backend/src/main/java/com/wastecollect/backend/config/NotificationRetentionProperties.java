@@ -0,0 +1,154 @@
+package com.wastecollect.backend.config;
+
+import com.wastecollect.common.utils.NotificationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Politiques de rétention des notifications, lues depuis {@code app.notification-retention.*}.
+ * <p>
+ * Chaque type de notification peut avoir une durée de vie pour ses notifications lues et une autre pour les
+ * non lues ; un type sans politique (ou une durée absente) est conservé indéfiniment. Exemple :
+ * {@code app.notification-retention.policies.SERVICE_REQUEST_UPDATE.read-ttl-days=90}.
+ */
+@Component
+@ConfigurationProperties("app.notification-retention")
+public class NotificationRetentionProperties {
+
+    /** Active la purge planifiée. */
+    private boolean enabled = true;
+
+    /** Nombre maximal de lignes supprimées par transaction. */
+    private int batchSize = 1000;
+
+    /** Pause entre deux lots, pour limiter la charge imposée à la base. */
+    private long pauseMs = 100;
+
+    /** Nombre maximal de lots par exécution (0 = illimité) ; le reste est traité à l'exécution suivante. */
+    private int maxBatchesPerRun = 0;
+
+    /** Durées de vie par type de notification. */
+    private Map<NotificationType, Policy> policies = new EnumMap<>(NotificationType.class);
+
+    /** Regroupement des anciennes mises à jour de demandes de service en une notification récapitulative. */
+    private Digest digest = new Digest();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPauseMs() {
+        return pauseMs;
+    }
+
+    public void setPauseMs(long pauseMs) {
+        this.pauseMs = pauseMs;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    public Map<NotificationType, Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(Map<NotificationType, Policy> policies) {
+        this.policies = policies;
+    }
+
+    public Digest getDigest() {
+        return digest;
+    }
+
+    public void setDigest(Digest digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * Durées de vie d'un type de notification, en jours depuis sa création.
+     */
+    public static class Policy {
+
+        /** Durée de vie des notifications lues (null = conservées). */
+        private Integer readTtlDays;
+
+        /** Durée de vie des notifications non lues (null = conservées). */
+        private Integer unreadTtlDays;
+
+        public Integer getReadTtlDays() {
+            return readTtlDays;
+        }
+
+        public void setReadTtlDays(Integer readTtlDays) {
+            this.readTtlDays = readTtlDays;
+        }
+
+        public Integer getUnreadTtlDays() {
+            return unreadTtlDays;
+        }
+
+        public void setUnreadTtlDays(Integer unreadTtlDays) {
+            this.unreadTtlDays = unreadTtlDays;
+        }
+    }
+
+    /**
+     * Paramètres du récapitulatif : les mises à jour lues d'une même demande, plus anciennes que
+     * {@code afterDays}, sont remplacées par une seule notification.
+     */
+    public static class Digest {
+
+        /** Active le récapitulatif (désactivé par défaut). */
+        private boolean enabled = false;
+
+        /** Âge minimal, en jours, des mises à jour regroupées. */
+        private int afterDays = 30;
+
+        /** Nombre de demandes de service récapitulées par transaction. */
+        private int groupsPerBatch = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getAfterDays() {
+            return afterDays;
+        }
+
+        public void setAfterDays(int afterDays) {
+            this.afterDays = afterDays;
+        }
+
+        public int getGroupsPerBatch() {
+            return groupsPerBatch;
+        }
+
+        public void setGroupsPerBatch(int groupsPerBatch) {
+            this.groupsPerBatch = groupsPerBatch;
+        }
+    }
+}
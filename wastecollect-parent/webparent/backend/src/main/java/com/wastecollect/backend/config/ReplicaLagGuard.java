@@ -0,0 +1,61 @@
+package com.wastecollect.backend.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mémorise l'instant de la dernière écriture validée de chaque utilisateur.
+ * Pendant une courte fenêtre après sa propre écriture, un utilisateur continue de lire
+ * sur la base primaire : le réplica peut encore être en retard et il ne doit pas "perdre"
+ * ce qu'il vient d'enregistrer (read-your-writes).
+ */
+public class ReplicaLagGuard {
+
+    private final long stickyWindowNanos;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(long stickyWindowMillis) {
+        this.stickyWindowNanos = stickyWindowMillis * 1_000_000L;
+    }
+
+    /**
+     * Enregistre une écriture validée pour l'utilisateur courant (sans effet pour un appel anonyme).
+     */
+    public void recordWrite() {
+        String username = currentUsername();
+        if (username != null) {
+            lastWriteByUser.put(username, System.nanoTime());
+        }
+    }
+
+    /**
+     * Indique si l'utilisateur courant a écrit récemment et doit donc lire sur la primaire.
+     */
+    public boolean isStickyToPrimary() {
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteByUser.get(username);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < stickyWindowNanos) {
+            return true;
+        }
+        // Fenêtre expirée : on libère l'entrée pour ne pas accumuler d'utilisateurs inactifs
+        lastWriteByUser.remove(username, lastWrite);
+        return false;
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,56 @@
+package com.wastecollect.backend.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource de routage : les transactions {@code @Transactional(readOnly = true)} sont envoyées
+ * vers le réplica, tout le reste vers la primaire.
+ * Doit être enveloppée dans un {@code LazyConnectionDataSourceProxy} afin que le caractère
+ * read-only de la transaction soit connu au moment où la connexion physique est obtenue.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private static final Object WRITE_TRACKED_KEY = new Object();
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReplicaRoutingDataSource(ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return lagGuard.isStickyToPrimary() ? Route.PRIMARY : Route.REPLICA;
+        }
+        trackWriteOnCommit();
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Enregistre, une seule fois par transaction d'écriture, un callback qui marque l'utilisateur
+     * comme "collant" à la primaire après la validation.
+     */
+    private void trackWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_TRACKED_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_TRACKED_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lagGuard.recordWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_TRACKED_KEY);
+            }
+        });
+    }
+}
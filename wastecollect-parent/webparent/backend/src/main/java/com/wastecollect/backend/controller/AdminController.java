@@ -3,6 +3,16 @@ package com.wastecollect.backend.controller;
 
 import com.wastecollect.common.dto.*; // Import all DTOs from the common package
 import com.wastecollect.backend.service.AdminService;
+import com.wastecollect.backend.service.CacheStatisticsService;
+import com.wastecollect.backend.service.DataArchivingService;
+import com.wastecollect.backend.service.NotificationBroadcastService;
+import com.wastecollect.backend.service.NotificationRetentionService;
+import com.wastecollect.backend.service.heatmap.DemandHeatmapService;
+import com.wastecollect.backend.service.report.RangedFileSender;
+import com.wastecollect.backend.service.report.ReportFormat;
+import com.wastecollect.common.utils.WasteType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page; // Import Page
@@ -14,6 +24,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime; // Import LocalDateTime
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +32,7 @@ import java.util.Map; // For generic map responses
 // Removed: import java.time.LocalDateTime; as ReportDTO will now be imported
 
 // NEW Import
+import com.wastecollect.common.dto.notification.BroadcastJobDTO;
 import com.wastecollect.common.dto.notification.CreateNotificationRequest;
 import com.wastecollect.common.dto.report.ReportConfigDTO;
 import com.wastecollect.common.dto.report.ReportDTO;
@@ -35,6 +47,21 @@ public class AdminController {
 
     @Autowired
     private AdminService adminService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private DataArchivingService dataArchivingService;
+
+    @Autowired
+    private NotificationBroadcastService notificationBroadcastService;
+
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+
+    @Autowired
+    private RangedFileSender rangedFileSender;
     
     // --- New Endpoint for fetching all users (e.g., for manager selection in municipalities) ---
     @GetMapping("/users")
@@ -283,11 +310,17 @@ public class AdminController {
     }
 
 
-    // Re-added: Generates a new report.
+    /**
+     * Requests a report. An identical report over unchanged data is returned directly (200 when its file is ready);
+     * otherwise its generation is queued (202).
+     * @param reportConfigDTO The report configuration.
+     * @return The report, whose status and progress can be followed in the report list.
+     */
     @PostMapping("/reports/generate")
-    public ResponseEntity<String> generateReport(@Valid @RequestBody ReportConfigDTO reportConfigDTO) {
-        adminService.generateReport(reportConfigDTO);
-        return ResponseEntity.status(HttpStatus.ACCEPTED).body("Report generation initiated.");
+    public ResponseEntity<ReportDTO> generateReport(@Valid @RequestBody ReportConfigDTO reportConfigDTO) {
+        ReportDTO report = adminService.generateReport(reportConfigDTO);
+        HttpStatus status = "completed".equals(report.getStatus()) ? HttpStatus.OK : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(report);
     }
 
     /**
@@ -304,13 +337,146 @@ public class AdminController {
         return ResponseEntity.ok(reportPage);
     }
 
-    // Re-added: Downloads a specific report.
+    /**
+     * Downloads a completed report. The file is streamed from disk and supports conditional requests
+     * (ETag, Last-Modified) and byte ranges, so an interrupted download can be resumed.
+     * @param id The ID of the report to download.
+     */
     @GetMapping("/reports/{id}/download")
-    public ResponseEntity<byte[]> downloadReport(@PathVariable Long id) throws IOException {
-        byte[] fileContent = adminService.downloadReport(id);
-        return ResponseEntity.ok()
-                .header("Content-Disposition", "attachment; filename=\"report_" + id + ".pdf\"") // Example filename
-                .body(fileContent);
+    public void downloadReport(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = adminService.getReportFile(id);
+        // Stored files are named after their content hash
+        String storedName = file.getFileName().toString();
+        int dot = storedName.lastIndexOf('.');
+        String fileName = "report-" + id + (dot >= 0 ? storedName.substring(dot) : "");
+        String baseName = dot >= 0 ? storedName.substring(0, dot) : storedName;
+        // Files stored before content addressing keep an ETag derived from their attributes
+        String contentHash = baseName.matches("[0-9a-f]{64}") ? baseName : null;
+        rangedFileSender.send(file, contentHash, fileName, ReportFormat.contentTypeOf(fileName), request, response);
+    }
+
+    /**
+     * Cancels a report that is waiting for or undergoing generation.
+     * @param id The ID of the report to cancel.
+     * @return 204 No Content; 409 if the report has already completed, failed or been cancelled.
+     */
+    @PostMapping("/reports/{id}/cancel")
+    public ResponseEntity<Void> cancelReport(@PathVariable Long id) {
+        adminService.cancelReport(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Returns the state of the report generation queue.
+     * @return Queued and running reports, per class (interactive or bulk) and per user.
+     */
+    @GetMapping("/reports/queue")
+    public ResponseEntity<Map<String, Object>> getReportQueueStatus() {
+        return ResponseEntity.ok(adminService.getReportQueueStatus());
+    }
+
+    /**
+     * Returns the state of the automatic dispatch of service requests.
+     * @return Per municipality ID, the open requests and active collectors known to the dispatcher.
+     */
+    @GetMapping("/dispatch/status")
+    public ResponseEntity<Map<Long, Map<String, Integer>>> getDispatchStatus() {
+        return ResponseEntity.ok(adminService.getDispatchStatus());
+    }
+
+    /**
+     * Returns where the collectors are now, from the positions their devices report.
+     * @param municipalityId Restricts the result to one municipality (optional).
+     * @param maxAgeSeconds Leaves out collectors not heard from for longer.
+     * @return The latest position of each collector.
+     */
+    @GetMapping("/collectors/positions")
+    public ResponseEntity<List<CollectorPositionDTO>> getCollectorPositions(
+            @RequestParam(required = false) Long municipalityId,
+            @RequestParam(defaultValue = "300") long maxAgeSeconds) {
+        return ResponseEntity.ok(adminService.getCollectorPositions(municipalityId, maxAgeSeconds));
+    }
+
+    /**
+     * Returns the latest positions of a collector, newest first.
+     * @param collectorId The collector.
+     * @param limit Maximum number of positions.
+     * @return The positions.
+     */
+    @GetMapping("/collectors/{collectorId}/track")
+    public ResponseEntity<List<CollectorPositionDTO>> getCollectorTrack(@PathVariable Long collectorId,
+                                                                        @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(adminService.getCollectorTrack(collectorId, limit));
+    }
+
+    /**
+     * Returns the state of the collector telemetry ingestion.
+     * @return Counters of the fixes received, accepted, persisted and dropped.
+     */
+    @GetMapping("/telemetry/status")
+    public ResponseEntity<Map<String, Long>> getTelemetryStatus() {
+        return ResponseEntity.ok(adminService.getTelemetryStatus());
+    }
+
+    /**
+     * Returns the forecast weight to collect per municipality and waste type, day by day, for capacity planning.
+     * @param municipalityId Restricts to one municipality (optional; 0 for collections without one).
+     * @param wasteType Restricts to one waste type (optional).
+     * @param horizonDays Number of days to forecast (7 by default, 30 at most).
+     * @return One forecast per series, with 95% intervals.
+     */
+    @GetMapping("/forecasts/waste")
+    public ResponseEntity<List<WasteForecastDTO>> getWasteForecasts(
+            @RequestParam(required = false) Long municipalityId,
+            @RequestParam(required = false) WasteType wasteType,
+            @RequestParam(defaultValue = "7") int horizonDays) {
+        return ResponseEntity.ok(adminService.getWasteForecasts(municipalityId, wasteType, horizonDays));
+    }
+
+    /**
+     * Returns the state of the waste forecasting models.
+     * @return The number of series modelled, the last observed day and the day of the last fit.
+     */
+    @GetMapping("/forecasts/status")
+    public ResponseEntity<Map<String, Object>> getWasteForecastStatus() {
+        return ResponseEntity.ok(adminService.getWasteForecastStatus());
+    }
+
+    /**
+     * Returns the hottest geohash cells of a recent window, for the whole territory, a municipality or an area.
+     * @param precision Geohash precision of the cells (6 by default, about 1.2 x 0.6 km).
+     * @param windowDays Length of the window ending today (7 by default).
+     * @param municipalityId Restricts to one municipality (optional).
+     * @param minLatitude South edge of the area (optional; the four edges go together).
+     * @param minLongitude West edge of the area.
+     * @param maxLatitude North edge of the area.
+     * @param maxLongitude East edge of the area.
+     * @param metric Ranking: REQUESTS (default), COLLECTIONS or WEIGHT.
+     * @param limit Number of cells (20 by default).
+     * @return The cells with their bounds and figures, hottest first.
+     */
+    @GetMapping("/demand/heatmap")
+    public ResponseEntity<List<DemandCellDTO>> getDemandHotCells(
+            @RequestParam(defaultValue = "6") int precision,
+            @RequestParam(defaultValue = "7") int windowDays,
+            @RequestParam(required = false) Long municipalityId,
+            @RequestParam(required = false) Double minLatitude,
+            @RequestParam(required = false) Double minLongitude,
+            @RequestParam(required = false) Double maxLatitude,
+            @RequestParam(required = false) Double maxLongitude,
+            @RequestParam(defaultValue = "REQUESTS") DemandHeatmapService.Metric metric,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(adminService.getDemandHotCells(precision, windowDays, municipalityId, minLatitude,
+                minLongitude, maxLatitude, maxLongitude, metric, limit));
+    }
+
+    /**
+     * Returns the state of the demand heatmap.
+     * @return The configured precisions and windows, and the number of cells per precision.
+     */
+    @GetMapping("/demand/heatmap/status")
+    public ResponseEntity<Map<String, Object>> getDemandHeatmapStatus() {
+        return ResponseEntity.ok(adminService.getDemandHeatmapStatus());
     }
 
     // Re-added: Retrieves map data (e.g., coverage gaps).
@@ -329,17 +495,18 @@ public class AdminController {
 
     /**
      * Endpoint for Admin to create and send notifications to various target audiences.
+     * The broadcast is delivered asynchronously; the response carries the job to poll for progress.
      * Requires ADMIN role.
      *
      * @param request The CreateNotificationRequestDTO containing notification details and target info.
-     * @return ResponseEntity indicating success or failure.
+     * @return 202 Accepted with the broadcast job, or an error message.
      */
     @PostMapping("/notifications/send")
     @PreAuthorize("hasRole('ADMIN')") // Ensure only ADMINs can send notifications
-    public ResponseEntity<String> sendNotifications(@Valid @RequestBody CreateNotificationRequest request) {
+    public ResponseEntity<?> sendNotifications(@Valid @RequestBody CreateNotificationRequest request) {
         try {
-            adminService.sendNotifications(request);
-            return ResponseEntity.ok("Notifications sent successfully.");
+            BroadcastJobDTO job = adminService.sendNotifications(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
         } catch (ResourceException e) {
             // Log the error for debugging
             org.slf4j.LoggerFactory.getLogger(AdminController.class).error("Failed to send notifications: {}", e.getMessage());
@@ -350,4 +517,77 @@ public class AdminController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred while sending notifications.");
         }
     }
+
+    /**
+     * Returns the progress of a notification broadcast job.
+     *
+     * @param jobId The broadcast job ID returned by {@code /notifications/send}.
+     */
+    @GetMapping("/notifications/broadcasts/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BroadcastJobDTO> getBroadcastJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(notificationBroadcastService.getJob(jobId));
+    }
+
+    /**
+     * Resumes a failed or interrupted broadcast job from its last committed chunk.
+     *
+     * @param jobId The broadcast job ID.
+     */
+    @PostMapping("/notifications/broadcasts/{jobId}/resume")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BroadcastJobDTO> resumeBroadcastJob(@PathVariable Long jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(notificationBroadcastService.resume(jobId));
+    }
+
+    // --- Hibernate Cache Monitoring ---
+
+    /**
+     * Returns second-level and query cache hit/miss statistics, globally and per region.
+     */
+    @GetMapping("/cache-statistics")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getCacheStatistics());
+    }
+
+    /**
+     * Resets the cache statistics counters, e.g. before measuring a scenario.
+     */
+    @DeleteMapping("/cache-statistics")
+    public ResponseEntity<Void> resetCacheStatistics() {
+        cacheStatisticsService.resetCacheStatistics();
+        return ResponseEntity.noContent().build();
+    }
+
+    // --- Hot/Cold Data Archiving ---
+
+    /**
+     * Runs the archival job immediately instead of waiting for its nightly schedule.
+     *
+     * @return The number of rows moved to the archive tables, per table.
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Integer>> runArchival() {
+        return ResponseEntity.ok(dataArchivingService.archiveAll());
+    }
+
+    // --- Notification Retention ---
+
+    /**
+     * Runs the notification retention sweep immediately instead of waiting for its nightly schedule.
+     *
+     * @return The report of the run (deleted notifications per type, digests, batches, duration).
+     */
+    @PostMapping("/notifications/retention/run")
+    public ResponseEntity<Map<String, Object>> runNotificationRetention() {
+        return ResponseEntity.ok(notificationRetentionService.sweep());
+    }
+
+    /**
+     * Returns the notification retention metrics: totals since startup and the report of the last run.
+     */
+    @GetMapping("/notifications/retention/metrics")
+    public ResponseEntity<Map<String, Object>> getNotificationRetentionMetrics() {
+        return ResponseEntity.ok(notificationRetentionService.getMetrics());
+    }
 }
@@ -3,6 +3,7 @@ package com.wastecollect.backend.controller;
 import com.wastecollect.common.dto.*;
 import com.wastecollect.common.models.Collector;
 import com.wastecollect.common.models.Notification;
+import com.wastecollect.backend.exception.ConflictException;
 import com.wastecollect.backend.exception.ResourceNotFoundException;
 import com.wastecollect.backend.service.CollectorService;
 import com.wastecollect.backend.service.UserService; // Import UserService
@@ -96,6 +97,45 @@ public class CollectorController {
         }
     }
 
+    /**
+     * Retrieves one page of the authenticated collector's work queue: its accepted and in-progress requests, then
+     * the pending requests of its municipality ranked by distance and age.
+     * @param latitude Current latitude of the collector (optional; its last known position otherwise).
+     * @param longitude Current longitude of the collector (optional).
+     * @param cursor Cursor returned with the previous page, omitted for the first page.
+     * @param size Maximum number of requests to return.
+     * @return A CursorPageDTO of ServiceRequestDTOs.
+     */
+    @GetMapping("/service-requests/queue")
+    public ResponseEntity<CursorPageDTO<ServiceRequestDTO>> getWorkQueue(
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(collectorService.getWorkQueueForAuthenticatedCollector(latitude, longitude, cursor, size));
+        } catch (IllegalStateException e) {
+            logger.error("Error fetching work queue: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+    }
+
+    /**
+     * Retrieves what changed in the authenticated collector's service requests, notifications and payments since
+     * the previous sync, in one response.
+     * @param token Token returned by the previous sync; omitted (or expired) for a full snapshot.
+     * @return A SyncDTO with the changed rows, the deleted IDs and the token for the next sync.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<SyncDTO> sync(@RequestParam(required = false) String token) {
+        try {
+            return ResponseEntity.ok(collectorService.syncForAuthenticatedCollector(token));
+        } catch (IllegalStateException e) {
+            logger.error("Error syncing collector data: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+    }
+
     /**
      * Allows the authenticated collector to accept a service request.
      * @param serviceRequestId The ID of the service request to accept.
@@ -109,6 +149,9 @@ public class CollectorController {
             collectorService.acceptServiceRequest(serviceRequestId, actionDto);
             logger.info("Service request ID: {} accepted successfully.", serviceRequestId);
             return ResponseEntity.ok("Service request accepted successfully.");
+        } catch (ConflictException e) {
+            logger.warn("Conflict accepting service request ID {}: {}", serviceRequestId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalStateException | ResourceNotFoundException e) {
             logger.error("Error accepting service request ID {}: {}", serviceRequestId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -131,6 +174,9 @@ public class CollectorController {
             collectorService.rejectServiceRequest(serviceRequestId, actionDto);
             logger.info("Service request ID: {} rejected successfully.", serviceRequestId);
             return ResponseEntity.ok("Service request rejected successfully.");
+        } catch (ConflictException e) {
+            logger.warn("Conflict rejecting service request ID {}: {}", serviceRequestId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalStateException | ResourceNotFoundException e) {
             logger.error("Error rejecting service request ID {}: {}", serviceRequestId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -152,6 +198,9 @@ public class CollectorController {
             collectorService.startServiceRequest(serviceRequestId);
             logger.info("Service request ID: {} started successfully.", serviceRequestId);
             return ResponseEntity.ok("Service request started successfully.");
+        } catch (ConflictException e) {
+            logger.warn("Conflict starting service request ID {}: {}", serviceRequestId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalStateException | ResourceNotFoundException e) {
             logger.error("Error starting service request ID {}: {}", serviceRequestId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -175,6 +224,9 @@ public class CollectorController {
             collectorService.completeServiceRequest(serviceRequestId, actionDto);
             logger.info("Service request ID: {} completed successfully.", serviceRequestId);
             return ResponseEntity.ok("Service request completed successfully.");
+        } catch (ConflictException e) {
+            logger.warn("Conflict completing service request ID {}: {}", serviceRequestId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (IllegalStateException | ResourceNotFoundException e) {
             logger.error("Error completing service request ID {}: {}", serviceRequestId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
@@ -184,6 +236,39 @@ public class CollectorController {
         }
     }
 
+    /**
+     * Records a batch of pickups the authenticated collector completed while offline, e.g. when it reconnects.
+     * Each completion carries a client-generated ID, so uploading the same batch again is harmless.
+     * @param completions The completions, with their time, weight and position.
+     * @return One result per completion, in the order of the batch.
+     */
+    @PostMapping("/completions")
+    public ResponseEntity<List<OfflineCompletionResultDTO>> completeOfflineBatch(@RequestBody List<OfflineCompletionDTO> completions) {
+        logger.info("Collector uploading {} offline completions.", completions != null ? completions.size() : 0);
+        try {
+            return ResponseEntity.ok(collectorService.completeOfflineBatch(completions));
+        } catch (IllegalStateException e) {
+            logger.error("Error uploading offline completions: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+    }
+
+    /**
+     * Receives GPS fixes from the authenticated collector's device, typically every few seconds.
+     * Fixes are recorded asynchronously; the response only tells how many were accepted.
+     * @param pings The fixes, with their time, coordinates and optionally speed and accuracy.
+     * @return 202 with the number of fixes accepted.
+     */
+    @PostMapping("/telemetry")
+    public ResponseEntity<Map<String, Integer>> reportTelemetry(@RequestBody List<GpsPingDTO> pings) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("accepted", collectorService.reportTelemetry(pings)));
+        } catch (IllegalStateException e) {
+            logger.error("Error recording telemetry: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+    }
+
     /**
      * Retrieves performance indicators for the authenticated collector.
      * This is used for the Collector Dashboard.
@@ -243,6 +328,20 @@ public class CollectorController {
         }
     }
 
+    /**
+     * Retrieves the rating figures of the authenticated collector.
+     * @return A CollectorRatingSummaryDTO with the count, average, recent average and star histogram.
+     */
+    @GetMapping("/ratings/summary")
+    public ResponseEntity<CollectorRatingSummaryDTO> getRatingSummary() {
+        try {
+            return ResponseEntity.ok(collectorService.getRatingSummary());
+        } catch (IllegalStateException e) {
+            logger.error("Error fetching rating summary: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(null);
+        }
+    }
+
     /**
      * Retrieves recent household feedback for the authenticated collector.
      * @param limit The maximum number of feedback entries to retrieve.
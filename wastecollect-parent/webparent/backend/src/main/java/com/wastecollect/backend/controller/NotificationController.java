@@ -1,16 +1,24 @@
 package com.wastecollect.backend.controller;
 
 import com.wastecollect.backend.service.NotificationService;
+import com.wastecollect.backend.service.UserService;
+import com.wastecollect.backend.service.push.NotificationStreamService;
+import com.wastecollect.common.dto.CursorPageDTO;
 import com.wastecollect.common.dto.NotificationDTO;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.wastecollect.common.utils.NotificationType;
 import org.springframework.http.HttpMethod;
 
@@ -21,6 +29,7 @@ import java.util.Optional;
  * Provides endpoints for creating, retrieving, updating, and deleting notifications.
  */
 @RestController
+@Validated
 @RequestMapping("/api/v1/notifications")
 //@CrossOrigin(origins = "http://localhost:3000", methods = {"GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"}, allowedHeaders = "*", allowCredentials = "true")
 public class NotificationController {
@@ -28,6 +37,33 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Opens a Server-Sent Events stream for the authenticated user, replacing the polling of the notification,
+     * alert and service request endpoints. Events: {@code notification}, {@code alert}, {@code broadcast},
+     * {@code service-request}, and {@code resync} when the client must reload its lists once.
+     * A reconnecting client sends the ID of the last event it received in the {@code Last-Event-ID} header
+     * (or the {@code lastEventId} parameter) and receives what it missed.
+     * The request must carry the usual Bearer token, so browsers use a fetch-based EventSource client.
+     *
+     * @param lastEventIdHeader Last event ID sent automatically by reconnecting EventSource clients.
+     * @param lastEventId Same, as a query parameter for clients that cannot set headers.
+     * @return The event stream.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'MUNICIPAL_MANAGER', 'COLLECTOR', 'HOUSEHOLD')")
+    public SseEmitter streamNotifications(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return notificationStreamService.subscribe(userService.getCurrentUser(),
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
     /**
      * Creates a new notification.
      * This endpoint might be used by other internal services or admin.
@@ -75,6 +111,51 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Retrieves notifications for a specific user with keyset (cursor) pagination.
+     * Pass the {@code nextCursor} of a response as {@code cursor} to fetch the following slice.
+     *
+     * @param userId The ID of the recipient user.
+     * @param isRead Optional filter for read status.
+     * @param notificationType Optional filter for notification type.
+     * @param cursor Opaque cursor from the previous slice; omit for the first slice.
+     * @param size Maximum number of notifications per slice.
+     * @param includeTotal Whether to compute the total number of matching notifications.
+     * @return A slice of NotificationDTOs, newest first.
+     */
+    @GetMapping("/user/{userId}/scroll")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('COLLECTOR', 'HOUSEHOLD', 'MUNICIPALITY', 'MUNICIPAL_MANAGER') and #userId == authentication.principal.id)")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> scrollNotificationsForUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Boolean isRead,
+            @RequestParam(required = false) NotificationType notificationType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        CursorPageDTO<NotificationDTO> notifications = notificationService.getNotificationsForUserByCursor(
+                userId, isRead, notificationType, cursor, size, includeTotal);
+        return ResponseEntity.ok(notifications);
+    }
+
+    /**
+     * Retrieves a user's archived notifications, newest first, with keyset (cursor) pagination.
+     *
+     * @param userId The ID of the recipient user.
+     * @param cursor Opaque cursor from the previous slice; omit for the first slice.
+     * @param size Maximum number of notifications per slice.
+     * @return A slice of archived NotificationDTOs.
+     */
+    @GetMapping("/user/{userId}/archive")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('COLLECTOR', 'HOUSEHOLD', 'MUNICIPALITY', 'MUNICIPAL_MANAGER') and #userId == authentication.principal.id)")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getArchivedNotificationsForUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size) {
+
+        return ResponseEntity.ok(notificationService.getArchivedNotificationsForUser(userId, cursor, size));
+    }
+
     /**
      * Marks a specific notification as read.
      * @param id The ID of the notification to mark as read.
@@ -111,6 +192,42 @@ public class NotificationController {
         return ResponseEntity.ok(count);
     }
 
+    /**
+     * Returns the number of unread notifications of a user, personal and broadcast.
+     * @param userId The ID of the user.
+     * @return ResponseEntity with the unread count.
+     */
+    @GetMapping("/user/{userId}/unread-count")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('COLLECTOR', 'HOUSEHOLD', 'MUNICIPALITY', 'MUNICIPAL_MANAGER') and #userId == authentication.principal.id)")
+    public ResponseEntity<Long> getUnreadCountForUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(notificationService.getUnreadCountForUser(userId));
+    }
+
+    /**
+     * Marks a broadcast notification as read for a user.
+     * Broadcasts appear in the user's listing with {@code broadcast = true}; their ID is the broadcast ID.
+     * @param userId The ID of the user.
+     * @param broadcastId The ID of the broadcast notification.
+     * @return ResponseEntity with the broadcast as seen by the user.
+     */
+    @PutMapping("/user/{userId}/broadcasts/{broadcastId}/mark-read")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('COLLECTOR', 'HOUSEHOLD', 'MUNICIPALITY', 'MUNICIPAL_MANAGER') and #userId == authentication.principal.id)")
+    public ResponseEntity<NotificationDTO> markBroadcastAsRead(@PathVariable Long userId, @PathVariable Long broadcastId) {
+        return ResponseEntity.ok(notificationService.markBroadcastAsRead(userId, broadcastId));
+    }
+
+    /**
+     * Marks a broadcast notification as unread for a user.
+     * @param userId The ID of the user.
+     * @param broadcastId The ID of the broadcast notification.
+     * @return ResponseEntity with the broadcast as seen by the user.
+     */
+    @PutMapping("/user/{userId}/broadcasts/{broadcastId}/mark-unread")
+    @PreAuthorize("hasRole('ADMIN') or (hasAnyRole('COLLECTOR', 'HOUSEHOLD', 'MUNICIPALITY', 'MUNICIPAL_MANAGER') and #userId == authentication.principal.id)")
+    public ResponseEntity<NotificationDTO> markBroadcastAsUnread(@PathVariable Long userId, @PathVariable Long broadcastId) {
+        return ResponseEntity.ok(notificationService.markBroadcastAsUnread(userId, broadcastId));
+    }
+
     /**
      * Deletes a notification by its ID.
      * @param id The ID of the notification to delete.
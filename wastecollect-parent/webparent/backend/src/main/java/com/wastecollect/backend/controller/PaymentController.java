@@ -1,10 +1,13 @@
 package com.wastecollect.backend.controller;
 
+import com.wastecollect.common.dto.CursorPageDTO;
 import com.wastecollect.common.dto.PaymentDTO;
 
 
 
 import com.wastecollect.backend.service.PaymentService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -12,6 +15,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import org.springframework.data.domain.Page; // Import Page
@@ -21,6 +26,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/v1/payment")
 @CrossOrigin(origins = "http://localhost:3000")
 public class PaymentController {
@@ -74,7 +80,25 @@ public class PaymentController {
         );
         return ResponseEntity.ok(paymentHistoryPage);
     }
-    
+
+
+    // Keyset (cursor) pagination variant of the household history, for deep scrolling without offset scans
+    @GetMapping("/history/household/{householdId}/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MUNICIPAL_MANAGER') or (hasRole('HOUSEHOLD') and #householdId == authentication.principal.id)")
+    public ResponseEntity<CursorPageDTO<PaymentDTO>> scrollPaymentHistoryForHousehold(
+            @PathVariable Long householdId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String searchReference,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(paymentService.getPaymentHistoryForHouseholdByCursor(
+            householdId, status, paymentMethod, startDate, endDate, searchReference, cursor, size, includeTotal
+        ));
+    }    
  // Example for PaymentController.java
     @GetMapping("/receipt/{paymentId}")
     public ResponseEntity<byte[]> downloadReceipt(@PathVariable Long paymentId) {
@@ -0,0 +1,12 @@
+package com.wastecollect.backend.exception;
+
+/**
+ * Thrown when a state change cannot be applied because the resource is no longer in the expected state,
+ * typically because a concurrent request changed it first. Mapped to HTTP 409 Conflict.
+ */
+public class ConflictException extends WasteCollectException {
+
+    public ConflictException(String message) {
+        super("CONFLICT", message);
+    }
+}
@@ -1,5 +1,6 @@
 package com.wastecollect.backend.exception;
 
+import jakarta.validation.ConstraintViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -46,6 +47,24 @@ public class GlobalExceptionHandler {
 
    
 
+    @ExceptionHandler(RequestValidationException.class)
+    public ResponseEntity<ErrorDetails> handleRequestValidationException(
+            RequestValidationException ex, WebRequest request) {
+        logger.warn("RequestValidationException: {}", ex.getMessage());
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(), "Invalid Request", ex.getMessage());
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ErrorDetails> handleConflictException(
+            ConflictException ex, WebRequest request) {
+        logger.warn("ConflictException: {}", ex.getMessage());
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(), "Conflict", ex.getMessage());
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(SecurityException.class) // For unauthorized access to resources
     public ResponseEntity<ErrorDetails> handleSecurityException(
             SecurityException ex, WebRequest request) {
@@ -67,6 +86,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST); // Return map of errors directly
     }
 
+    // Constraints on the parameters of @Validated controllers (e.g. @Min/@Max on a page size)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Object> handleConstraintViolationException(
+            ConstraintViolationException ex, WebRequest request) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getConstraintViolations().forEach(violation -> {
+            String path = violation.getPropertyPath().toString();
+            errors.put(path.substring(path.lastIndexOf('.') + 1), violation.getMessage());
+        });
+        logger.warn("Validation failed: {}", errors);
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorDetails> handleGlobalException(
             Exception ex, WebRequest request) {
@@ -0,0 +1,14 @@
+package com.wastecollect.backend.repository;
+
+import com.wastecollect.common.models.BroadcastNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for audience-wide broadcast notifications.
+ * Inbox reads that merge broadcasts with personal notifications are done by
+ * {@link com.wastecollect.backend.service.NotificationInboxService}.
+ */
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+}
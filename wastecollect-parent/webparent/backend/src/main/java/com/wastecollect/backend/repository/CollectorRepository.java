@@ -6,14 +6,20 @@ import com.wastecollect.common.utils.CollectorStatus;
 
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import org.springframework.data.domain.Page; // Import Page
 import org.springframework.data.domain.Pageable; // Import Pageable
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CollectorRepository extends JpaRepository<Collector, Long> {
 
+	// Resolved on every collector request from the security context, hence cacheable
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	Optional<Collector> findByEmail(String username);
 
 	long countByMunicipality(Municipality municipality);
@@ -0,0 +1,84 @@
+// File: com/wastecollect/backend/repository/KeysetCursor.java
+package com.wastecollect.backend.repository;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a result set ordered by (timestamp DESC, id DESC), used by the keyset (seek) queries.
+ * Result sets merging rows whose ids come from different sequences also order by a source number between the
+ * timestamp and the id, so that ids are only compared within one source; it is 0 when there is a single source.
+ * The position is exchanged with clients as an opaque URL-safe token so they never build it themselves.
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime timestamp;
+    private final int source;
+    private final Long id;
+
+    public KeysetCursor(LocalDateTime timestamp, Long id) {
+        this(timestamp, 0, id);
+    }
+
+    public KeysetCursor(LocalDateTime timestamp, int source, Long id) {
+        this.timestamp = timestamp;
+        this.source = source;
+        this.id = id;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encodes this position as an opaque token.
+     *
+     * @return A URL-safe Base64 token.
+     */
+    public String encode() {
+        String raw = source == 0
+                ? timestamp.toString() + SEPARATOR + id
+                : timestamp.toString() + SEPARATOR + source + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously produced by {@link #encode()}.
+     *
+     * @param token The opaque token sent back by the client. May be null or blank for the first page.
+     * @return The decoded position, or null if no token was given.
+     * @throws RequestValidationException if the token is malformed.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length == 2) {
+                return new KeysetCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+            }
+            if (parts.length == 3) {
+                return new KeysetCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]), Long.valueOf(parts[2]));
+            }
+            throw new RequestValidationException("Invalid pagination cursor.");
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RequestValidationException("Invalid pagination cursor.");
+        }
+    }
+}
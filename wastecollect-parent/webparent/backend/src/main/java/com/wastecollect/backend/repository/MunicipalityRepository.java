@@ -5,9 +5,13 @@ import com.wastecollect.common.models.Municipality;
 import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import org.springframework.data.domain.Page; // Import Page
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -30,8 +34,11 @@ public interface MunicipalityRepository extends JpaRepository<Municipality, Long
      * Spring Data JPA will automatically generate the query for this.
      *
      * @param municipalityName The name of the municipality to find.
+     * The result is kept in the query cache, the entity itself in the "municipalities" region.
+     *
      * @return An Optional containing the Municipality if found, or empty otherwise.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Municipality> findByMunicipalityName(String municipalityName);
 
     /**
@@ -0,0 +1,83 @@
+package com.wastecollect.backend.repository;
+
+import com.wastecollect.common.models.NotificationBroadcastJob;
+import com.wastecollect.common.utils.BroadcastJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for notification broadcast jobs.
+ */
+@Repository
+public interface NotificationBroadcastJobRepository extends JpaRepository<NotificationBroadcastJob, Long> {
+
+    /**
+     * Finds the jobs in the given statuses, oldest first (used to resume interrupted broadcasts at startup).
+     */
+    List<NotificationBroadcastJob> findByStatusInOrderByIdAsc(Collection<BroadcastJobStatus> statuses);
+
+    /**
+     * Records a committed chunk. Runs in the same transaction as the chunk's INSERT, so the resume point
+     * never disagrees with the notifications actually written.
+     *
+     * @return 1 if the caller still holds the claim, 0 if the job was re-queued or claimed by another runner.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationBroadcastJob j SET j.lastProcessedUserId = :lastUserId, " +
+           "j.processedCount = j.processedCount + :written, j.heartbeatAt = :now " +
+           "WHERE j.id = :id AND j.status = com.wastecollect.common.utils.BroadcastJobStatus.RUNNING AND j.claimToken = :token")
+    int advanceProgress(@Param("id") Long id, @Param("token") String token, @Param("lastUserId") Long lastUserId,
+                        @Param("written") long written, @Param("now") LocalDateTime now);
+
+    /**
+     * Takes a job for this instance under the caller's claim token: a PENDING one, or a RUNNING one whose runner
+     * stopped sending heartbeats. The guard makes two instances resuming the same job at once agree on a single runner.
+     *
+     * @return 1 if the job was claimed, 0 if it is running elsewhere, completed or failed.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationBroadcastJob j SET j.status = com.wastecollect.common.utils.BroadcastJobStatus.RUNNING, " +
+           "j.claimToken = :token, j.startedAt = COALESCE(j.startedAt, :now), j.heartbeatAt = :now, " +
+           "j.errorMessage = NULL, j.finishedAt = NULL " +
+           "WHERE j.id = :id AND (j.status = com.wastecollect.common.utils.BroadcastJobStatus.PENDING " +
+           "OR (j.status = com.wastecollect.common.utils.BroadcastJobStatus.RUNNING " +
+           "AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)))")
+    int claim(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Puts a failed or interrupted job back to PENDING, unless it is completed or running with a recent heartbeat.
+     * The previous runner's claim is dropped with it.
+     *
+     * @return 1 if the job was re-queued.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationBroadcastJob j SET j.status = com.wastecollect.common.utils.BroadcastJobStatus.PENDING, " +
+           "j.claimToken = NULL, j.errorMessage = NULL, j.finishedAt = NULL " +
+           "WHERE j.id = :id AND j.status <> com.wastecollect.common.utils.BroadcastJobStatus.COMPLETED " +
+           "AND NOT (j.status = com.wastecollect.common.utils.BroadcastJobStatus.RUNNING " +
+           "AND j.heartbeatAt IS NOT NULL AND j.heartbeatAt >= :staleBefore)")
+    int requeue(@Param("id") Long id, @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Moves a running job to its final status (COMPLETED or FAILED) on behalf of its runner.
+     *
+     * @return 0 if the caller no longer holds the claim, in which case the job is left to its new runner.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE NotificationBroadcastJob j SET j.status = :status, j.errorMessage = :errorMessage, " +
+           "j.finishedAt = :finishedAt " +
+           "WHERE j.id = :id AND j.status = com.wastecollect.common.utils.BroadcastJobStatus.RUNNING AND j.claimToken = :token")
+    int finish(@Param("id") Long id,
+               @Param("token") String token,
+               @Param("status") BroadcastJobStatus status,
+               @Param("errorMessage") String errorMessage,
+               @Param("finishedAt") LocalDateTime finishedAt);
+}
@@ -0,0 +1,13 @@
+package com.wastecollect.backend.repository;
+
+import com.wastecollect.common.models.NotificationOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for notification outbox events.
+ * Events are drained with plain JDBC by {@link com.wastecollect.backend.service.outbox.NotificationOutboxDispatcher}.
+ */
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEvent, Long> {
+}
@@ -9,7 +9,9 @@ import com.wastecollect.common.utils.NotificationType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -42,22 +44,6 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     Page<Notification> findByRecipientAndIsRead(User recipient, Boolean isRead, Pageable pageable);
 
-    /**
-     * Finds all notifications for a specific recipient, filtered by read status and notification type, with pagination.
-     *
-     * @param recipient The User entity who is the recipient.
-     * @param isRead Boolean indicating if the notification is read (true for read, false for unread, null for all).
-     * @param notificationType The type of notification to filter by (e.g., NotificationType.ALERT). Null for all types.
-     * @param pageable Pagination information.
-     * @return A Page of Notification entities matching the criteria.
-     */
-    @Query(
-        "SELECT n FROM Notification n WHERE n.recipient = :recipient " +
-        "AND (:isRead IS NULL OR n.isRead = :isRead) " +
-        "AND (:notificationType IS NULL OR n.notificationType = :notificationType)"
-    )
-    Page<Notification> findByRecipientAndFilters(User recipient, Boolean isRead, NotificationType notificationType, Pageable pageable);
-
     /**
      * Finds the latest (most recently created) unread notification.
      * Useful for displaying a single "current alert".
@@ -67,12 +53,42 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     Optional<Notification> findTopByIsReadFalseOrderByCreatedAtDesc();
 
     /**
-     * Counts the number of unread notifications for a specific recipient.
+     * Marks a notification as read only if it is currently unread.
+     * The row count tells the caller whether the unread counter of the recipient must change.
      *
-     * @param recipient The User entity who is the recipient.
-     * @return The count of unread notifications.
+     * @return The number of rows updated (1 if the notification was unread, 0 otherwise).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :now WHERE n.id = :id AND n.isRead = false")
+    int markAsReadIfUnread(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Marks a notification as unread only if it is currently read.
+     *
+     * @return The number of rows updated (1 if the notification was read, 0 otherwise).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = false, n.readAt = null WHERE n.id = :id AND n.isRead = true")
+    int markAsUnreadIfRead(@Param("id") Long id);
+
+    /**
+     * Marks all unread notifications of a recipient as read in a single statement.
+     *
+     * @return The number of notifications marked as read.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :now WHERE n.recipient = :recipient AND n.isRead = false")
+    int markAllAsReadForRecipient(@Param("recipient") User recipient, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes a notification only if its read status is the given one, so the caller knows for sure whether an
+     * unread notification was removed.
+     *
+     * @return The number of rows deleted.
      */
-    long countByRecipientAndIsReadFalse(User recipient);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.isRead = :isRead")
+    int deleteByIdAndIsRead(@Param("id") Long id, @Param("isRead") Boolean isRead);
 
     /**
      * Finds notifications by type for a specific recipient, with pagination.
@@ -42,6 +42,54 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             Pageable pageable
     );
 
+    /**
+     * Keyset (seek) variant of {@link #findByHouseholdIdAndFilters}, ordered by (paymentDate DESC, id DESC).
+     * When {@code cursorPaymentDate} is null the first slice is returned, otherwise the slice that comes strictly
+     * after the given (paymentDate, id) position. No COUNT query is issued and only the page size of
+     * {@code limit} is used.
+     *
+     * @return The payments of the requested slice.
+     */
+    @Query("SELECT p FROM Payment p WHERE p.household.id = :householdId AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:paymentMethod IS NULL OR p.paymentMethod = :paymentMethod) AND " +
+           "(:startDate IS NULL OR p.paymentDate >= :startDate) AND " +
+           "(:endDate IS NULL OR p.paymentDate <= :endDate) AND " +
+           "(:searchReference IS NULL OR p.transactionReference LIKE %:searchReference%) AND " +
+           "(:cursorPaymentDate IS NULL OR p.paymentDate < :cursorPaymentDate OR " +
+           "(p.paymentDate = :cursorPaymentDate AND p.id < :cursorId)) " +
+           "ORDER BY p.paymentDate DESC, p.id DESC")
+    List<Payment> findSliceByHouseholdIdAndFilters(
+            @Param("householdId") Long householdId,
+            @Param("status") PaymentStatus status,
+            @Param("paymentMethod") PaymentMethod paymentMethod,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("searchReference") String searchReference,
+            @Param("cursorPaymentDate") LocalDateTime cursorPaymentDate,
+            @Param("cursorId") Long cursorId,
+            Pageable limit
+    );
+
+    /**
+     * Counts the payments matched by {@link #findSliceByHouseholdIdAndFilters}, ignoring the cursor.
+     * Only used when the caller explicitly asks for a total.
+     */
+    @Query("SELECT COUNT(p) FROM Payment p WHERE p.household.id = :householdId AND " +
+           "(:status IS NULL OR p.status = :status) AND " +
+           "(:paymentMethod IS NULL OR p.paymentMethod = :paymentMethod) AND " +
+           "(:startDate IS NULL OR p.paymentDate >= :startDate) AND " +
+           "(:endDate IS NULL OR p.paymentDate <= :endDate) AND " +
+           "(:searchReference IS NULL OR p.transactionReference LIKE %:searchReference%)")
+    long countByHouseholdIdAndFilters(
+            @Param("householdId") Long householdId,
+            @Param("status") PaymentStatus status,
+            @Param("paymentMethod") PaymentMethod paymentMethod,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("searchReference") String searchReference
+    );
+
 	/**
      * Finds all payments associated with a specific collector.
      * This method is crucial for calculating a collector's total revenue.
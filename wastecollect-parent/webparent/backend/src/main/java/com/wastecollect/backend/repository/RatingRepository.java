@@ -3,6 +3,7 @@ package com.wastecollect.backend.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -30,6 +31,15 @@ public interface RatingRepository extends JpaRepository<CollectorRating, Long>{
     long countByCollector(Collector collector);
     List<CollectorRating> findByCollectorOrderByRatingDateDesc(Collector collector);
 
+    /**
+     * Returns the latest ratings of a collector with their household, newest first.
+     * @param collectorId The collector's ID.
+     * @param pageable The number of ratings to return (first page only).
+     */
+    @Query("SELECT cr FROM CollectorRating cr LEFT JOIN FETCH cr.household WHERE cr.collector.id = :collectorId " +
+           "ORDER BY cr.ratingDate DESC, cr.id DESC")
+    List<CollectorRating> findRecentByCollectorId(@Param("collectorId") Long collectorId, Pageable pageable);
+
     /**
      * Calculates the average rating for a specific collector.
      * @param collector The Collector entity.
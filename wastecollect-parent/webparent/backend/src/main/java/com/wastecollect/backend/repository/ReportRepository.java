@@ -3,17 +3,153 @@ package com.wastecollect.backend.repository;
 import com.wastecollect.common.models.Report;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor; // Import this
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Interface de dépôt pour l'entité Report.
  * Fournit des méthodes CRUD et de recherche pour les rapports générés.
  * Extends JpaSpecificationExecutor for dynamic query building using Specifications.
+ * <p>
+ * Les changements de statut de la génération sont des mises à jour conditionnelles sur le statut courant : le
+ * générateur, l'annulation et la reprise après incident peuvent ainsi agir sur un même rapport sans s'écraser. Les
+ * écritures du générateur portent en plus le jeton de sa réclamation : un générateur dont le rapport a été remis en
+ * file ou repris par un autre n'y touche plus.
  */
 @Repository
 public interface ReportRepository extends JpaRepository<Report, Long>, JpaSpecificationExecutor<Report> {
-    // Vous pouvez ajouter des méthodes de requête personnalisées ici si nécessaire,
-    // par exemple:
-    // List<Report> findByStatus(String status);
-    // List<Report> findByTypeAndPeriod(String type, String period);
+
+    /**
+     * Reports in a given status, oldest first.
+     */
+    List<Report> findByStatusOrderByIdAsc(String status);
+
+    /**
+     * Latest report with a given configuration, data watermark and source row count in one of the given statuses
+     * (report cache lookup).
+     */
+    Optional<Report> findFirstByCacheKeyAndDataWatermarkAndDataRowsAndStatusInOrderByIdDesc(String cacheKey,
+                                                                                            LocalDateTime dataWatermark,
+                                                                                            Long dataRows,
+                                                                                            Collection<String> statuses);
+
+    /**
+     * Stored files of completed reports with their last use, least recently used first. Several reports can share
+     * a file.
+     */
+    @Query("SELECT r.filePath, MAX(COALESCE(r.lastAccessedAt, r.generatedDate)) FROM Report r " +
+           "WHERE r.status = 'completed' AND r.filePath IS NOT NULL " +
+           "GROUP BY r.filePath ORDER BY MAX(COALESCE(r.lastAccessedAt, r.generatedDate))")
+    List<Object[]> findStoredFilesByLastUse();
+
+    /**
+     * Every stored file still referenced by a report.
+     */
+    @Query("SELECT DISTINCT r.filePath FROM Report r WHERE r.filePath IS NOT NULL")
+    List<String> findStoredFilePaths();
+
+    /**
+     * Records that a report was downloaded or served from the cache.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.lastAccessedAt = :now WHERE r.id = :id")
+    int markAccessed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Marks the completed reports of an evicted file as expired.
+     *
+     * @return The number of reports expired.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = 'expired', r.filePath = null, r.updatedAt = :now " +
+           "WHERE r.filePath = :filePath AND r.status = 'completed'")
+    int expireByFilePath(@Param("filePath") String filePath, @Param("now") LocalDateTime now);
+
+    /**
+     * Reports being generated whose generator has not written since the cutoff.
+     */
+    @Query("SELECT r FROM Report r WHERE r.status = 'processing' AND (r.updatedAt IS NULL OR r.updatedAt < :cutoff) ORDER BY r.id")
+    List<Report> findStaleProcessing(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Moves a pending report to processing under the caller's claim token, so that a single worker generates it.
+     *
+     * @return 1 if this caller claimed the report, 0 if it was no longer pending.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = 'processing', r.progress = 0, r.claimToken = :token, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'pending'")
+    int claim(@Param("id") Long id, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    /**
+     * Records the progress of a report being generated.
+     *
+     * @return 0 if the caller no longer holds the claim (the report was cancelled, re-queued or claimed again).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.progress = :progress, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'processing' AND r.claimToken = :token")
+    int updateProgress(@Param("id") Long id, @Param("token") String token, @Param("progress") int progress,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Marks a report being generated as completed. The file counts as used now, so the storage eviction does not
+     * take a shared file that a report has just been given as idle.
+     *
+     * @return 0 if the caller no longer holds the claim (the report was cancelled, re-queued or claimed again).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = 'completed', r.progress = 100, r.filePath = :filePath, r.fileSize = :fileSize, " +
+           "r.dataWatermark = :watermark, r.dataRows = :dataRows, r.lastAccessedAt = :now, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'processing' AND r.claimToken = :token")
+    int markCompleted(@Param("id") Long id, @Param("token") String token, @Param("filePath") String filePath,
+                      @Param("fileSize") String fileSize, @Param("watermark") LocalDateTime watermark,
+                      @Param("dataRows") Long dataRows, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a pending or processing report to a final status ("failed" or "cancelled").
+     *
+     * @return 0 if the report had already reached a final status.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = :status, r.updatedAt = :now WHERE r.id = :id AND r.status IN ('pending', 'processing')")
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("now") LocalDateTime now);
+
+    /**
+     * Moves a report being generated to a final status on behalf of its generator.
+     *
+     * @return 0 if the caller no longer holds the claim: the report was cancelled, re-queued or claimed again, and
+     * is left as it is.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = :status, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'processing' AND r.claimToken = :token")
+    int finishClaimed(@Param("id") Long id, @Param("token") String token, @Param("status") String status,
+                      @Param("now") LocalDateTime now);
+
+    /**
+     * Puts a report whose generation was abandoned (no heartbeat since the cutoff) back in the queue.
+     *
+     * @return 1 if this caller re-queued the report.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Report r SET r.status = 'pending', r.progress = 0, r.claimToken = null, r.updatedAt = :now " +
+           "WHERE r.id = :id AND r.status = 'processing' AND (r.updatedAt IS NULL OR r.updatedAt < :cutoff)")
+    int requeueStale(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
 }
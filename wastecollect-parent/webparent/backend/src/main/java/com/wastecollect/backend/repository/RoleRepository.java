@@ -4,12 +4,18 @@ import com.wastecollect.common.utils.RoleName;
 
 import java.util.Optional;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.wastecollect.common.models.Role;
 
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
+	// Looked up on every registration; served from the query cache + the "roles" region
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
 	Optional<Role> findByName(RoleName name);
 
 }
@@ -7,6 +7,7 @@ import com.wastecollect.common.models.Payment;
 import com.wastecollect.common.models.ServiceRequest;
 import com.wastecollect.common.utils.ServiceRequestStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param; 
 import org.springframework.stereotype.Repository;
@@ -137,5 +138,101 @@ public interface ServiceRequestRepository extends JpaRepository<ServiceRequest,
 
 	Object countByStatus(ServiceRequestStatus pending);
 
-	List<ServiceRequest> findByCreatedAtAfter(LocalDateTime oneMonthAgo);
+    // --- Guarded state transitions (see ServiceRequestStateMachine) ---
+    // Each transition is a single conditional UPDATE: the WHERE clause re-checks the expected status
+    // (and ownership) in the database, so the affected-row count tells whether this caller won the race.
+
+    /**
+     * Moves a service request to {@code toStatus} if it is still in one of {@code fromStatuses}.
+     *
+     * @return The number of rows updated (1 on success, 0 if the guard failed).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ServiceRequest sr SET sr.status = :toStatus, sr.comment = COALESCE(:comment, sr.comment), sr.updatedAt = :now " +
+           "WHERE sr.id = :id AND sr.status IN :fromStatuses")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("fromStatuses") List<ServiceRequestStatus> fromStatuses,
+                         @Param("toStatus") ServiceRequestStatus toStatus,
+                         @Param("comment") String comment,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Same as {@link #transitionStatus} but only if the request is assigned to the given collector.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ServiceRequest sr SET sr.status = :toStatus, sr.comment = COALESCE(:comment, sr.comment), sr.updatedAt = :now " +
+           "WHERE sr.id = :id AND sr.status IN :fromStatuses AND sr.collector.id = :collectorId")
+    int transitionStatusForCollector(@Param("id") Long id,
+                                     @Param("collectorId") Long collectorId,
+                                     @Param("fromStatuses") List<ServiceRequestStatus> fromStatuses,
+                                     @Param("toStatus") ServiceRequestStatus toStatus,
+                                     @Param("comment") String comment,
+                                     @Param("now") LocalDateTime now);
+
+    /**
+     * Same as {@link #transitionStatus} but only if the request is unassigned or assigned to the given collector.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ServiceRequest sr SET sr.status = :toStatus, sr.comment = COALESCE(:comment, sr.comment), sr.updatedAt = :now " +
+           "WHERE sr.id = :id AND sr.status IN :fromStatuses AND (sr.collector IS NULL OR sr.collector.id = :collectorId)")
+    int transitionStatusForCollectorOrUnassigned(@Param("id") Long id,
+                                                 @Param("collectorId") Long collectorId,
+                                                 @Param("fromStatuses") List<ServiceRequestStatus> fromStatuses,
+                                                 @Param("toStatus") ServiceRequestStatus toStatus,
+                                                 @Param("comment") String comment,
+                                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Assigns the request to a collector and moves it to {@code toStatus} if it is still in one of {@code fromStatuses}.
+     * When several collectors race for the same PENDING request, exactly one of them gets a row count of 1.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ServiceRequest sr SET sr.status = :toStatus, sr.collector = :collector, " +
+           "sr.comment = COALESCE(:comment, sr.comment), sr.updatedAt = :now " +
+           "WHERE sr.id = :id AND sr.status IN :fromStatuses")
+    int assignCollectorIfStatusIn(@Param("id") Long id,
+                                  @Param("collector") Collector collector,
+                                  @Param("fromStatuses") List<ServiceRequestStatus> fromStatuses,
+                                  @Param("toStatus") ServiceRequestStatus toStatus,
+                                  @Param("comment") String comment,
+                                  @Param("now") LocalDateTime now);
+
+    /**
+     * Reads only the current status of a request, used to explain why a guarded transition failed.
+     */
+    @Query("SELECT sr.status FROM ServiceRequest sr WHERE sr.id = :id")
+    Optional<ServiceRequestStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Lightweight view of the columns needed after a transition (notifications, waste collection record),
+     * so the household/collector/municipality graph does not have to be loaded.
+     */
+    interface TransitionView {
+        Long getId();
+        Long getHouseholdId();
+        Long getCollectorId();
+        Long getMunicipalityId();
+        LocalDateTime getPreferredDate();
+        String getAddress();
+    }
+
+    @Query("SELECT sr.id AS id, sr.household.id AS householdId, sr.collector.id AS collectorId, sr.municipality.id AS municipalityId, " +
+           "sr.preferredDate AS preferredDate, sr.address AS address FROM ServiceRequest sr WHERE sr.id = :id")
+    Optional<TransitionView> findTransitionViewById(@Param("id") Long id);
+
+    /**
+     * Stop of a collector's route: a held request with the coordinates of its household.
+     */
+    interface RouteStopView {
+        Long getId();
+        Long getCollectorId();
+        Double getLatitude();
+        Double getLongitude();
+        Double getEstimatedVolume();
+    }
+
+    @Query("SELECT sr.id AS id, sr.collector.id AS collectorId, h.latitude AS latitude, h.longitude AS longitude, " +
+           "sr.estimatedVolume AS estimatedVolume FROM ServiceRequest sr JOIN sr.household h " +
+           "WHERE sr.collector IS NOT NULL AND sr.status IN :statuses ORDER BY sr.collector.id, sr.id")
+    List<RouteStopView> findRouteStops(@Param("statuses") List<ServiceRequestStatus> statuses);
 }
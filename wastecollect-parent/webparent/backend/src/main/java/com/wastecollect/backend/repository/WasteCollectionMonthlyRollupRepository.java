@@ -0,0 +1,25 @@
+package com.wastecollect.backend.repository;
+
+import com.wastecollect.common.models.WasteCollectionMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for the monthly rollups of archived waste collections.
+ */
+@Repository
+public interface WasteCollectionMonthlyRollupRepository extends JpaRepository<WasteCollectionMonthlyRollup, Long> {
+
+    /**
+     * Finds the rollups of a municipality whose month falls within the given bounds (inclusive).
+     *
+     * @param municipalityId The municipality ID.
+     * @param fromMonth First day of the first month.
+     * @param toMonth First day of the last month.
+     * @return The matching rollups.
+     */
+    List<WasteCollectionMonthlyRollup> findByMunicipalityIdAndPeriodMonthBetween(Long municipalityId, LocalDate fromMonth, LocalDate toMonth);
+}
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +42,10 @@ public interface WasteCollectionRepository extends JpaRepository<WasteCollection
     // List<WasteCollection> findByMunicipalityId(Long municipalityId);
 
     // Removed redundant: List<WasteCollection> findByHouseholdAndServiceRequestStatusNot(Household household, ServiceRequestStatus status);
+
+    // Latest geolocated collection of each collector: [collectorId, latitude, longitude]
+    @Query("SELECT wc.collector.id, wc.latitude, wc.longitude FROM WasteCollection wc WHERE wc.id IN (" +
+           "SELECT MAX(w.id) FROM WasteCollection w WHERE w.collector.id IN :collectorIds " +
+           "AND w.latitude IS NOT NULL AND w.longitude IS NOT NULL GROUP BY w.collector.id)")
+    List<Object[]> findLastPositions(@Param("collectorIds") Collection<Long> collectorIds);
 }
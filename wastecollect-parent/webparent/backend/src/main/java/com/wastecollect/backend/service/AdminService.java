@@ -2,10 +2,16 @@
 package com.wastecollect.backend.service;
 
 import com.wastecollect.common.dto.*; // Import all DTOs from the common package
+import com.wastecollect.backend.service.dispatch.DispatchService;
+import com.wastecollect.backend.service.forecast.WasteForecastService;
+import com.wastecollect.backend.service.heatmap.DemandHeatmapService;
+import com.wastecollect.backend.service.telemetry.TelemetryService;
 import com.wastecollect.backend.service.report.FileStorageService;
 import com.wastecollect.backend.service.report.MapDataService;
 import com.wastecollect.backend.service.report.PredictiveAnalysisService;
-import com.wastecollect.backend.service.report.ReportGenerationService;
+import com.wastecollect.backend.service.report.ReportCacheService;
+import com.wastecollect.backend.service.report.ReportJobScheduler;
+import com.wastecollect.backend.exception.ConflictException;
 import com.wastecollect.backend.exception.ResourceException;
 import com.wastecollect.backend.exception.ResourceNotFoundException;
 import com.wastecollect.common.models.*;
@@ -28,11 +34,13 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -49,6 +57,7 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 // NEW Import
+import com.wastecollect.common.dto.notification.BroadcastJobDTO;
 import com.wastecollect.common.dto.notification.CreateNotificationRequest;
 import com.wastecollect.common.dto.report.ReportConfigDTO;
 import com.wastecollect.common.dto.report.ReportDTO;
@@ -76,7 +85,8 @@ public class AdminService {
     private final NotificationService notificationService; // NEW: Inject NotificationService
 
     // Helper Services
-    private final ReportGenerationService reportGenerationService;
+    private final ReportJobScheduler reportJobScheduler;
+    private final ReportCacheService reportCacheService;
     private final MapDataService mapDataService;
     private final PredictiveAnalysisService predictiveAnalysisService;
     private final FileStorageService fileStorageService;
@@ -85,6 +95,24 @@ public class AdminService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private NotificationBroadcastService notificationBroadcastService;
+
+    @Autowired
+    private DispatchService dispatchService;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private WasteForecastService wasteForecastService;
+
+    @Autowired
+    private DemandHeatmapService demandHeatmapService;
+
+    @Autowired
+    private DataArchivingService dataArchivingService;
+
     @Autowired
     public AdminService(UserRepository userRepository, AdminRepository adminRepository, CollectorRepository collectorRepository,
                         RoleRepository roleRepository, HouseholdRepository householdRepository,
@@ -93,7 +121,7 @@ public class AdminService {
                         PaymentRepository paymentRepository, DisputeRepository disputeRepository,
                         WasteCollectionRepository wasteCollectionRepository, ReportRepository reportRepository,
                         NotificationService notificationService, // NEW: Add to constructor
-                        ReportGenerationService reportGenerationService, MapDataService mapDataService, PredictiveAnalysisService predictiveAnalysisService, FileStorageService fileStorageService) {
+                        ReportJobScheduler reportJobScheduler, ReportCacheService reportCacheService, MapDataService mapDataService, PredictiveAnalysisService predictiveAnalysisService, FileStorageService fileStorageService) {
         this.userRepository = userRepository;
         this.adminRepository = adminRepository;
         this.collectorRepository = collectorRepository;
@@ -108,7 +136,8 @@ public class AdminService {
         this.wasteCollectionRepository = wasteCollectionRepository;
         this.reportRepository = reportRepository;
         this.notificationService = notificationService; // NEW: Assign
-        this.reportGenerationService = reportGenerationService;
+        this.reportJobScheduler = reportJobScheduler;
+        this.reportCacheService = reportCacheService;
         this.mapDataService = mapDataService;
         this.predictiveAnalysisService = predictiveAnalysisService;
         this.fileStorageService = fileStorageService;
@@ -937,7 +966,7 @@ public class AdminService {
                                      + serviceRequestRepository.countByStatusAndCreatedAtAfter(ServiceRequestStatus.IN_PROGRESS, startDate);
         stats.put("activeServiceRequests", activeServiceRequests);
 
-        long completedCollections = wasteCollectionRepository.findByCollectionDateBetween(startDate, endDate).size();
+        long completedCollections = dataArchivingService.countWasteCollections(startDate, endDate);
         stats.put("completedCollections", completedCollections);
 
         Double totalRevenue = paymentRepository.sumAmountByPaymentDateBetween(startDate, endDate);
@@ -1042,7 +1071,7 @@ public class AdminService {
 
         long totalRequests = serviceRequestRepository.countByCreatedAtAfter(startDate);
 
-        long completedRequests = wasteCollectionRepository.findByCollectionDateBetween(startDate, endDate).size();
+        long completedRequests = dataArchivingService.countWasteCollections(startDate, endDate);
 
         Double averageResponseTimeHours = serviceRequestRepository.findAverageResponseTimeHours(startDate, endDate);
         metrics.put("averageResponseTime", averageResponseTimeHours != null ? averageResponseTimeHours : 0.0);
@@ -1083,15 +1112,24 @@ public class AdminService {
 
     /**
      * Initiates the asynchronous generation of a report using the provided configuration.
-     * A new Report entity is created with a PENDING status, and the actual file
-     * generation is delegated to the ReportGenerationService.
+     * If an identical report over unchanged data already exists (or is being generated), it is returned as is.
+     * Otherwise a new Report entity is created with a PENDING status, and the actual file
+     * generation is queued on the ReportJobScheduler once the report is committed.
      *
      * @param reportConfigDTO Configuration for the report from the user.
+     * @return The reused report, or the new pending report.
      */
     @Transactional
-    public void generateReport(ReportConfigDTO reportConfigDTO) {
+    public ReportDTO generateReport(ReportConfigDTO reportConfigDTO) {
         logger.info("Received request to generate report of type '{}' for period '{}'.",
                 reportConfigDTO.getType(), reportConfigDTO.getPeriod());
+        ReportCacheService.Lookup lookup = reportCacheService.lookup(reportConfigDTO);
+        if (lookup.reusable() != null) {
+            return ReportMapper.toDTO(lookup.reusable());
+        }
+        reportJobScheduler.checkCapacity();
+        String generatedBy = SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName() : "admin";
 
         // 1. Create and save a new Report entity to track its status, using fields from your DTO.
         Report report = new Report();
@@ -1100,8 +1138,15 @@ public class AdminService {
         report.setPeriod(reportConfigDTO.getPeriod());
         report.setFormat(reportConfigDTO.getFormat());
         report.setStatus("pending"); // Using String status as per your Report entity
+        report.setProgress(0);
         report.setGeneratedDate(LocalDateTime.now());
-        report.setGeneratedBy("admin"); // Replace with actual authenticated user
+        report.setUpdatedAt(report.getGeneratedDate());
+        report.setGeneratedBy(generatedBy);
+        report.setConfig(reportJobScheduler.writeConfig(reportConfigDTO));
+        report.setCacheKey(lookup.cacheKey());
+        // Replaced on completion by the watermark of the data actually read
+        report.setDataWatermark(lookup.watermark().lastModified());
+        report.setDataRows(lookup.watermark().rows());
 
         // For simplicity, we'll assume municipalityId can be resolved to a name.
         // In a real app, you'd fetch the Municipality entity.
@@ -1112,10 +1157,92 @@ public class AdminService {
         }
 
         Report savedReport = reportRepository.save(report);
-        logger.info("Report entity created with ID: {}. Triggering async generation.", savedReport.getId());
+        logger.info("Report entity created with ID: {}. Queuing its generation.", savedReport.getId());
+
+        // 2. Queue the generation; it starts once this transaction commits.
+        reportJobScheduler.submit(savedReport.getId(), reportConfigDTO, generatedBy);
+        return ReportMapper.toDTO(savedReport);
+    }
+
+    /**
+     * Cancels a report that is waiting for or undergoing generation.
+     *
+     * @param id The ID of the report to cancel.
+     * @throws ConflictException if the report is already completed, failed or cancelled.
+     */
+    public void cancelReport(Long id) {
+        Report report = reportRepository.findById(id)
+                .orElseThrow(() -> new ResourceException("Report", String.valueOf(id)));
+        if (!reportJobScheduler.cancel(id)) {
+            throw new ConflictException("Report " + id + " cannot be cancelled: it is already " + report.getStatus() + ".");
+        }
+        logger.info("Report ID: {} cancelled.", id);
+    }
+
+    /**
+     * Returns the state of the report queue (queued and running reports, per class and per user).
+     */
+    public Map<String, Object> getReportQueueStatus() {
+        return reportJobScheduler.getStatus();
+    }
+
+    /**
+     * Returns the state of the automatic dispatch boards (open requests and active collectors per municipality).
+     */
+    public Map<Long, Map<String, Integer>> getDispatchStatus() {
+        return dispatchService.getStatus();
+    }
+
+    /**
+     * Returns the live position of every collector heard from within {@code maxAgeSeconds}, optionally for one municipality.
+     */
+    public List<CollectorPositionDTO> getCollectorPositions(Long municipalityId, long maxAgeSeconds) {
+        return telemetryService.currentPositions(municipalityId, maxAgeSeconds);
+    }
 
-        // 2. Trigger the asynchronous generation process.
-        reportGenerationService.generateReportAsync(savedReport.getId(), reportConfigDTO);
+    /**
+     * Returns a collector's latest positions, newest first.
+     */
+    public List<CollectorPositionDTO> getCollectorTrack(Long collectorId, int limit) {
+        return telemetryService.track(collectorId, limit);
+    }
+
+    /**
+     * Returns the telemetry ingestion counters (collectors tracked, fixes received, accepted, persisted, dropped).
+     */
+    public Map<String, Long> getTelemetryStatus() {
+        return telemetryService.getStatus();
+    }
+
+    /**
+     * Returns the daily forecasts of the collected weight per municipality and waste type, with their intervals.
+     */
+    public List<WasteForecastDTO> getWasteForecasts(Long municipalityId, WasteType wasteType, int horizonDays) {
+        return wasteForecastService.getForecasts(municipalityId, wasteType, horizonDays);
+    }
+
+    /**
+     * Returns the state of the forecasting models (series modelled, last observed day, last fit).
+     */
+    public Map<String, Object> getWasteForecastStatus() {
+        return wasteForecastService.getStatus();
+    }
+
+    /**
+     * Returns the geohash cells with the most demand over a recent window, for a municipality or an area.
+     */
+    public List<DemandCellDTO> getDemandHotCells(int precision, int windowDays, Long municipalityId, Double minLatitude,
+                                                 Double minLongitude, Double maxLatitude, Double maxLongitude,
+                                                 DemandHeatmapService.Metric metric, int limit) {
+        return demandHeatmapService.getHotCells(precision, windowDays, municipalityId, minLatitude, minLongitude,
+                maxLatitude, maxLongitude, metric, limit);
+    }
+
+    /**
+     * Returns the configuration and size of the demand heatmap.
+     */
+    public Map<String, Object> getDemandHeatmapStatus() {
+        return demandHeatmapService.getStatus();
     }
 
     /**
@@ -1159,14 +1286,13 @@ public class AdminService {
     }
 
     /**
-     * Downloads the content of a completed report.
+     * Resolves the file of a completed report, to be streamed to the client.
      *
      * @param id The ID of the report to download.
-     * @return A byte array containing the report file content.
-     * @throws IOException
+     * @return The path of the report file.
+     * @throws IOException if the file is missing or not readable.
      */
-    @Transactional(readOnly = true)
-    public byte[] downloadReport(Long id) throws IOException {
+    public Path getReportFile(Long id) throws IOException {
         logger.info("Processing download request for report with ID: {}", id);
         Report report = reportRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Report not found with ID: " + id));
@@ -1180,8 +1306,11 @@ public class AdminService {
              throw new ResourceException("Report", "filePath", "null", "File path is missing for the completed report.");
         }
 
-        logger.info("Fetching report file from storage path: {}", report.getFilePath());
-        return fileStorageService.downloadFile(report.getFilePath());
+        logger.info("Streaming report file from storage path: {}", report.getFilePath());
+        Path file = fileStorageService.resolveFile(report.getFilePath());
+        // Keeps the file at the recent end of the storage eviction order
+        reportRepository.markAccessed(id, LocalDateTime.now());
+        return file;
     }
 
     // --- Map Data ---
@@ -1218,6 +1347,7 @@ public class AdminService {
         dto.setPeriod(report.getPeriod());
         dto.setGeneratedDate(report.getGeneratedDate());
         dto.setStatus(report.getStatus());
+        dto.setProgress(report.getProgress());
         dto.setFormat(report.getFormat());
         dto.setFileSize(report.getFileSize());
         dto.setMunicipalityName(report.getMunicipalityName());
@@ -1237,7 +1367,7 @@ public class AdminService {
         logger.info("Fetching global waste collection data from {} to {}.", startDate, endDate);
         Map<String, Object> data = new HashMap<>();
 
-        long totalCollections = wasteCollectionRepository.countByCollectionDateBetween(startDate, endDate);
+        long totalCollections = dataArchivingService.countWasteCollections(startDate, endDate);
         data.put("totalCollections", totalCollections);
 
         Double totalWasteVolumeKg = serviceRequestRepository.sumActualWeightByCollectionDateBetween(startDate, endDate);
@@ -1354,29 +1484,28 @@ public class AdminService {
     }
 
     /**
-     * Creates and sends notifications to specified recipients based on the request.
+     * Validates a broadcast request and submits it as a broadcast job.
+     * Audience-wide broadcasts are published once and complete immediately; others are delivered in chunks by
+     * {@link NotificationBroadcastService}, and the returned job can be polled for progress.
      *
      * @param request The DTO containing notification details and targeting options.
-     * @throws ResourceException if recipient users or roles are not found.
+     * @return The submitted broadcast job.
+     * @throws ResourceException if the target audience, role, users or linked entities are invalid.
      */
     @Transactional
-    public void sendNotifications(CreateNotificationRequest request) {
+    public BroadcastJobDTO sendNotifications(CreateNotificationRequest request) {
         logger.info("Attempting to send notifications. Target Audience: {}", request.getTargetAudience());
 
-        List<User> recipients = new ArrayList<>();
-
         switch (request.getTargetAudience()) {
             case "ALL":
-                recipients = userRepository.findAll(); // Get all users
                 break;
             case "ROLE":
                 if (request.getTargetRole() == null || request.getTargetRole().isEmpty()) {
                     throw new ResourceException("Target Role", "null", "Target role must be specified for ROLE audience.");
                 }
                 try {
-                    Role targetRoleEntity = roleRepository.findByName(RoleName.valueOf(request.getTargetRole()))
+                    roleRepository.findByName(RoleName.valueOf(request.getTargetRole()))
                             .orElseThrow(() -> new ResourceNotFoundException("Role not found: " + request.getTargetRole()));
-                    recipients = userRepository.findByRolesContaining(targetRoleEntity); // Assuming findByRolesContaining returns a List<User>
                 } catch (IllegalArgumentException e) {
                     throw new ResourceException("Role", "name", request.getTargetRole(), "Invalid role name provided.");
                 }
@@ -1385,42 +1514,28 @@ public class AdminService {
                 if (request.getTargetUserIds() == null || request.getTargetUserIds().isEmpty()) {
                     throw new ResourceException("Target User IDs", "null", "Specific user IDs must be provided for SPECIFIC_USERS audience.");
                 }
-                recipients = userRepository.findAllById(request.getTargetUserIds());
-                if (recipients.size() != request.getTargetUserIds().size()) {
-                    // Log or throw if some users were not found
-                    logger.warn("Not all specified users were found. Requested: {}, Found: {}",
-                            request.getTargetUserIds().size(), recipients.size());
-                }
                 break;
             default:
                 throw new ResourceException("Target Audience", request.getTargetAudience(), "Invalid target audience specified.");
         }
 
-        if (recipients.isEmpty()) {
-            logger.warn("No recipients found for the specified criteria.");
-            return; // No recipients, nothing to send
+        // Linked entities are written as foreign keys by the set-based insert, so they must exist
+        if (request.getServiceRequestId() != null && !serviceRequestRepository.existsById(request.getServiceRequestId())) {
+            throw new ResourceException("ServiceRequest", "id", request.getServiceRequestId().toString());
+        }
+        if (request.getPaymentId() != null && !paymentRepository.existsById(request.getPaymentId())) {
+            throw new ResourceException("Payment", "id", request.getPaymentId().toString());
+        }
+        if (request.getDisputeId() != null && !disputeRepository.existsById(request.getDisputeId())) {
+            throw new ResourceException("Dispute", "id", request.getDisputeId().toString());
         }
 
-        for (User recipient : recipients) {
-            NotificationDTO notificationDTO = new NotificationDTO();
-            notificationDTO.setRecipientId(recipient.getId());
-            notificationDTO.setSubject(request.getSubject());
-            notificationDTO.setMessage(request.getMessage());
-            notificationDTO.setNotificationType(request.getNotificationType());
-            notificationDTO.setServiceRequestId(request.getServiceRequestId());
-            notificationDTO.setPaymentId(request.getPaymentId());
-            notificationDTO.setDisputeId(request.getDisputeId());
-            notificationDTO.setIsRead(false); // New notifications are unread by default
-
-            try {
-                notificationService.createNotification(notificationDTO);
-                logger.info("Notification sent to user {}: Subject '{}'", recipient.getEmail(), request.getSubject());
-            } catch (Exception e) {
-                logger.error("Failed to send notification to user {}: {}", recipient.getEmail(), e.getMessage(), e);
-                // Depending on requirements, you might want to collect failures or rethrow.
-                // For now, log and continue to other recipients.
-            }
+        String submittedBy = SecurityContextHolder.getContext().getAuthentication() != null
+                ? SecurityContextHolder.getContext().getAuthentication().getName() : null;
+        BroadcastJobDTO job = notificationBroadcastService.submit(request, submittedBy);
+        if (job.getTotalRecipients() == null || job.getTotalRecipients() == 0) {
+            logger.warn("No recipients found for the specified criteria.");
         }
-        logger.info("Notifications sending process completed for target audience: {}", request.getTargetAudience());
+        return job;
     }
 }
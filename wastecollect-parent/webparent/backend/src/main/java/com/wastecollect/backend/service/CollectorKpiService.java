@@ -0,0 +1,245 @@
+// File: com/wastecollect/backend/service/CollectorKpiService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.dto.CollectorRatingSummaryDTO;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The figures of a collector's dashboard and objectives, computed in a single aggregate statement.
+ * <p>
+ * Requests and payments are each reduced to one row with conditional sums, and the two rows are joined, so no entity
+ * is loaded whatever the collector's history; rating figures come from the collector's maintained rating summary. The primary is read, so that a change is visible as soon
+ * as the cache entry it dropped is rebuilt.
+ * <p>
+ * Results are cached per collector. An entry is dropped when one of the collector's requests changes status, and when
+ * it receives a payment or a rating, once the change commits; it also expires after {@code app.collector-kpis.ttl-ms}
+ * (changes made on other instances) and at midnight (the daily, weekly and monthly windows move). Like the unread
+ * counters, entries carry a generation so that a computation which started before a change cannot put back a stale
+ * result. Generations are drawn from one counter, so a generation is never reused, and the tombstones left by changes
+ * survive the eviction of a full cache, which only drops computed figures.
+ */
+@Service
+public class CollectorKpiService {
+
+    private static final String KPI_SQL =
+            "SELECT r.*, p.* FROM " +
+            "(SELECT COUNT(*) AS total_requests, " +
+            "COALESCE(SUM(status = 'PENDING'), 0) AS pending_requests, " +
+            "COALESCE(SUM(status = 'COMPLETED'), 0) AS completed_requests, " +
+            "COALESCE(SUM(status = 'COMPLETED' AND created_at > :today), 0) AS completed_today, " +
+            "COALESCE(SUM(status = 'COMPLETED' AND created_at BETWEEN :monthStart AND :monthEnd), 0) AS completed_this_month, " +
+            "COUNT(DISTINCT household_id) AS total_households " +
+            "FROM service_requests WHERE collector_id = :collectorId) r CROSS JOIN " +
+            "(SELECT COALESCE(SUM(amount), 0) AS total_revenue, " +
+            "COALESCE(SUM(CASE WHEN payment_date BETWEEN :weekStart AND :now THEN amount END), 0) AS weekly_revenue, " +
+            "COALESCE(SUM(CASE WHEN payment_date BETWEEN :monthStart AND :monthEnd THEN amount END), 0) AS monthly_revenue " +
+            "FROM payments WHERE collector_id = :collectorId) p";
+
+    private static final String HOLDERS_SQL =
+            "SELECT DISTINCT collector_id FROM service_requests WHERE id IN (:ids) AND collector_id IS NOT NULL";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private CollectorRatingService collectorRatingService;
+
+    @Value("${app.collector-kpis.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.collector-kpis.max-cached-collectors:10000}")
+    private int maxCachedCollectors;
+
+    /**
+     * The figures of one collector. "Today", "this week" (from Monday) and "this month" are those of the computation.
+     */
+    public record Kpis(long totalRequests, long pendingRequests, long completedRequests, long completedToday,
+                       long completedThisMonth, long totalHouseholds, double totalRevenue, double weeklyRevenue,
+                       double monthlyRevenue, long totalRatings, double averageRating) {
+
+        /**
+         * Share of the collector's requests that are completed, in percent.
+         */
+        public double completionRate() {
+            return totalRequests == 0 ? 0 : (double) completedRequests / totalRequests * 100;
+        }
+    }
+
+    /**
+     * Cached figures of one collector. A tombstone only remembers the generation of the last committed change.
+     */
+    private record CachedKpis(long generation, LocalDate day, long computedAt, Kpis kpis) {
+
+        static CachedKpis tombstone(long generation) {
+            return new CachedKpis(generation, null, 0L, null);
+        }
+
+        boolean isValid(LocalDate today, long now, long ttlMs) {
+            return kpis != null && today.equals(day) && now - computedAt <= ttlMs;
+        }
+    }
+
+    private final Map<Long, CachedKpis> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong generations = new AtomicLong();
+
+    /**
+     * Returns the figures of a collector, from the cache when they are still valid.
+     */
+    public Kpis getKpis(Long collectorId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        long nowMillis = System.currentTimeMillis();
+        CachedKpis cached = cache.get(collectorId);
+        if (cached != null && cached.isValid(today, nowMillis, ttlMs)) {
+            return cached.kpis();
+        }
+        long generation = cached != null ? cached.generation() : 0L;
+
+        Kpis kpis = load(collectorId, now);
+
+        if (cache.size() >= maxCachedCollectors) {
+            cache.values().removeIf(entry -> entry.kpis() != null);
+            if (cache.size() >= maxCachedCollectors) {
+                return kpis;
+            }
+        }
+        // Only stored if no change was committed for this collector while we were reading
+        cache.compute(collectorId, (id, current) -> {
+            long currentGeneration = current != null ? current.generation() : 0L;
+            return currentGeneration == generation ? new CachedKpis(generation, today, nowMillis, kpis) : current;
+        });
+        return kpis;
+    }
+
+    /**
+     * Drops a collector's cached figures once the current transaction commits (a payment or rating it received, a
+     * request given to or taken from it).
+     */
+    public void invalidateAfterCommit(Long collectorId) {
+        if (collectorId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(collectorId);
+                }
+            });
+        } else {
+            invalidate(collectorId);
+        }
+    }
+
+    /**
+     * The collectors named by the changes of the current transaction, and the requests whose holder must be looked up.
+     */
+    private record Pending(Set<Long> collectorIds, Set<Long> serviceRequestIds) {}
+
+    /**
+     * A status change moves the counts of the collector holding or taking the request, and of the collector a
+     * reassignment took it from. Transitions made without a collector (a household cancelling, an administrator) name
+     * none, so the holder is looked up. The changes of a
+     * transaction are gathered and applied together once it commits: each collector is invalidated once and the
+     * holders are looked up with a single query, whatever the number of requests (e.g. a batch of offline
+     * completions). Outside any transaction the change is applied at once.
+     */
+    @EventListener
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        Set<Long> collectorIds = new HashSet<>();
+        if (event.getCollectorId() != null) {
+            collectorIds.add(event.getCollectorId());
+        }
+        if (event.getPreviousCollectorId() != null) {
+            collectorIds.add(event.getPreviousCollectorId());
+        }
+        // A new request has no holder yet
+        Long serviceRequestId = event.getCollectorId() == null && event.getStatus() != ServiceRequestStatus.PENDING
+                ? event.getServiceRequestId() : null;
+        if (collectorIds.isEmpty() && serviceRequestId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(collectorIds, serviceRequestId != null ? Set.of(serviceRequestId) : Set.of());
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending buffer = new Pending(new HashSet<>(), new HashSet<>());
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(buffer.collectorIds(), buffer.serviceRequestIds());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CollectorKpiService.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.collectorIds().addAll(collectorIds);
+        if (serviceRequestId != null) {
+            pending.serviceRequestIds().add(serviceRequestId);
+        }
+    }
+
+    private void invalidate(Set<Long> collectorIds, Set<Long> serviceRequestIds) {
+        Set<Long> holders = new HashSet<>(collectorIds);
+        if (!serviceRequestIds.isEmpty()) {
+            holders.addAll(namedJdbcTemplate.queryForList(HOLDERS_SQL,
+                    new MapSqlParameterSource("ids", serviceRequestIds), Long.class));
+        }
+        holders.forEach(this::invalidate);
+    }
+
+    private void invalidate(Long collectorId) {
+        cache.put(collectorId, CachedKpis.tombstone(generations.incrementAndGet()));
+    }
+
+    private Kpis load(Long collectorId, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        MapSqlParameterSource params = new MapSqlParameterSource("collectorId", collectorId)
+                .addValue("now", now)
+                .addValue("today", today.atStartOfDay())
+                .addValue("weekStart", today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay())
+                .addValue("monthStart", today.with(TemporalAdjusters.firstDayOfMonth()).atStartOfDay())
+                .addValue("monthEnd", today.with(TemporalAdjusters.lastDayOfMonth()).atStartOfDay().plusDays(1).minusNanos(1));
+        CollectorRatingSummaryDTO ratings = collectorRatingService.getSummary(collectorId);
+        return namedJdbcTemplate.queryForObject(KPI_SQL, params, (rs, rowNum) -> new Kpis(
+                rs.getLong("total_requests"),
+                rs.getLong("pending_requests"),
+                rs.getLong("completed_requests"),
+                rs.getLong("completed_today"),
+                rs.getLong("completed_this_month"),
+                rs.getLong("total_households"),
+                rs.getDouble("total_revenue"),
+                rs.getDouble("weekly_revenue"),
+                rs.getDouble("monthly_revenue"),
+                ratings.getRatingCount(),
+                ratings.getAverageRating()));
+    }
+}
@@ -0,0 +1,131 @@
+// File: com/wastecollect/backend/service/CollectorRatingService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.common.dto.CollectorRatingSummaryDTO;
+import com.wastecollect.common.models.CollectorRatingSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rating figures per collector, read in O(1) from their {@link CollectorRatingSummary} row.
+ * <p>
+ * The row is folded forward by a single UPDATE in the transaction that inserts each rating, before the insert, so two
+ * households rating the same collector at once serialize on it and neither increment is lost. A collector rated before
+ * the row existed gets it built once from an exact scan of its ratings, the way unread notification counters are. The
+ * scan is a plain consistent read and the row is created with INSERT IGNORE, so concurrent first ratings take no gap
+ * locks on the ratings and cannot deadlock: the losers' inserts are ignored and each rating is then counted by its
+ * own UPDATE only.
+ */
+@Service
+public class CollectorRatingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectorRatingService.class);
+
+    // Weight of a rating given at a time, as seen from :now
+    private static final String DECAY = "POW(0.5, GREATEST(TIMESTAMPDIFF(SECOND, %s, :now), 0) / :halfLifeSeconds)";
+
+    // MySQL assigns left to right: the decayed sums must be computed before decayed_at moves
+    private static final String INCREMENT_SQL =
+            "UPDATE collector_rating_summaries SET rating_count = rating_count + 1, rating_sum = rating_sum + :stars, " +
+            "stars_1 = stars_1 + (:stars = 1), stars_2 = stars_2 + (:stars = 2), stars_3 = stars_3 + (:stars = 3), " +
+            "stars_4 = stars_4 + (:stars = 4), stars_5 = stars_5 + (:stars = 5), " +
+            "decayed_sum = decayed_sum * " + String.format(DECAY, "decayed_at") + " + :stars, " +
+            "decayed_weight = decayed_weight * " + String.format(DECAY, "decayed_at") + " + 1, " +
+            "decayed_at = GREATEST(decayed_at, :now), updated_at = :now " +
+            "WHERE collector_id = :collectorId";
+
+    // Exact aggregate taken once per collector, as a non-locking read
+    private static final String AGGREGATE_SQL =
+            "SELECT COUNT(*) AS rating_count, COALESCE(SUM(overall_rating), 0) AS rating_sum, " +
+            "COALESCE(SUM(overall_rating = 1), 0) AS stars_1, COALESCE(SUM(overall_rating = 2), 0) AS stars_2, " +
+            "COALESCE(SUM(overall_rating = 3), 0) AS stars_3, COALESCE(SUM(overall_rating = 4), 0) AS stars_4, " +
+            "COALESCE(SUM(overall_rating = 5), 0) AS stars_5, " +
+            "COALESCE(SUM(overall_rating * " + String.format(DECAY, "rating_date") + "), 0) AS decayed_sum, " +
+            "COALESCE(SUM(" + String.format(DECAY, "rating_date") + "), 0) AS decayed_weight " +
+            "FROM rating WHERE collector_id = :collectorId";
+
+    // Ignored when another transaction created the row first, even if it has not committed yet
+    private static final String INITIALIZE_SQL =
+            "INSERT IGNORE INTO collector_rating_summaries (collector_id, rating_count, rating_sum, stars_1, stars_2, " +
+            "stars_3, stars_4, stars_5, decayed_sum, decayed_weight, decayed_at, updated_at) " +
+            "VALUES (:collectorId, :rating_count, :rating_sum, :stars_1, :stars_2, :stars_3, :stars_4, :stars_5, " +
+            ":decayed_sum, :decayed_weight, :now, :now)";
+
+    private static final String SELECT_SQL =
+            "SELECT rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5, decayed_sum, decayed_weight " +
+            "FROM collector_rating_summaries WHERE collector_id = :collectorId";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${app.ratings.recent-half-life-days:30}")
+    private double recentHalfLifeDays;
+
+    /**
+     * Adds a rating to its collector's aggregate. Must be called inside the transaction that inserts the rating, before
+     * the insert: a missing aggregate is then built from the earlier ratings only, and this one is added to it.
+     *
+     * @param collectorId The rated collector.
+     * @param stars       The overall rating, 1 to 5.
+     */
+    public void recordRating(Long collectorId, int stars) {
+        MapSqlParameterSource params = params(collectorId).addValue("stars", stars);
+        if (namedJdbcTemplate.update(INCREMENT_SQL, params) == 0) {
+            initialize(collectorId, params);
+            namedJdbcTemplate.update(INCREMENT_SQL, params);
+        }
+    }
+
+    /**
+     * Returns the rating figures of a collector.
+     */
+    public CollectorRatingSummaryDTO getSummary(Long collectorId) {
+        MapSqlParameterSource params = params(collectorId);
+        RowMapper<CollectorRatingSummaryDTO> mapper = (rs, rowNum) -> {
+            long count = rs.getLong("rating_count");
+            double decayedWeight = rs.getDouble("decayed_weight");
+            return new CollectorRatingSummaryDTO(collectorId, count,
+                    count == 0 ? 0.0 : (double) rs.getLong("rating_sum") / count,
+                    decayedWeight <= 0 ? 0.0 : rs.getDouble("decayed_sum") / decayedWeight,
+                    List.of(rs.getLong("stars_1"), rs.getLong("stars_2"), rs.getLong("stars_3"),
+                            rs.getLong("stars_4"), rs.getLong("stars_5")));
+        };
+        List<CollectorRatingSummaryDTO> summaries = namedJdbcTemplate.query(SELECT_SQL, params, mapper);
+        if (!summaries.isEmpty()) {
+            return summaries.get(0);
+        }
+        initialize(collectorId, params);
+        return namedJdbcTemplate.queryForObject(SELECT_SQL, params, mapper);
+    }
+
+    /**
+     * Creates the aggregate of a collector from its committed ratings, unless another transaction has created it.
+     */
+    private void initialize(Long collectorId, MapSqlParameterSource params) {
+        MapSqlParameterSource values = new MapSqlParameterSource(params.getValues());
+        namedJdbcTemplate.query(AGGREGATE_SQL, params, rs -> {
+            for (String column : new String[] {"rating_count", "rating_sum", "stars_1", "stars_2", "stars_3",
+                    "stars_4", "stars_5", "decayed_sum", "decayed_weight"}) {
+                values.addValue(column, rs.getObject(column));
+            }
+        });
+        if (namedJdbcTemplate.update(INITIALIZE_SQL, values) > 0) {
+            logger.debug("Rating summary initialized for collector ID: {}", collectorId);
+        }
+    }
+
+    private MapSqlParameterSource params(Long collectorId) {
+        return new MapSqlParameterSource("collectorId", collectorId)
+                .addValue("now", LocalDateTime.now())
+                .addValue("halfLifeSeconds", recentHalfLifeDays * 86400);
+    }
+}
@@ -2,16 +2,29 @@ package com.wastecollect.backend.service;
 
 import com.wastecollect.common.dto.*;
 import com.wastecollect.common.models.*;
+import com.wastecollect.common.utils.NotificationEventType;
 import com.wastecollect.common.utils.NotificationType;
 import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
 import com.wastecollect.backend.repository.CollectorRepository;
 import com.wastecollect.backend.repository.ServiceRequestRepository;
 import com.wastecollect.backend.repository.PaymentRepository;
 import com.wastecollect.backend.repository.NotificationRepository;
 import com.wastecollect.backend.repository.RatingRepository;
 import com.wastecollect.backend.repository.WasteCollectionRepository;
+import com.wastecollect.backend.repository.HouseholdRepository;
+import com.wastecollect.backend.repository.MunicipalityRepository;
+import com.wastecollect.backend.exception.ConflictException;
+import com.wastecollect.backend.exception.RequestValidationException;
 import com.wastecollect.backend.exception.ResourceNotFoundException;
+import com.wastecollect.backend.service.outbox.NotificationOutboxService;
+import com.wastecollect.backend.service.push.NotificationCreatedEvent;
+import com.wastecollect.backend.service.telemetry.TelemetryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -48,12 +61,57 @@ public class CollectorService {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
     @Autowired
     private RatingRepository ratingRepository;
 
     @Autowired
     private WasteCollectionRepository wasteCollectionRepository;
 
+    @Autowired
+    private HouseholdRepository householdRepository;
+
+    @Autowired
+    private MunicipalityRepository municipalityRepository;
+
+    @Autowired
+    private ServiceRequestStateMachine stateMachine;
+
+    @Autowired
+    private CollectorWorkQueueService workQueueService;
+
+    @Autowired
+    private CollectorSyncService syncService;
+
+    @Autowired
+    private OfflineCompletionService offlineCompletionService;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private CollectorKpiService collectorKpiService;
+
+    @Autowired
+    private CollectorRatingService collectorRatingService;
+
+    @Value("${app.ratings.max-feedback-limit:50}")
+    private int maxFeedbackLimit;
+
+    @Autowired
+    private SyncChangeRecorder syncChangeRecorder;
+
+    @Value("${app.work-queue.list-limit:100}")
+    private int listLimit;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Helper method to get the current authenticated Collector user
     private Optional<Collector> getCurrentCollector() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -88,42 +146,17 @@ public class CollectorService {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        long totalRequests = serviceRequestRepository.countByCollector(collector);
-        long pendingRequests = serviceRequestRepository.countByCollectorAndStatus(collector, ServiceRequestStatus.PENDING);
-        long completedToday = serviceRequestRepository.countByCollectorAndStatusAndCreatedAtAfter(
-            collector, ServiceRequestStatus.COMPLETED, LocalDate.now().atStartOfDay()
-        );
-        double totalRevenue = paymentRepository.findByCollector(collector).stream()
-                                .mapToDouble(Payment::getAmount).sum();
-
-        // Calculate weekly revenue
-        double weeklyRevenue = paymentRepository.findByCollectorAndPaymentDateBetween(
-            collector,
-            LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(),
-            LocalDateTime.now()
-        ).stream().mapToDouble(Payment::getAmount).sum();
-
-        Double averageRating = ratingRepository.findByCollector(collector).stream()
-                                .mapToInt(CollectorRating::getOverallRating)
-                                .average()
-                                .orElse(0.0);
-        long totalRatings = ratingRepository.countByCollector(collector);
-
-        // Assuming totalHouseholds and completionRate for generalStats in PerformanceMetrics
-        long totalHouseholds = serviceRequestRepository.countDistinctHouseholdsByCollector(collector); // You might need a custom query in ServiceRequestRepository
-        double completionRate = (totalRequests == 0) ? 0 : (double) serviceRequestRepository.countByCollectorAndStatus(collector, ServiceRequestStatus.COMPLETED) / totalRequests * 100;
-
-        // Return the new DTO
+        CollectorKpiService.Kpis kpis = collectorKpiService.getKpis(collector.getId());
         return new CollectorDashboardSummaryDTO(
-                totalRequests,
-                pendingRequests,
-                completedToday,
-                totalRevenue,
-                weeklyRevenue,
-                averageRating,
-                totalRatings,
-                totalHouseholds, // Added totalHouseholds
-                completionRate // Added completionRate
+                kpis.totalRequests(),
+                kpis.pendingRequests(),
+                kpis.completedToday(),
+                kpis.totalRevenue(),
+                kpis.weeklyRevenue(),
+                kpis.averageRating(),
+                kpis.totalRatings(),
+                kpis.totalHouseholds(),
+                kpis.completionRate()
         );
     }
 
@@ -235,32 +268,15 @@ public class CollectorService {
         double monthlyTargetRevenue = 500000.0;
         double targetRating = 4.5;
 
-        // Calculate current progress for the current month
-        LocalDateTime startOfMonth = LocalDateTime.now().with(TemporalAdjusters.firstDayOfMonth()).toLocalDate().atStartOfDay();
-        LocalDateTime endOfMonth = LocalDateTime.now().with(TemporalAdjusters.lastDayOfMonth()).toLocalDate().atStartOfDay().plusDays(1).minusNanos(1);
-
-        long currentCollectionsProgress = serviceRequestRepository.countByCollectorAndStatusAndCreatedAtBetween(
-            collector, ServiceRequestStatus.COMPLETED, startOfMonth, endOfMonth
-        );
-
-        double currentRevenueProgress = paymentRepository.findByCollectorAndPaymentDateBetween(
-            collector,
-            startOfMonth,
-            endOfMonth
-        ).stream().mapToDouble(Payment::getAmount).sum();
-
-        Double currentRating = ratingRepository.findByCollector(collector).stream()
-                .mapToInt(CollectorRating::getOverallRating)
-                .average()
-                .orElse(0.0);
+        CollectorKpiService.Kpis kpis = collectorKpiService.getKpis(collector.getId());
 
         return new ObjectiveDTO(
             monthlyTargetCollections,
-            (int) currentCollectionsProgress,
+            (int) kpis.completedThisMonth(),
             monthlyTargetRevenue,
-            currentRevenueProgress,
+            kpis.monthlyRevenue(),
             targetRating,
-            currentRating
+            kpis.averageRating()
         );
     }
 
@@ -275,11 +291,10 @@ public class CollectorService {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        // You might need a custom query in RatingRepository to order by ratingDateDesc and limit
-        List<CollectorRating> recentRatings = ratingRepository.findByCollectorOrderByRatingDateDesc(collector);
+        List<CollectorRating> recentRatings = ratingRepository.findRecentByCollectorId(collector.getId(),
+                PageRequest.of(0, Math.max(1, Math.min(limit, maxFeedbackLimit))));
 
         return recentRatings.stream()
-                .limit(limit)
                 .map(rating -> new HouseholdFeedbackDTO(
                     rating.getId(),
                     rating.getHousehold() != null ? rating.getHousehold().getFirstName() + " " + rating.getHousehold().getLastName() : "Anonymous",
@@ -291,6 +306,18 @@ public class CollectorService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves the rating figures of the authenticated collector: count, average, recent average and histogram.
+     *
+     * @return A CollectorRatingSummaryDTO.
+     * @throws IllegalStateException if the authenticated collector is not found.
+     */
+    public CollectorRatingSummaryDTO getRatingSummary() {
+        Collector collector = getCurrentCollector()
+                .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
+        return collectorRatingService.getSummary(collector.getId());
+    }
+
     /**
      * Retrieves all security alerts relevant to the authenticated collector.
      * Now uses the Notification entity.
@@ -384,7 +411,9 @@ public class CollectorService {
         );
         alert.setIsRead(false);
 
-        notificationRepository.save(alert);
+        Notification savedAlert = notificationRepository.save(alert);
+        notificationCounterService.adjustUnread(recipientUser.getId(), 1);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(convertToNotificationDTO(savedAlert)));
         logger.info("Security alert '{}' saved successfully.", alertDto.getSubject());
     }
 
@@ -413,7 +442,8 @@ public class CollectorService {
      * @param requestId     The ID of the service request to reject.
      * @param actionDto     DTO containing the rejection reason.
      * @throws ResourceNotFoundException if the service request is not found.
-     * @throws IllegalStateException if the authenticated collector is not found or not assigned.
+     * @throws IllegalStateException if the authenticated collector is not found.
+     * @throws ConflictException if the request is no longer PENDING/ACCEPTED or is assigned to another collector.
      */
     @Transactional
     public void rejectServiceRequest(Long requestId, ServiceRequestActionDTO actionDto) {
@@ -421,32 +451,12 @@ public class CollectorService {
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
         logger.info("Attempting to reject service request with ID: {}", requestId);
-        ServiceRequest request = serviceRequestRepository.findById(requestId)
-                                    .orElseThrow(() -> {
-                                        logger.warn("Service request not found for rejection with ID: {}", requestId);
-                                        return new ResourceNotFoundException("Service request not found with ID: " + requestId);
-                                    });
-
-        if (request.getCollector() != null && !request.getCollector().equals(collector)) {
-            throw new IllegalStateException("You are not authorized to reject this service request.");
-        }
-
-        request.setStatus(ServiceRequestStatus.REJECTED);
-        request.setComment(actionDto.getReason());
-        request.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(request);
+        stateMachine.apply(requestId, ServiceRequestStateMachine.Transition.REJECT, collector.getId(), actionDto.getReason());
         logger.info("Service request with ID: {} rejected successfully with note: {}", requestId, actionDto.getReason());
 
-        if (request.getHousehold() != null) {
-            Notification notification = new Notification(
-                request.getHousehold(),
-                "Service Request Rejected",
-                "Your service request (ID: " + requestId + ") was rejected due to: " + actionDto.getReason(),
-                NotificationType.SERVICE_REQUEST_UPDATE,
-                request, null, null
-            );
-            notificationRepository.save(notification);
-        }
+        ServiceRequestRepository.TransitionView request = loadTransitionView(requestId);
+        notifyHousehold(request, NotificationEventType.SERVICE_REQUEST_REJECTED,
+                Map.of("reason", String.valueOf(actionDto.getReason())));
     }
 
     /**
@@ -472,13 +482,16 @@ public class CollectorService {
              throw new IllegalStateException("You are not authorized to mark this alert as read.");
         }
 
-        alert.markAsRead();
-        notificationRepository.save(alert);
+        if (notificationRepository.markAsReadIfUnread(alertId, LocalDateTime.now()) == 1) {
+            notificationCounterService.adjustUnread(collector.getId(), -1);
+            syncChangeRecorder.record(SyncScope.USER, collector.getId(), SyncEntityType.NOTIFICATION, alertId);
+        }
         logger.info("Security alert (Notification) with ID: {} marked as read successfully.", alertId);
     }
 
     /**
-     * Retrieves all pending, accepted, and in-progress service requests for the authenticated collector.
+     * Retrieves the accepted and in-progress service requests of the authenticated collector, followed by the
+     * pending requests of its municipality, closest and oldest first, up to {@code app.work-queue.list-limit}.
      *
      * @return A list of ServiceRequestDTOs.
      * @throws IllegalStateException if the authenticated collector is not found.
@@ -487,14 +500,36 @@ public class CollectorService {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        List<ServiceRequest> requests = serviceRequestRepository.findByCollectorAndStatusIn(
-            collector, List.of(ServiceRequestStatus.ACCEPTED, ServiceRequestStatus.IN_PROGRESS)
-        );
-        requests.addAll(serviceRequestRepository.findByStatus(ServiceRequestStatus.PENDING));
+        // The head of the work queue: held requests, then the municipality's closest and oldest open ones
+        return workQueueService.getWorkQueue(collector, null, null, null, listLimit).getContent();
+    }
 
-        return requests.stream()
-                .map(this::convertToServiceRequestDTO)
-                .collect(Collectors.toList());
+    /**
+     * Returns one page of the authenticated collector's work queue.
+     *
+     * @param latitude  Current latitude of the collector, or null to use its last known position.
+     * @param longitude Current longitude of the collector, or null.
+     * @param cursor    Opaque cursor returned with the previous page, null for the first page.
+     * @param size      Maximum number of requests to return.
+     * @throws IllegalStateException if the collector is not found.
+     */
+    public CursorPageDTO<ServiceRequestDTO> getWorkQueueForAuthenticatedCollector(Double latitude, Double longitude,
+                                                                                  String cursor, int size) {
+        Collector collector = getCurrentCollector()
+                .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
+        return workQueueService.getWorkQueue(collector, latitude, longitude, cursor, size);
+    }
+
+    /**
+     * Returns what changed in the authenticated collector's requests, notifications and payments since a sync token.
+     *
+     * @param token Token returned by the previous sync, null for a full snapshot.
+     * @throws IllegalStateException if the collector is not found.
+     */
+    public SyncDTO syncForAuthenticatedCollector(String token) {
+        Collector collector = getCurrentCollector()
+                .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
+        return syncService.sync(collector, token);
     }
 
     /**
@@ -502,77 +537,42 @@ public class CollectorService {
      *
      * @param serviceRequestId The ID of the service request to accept.
      * @param actionDto        DTO containing notes for acceptance.
-     * @throws IllegalStateException if the collector is not found or request cannot be accepted.
+     * @throws IllegalStateException if the collector is not found.
      * @throws ResourceNotFoundException if the service request is not found.
+     * @throws ConflictException if the request is no longer PENDING (e.g. another collector accepted it first).
      */
     @Transactional
     public void acceptServiceRequest(Long serviceRequestId, ServiceRequestActionDTO actionDto) {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Service Request not found."));
-
-        if (serviceRequest.getStatus() != ServiceRequestStatus.PENDING) {
-            throw new IllegalStateException("Service Request is not in PENDING status and cannot be accepted.");
-        }
-
-        serviceRequest.setStatus(ServiceRequestStatus.ACCEPTED);
-        serviceRequest.setCollector(collector);
-        serviceRequest.setComment(actionDto.getNote());
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
+        // Single guarded UPDATE: only one collector can win a PENDING request, the others get a 409
+        stateMachine.apply(serviceRequestId, ServiceRequestStateMachine.Transition.ACCEPT, collector.getId(), actionDto.getNote());
         logger.info("Collector ID: {} accepted service request ID: {} with note: {}", collector.getId(), serviceRequestId, actionDto.getNote());
 
-        if (serviceRequest.getHousehold() != null) {
-            Notification notification = new Notification(
-                serviceRequest.getHousehold(),
-                "Service Request Accepted",
-                "Your service request (ID: " + serviceRequestId + ") has been accepted by " + collector.getFirstName() + " " + collector.getLastName() + ". Expected collection date: " + serviceRequest.getPreferredDate().toLocalDate(),
-                NotificationType.SERVICE_REQUEST_UPDATE,
-                serviceRequest, null, null
-            );
-            notificationRepository.save(notification);
-        }
+        ServiceRequestRepository.TransitionView serviceRequest = loadTransitionView(serviceRequestId);
+        notifyHousehold(serviceRequest, NotificationEventType.SERVICE_REQUEST_ACCEPTED, Map.of(
+                "collectorName", collector.getFirstName() + " " + collector.getLastName(),
+                "preferredDate", serviceRequest.getPreferredDate() != null ? serviceRequest.getPreferredDate().toLocalDate().toString() : "to be confirmed"));
     }
 
     /**
      * Allows the authenticated collector to mark a service request as in progress.
      *
      * @param serviceRequestId The ID of the service request to start.
-     * @throws IllegalStateException if the collector is not found or request cannot be started.
+     * @throws IllegalStateException if the collector is not found.
      * @throws ResourceNotFoundException if the service request is not found.
+     * @throws ConflictException if the request is not ACCEPTED or not assigned to this collector.
      */
     @Transactional
     public void startServiceRequest(Long serviceRequestId) {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Service Request not found."));
-
-        if (serviceRequest.getStatus() != ServiceRequestStatus.ACCEPTED) {
-            throw new IllegalStateException("Service Request is not in ACCEPTED status and cannot be started.");
-        }
-        if (serviceRequest.getCollector() == null || !serviceRequest.getCollector().equals(collector)) {
-            throw new IllegalStateException("Service Request is not assigned to this collector.");
-        }
-
-        serviceRequest.setStatus(ServiceRequestStatus.IN_PROGRESS);
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
+        stateMachine.apply(serviceRequestId, ServiceRequestStateMachine.Transition.START, collector.getId(), null);
         logger.info("Collector ID: {} started service request ID: {}", collector.getId(), serviceRequestId);
 
-        if (serviceRequest.getHousehold() != null) {
-            Notification notification = new Notification(
-                serviceRequest.getHousehold(),
-                "Service Request In Progress",
-                "Your service request (ID: " + serviceRequestId + ") is now in progress. The collector is on their way.",
-                NotificationType.SERVICE_REQUEST_UPDATE,
-                serviceRequest, null, null
-            );
-            notificationRepository.save(notification);
-        }
+        notifyHousehold(loadTransitionView(serviceRequestId), NotificationEventType.SERVICE_REQUEST_STARTED, Map.of());
     }
 
     /**
@@ -581,34 +581,23 @@ public class CollectorService {
      *
      * @param serviceRequestId The ID of the service request to complete.
      * @param actionDto        DTO containing notes for completion (e.g., actual weight, comments).
-     * @throws IllegalStateException if the collector is not found or request cannot be completed.
+     * @throws IllegalStateException if the collector is not found.
      * @throws ResourceNotFoundException if the service request is not found.
+     * @throws ConflictException if the request is not IN_PROGRESS or not assigned to this collector.
      */
     @Transactional
     public void completeServiceRequest(Long serviceRequestId, ServiceRequestActionDTO actionDto) {
         Collector collector = getCurrentCollector()
                 .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
 
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Service Request not found."));
-
-        if (serviceRequest.getStatus() != ServiceRequestStatus.IN_PROGRESS) {
-            throw new IllegalStateException("Service Request is not in IN_PROGRESS status and cannot be completed.");
-        }
-        if (serviceRequest.getCollector() == null || !serviceRequest.getCollector().equals(collector)) {
-            throw new IllegalStateException("Service Request is not assigned to this collector.");
-        }
-
-        serviceRequest.setStatus(ServiceRequestStatus.COMPLETED);
-        serviceRequest.setComment(actionDto.getNote());
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
+        stateMachine.apply(serviceRequestId, ServiceRequestStateMachine.Transition.COMPLETE, collector.getId(), actionDto.getNote());
 
+        ServiceRequestRepository.TransitionView serviceRequest = loadTransitionView(serviceRequestId);
         WasteCollection wasteCollection = new WasteCollection();
-        wasteCollection.setServiceRequest(serviceRequest);
-        wasteCollection.setCollector(collector);
-        wasteCollection.setHousehold(serviceRequest.getHousehold());
-        wasteCollection.setMunicipality(serviceRequest.getMunicipality());
+        wasteCollection.setServiceRequest(serviceRequestRepository.getReferenceById(serviceRequestId));
+        wasteCollection.setCollector(collectorRepository.getReferenceById(collector.getId()));
+        wasteCollection.setHousehold(serviceRequest.getHouseholdId() != null ? householdRepository.getReferenceById(serviceRequest.getHouseholdId()) : null);
+        wasteCollection.setMunicipality(serviceRequest.getMunicipalityId() != null ? municipalityRepository.getReferenceById(serviceRequest.getMunicipalityId()) : null);
         wasteCollection.setCollectionDate(LocalDateTime.now());
         wasteCollection.setAddresse(serviceRequest.getAddress());
         wasteCollection.setLatitude(actionDto.getLatitude()); // Use latitude from actionDto
@@ -621,16 +610,56 @@ public class CollectorService {
 
         logger.info("Collector ID: {} completed service request ID: {} with notes: {}", collector.getId(), serviceRequestId, actionDto.getNote());
 
-        if (serviceRequest.getHousehold() != null) {
-            Notification notification = new Notification(
-                serviceRequest.getHousehold(),
-                "Service Request Completed",
-                "Your service request (ID: " + serviceRequestId + ") has been successfully completed by " + collector.getFirstName() + " " + collector.getLastName() + ". Thank you!",
-                NotificationType.SERVICE_REQUEST_UPDATE,
-                serviceRequest, null, null
-            );
-            notificationRepository.save(notification);
+        notifyHousehold(serviceRequest, NotificationEventType.SERVICE_REQUEST_COMPLETED,
+                Map.of("collectorName", collector.getFirstName() + " " + collector.getLastName()));
+    }
+
+    /**
+     * Records a batch of pickups the authenticated collector completed offline.
+     *
+     * @param completions The completions, each with the client ID generated by the device.
+     * @return One result per completion, in the same order.
+     * @throws IllegalStateException if the collector is not found.
+     * @throws RequestValidationException if the batch is empty or too large.
+     */
+    public List<OfflineCompletionResultDTO> completeOfflineBatch(List<OfflineCompletionDTO> completions) {
+        Collector collector = getCurrentCollector()
+                .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
+        return offlineCompletionService.complete(collector, completions);
+    }
+
+    /**
+     * Records GPS fixes sent by the authenticated collector's device. The collector is resolved by the telemetry
+     * service from the username, without loading it on every ping.
+     *
+     * @param pings The fixes, in any order.
+     * @return The number of fixes accepted.
+     * @throws IllegalStateException if the collector is not found.
+     * @throws RequestValidationException if the batch is empty or too large.
+     */
+    public int reportTelemetry(List<GpsPingDTO> pings) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("Authenticated collector not found.");
+        }
+        return telemetryService.ingest(authentication.getName(), pings);
+    }
+
+    private ServiceRequestRepository.TransitionView loadTransitionView(Long serviceRequestId) {
+        return serviceRequestRepository.findTransitionViewById(serviceRequestId)
+                .orElseThrow(() -> new ResourceNotFoundException("Service Request not found."));
+    }
+
+    /**
+     * Records a notification event for the household of a request in the outbox. Only the event row is written
+     * in the collector's transaction; the notification itself is rendered and delivered in the background.
+     */
+    private void notifyHousehold(ServiceRequestRepository.TransitionView serviceRequest, NotificationEventType eventType,
+                                 Map<String, String> values) {
+        if (serviceRequest.getHouseholdId() == null) {
+            return;
         }
+        notificationOutboxService.enqueue(eventType, serviceRequest.getHouseholdId(), serviceRequest.getId(), values);
     }
 
     public List<ServiceRequestDTO> getRealTimeServiceRequests() {
@@ -0,0 +1,340 @@
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.common.dto.NotificationDTO;
+import com.wastecollect.common.dto.PaymentDTO;
+import com.wastecollect.common.dto.ServiceRequestDTO;
+import com.wastecollect.common.dto.SyncDTO;
+import com.wastecollect.common.models.Collector;
+import com.wastecollect.common.utils.NotificationType;
+import com.wastecollect.common.utils.PaymentMethod;
+import com.wastecollect.common.utils.PaymentStatus;
+import com.wastecollect.common.utils.RoleName;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Delta sync of the collector mobile app: its service requests (held ones and the PENDING ones of its
+ * municipality), its notifications, the broadcasts addressed to it and its payments, changed since a sync token.
+ * <p>
+ * The token is the position reached in the three change logs the collector reads (see {@link SyncChangeRecorder}):
+ * its own, its municipality's, and the collector role's (where published broadcasts are logged; reading or
+ * unreading one is logged in the collector's own). A sync reads the entries past that position, then the current state of the rows
+ * they point to in one query per kind. A row that is gone, or no longer visible to the collector (e.g. a request
+ * another collector accepted), is returned as a deleted ID. Without a token, or with one older than
+ * {@code app.sync.token-ttl-days} (the log is pruned past that), the response is a snapshot flagged {@code reset}.
+ * The snapshot is bounded: the oldest {@code app.sync.snapshot-requests} held and pending requests, and the latest
+ * {@code app.sync.snapshot-notifications} notifications and broadcasts and {@code app.sync.snapshot-payments}
+ * payments. Older rows reach the app through the change log once they change. Rows are read from the primary, so a
+ * collector sees its own changes right away.
+ */
+@Service
+public class CollectorSyncService {
+
+    private static final char SEPARATOR = '|';
+
+    private static final String VISIBLE_REQUESTS =
+            "((sr.collector_id = :collectorId AND sr.status IN ('ACCEPTED', 'IN_PROGRESS')) " +
+            "OR (sr.municipality_id = :municipalityId AND sr.status = 'PENDING'))";
+
+    private static final String REQUESTS_SQL =
+            CollectorWorkQueueService.COLUMNS + "NULL AS distance_km FROM service_requests sr " +
+            "LEFT JOIN users h ON h.id = sr.household_id WHERE sr.id IN (:ids) AND " + VISIBLE_REQUESTS;
+
+    // Split in two branches so that each uses its own index; each is capped, oldest first as the dispatcher serves them
+    private static final String REQUESTS_SNAPSHOT_SQL =
+            "(" + CollectorWorkQueueService.COLUMNS + "NULL AS distance_km FROM service_requests sr " +
+            "LEFT JOIN users h ON h.id = sr.household_id " +
+            "WHERE sr.collector_id = :collectorId AND sr.status IN ('ACCEPTED', 'IN_PROGRESS') " +
+            "ORDER BY sr.created_at, sr.id LIMIT :requestLimit) " +
+            "UNION ALL " +
+            "(" + CollectorWorkQueueService.COLUMNS + "NULL AS distance_km FROM service_requests sr " +
+            "LEFT JOIN users h ON h.id = sr.household_id " +
+            "WHERE sr.municipality_id = :municipalityId AND sr.status = 'PENDING' " +
+            "ORDER BY sr.created_at, sr.id LIMIT :requestLimit)";
+
+    private static final String NOTIFICATION_COLUMNS =
+            "SELECT id, recipient_user_id, subject, message, notification_type, created_at, read_at, is_read, " +
+            "service_request_id, payment_id, dispute_id FROM notifications WHERE recipient_user_id = :collectorId ";
+
+    // Broadcasts visible to the collector, as in the inbox: addressed to everyone or to one of its roles, published
+    // after its account was created; the joined marker tells whether it has read it
+    private static final String BROADCAST_COLUMNS =
+            "SELECT b.id, b.subject, b.message, b.notification_type, b.created_at, r.read_at, (r.user_id IS NOT NULL) AS is_read " +
+            "FROM broadcast_notifications b " +
+            "LEFT JOIN broadcast_notification_reads r ON r.user_id = :collectorId AND r.broadcast_id = b.id " +
+            "WHERE b.created_at >= :userCreatedAt AND (b.target_role IS NULL OR b.target_role IN " +
+            "(SELECT ro.name FROM user_roles ur JOIN roles ro ON ro.id = ur.role_id WHERE ur.user_id = :collectorId)) ";
+
+    private static final String PAYMENT_COLUMNS =
+            "SELECT id, amount, payment_method, status, payment_date, transaction_reference, household_id, " +
+            "service_request_id, collector_id FROM payments WHERE collector_id = :collectorId ";
+
+    private static final String CHANGES_SQL =
+            "SELECT seq, entity_type, entity_id FROM sync_changes " +
+            "WHERE scope_type = :scopeType AND scope_id = :scopeId AND seq > :afterSeq ORDER BY seq LIMIT :limit";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${app.sync.token-ttl-days:7}")
+    private int tokenTtlDays;
+
+    @Value("${app.sync.max-changes:500}")
+    private int maxChanges;
+
+    @Value("${app.sync.snapshot-notifications:200}")
+    private int snapshotNotifications;
+
+    @Value("${app.sync.snapshot-requests:500}")
+    private int snapshotRequests;
+
+    @Value("${app.sync.snapshot-payments:200}")
+    private int snapshotPayments;
+
+    /**
+     * Position in the collector's, its municipality's and its role's change logs, and when it was handed out.
+     * A role position of -1 comes from a token issued before broadcasts were synced, which calls for a snapshot.
+     */
+    private record SyncToken(long userSeq, Long municipalityId, long municipalitySeq, long roleSeq, LocalDateTime issuedAt) {
+
+        String encode() {
+            String raw = String.valueOf(userSeq) + SEPARATOR + (municipalityId != null ? municipalityId : "")
+                    + SEPARATOR + municipalitySeq + SEPARATOR + roleSeq + SEPARATOR + issuedAt;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static SyncToken decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+                if (parts.length != 4 && parts.length != 5) {
+                    throw new RequestValidationException("Invalid sync token.");
+                }
+                long roleSeq = parts.length == 5 ? Long.parseLong(parts[3]) : -1L;
+                return new SyncToken(Long.parseLong(parts[0]), parts[1].isEmpty() ? null : Long.valueOf(parts[1]),
+                        Long.parseLong(parts[2]), roleSeq, LocalDateTime.parse(parts[parts.length - 1]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new RequestValidationException("Invalid sync token.");
+            }
+        }
+    }
+
+    /**
+     * Entries read from one change log, and the position reached.
+     */
+    private record ChangeBatch(Map<SyncEntityType, Set<Long>> ids, long lastSeq, boolean hasMore) {}
+
+    /**
+     * Returns the changes since a sync token, or a full snapshot when there is no usable token.
+     *
+     * @param collector The collector.
+     * @param token     Token returned by the previous sync, null for the first one.
+     * @throws RequestValidationException if the token is malformed.
+     */
+    public SyncDTO sync(Collector collector, String token) {
+        Long municipalityId = collector.getMunicipality() != null ? collector.getMunicipality().getId() : null;
+        SyncToken position = token != null && !token.isBlank() ? SyncToken.decode(token) : null;
+        LocalDateTime now = LocalDateTime.now();
+
+        Long roleId = collectorRoleId();
+
+        // Moving to another municipality changes which pending requests the collector sees: start over
+        if (position == null || position.issuedAt().isBefore(now.minusDays(tokenTtlDays))
+                || !Objects.equals(position.municipalityId(), municipalityId) || position.roleSeq() < 0) {
+            return snapshot(collector, municipalityId, roleId, now);
+        }
+
+        ChangeBatch own = readChanges(SyncScope.USER, collector.getId(), position.userSeq());
+        ChangeBatch municipality = municipalityId != null
+                ? readChanges(SyncScope.MUNICIPALITY, municipalityId, position.municipalitySeq())
+                : new ChangeBatch(new EnumMap<>(SyncEntityType.class), position.municipalitySeq(), false);
+        ChangeBatch role = roleId != null
+                ? readChanges(SyncScope.ROLE, roleId, position.roleSeq())
+                : new ChangeBatch(new EnumMap<>(SyncEntityType.class), position.roleSeq(), false);
+
+        Set<Long> requestIds = new LinkedHashSet<>(own.ids().getOrDefault(SyncEntityType.SERVICE_REQUEST, Set.of()));
+        requestIds.addAll(municipality.ids().getOrDefault(SyncEntityType.SERVICE_REQUEST, Set.of()));
+        Set<Long> notificationIds = own.ids().getOrDefault(SyncEntityType.NOTIFICATION, Set.of());
+        Set<Long> paymentIds = own.ids().getOrDefault(SyncEntityType.PAYMENT, Set.of());
+        Set<Long> broadcastIds = new LinkedHashSet<>(role.ids().getOrDefault(SyncEntityType.BROADCAST, Set.of()));
+        broadcastIds.addAll(own.ids().getOrDefault(SyncEntityType.BROADCAST, Set.of()));
+
+        MapSqlParameterSource params = new MapSqlParameterSource("collectorId", collector.getId())
+                .addValue("municipalityId", municipalityId)
+                .addValue("userCreatedAt", userCreatedAt(collector));
+
+        SyncDTO sync = new SyncDTO();
+        if (!requestIds.isEmpty()) {
+            sync.setServiceRequests(namedJdbcTemplate.query(REQUESTS_SQL, new MapSqlParameterSource(params.getValues())
+                    .addValue("ids", requestIds), (rs, rowNum) -> CollectorWorkQueueService.toDto(rs)));
+            sync.setDeletedServiceRequestIds(missing(requestIds, sync.getServiceRequests().stream().map(ServiceRequestDTO::getId).toList()));
+        }
+        if (!notificationIds.isEmpty()) {
+            sync.setNotifications(namedJdbcTemplate.query(NOTIFICATION_COLUMNS + "AND id IN (:ids)",
+                    new MapSqlParameterSource(params.getValues()).addValue("ids", notificationIds),
+                    (rs, rowNum) -> toNotificationDto(rs)));
+            sync.setDeletedNotificationIds(missing(notificationIds, sync.getNotifications().stream().map(NotificationDTO::getId).toList()));
+        }
+        if (!broadcastIds.isEmpty()) {
+            sync.setBroadcasts(namedJdbcTemplate.query(BROADCAST_COLUMNS + "AND b.id IN (:ids)",
+                    new MapSqlParameterSource(params.getValues()).addValue("ids", broadcastIds),
+                    (rs, rowNum) -> toBroadcastDto(rs, collector.getId())));
+            sync.setDeletedBroadcastIds(missing(broadcastIds, sync.getBroadcasts().stream().map(NotificationDTO::getBroadcastId).toList()));
+        }
+        if (!paymentIds.isEmpty()) {
+            sync.setPayments(namedJdbcTemplate.query(PAYMENT_COLUMNS + "AND id IN (:ids)",
+                    new MapSqlParameterSource(params.getValues()).addValue("ids", paymentIds),
+                    (rs, rowNum) -> toPaymentDto(rs)));
+            sync.setDeletedPaymentIds(missing(paymentIds, sync.getPayments().stream().map(PaymentDTO::getId).toList()));
+        }
+        sync.setAllNotificationsRead(own.ids().containsKey(SyncEntityType.NOTIFICATIONS_READ));
+        sync.setHasMore(own.hasMore() || municipality.hasMore() || role.hasMore());
+        // Entries still waiting may be as old as the previous token, so a partial sync does not renew its age
+        LocalDateTime issuedAt = sync.isHasMore() ? position.issuedAt() : now;
+        sync.setToken(new SyncToken(own.lastSeq(), municipalityId, municipality.lastSeq(), role.lastSeq(), issuedAt).encode());
+        return sync;
+    }
+
+    private SyncDTO snapshot(Collector collector, Long municipalityId, Long roleId, LocalDateTime now) {
+        Long collectorId = collector.getId();
+        // Positions first: a change committed while the snapshot is read is sent again by the next sync
+        long userSeq = currentSeq(SyncScope.USER, collectorId);
+        long municipalitySeq = municipalityId != null ? currentSeq(SyncScope.MUNICIPALITY, municipalityId) : 0L;
+        long roleSeq = roleId != null ? currentSeq(SyncScope.ROLE, roleId) : 0L;
+
+        MapSqlParameterSource params = new MapSqlParameterSource("collectorId", collectorId)
+                .addValue("municipalityId", municipalityId)
+                .addValue("userCreatedAt", userCreatedAt(collector))
+                .addValue("limit", snapshotNotifications)
+                .addValue("requestLimit", snapshotRequests)
+                .addValue("paymentLimit", snapshotPayments);
+        SyncDTO sync = new SyncDTO();
+        sync.setReset(true);
+        sync.setServiceRequests(namedJdbcTemplate.query(REQUESTS_SNAPSHOT_SQL, params,
+                (rs, rowNum) -> CollectorWorkQueueService.toDto(rs)));
+        sync.setNotifications(namedJdbcTemplate.query(NOTIFICATION_COLUMNS + "ORDER BY created_at DESC, id DESC LIMIT :limit",
+                params, (rs, rowNum) -> toNotificationDto(rs)));
+        sync.setBroadcasts(namedJdbcTemplate.query(BROADCAST_COLUMNS + "ORDER BY b.created_at DESC, b.id DESC LIMIT :limit",
+                params, (rs, rowNum) -> toBroadcastDto(rs, collectorId)));
+        sync.setPayments(namedJdbcTemplate.query(PAYMENT_COLUMNS + "ORDER BY payment_date DESC, id DESC LIMIT :paymentLimit", params,
+                (rs, rowNum) -> toPaymentDto(rs)));
+        sync.setToken(new SyncToken(userSeq, municipalityId, municipalitySeq, roleSeq, now).encode());
+        return sync;
+    }
+
+    private ChangeBatch readChanges(SyncScope scope, Long scopeId, long afterSeq) {
+        Map<SyncEntityType, Set<Long>> ids = new EnumMap<>(SyncEntityType.class);
+        long[] lastSeq = {afterSeq};
+        int[] read = {0};
+        namedJdbcTemplate.query(CHANGES_SQL, new MapSqlParameterSource("scopeType", scope.name())
+                .addValue("scopeId", scopeId)
+                .addValue("afterSeq", afterSeq)
+                // One extra entry tells us whether more are waiting
+                .addValue("limit", maxChanges + 1), rs -> {
+            if (++read[0] > maxChanges) {
+                return;
+            }
+            lastSeq[0] = rs.getLong("seq");
+            long entityId = rs.getLong("entity_id");
+            Set<Long> kind = ids.computeIfAbsent(SyncEntityType.valueOf(rs.getString("entity_type")), type -> new LinkedHashSet<>());
+            if (!rs.wasNull()) {
+                kind.add(entityId);
+            }
+        });
+        return new ChangeBatch(ids, lastSeq[0], read[0] > maxChanges);
+    }
+
+    private Long collectorRoleId() {
+        List<Long> ids = namedJdbcTemplate.queryForList("SELECT id FROM roles WHERE name = :name",
+                new MapSqlParameterSource("name", RoleName.COLLECTOR.name()), Long.class);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private static Timestamp userCreatedAt(Collector collector) {
+        return Timestamp.valueOf(collector.getCreationDate() != null
+                ? collector.getCreationDate() : LocalDateTime.of(1970, 1, 1, 0, 0));
+    }
+
+    private long currentSeq(SyncScope scope, Long scopeId) {
+        List<Long> seq = namedJdbcTemplate.queryForList(
+                "SELECT seq FROM sync_sequences WHERE scope_type = :scopeType AND scope_id = :scopeId",
+                new MapSqlParameterSource("scopeType", scope.name()).addValue("scopeId", scopeId), Long.class);
+        return seq.isEmpty() ? 0L : seq.get(0);
+    }
+
+    private static List<Long> missing(Set<Long> changed, List<Long> found) {
+        Set<Long> present = new HashSet<>(found);
+        List<Long> deleted = new ArrayList<>();
+        for (Long id : changed) {
+            if (!present.contains(id)) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    private static NotificationDTO toNotificationDto(ResultSet rs) throws SQLException {
+        NotificationDTO dto = new NotificationDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setRecipientId(rs.getLong("recipient_user_id"));
+        dto.setSubject(rs.getString("subject"));
+        dto.setMessage(rs.getString("message"));
+        dto.setNotificationType(CollectorWorkQueueService.enumValue(NotificationType.class, rs.getString("notification_type")));
+        dto.setCreatedAt(CollectorWorkQueueService.toLocalDateTime(rs.getTimestamp("created_at")));
+        dto.setReadAt(CollectorWorkQueueService.toLocalDateTime(rs.getTimestamp("read_at")));
+        dto.setIsRead(rs.getBoolean("is_read"));
+        dto.setServiceRequestId(rs.getObject("service_request_id", Long.class));
+        dto.setPaymentId(rs.getObject("payment_id", Long.class));
+        dto.setDisputeId(rs.getObject("dispute_id", Long.class));
+        return dto;
+    }
+
+    private static NotificationDTO toBroadcastDto(ResultSet rs, Long collectorId) throws SQLException {
+        NotificationDTO dto = new NotificationDTO();
+        dto.setBroadcastId(rs.getLong("id"));
+        dto.setBroadcast(true);
+        dto.setRecipientId(collectorId);
+        dto.setSubject(rs.getString("subject"));
+        dto.setMessage(rs.getString("message"));
+        dto.setNotificationType(CollectorWorkQueueService.enumValue(NotificationType.class, rs.getString("notification_type")));
+        dto.setCreatedAt(CollectorWorkQueueService.toLocalDateTime(rs.getTimestamp("created_at")));
+        dto.setReadAt(CollectorWorkQueueService.toLocalDateTime(rs.getTimestamp("read_at")));
+        dto.setIsRead(rs.getBoolean("is_read"));
+        return dto;
+    }
+
+    private static PaymentDTO toPaymentDto(ResultSet rs) throws SQLException {
+        PaymentDTO dto = new PaymentDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setAmount(rs.getObject("amount", Double.class));
+        dto.setPaymentMethod(CollectorWorkQueueService.enumValue(PaymentMethod.class, rs.getString("payment_method")));
+        dto.setStatus(CollectorWorkQueueService.enumValue(PaymentStatus.class, rs.getString("status")));
+        dto.setPaymentDate(CollectorWorkQueueService.toLocalDateTime(rs.getTimestamp("payment_date")));
+        dto.setTransactionReference(rs.getString("transaction_reference"));
+        dto.setHouseholdId(rs.getObject("household_id", Long.class));
+        dto.setServiceRequestId(rs.getObject("service_request_id", Long.class));
+        dto.setCollectorId(rs.getObject("collector_id", Long.class));
+        return dto;
+    }
+}
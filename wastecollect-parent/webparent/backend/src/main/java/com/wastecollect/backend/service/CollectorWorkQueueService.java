@@ -0,0 +1,240 @@
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.backend.repository.WasteCollectionRepository;
+import com.wastecollect.backend.service.telemetry.TelemetryService;
+import com.wastecollect.common.dto.CursorPageDTO;
+import com.wastecollect.common.dto.HouseholdDTO;
+import com.wastecollect.common.dto.ServiceRequestDTO;
+import com.wastecollect.common.models.Collector;
+import com.wastecollect.common.utils.HousingType;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.WasteType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The work queue of a collector: the requests it holds (ACCEPTED or IN_PROGRESS) first, then the PENDING requests
+ * of its municipality, best first.
+ * <p>
+ * Requests are ranked by a score in kilometres: the distance from the collector (equirectangular, from the household's
+ * coordinates) minus {@code app.work-queue.km-per-waiting-hour} for every hour the request has waited, so that old
+ * requests are not left behind by closer new ones. The collector's position is the one its device sends with the
+ * request, else its live telemetry position, otherwise where it last collected; without either, requests are ranked by age alone.
+ * <p>
+ * Pages are fetched with a keyset cursor on (group, score, id). The cursor also carries the position and the time the
+ * first page was ranked from, so that later pages continue the same ranking even if the collector moves. Rows are read
+ * with the household columns joined in a single query; no entity is loaded. The primary is read, so a collector sees
+ * its own accept or completion right away.
+ */
+@Service
+public class CollectorWorkQueueService {
+
+    private static final char SEPARATOR = '|';
+
+    // Both branches read the same columns: the collector's own requests (group 0) and the municipality's open ones (group 1)
+    static final String COLUMNS =
+            "SELECT sr.id, sr.description, sr.waste_type, sr.estimated_volume, sr.phone_number, sr.comment, sr.address, " +
+            "sr.`preferred-date` AS preferred_date, sr.status, sr.created_at, sr.updated_at, h.id AS household_id, " +
+            "h.first_name, h.last_name, h.email, h.phone_number AS household_phone, h.address AS household_address, " +
+            "h.housing_type, h.latitude, h.longitude, ";
+
+    private static final String DISTANCE =
+            "CASE WHEN :hasOrigin = 0 OR q.latitude IS NULL OR q.longitude IS NULL THEN NULL " +
+            "ELSE 111.32 * SQRT(POW(q.latitude - :originLatitude, 2) + " +
+            "POW((q.longitude - :originLongitude) * COS(RADIANS(:originLatitude)), 2)) END";
+
+    private static final String QUEUE_SQL =
+            "SELECT r.* FROM (" +
+            "SELECT q.*, " + DISTANCE + " AS distance_km, " +
+            "COALESCE(" + DISTANCE + ", :unknownDistanceKm) " +
+            "- :kmPerWaitingHour * TIMESTAMPDIFF(SECOND, COALESCE(q.created_at, :reference), :reference) / 3600.0 AS score " +
+            "FROM (" +
+            COLUMNS + "0 AS queue_group FROM service_requests sr LEFT JOIN users h ON h.id = sr.household_id " +
+            "WHERE sr.collector_id = :collectorId AND sr.status IN ('ACCEPTED', 'IN_PROGRESS') " +
+            "UNION ALL " +
+            COLUMNS + "1 AS queue_group FROM service_requests sr LEFT JOIN users h ON h.id = sr.household_id " +
+            "WHERE sr.municipality_id = :municipalityId AND sr.status = 'PENDING'" +
+            ") q) r " +
+            "WHERE :afterGroup IS NULL OR r.queue_group > :afterGroup OR (r.queue_group = :afterGroup AND " +
+            "(r.score > :afterScore OR (r.score = :afterScore AND r.id > :afterId))) " +
+            "ORDER BY r.queue_group, r.score, r.id LIMIT :limit";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private WasteCollectionRepository wasteCollectionRepository;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Value("${app.work-queue.km-per-waiting-hour:0.5}")
+    private double kmPerWaitingHour;
+
+    @Value("${app.work-queue.unknown-distance-km:10}")
+    private double unknownDistanceKm;
+
+    @Value("${app.work-queue.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Position in the queue, with the origin and time the queue is ranked from.
+     */
+    private record QueueCursor(int group, double score, long id, LocalDateTime reference, Double latitude, Double longitude) {
+
+        String encode() {
+            String raw = String.valueOf(group) + SEPARATOR + score + SEPARATOR + id + SEPARATOR + reference + SEPARATOR
+                    + (latitude != null ? latitude : "") + SEPARATOR + (longitude != null ? longitude : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static QueueCursor decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", -1);
+                if (parts.length != 6) {
+                    throw new RequestValidationException("Invalid pagination cursor.");
+                }
+                return new QueueCursor(Integer.parseInt(parts[0]), Double.parseDouble(parts[1]), Long.parseLong(parts[2]),
+                        LocalDateTime.parse(parts[3]),
+                        parts[4].isEmpty() ? null : Double.valueOf(parts[4]),
+                        parts[5].isEmpty() ? null : Double.valueOf(parts[5]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new RequestValidationException("Invalid pagination cursor.");
+            }
+        }
+    }
+
+    /**
+     * Returns one page of a collector's work queue.
+     *
+     * @param latitude  Current latitude of the collector, or null to use its last known position.
+     * @param longitude Current longitude of the collector, or null.
+     * @param cursor    Opaque cursor returned with the previous page, null for the first page.
+     * @param size      Maximum number of requests to return, capped by {@code app.work-queue.max-page-size}.
+     * @throws RequestValidationException if the cursor is malformed or the position is out of range.
+     */
+    public CursorPageDTO<ServiceRequestDTO> getWorkQueue(Collector collector, Double latitude, Double longitude,
+                                                         String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        QueueCursor position = cursor != null && !cursor.isBlank() ? QueueCursor.decode(cursor) : null;
+
+        LocalDateTime reference;
+        Double originLatitude;
+        Double originLongitude;
+        if (position != null) {
+            reference = position.reference();
+            originLatitude = position.latitude();
+            originLongitude = position.longitude();
+        } else {
+            reference = LocalDateTime.now();
+            double[] origin = origin(collector, latitude, longitude);
+            originLatitude = origin != null ? origin[0] : null;
+            originLongitude = origin != null ? origin[1] : null;
+        }
+        boolean hasOrigin = originLatitude != null && originLongitude != null;
+
+        MapSqlParameterSource params = new MapSqlParameterSource("collectorId", collector.getId())
+                .addValue("municipalityId", collector.getMunicipality() != null ? collector.getMunicipality().getId() : null)
+                .addValue("hasOrigin", hasOrigin ? 1 : 0)
+                .addValue("originLatitude", hasOrigin ? originLatitude : 0.0)
+                .addValue("originLongitude", hasOrigin ? originLongitude : 0.0)
+                .addValue("unknownDistanceKm", unknownDistanceKm)
+                .addValue("kmPerWaitingHour", kmPerWaitingHour)
+                .addValue("reference", reference)
+                .addValue("afterGroup", position != null ? position.group() : null)
+                .addValue("afterScore", position != null ? position.score() : 0.0)
+                .addValue("afterId", position != null ? position.id() : 0L)
+                // One extra row tells us whether another page follows
+                .addValue("limit", pageSize + 1);
+
+        List<ServiceRequestDTO> rows = new ArrayList<>(pageSize + 1);
+        List<QueueCursor> positions = new ArrayList<>(pageSize + 1);
+        namedJdbcTemplate.query(QUEUE_SQL, params, rs -> {
+            rows.add(toDto(rs));
+            positions.add(new QueueCursor(rs.getInt("queue_group"), rs.getDouble("score"), rs.getLong("id"),
+                    reference, originLatitude, originLongitude));
+        });
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ServiceRequestDTO> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? positions.get(pageSize - 1).encode() : null;
+        return new CursorPageDTO<>(new ArrayList<>(page), nextCursor, hasNext, page.size(), null);
+    }
+
+    private double[] origin(Collector collector, Double latitude, Double longitude) {
+        if (latitude != null || longitude != null) {
+            if (latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                throw new RequestValidationException("A position needs a latitude within ±90 and a longitude within ±180.");
+            }
+            return new double[] {latitude, longitude};
+        }
+        double[] live = telemetryService.lastPosition(collector.getId());
+        if (live != null) {
+            return live;
+        }
+        List<Object[]> last = wasteCollectionRepository.findLastPositions(List.of(collector.getId()));
+        return last.isEmpty() ? null : new double[] {(Double) last.get(0)[1], (Double) last.get(0)[2]};
+    }
+
+    static ServiceRequestDTO toDto(ResultSet rs) throws SQLException {
+        ServiceRequestDTO dto = new ServiceRequestDTO();
+        dto.setId(rs.getLong("id"));
+        dto.setDescription(rs.getString("description"));
+        dto.setWasteType(enumValue(WasteType.class, rs.getString("waste_type")));
+        dto.setEstimatedVolume(rs.getObject("estimated_volume", Double.class));
+        dto.setPreferredDate(toLocalDateTime(rs.getTimestamp("preferred_date")));
+        dto.setStatus(enumValue(ServiceRequestStatus.class, rs.getString("status")));
+        dto.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        dto.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        dto.setPhone(rs.getString("phone_number"));
+        dto.setAddress(rs.getString("address"));
+        dto.setComment(rs.getString("comment"));
+        dto.setDistanceKm(rs.getObject("distance_km", Double.class));
+
+        long householdId = rs.getLong("household_id");
+        if (!rs.wasNull()) {
+            HouseholdDTO household = new HouseholdDTO();
+            household.setId(householdId);
+            household.setFirstName(rs.getString("first_name"));
+            household.setLastName(rs.getString("last_name"));
+            household.setEmail(rs.getString("email"));
+            household.setPhoneNumber(rs.getString("household_phone"));
+            household.setAddress(rs.getString("household_address"));
+            household.setHousingType(enumValue(HousingType.class, rs.getString("housing_type")));
+            household.setLatitude(rs.getObject("latitude", Double.class));
+            household.setLongitude(rs.getObject("longitude", Double.class));
+            dto.setHousehold(household);
+            dto.setHouseholdAddress(household.getAddress());
+        }
+        return dto;
+    }
+
+    static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+// File: com/wastecollect/backend/service/DataArchivingService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.repository.WasteCollectionMonthlyRollupRepository;
+import com.wastecollect.common.models.ArchiveWatermark;
+import com.wastecollect.common.models.WasteCollectionMonthlyRollup;
+import com.wastecollect.common.utils.WasteType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Hot/cold storage for the append-only tables {@code waste_collections} and {@code notifications}.
+ * <p>
+ * Recent rows stay in the hot tables, which therefore keep a small index depth and working set.
+ * A nightly job moves older rows, in small id-bounded batches, into {@code *_archive} tables
+ * (same structure, created on demand with {@code CREATE TABLE ... LIKE}, and given the secondary indexes the hot table
+ * gained since on every run). Before archived waste collections
+ * leave the hot table they are folded into {@link WasteCollectionMonthlyRollup} rows, which is what
+ * historical analytics read for whole months instead of scanning the archive.
+ * <p>
+ * The archive boundary is always the first day of a month, so the rollups cover whole months exactly.
+ * The boundary a run works towards is persisted as an {@link ArchiveWatermark} before its first batch: readers take
+ * it from there rather than from the configuration, so they follow what was actually archived, and since each batch
+ * moves its rows in one transaction, every row is in exactly one of the two tables at any time.
+ */
+@Service
+public class DataArchivingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataArchivingService.class);
+
+    public static final String WASTE_COLLECTIONS = "waste_collections";
+    public static final String NOTIFICATIONS = "notifications";
+
+    // Folds a batch of collections into the monthly rollups; municipality 0 stands for "no municipality"
+    private static final String ROLLUP_BATCH_SQL =
+            "INSERT INTO waste_collection_monthly_rollups " +
+            "(municipality_id, period_month, waste_type, collection_count, total_weight_kg, rating_sum, rating_count, updated_at) " +
+            "SELECT COALESCE(wc.municipality_id, 0), DATE_FORMAT(wc.collection_date, '%Y-%m-01'), COALESCE(sr.waste_type, 'OTHER'), " +
+            "COUNT(*), COALESCE(SUM(wc.actual_weight), 0), COALESCE(SUM(wc.collector_rating), 0), COUNT(wc.collector_rating), NOW() " +
+            "FROM waste_collections wc LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+            "WHERE wc.id IN (:ids) " +
+            "GROUP BY COALESCE(wc.municipality_id, 0), DATE_FORMAT(wc.collection_date, '%Y-%m-01'), COALESCE(sr.waste_type, 'OTHER') " +
+            "ON DUPLICATE KEY UPDATE collection_count = collection_count + VALUES(collection_count), " +
+            "total_weight_kg = total_weight_kg + VALUES(total_weight_kg), rating_sum = rating_sum + VALUES(rating_sum), " +
+            "rating_count = rating_count + VALUES(rating_count), updated_at = VALUES(updated_at)";
+
+    // The watermark only ever moves forward, even if the hot window is widened in the configuration
+    private static final String RAISE_WATERMARK_SQL =
+            "INSERT INTO archive_watermarks (table_name, archived_before, updated_at) VALUES (?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE archived_before = GREATEST(archived_before, VALUES(archived_before)), updated_at = VALUES(updated_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WasteCollectionMonthlyRollupRepository rollupRepository;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Value("${app.archive.waste-collections.hot-months:12}")
+    private int wasteCollectionHotMonths;
+
+    @Value("${app.archive.notifications.hot-months:6}")
+    private int notificationHotMonths;
+
+    @Value("${app.archive.batch-size:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Nightly archival run. Skipped if a previous run is still in progress.
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 2 * * *}")
+    public void archiveScheduled() {
+        archiveAll();
+    }
+
+    /**
+     * Archives both tables up to their respective hot-window boundaries.
+     *
+     * @return The number of rows moved per table.
+     */
+    public Map<String, Integer> archiveAll() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Archival already running, skipping this trigger.");
+            return Map.of();
+        }
+        try {
+            int collections = archiveTable(WASTE_COLLECTIONS, "collection_date", monthBoundary(wasteCollectionHotMonths), true);
+            int notifications = archiveTable(NOTIFICATIONS, "created_at", monthBoundary(notificationHotMonths), false);
+            logger.info("Archival finished: {} waste collections and {} notifications moved to archive tables.", collections, notifications);
+            return Map.of(WASTE_COLLECTIONS, collections, NOTIFICATIONS, notifications);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Archive watermark of waste collections: every collection dated at or after it is in the hot table, older ones
+     * may have moved to the archive and into the monthly rollups.
+     *
+     * @return The watermark, or empty if nothing was ever archived.
+     */
+    public Optional<LocalDateTime> getWasteCollectionArchiveBoundary() {
+        return findWatermark(WASTE_COLLECTIONS);
+    }
+
+    /**
+     * Archive watermark of notifications, with the same meaning as {@link #getWasteCollectionArchiveBoundary()}.
+     */
+    public Optional<LocalDateTime> getNotificationArchiveBoundary() {
+        return findWatermark(NOTIFICATIONS);
+    }
+
+    /**
+     * Reads the archived part of a municipality's collection history.
+     * Only months before the archive watermark are considered, since nothing later was ever archived. Months the
+     * range covers entirely are read from the monthly rollups; a month it only partly covers (a range starting or
+     * ending mid-month) is aggregated from the archive table over the covered part alone, so that no collection
+     * outside the range is counted. Every archived row is in exactly one of the two, so callers add the hot rows of
+     * the whole range without double counting.
+     *
+     * @param municipalityId The municipality ID.
+     * @param startDate Start of the requested range.
+     * @param endDate End of the requested range (inclusive).
+     * @return The archived figures per month and waste type; those of partly covered months are not persisted.
+     */
+    @Transactional(readOnly = true)
+    public List<WasteCollectionMonthlyRollup> getArchivedRollups(Long municipalityId, LocalDateTime startDate, LocalDateTime endDate) {
+        Optional<LocalDateTime> watermark = getWasteCollectionArchiveBoundary();
+        if (watermark.isEmpty() || !startDate.isBefore(watermark.get()) || endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        LocalDateTime boundary = watermark.get();
+        boolean endsInArchive = endDate.isBefore(boundary);
+        // The archived part ends at endDate (inclusive) or at the boundary (exclusive), always a month start
+        LocalDateTime until = endsInArchive ? endDate : boundary;
+        YearMonth startMonth = YearMonth.from(startDate);
+        LocalDateTime firstWholeMonth = startDate.equals(startMonth.atDay(1).atStartOfDay())
+                ? startDate : startMonth.plusMonths(1).atDay(1).atStartOfDay();
+        // A range ending on the last second of a month covers that month
+        LocalDateTime afterWholeMonths = endsInArchive
+                ? YearMonth.from(endDate.plusSeconds(1)).atDay(1).atStartOfDay() : boundary;
+
+        Optional<String> archiveTable = findArchiveTable(WASTE_COLLECTIONS);
+        List<WasteCollectionMonthlyRollup> rollups = new ArrayList<>();
+        if (!firstWholeMonth.isBefore(afterWholeMonths)) {
+            archiveTable.ifPresent(archive -> rollups.addAll(
+                    aggregateArchive(archive, municipalityId, startDate, until, endsInArchive)));
+            return rollups;
+        }
+        rollups.addAll(rollupRepository.findByMunicipalityIdAndPeriodMonthBetween(municipalityId,
+                firstWholeMonth.toLocalDate(), afterWholeMonths.toLocalDate().minusMonths(1)));
+        if (archiveTable.isPresent()) {
+            if (startDate.isBefore(firstWholeMonth)) {
+                rollups.addAll(aggregateArchive(archiveTable.get(), municipalityId, startDate, firstWholeMonth, false));
+            }
+            if (endsInArchive && !endDate.isBefore(afterWholeMonths)) {
+                rollups.addAll(aggregateArchive(archiveTable.get(), municipalityId, afterWholeMonths, endDate, true));
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Aggregates the archived collections of a municipality dated within part of a month, per waste type, in the
+     * shape of the monthly rollups.
+     */
+    private List<WasteCollectionMonthlyRollup> aggregateArchive(String archiveTable, Long municipalityId,
+                                                               LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+        String sql = "SELECT COALESCE(sr.waste_type, 'OTHER') AS waste_type, COUNT(*) AS collection_count, " +
+                "COALESCE(SUM(wc.actual_weight), 0) AS total_weight_kg, COALESCE(SUM(wc.collector_rating), 0) AS rating_sum, " +
+                "COUNT(wc.collector_rating) AS rating_count " +
+                "FROM " + archiveTable + " wc LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+                "WHERE wc.municipality_id = ? AND wc.collection_date >= ? AND wc.collection_date " + (toInclusive ? "<=" : "<") + " ? " +
+                "GROUP BY COALESCE(sr.waste_type, 'OTHER')";
+        LocalDate month = YearMonth.from(from).atDay(1);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            WasteCollectionMonthlyRollup rollup = new WasteCollectionMonthlyRollup();
+            rollup.setMunicipalityId(municipalityId);
+            rollup.setPeriodMonth(month);
+            rollup.setWasteType(wasteType(rs.getString("waste_type")));
+            rollup.setCollectionCount(rs.getLong("collection_count"));
+            rollup.setTotalWeightKg(rs.getDouble("total_weight_kg"));
+            rollup.setRatingSum(rs.getLong("rating_sum"));
+            rollup.setRatingCount(rs.getLong("rating_count"));
+            return rollup;
+        }, municipalityId, from, to);
+    }
+
+    private static WasteType wasteType(String value) {
+        try {
+            return WasteType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return WasteType.OTHER;
+        }
+    }
+
+    /**
+     * Counts the waste collections dated in a range, hot and archived.
+     * The archive is only read when the range starts before the watermark.
+     */
+    @Transactional(readOnly = true)
+    public long countWasteCollections(LocalDateTime startDate, LocalDateTime endDate) {
+        String sql = "SELECT COUNT(*) FROM %s WHERE collection_date BETWEEN ? AND ?";
+        Long hot = jdbcTemplate.queryForObject(String.format(sql, WASTE_COLLECTIONS), Long.class, startDate, endDate);
+        long total = hot != null ? hot : 0L;
+        Optional<String> archive = findArchiveTableFor(WASTE_COLLECTIONS, startDate);
+        if (archive.isPresent()) {
+            Long archived = jdbcTemplate.queryForObject(String.format(sql, archive.get()), Long.class, startDate, endDate);
+            total += archived != null ? archived : 0L;
+        }
+        return total;
+    }
+
+    /**
+     * Archive table to read alongside a hot table for data dated from {@code startDate} on: present only if the
+     * range starts before the table's watermark and the archive table exists.
+     */
+    public Optional<String> findArchiveTableFor(String table, LocalDateTime startDate) {
+        Optional<LocalDateTime> watermark = findWatermark(table);
+        if (watermark.isEmpty() || (startDate != null && !startDate.isBefore(watermark.get()))) {
+            return Optional.empty();
+        }
+        return findArchiveTable(table);
+    }
+
+    /**
+     * Name of the archive table of a hot table, if the archival job has already created it.
+     *
+     * @param table The hot table ({@link #WASTE_COLLECTIONS} or {@link #NOTIFICATIONS}).
+     * @return The archive table name, or empty if nothing was ever archived from this table.
+     */
+    public Optional<String> findArchiveTable(String table) {
+        String archiveTable = table + "_archive";
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?",
+                Integer.class, archiveTable);
+        return count != null && count > 0 ? Optional.of(archiveTable) : Optional.empty();
+    }
+
+    private Optional<LocalDateTime> findWatermark(String table) {
+        List<LocalDateTime> watermarks = jdbcTemplate.queryForList(
+                "SELECT archived_before FROM archive_watermarks WHERE table_name = ?", LocalDateTime.class, table);
+        return watermarks.stream().findFirst();
+    }
+
+    private LocalDateTime monthBoundary(int hotMonths) {
+        return YearMonth.now().minusMonths(hotMonths).atDay(1).atStartOfDay();
+    }
+
+    private int archiveTable(String table, String dateColumn, LocalDateTime boundary, boolean rollup) {
+        String archiveTable = table + "_archive";
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archiveTable + " LIKE " + table);
+        addMissingIndexes(table, archiveTable);
+        String columns = sharedColumns(table, archiveTable);
+        // Raised before any row moves, so that rows at or after the watermark are always in the hot table
+        jdbcTemplate.update(RAISE_WATERMARK_SQL, table, boundary);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int moved = 0;
+        while (true) {
+            // One short transaction per batch keeps lock times and undo log small on the hot table
+            Integer batchMoved = transaction.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "SELECT id FROM " + table + " WHERE " + dateColumn + " < ? ORDER BY id LIMIT ?",
+                        Long.class, boundary, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+                if (rollup) {
+                    namedJdbcTemplate.update(ROLLUP_BATCH_SQL, params);
+                }
+                if (NOTIFICATIONS.equals(table)) {
+                    // Archived notifications leave the inbox, unread or not
+                    notificationCounterService.decrementForNotifications(ids);
+                }
+                namedJdbcTemplate.update("INSERT INTO " + archiveTable + " (" + columns + ") SELECT " + columns
+                        + " FROM " + table + " WHERE id IN (:ids)", params);
+                return namedJdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (:ids)", params);
+            });
+            if (batchMoved == null || batchMoved == 0) {
+                break;
+            }
+            moved += batchMoved;
+        }
+        logger.debug("Moved {} rows from {} to {} (boundary {}).", moved, table, archiveTable, boundary);
+        return moved;
+    }
+
+    /**
+     * Adds to the archive table the non-unique indexes the hot table gained after the archive was created (e.g. the
+     * (notification_type, is_read, created_at) index the retention sweep walks), so that queries served by the hot
+     * table's indexes are served the same way on the archive.
+     */
+    private void addMissingIndexes(String table, String archiveTable) {
+        String sql = "SELECT index_name, column_name, sub_part FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND non_unique = 1 ORDER BY index_name, seq_in_index";
+        Map<String, List<String>> hotIndexes = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            int prefix = rs.getInt("sub_part");
+            String column = "`" + rs.getString("column_name") + "`" + (rs.wasNull() ? "" : "(" + prefix + ")");
+            hotIndexes.computeIfAbsent(rs.getString("index_name"), name -> new ArrayList<>()).add(column);
+        }, table);
+        Set<String> archiveIndexes = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT index_name FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = ?",
+                String.class, archiveTable));
+        hotIndexes.forEach((name, columns) -> {
+            if (!archiveIndexes.contains(name)) {
+                jdbcTemplate.execute("ALTER TABLE " + archiveTable + " ADD INDEX `" + name + "` ("
+                        + String.join(", ", columns) + ")");
+                logger.info("Added index {} to {}.", name, archiveTable);
+            }
+        });
+    }
+
+    /**
+     * Columns present in both tables, so the copy keeps working if the hot table gained a column since the
+     * archive table was created.
+     */
+    private String sharedColumns(String table, String archiveTable) {
+        String sql = "SELECT column_name FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ? ORDER BY ordinal_position";
+        List<String> hotColumns = jdbcTemplate.queryForList(sql, String.class, table);
+        List<String> archiveColumns = jdbcTemplate.queryForList(sql, String.class, archiveTable);
+        List<String> shared = hotColumns.stream().filter(archiveColumns::contains).collect(Collectors.toList());
+        if (shared.size() < hotColumns.size()) {
+            logger.warn("Archive table {} is missing columns of {}; they will not be archived.", archiveTable, table);
+        }
+        return shared.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", "));
+    }
+}
@@ -3,6 +3,8 @@ package com.wastecollect.backend.service;
 import com.wastecollect.common.dto.*;
 import com.wastecollect.common.models.*;
 import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
 import com.wastecollect.common.utils.WasteType;
 import com.wastecollect.backend.repository.HouseholdRepository;
 import com.wastecollect.backend.repository.MunicipalityRepository;
@@ -13,9 +15,12 @@ import com.wastecollect.backend.repository.RatingRepository;
 import com.wastecollect.backend.exception.RequestValidationException;
 import com.wastecollect.backend.exception.ResourceException;
 import com.wastecollect.backend.exception.ResourceNotFoundException; // Import ResourceNotFoundException
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -44,6 +49,15 @@ public class HouseholdService {
 	@Autowired
 	private PaymentRepository paymentRepository;
 
+	@Autowired
+	private SyncChangeRecorder syncChangeRecorder;
+
+	@Autowired
+	private CollectorKpiService collectorKpiService;
+
+	@Autowired
+	private CollectorRatingService collectorRatingService;
+
 	@Autowired
 	private CollectorRepository collectorRepository;
 
@@ -53,6 +67,9 @@ public class HouseholdService {
 	@Autowired(required = false) // Make it optional if not always used (e.g., for testing without security)
 	private PasswordEncoder passwordEncoder; // For hashing passwords
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
 	// Helper method to get the current authenticated Household user
 	private Optional<Household> getCurrentHousehold() {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -133,7 +150,10 @@ public class HouseholdService {
 		newRequest.setCreatedAt(LocalDateTime.now()); // Set creation timestamp
 		newRequest.setUpdatedAt(LocalDateTime.now()); // Set update timestamp
 
-		serviceRequestRepository.save(newRequest);
+		ServiceRequest savedRequest = serviceRequestRepository.save(newRequest);
+		// Pushed to the household and to connected collectors (new pending request)
+		eventPublisher.publishEvent(new ServiceRequestChangedEvent(savedRequest.getId(), ServiceRequestStatus.PENDING,
+				household.getId(), null, true));
 		// Assuming logger is configured:
 		// logger.info("Pickup request created for household ID: {}",
 		// household.getId());
@@ -195,6 +215,11 @@ public class HouseholdService {
 		Payment newPayment = new Payment(payment.getAmount(), payment.getPaymentMethod(), payment.getStatus(),
 				payment.getPaymentDate(), payment.getTransactionReference(), paymentHousehold);
 		paymentRepository.save(newPayment);
+		if (newPayment.getCollector() != null) {
+			syncChangeRecorder.record(SyncScope.USER, newPayment.getCollector().getId(), SyncEntityType.PAYMENT,
+					newPayment.getId());
+			collectorKpiService.invalidateAfterCommit(newPayment.getCollector().getId());
+		}
 		logger.info("Payment processed for household ID: {} with amount: {}", paymentHousehold.getId(),
 				payment.getAmount());
 	}
@@ -216,10 +241,15 @@ public class HouseholdService {
 	 * @throws SecurityException          if the service request does not belong to
 	 * the current household.
 	 */
+	@Transactional
 	public void rateCollector(CollectorRatingDTO ratingDto) {
 		Household household = getCurrentHousehold()
 				.orElseThrow(() -> new ResourceNotFoundException("Household not found.")); // Changed from ResourceException
 
+		if (ratingDto.getRatingValue() == null || ratingDto.getRatingValue() < 1 || ratingDto.getRatingValue() > 5) {
+			throw new RequestValidationException("A rating must be between 1 and 5 stars.");
+		}
+
 		Collector collector = collectorRepository.findById(ratingDto.getCollectorId()).orElseThrow(
 				() -> new ResourceNotFoundException("Collector not found with ID: " + ratingDto.getCollectorId())); // Changed from ResourceException
 
@@ -240,14 +270,12 @@ public class HouseholdService {
 				ratingDto.getRatingValue(), ratingDto.getComment(), new Date() // Current date
 		);
 
+		// Same transaction as the insert, and before it: the collector's aggregate never misses or double counts a rating
+		collectorRatingService.recordRating(collector.getId(), ratingDto.getRatingValue());
 		collectorRatingRepository.save(newRating);
+		collectorKpiService.invalidateAfterCommit(collector.getId());
 		logger.info("Collector rating recorded for collector ID: {} by household ID: {} for service request ID: {}",
 				collector.getId(), household.getId(), serviceRequest.getId());
-
-		// Optional: Update average rating for the collector (e.g., as part of Collector
-		// entity)
-		// This would involve fetching all ratings for the collector, recalculating
-		// average, and saving.
 	}
 
 	/**
@@ -25,6 +25,7 @@ import com.wastecollect.common.models.Municipality;
 import com.wastecollect.common.models.Role;
 import com.wastecollect.common.models.ServiceRequest; // New import
 import com.wastecollect.common.models.WasteCollection; // New import
+import com.wastecollect.common.models.WasteCollectionMonthlyRollup;
 import com.wastecollect.common.utils.CollectorStatus; // New import
 import com.wastecollect.common.utils.RoleName;
 import com.wastecollect.common.utils.ServiceRequestStatus; // New import
@@ -64,6 +65,7 @@ public class MunicipalityService {
     private final ServiceRequestRepository serviceRequestRepository;   // Injected
     private final HouseholdRepository householdRepository;            // Injected
     private final CollectorRepository collectorRepository;            // Injected
+    private final DataArchivingService dataArchivingService;
 
     @Autowired
     public MunicipalityService(MunicipalityRepository municipalityRepository,
@@ -73,7 +75,8 @@ public class MunicipalityService {
                                WasteCollectionRepository wasteCollectionRepository,
                                ServiceRequestRepository serviceRequestRepository,
                                HouseholdRepository householdRepository,
-                               CollectorRepository collectorRepository) {
+                               CollectorRepository collectorRepository,
+                               DataArchivingService dataArchivingService) {
         this.municipalityRepository = municipalityRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
@@ -82,6 +85,7 @@ public class MunicipalityService {
         this.serviceRequestRepository = serviceRequestRepository;
         this.householdRepository = householdRepository;
         this.collectorRepository = collectorRepository;
+        this.dataArchivingService = dataArchivingService;
     }
 
     @Transactional
@@ -201,13 +205,18 @@ public class MunicipalityService {
         Municipality municipality = municipalityRepository.findById(municipalityId)
                 .orElseThrow(() -> new ResourceException("Municipality", "id", municipalityId.toString()));
 
+        // Collections before the archive watermark may already be folded into the rollups; each row is either still
+        // in the hot table or in a rollup, so the hot rows of the whole range are added to the archived months
         List<WasteCollection> collections = wasteCollectionRepository
                 .findByMunicipalityAndCollectionDateBetween(municipality, startDate, endDate);
+        List<WasteCollectionMonthlyRollup> archivedRollups = dataArchivingService.getArchivedRollups(municipalityId, startDate, endDate);
 
-        Long totalCollections = (long) collections.size();
+        Long totalCollections = collections.size()
+                + archivedRollups.stream().mapToLong(WasteCollectionMonthlyRollup::getCollectionCount).sum();
         Double totalWasteVolumeKg = collections.stream()
-                .mapToDouble(WasteCollection::getActualWeight)
-                .sum();
+                .mapToDouble(wc -> wc.getActualWeight() != null ? wc.getActualWeight() : 0.0)
+                .sum()
+                + archivedRollups.stream().mapToDouble(WasteCollectionMonthlyRollup::getTotalWeightKg).sum();
         Double averageWastePerCollectionKg = totalCollections > 0 ? totalWasteVolumeKg / totalCollections : 0.0;
 
         List<ServiceRequest> serviceRequests = serviceRequestRepository
@@ -224,8 +233,9 @@ public class MunicipalityService {
         Map<WasteType, Double> wasteVolumeByType = collections.stream()
                 .collect(Collectors.groupingBy(
                         wc -> (WasteType) (wc.getServiceRequest() != null ? wc.getServiceRequest().getWasteType() : WasteType.OTHER), // Explicit cast added
-                        Collectors.summingDouble(WasteCollection::getActualWeight)
+                        Collectors.summingDouble(wc -> wc.getActualWeight() != null ? wc.getActualWeight() : 0.0)
                 ));
+        archivedRollups.forEach(rollup -> wasteVolumeByType.merge(rollup.getWasteType(), rollup.getTotalWeightKg(), Double::sum));
 
         return new WasteCollectionDataDTO(
                 totalCollections,
@@ -0,0 +1,455 @@
+// File: com/wastecollect/backend/service/NotificationBroadcastService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.ConflictException;
+import com.wastecollect.backend.exception.ResourceException;
+import com.wastecollect.backend.repository.BroadcastNotificationRepository;
+import com.wastecollect.backend.repository.NotificationBroadcastJobRepository;
+import com.wastecollect.backend.service.push.AudienceNotificationEvent;
+import com.wastecollect.common.dto.notification.BroadcastJobDTO;
+import com.wastecollect.common.dto.notification.CreateNotificationRequest;
+import com.wastecollect.common.models.BroadcastNotification;
+import com.wastecollect.common.models.NotificationBroadcastJob;
+import com.wastecollect.common.utils.BroadcastJobStatus;
+import com.wastecollect.common.utils.RoleName;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Delivery of admin broadcasts.
+ * <p>
+ * Broadcasts to ALL users or to a ROLE that do not link to a specific entity are published once as a
+ * {@link BroadcastNotification} and merged into each inbox at read time by {@link NotificationInboxService}:
+ * the job completes immediately with a single write, whatever the audience size.
+ * <p>
+ * Other broadcasts (specific users, or linked to a service request, payment or dispute) are materialized
+ * asynchronously, one notification per recipient. Recipients are never loaded as entities: each chunk seeks the next {@code chunkSize} user IDs after the job's
+ * resume point ({@code id > lastProcessedUserId ORDER BY id}), then writes their notifications with a single
+ * {@code INSERT ... SELECT} and advances the resume point in the same short transaction. A crash therefore loses
+ * at most the chunk in flight, and restarting the job continues right after the last committed chunk without
+ * duplicating notifications.
+ * <p>
+ * Jobs run one at a time on a dedicated thread so a large broadcast cannot starve request threads or the pool.
+ * A worker claims its job with a guarded UPDATE before the first chunk and refreshes the job's heartbeat with every
+ * chunk, so that when several instances resume the same jobs at startup only one runs each. A RUNNING job whose
+ * heartbeat is older than {@code app.broadcast.stale-after-ms} was interrupted and may be claimed again. The claim
+ * writes a token that every later write of the worker checks: a worker that lost its job rolls back its chunk and
+ * stops, without touching the progress or the status of the run that took over.
+ * <p>
+ * Each materialized notification is tagged with its job through {@code source_event_id}
+ * ({@code broadcast-<job>-<user>}), which also keeps a chunk from being written twice for a recipient.
+ */
+@Service
+public class NotificationBroadcastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationBroadcastService.class);
+
+    static final String AUDIENCE_ALL = "ALL";
+    static final String AUDIENCE_ROLE = "ROLE";
+    static final String AUDIENCE_SPECIFIC_USERS = "SPECIFIC_USERS";
+
+    private static final Set<BroadcastJobStatus> RESUMABLE = EnumSet.of(BroadcastJobStatus.PENDING, BroadcastJobStatus.RUNNING);
+
+    // Tags the notifications of a job through source_event_id, followed by the recipient's ID
+    private static final String SOURCE_PREFIX = "broadcast-";
+
+    private static final String INSERT_NOTIFICATIONS_SQL =
+            "INSERT INTO notifications (recipient_user_id, subject, message, notification_type, created_at, is_read, " +
+            "service_request_id, payment_id, dispute_id, source_event_id) " +
+            "SELECT u.id, :subject, :message, :notificationType, :createdAt, FALSE, :serviceRequestId, :paymentId, :disputeId, " +
+            "CONCAT(:sourcePrefix, u.id) ";
+
+    // Notifications of this job held by the collectors of a chunk (recipients in (:afterId, :chunkEnd])
+    private static final String COLLECTOR_NOTIFICATIONS_SQL =
+            "SELECT n.id, n.recipient_user_id FROM user_roles ur JOIN roles r ON r.id = ur.role_id " +
+            "JOIN notifications n ON n.source_event_id = CONCAT(:sourcePrefix, ur.user_id) " +
+            "WHERE r.name = 'COLLECTOR' AND ur.user_id > :afterId AND ur.user_id <= :chunkEnd";
+
+    @Autowired
+    private NotificationBroadcastJobRepository jobRepository;
+
+    @Autowired
+    private BroadcastNotificationRepository broadcastNotificationRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SyncChangeRecorder syncChangeRecorder;
+
+    @Value("${app.broadcast.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.broadcast.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Jobs queued or running on the executor, so a job is never processed twice concurrently
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Persists a broadcast job and queues it for asynchronous delivery.
+     * The audience must already have been validated by the caller.
+     *
+     * @param request   The broadcast request.
+     * @param createdBy The username of the administrator submitting the broadcast.
+     * @return The job as stored, with its total number of recipients.
+     */
+    @Transactional
+    public BroadcastJobDTO submit(CreateNotificationRequest request, String createdBy) {
+        NotificationBroadcastJob job = new NotificationBroadcastJob();
+        job.setSubject(request.getSubject());
+        job.setMessage(request.getMessage());
+        job.setNotificationType(request.getNotificationType());
+        job.setTargetAudience(request.getTargetAudience());
+        // A role given with another audience is ignored rather than parsed
+        job.setTargetRole(AUDIENCE_ROLE.equals(request.getTargetAudience()) ? request.getTargetRole() : null);
+        if (request.getTargetUserIds() != null && !request.getTargetUserIds().isEmpty()) {
+            job.setTargetUserIds(request.getTargetUserIds().stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+        job.setServiceRequestId(request.getServiceRequestId());
+        job.setPaymentId(request.getPaymentId());
+        job.setDisputeId(request.getDisputeId());
+        job.setStatus(BroadcastJobStatus.PENDING);
+        job.setCreatedBy(createdBy);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setTotalRecipients(countRecipients(job));
+
+        if (isFanOutOnRead(job)) {
+            BroadcastNotification broadcast = new BroadcastNotification();
+            broadcast.setSubject(job.getSubject());
+            broadcast.setMessage(job.getMessage());
+            broadcast.setNotificationType(job.getNotificationType());
+            broadcast.setTargetRole(job.getTargetRole() != null ? RoleName.valueOf(job.getTargetRole()) : null);
+            broadcast.setCreatedAt(job.getCreatedAt());
+            broadcast.setCreatedBy(createdBy);
+            job.setBroadcastNotificationId(broadcastNotificationRepository.save(broadcast).getId());
+            // Collectors pick the broadcast up at their next delta sync
+            syncChangeRecorder.recordForRole(broadcast.getTargetRole() != null ? broadcast.getTargetRole().name() : null,
+                    SyncEntityType.BROADCAST, job.getBroadcastNotificationId());
+            job.setStatus(BroadcastJobStatus.COMPLETED);
+            job.setProcessedCount(job.getTotalRecipients());
+            job.setStartedAt(job.getCreatedAt());
+            job.setFinishedAt(job.getCreatedAt());
+            NotificationBroadcastJob saved = jobRepository.save(job);
+            eventPublisher.publishEvent(new AudienceNotificationEvent(saved.getSubject(), saved.getNotificationType(),
+                    saved.getTargetRole(), null, null, null, saved.getBroadcastNotificationId()));
+            logger.info("Broadcast job {} published as broadcast notification {} for audience {} ({} recipients).",
+                    saved.getId(), saved.getBroadcastNotificationId(), saved.getTargetAudience(), saved.getTotalRecipients());
+            return toDto(saved);
+        }
+
+        NotificationBroadcastJob saved = jobRepository.save(job);
+        logger.info("Broadcast job {} created for audience {} ({} recipients).",
+                saved.getId(), saved.getTargetAudience(), saved.getTotalRecipients());
+        scheduleAfterCommit(saved.getId());
+        return toDto(saved);
+    }
+
+    /**
+     * Returns the progress of a broadcast job.
+     *
+     * @param jobId The job ID.
+     * @return The job progress.
+     * @throws ResourceException if the job does not exist.
+     */
+    @Transactional(readOnly = true)
+    public BroadcastJobDTO getJob(Long jobId) {
+        return toDto(findJob(jobId));
+    }
+
+    /**
+     * Restarts a failed or interrupted job from its last committed chunk.
+     *
+     * @param jobId The job ID.
+     * @return The job progress at the time it was re-queued.
+     * @throws ResourceException if the job does not exist.
+     * @throws ConflictException if the job is already completed or currently running, here or on another instance.
+     */
+    @Transactional
+    public BroadcastJobDTO resume(Long jobId) {
+        NotificationBroadcastJob job = findJob(jobId);
+        if (job.getStatus() == BroadcastJobStatus.COMPLETED) {
+            throw new ConflictException("Broadcast job " + jobId + " is already completed.");
+        }
+        if (activeJobs.contains(jobId) || jobRepository.requeue(jobId, staleBefore()) == 0) {
+            throw new ConflictException("Broadcast job " + jobId + " is already running.");
+        }
+        scheduleAfterCommit(jobId);
+        return toDto(findJob(jobId));
+    }
+
+    /**
+     * Re-queues the jobs that were pending or running when the application stopped. Each is only run if this
+     * instance claims it: jobs still running on another instance are left to it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<NotificationBroadcastJob> jobs = jobRepository.findByStatusInOrderByIdAsc(RESUMABLE);
+        LocalDateTime staleBefore = staleBefore();
+        for (NotificationBroadcastJob job : jobs) {
+            if (job.getStatus() == BroadcastJobStatus.RUNNING && job.getHeartbeatAt() != null
+                    && !job.getHeartbeatAt().isBefore(staleBefore)) {
+                continue;
+            }
+            logger.info("Resuming broadcast job {} after user ID {}.", job.getId(), job.getLastProcessedUserId());
+            schedule(job.getId());
+        }
+    }
+
+    /**
+     * Picks up the jobs left behind by an instance that stopped, once their heartbeat is stale.
+     */
+    @Scheduled(initialDelayString = "${app.broadcast.stale-after-ms:300000}", fixedDelayString = "${app.broadcast.stale-after-ms:300000}")
+    public void resumeStaleJobs() {
+        resumeInterruptedJobs();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay RUNNING and are picked up again once their heartbeat is stale
+        executor.shutdownNow();
+    }
+
+    private LocalDateTime staleBefore() {
+        return LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000);
+    }
+
+    /**
+     * Hands the job to the executor only once the current transaction has committed, so the worker sees its row.
+     */
+    private void scheduleAfterCommit(Long jobId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                schedule(jobId);
+            }
+        });
+    }
+
+    private void schedule(Long jobId) {
+        if (activeJobs.add(jobId)) {
+            executor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(Long jobId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String token = UUID.randomUUID().toString();
+        Integer claimed = transaction.execute(status -> jobRepository.claim(jobId, token, LocalDateTime.now(), staleBefore()));
+        if (claimed == null || claimed == 0) {
+            logger.debug("Broadcast job {} is completed, failed or running elsewhere.", jobId);
+            return;
+        }
+        // Read after the claim, so that the resume point is the one the previous runner left
+        NotificationBroadcastJob job = transaction.execute(status -> jobRepository.findById(jobId).orElse(null));
+        if (job == null) {
+            return;
+        }
+
+        long lastUserId = job.getLastProcessedUserId();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long after = lastUserId;
+                Long chunkEnd = transaction.execute(status -> writeChunk(job, token, after));
+                if (chunkEnd == null) {
+                    break;
+                }
+                lastUserId = chunkEnd;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                logger.info("Broadcast job {} interrupted after user ID {}.", jobId, lastUserId);
+                return;
+            }
+            Integer completed = transaction.execute(status ->
+                    jobRepository.finish(jobId, token, BroadcastJobStatus.COMPLETED, null, LocalDateTime.now()));
+            if (completed != null && completed > 0) {
+                logger.info("Broadcast job {} completed.", jobId);
+            } else {
+                logger.info("Broadcast job {} was taken over before it could be marked completed.", jobId);
+            }
+        } catch (CancellationException e) {
+            logger.info("Broadcast job {} was re-queued or claimed elsewhere, stopping after user ID {}.", jobId, lastUserId);
+        } catch (RuntimeException e) {
+            logger.error("Broadcast job {} failed after user ID {}: {}", jobId, lastUserId, e.getMessage(), e);
+            String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            transaction.executeWithoutResult(status -> jobRepository.finish(jobId, token, BroadcastJobStatus.FAILED,
+                    error.length() > 1000 ? error.substring(0, 1000) : error, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Writes the notifications of the next chunk of recipients and records the new resume point.
+     *
+     * @return The highest user ID of the chunk, or null when no recipient is left.
+     * @throws CancellationException if the claim was lost, which rolls the chunk back.
+     */
+    private Long writeChunk(NotificationBroadcastJob job, String token, long afterUserId) {
+        MapSqlParameterSource params = recipientParams(job)
+                .addValue("afterId", afterUserId)
+                .addValue("chunkSize", chunkSize);
+        String recipients = recipientSource(job);
+
+        Long chunkEnd = namedJdbcTemplate.queryForObject(
+                "SELECT MAX(chunk.id) FROM (SELECT u.id " + recipients + " AND u.id > :afterId ORDER BY u.id LIMIT :chunkSize) chunk",
+                params, Long.class);
+        if (chunkEnd == null) {
+            return null;
+        }
+
+        params.addValue("chunkEnd", chunkEnd)
+                .addValue("subject", job.getSubject())
+                .addValue("message", job.getMessage())
+                .addValue("notificationType", job.getNotificationType().name())
+                .addValue("createdAt", job.getCreatedAt())
+                .addValue("serviceRequestId", job.getServiceRequestId())
+                .addValue("paymentId", job.getPaymentId())
+                .addValue("disputeId", job.getDisputeId())
+                .addValue("sourcePrefix", SOURCE_PREFIX + job.getId() + "-");
+        int written = namedJdbcTemplate.update(
+                INSERT_NOTIFICATIONS_SQL + recipients + " AND u.id > :afterId AND u.id <= :chunkEnd", params);
+        notificationCounterService.incrementForRecipients(recipients + " AND u.id > :afterId AND u.id <= :chunkEnd", params);
+
+        if (jobRepository.advanceProgress(job.getId(), token, chunkEnd, written, LocalDateTime.now()) == 0) {
+            throw new CancellationException();
+        }
+        recordCollectorNotifications(job, params);
+        // Connected recipients of this chunk are pushed once it commits
+        eventPublisher.publishEvent(new AudienceNotificationEvent(job.getSubject(), job.getNotificationType(),
+                job.getTargetRole(), targetUserIds(job), afterUserId, chunkEnd, null));
+        logger.debug("Broadcast job {}: {} notifications written for user IDs ({}, {}].", job.getId(), written, afterUserId, chunkEnd);
+        return chunkEnd;
+    }
+
+    /**
+     * Logs the notifications just written for collectors of the chunk in the sync change log, which only collectors
+     * read: the rows were inserted with {@code INSERT ... SELECT}, so no per-notification event was published.
+     */
+    private void recordCollectorNotifications(NotificationBroadcastJob job, MapSqlParameterSource params) {
+        namedJdbcTemplate.query(COLLECTOR_NOTIFICATIONS_SQL, params, rs -> {
+            syncChangeRecorder.record(SyncScope.USER, rs.getLong("recipient_user_id"), SyncEntityType.NOTIFICATION, rs.getLong("id"));
+        });
+    }
+
+    /**
+     * Whether the broadcast can be stored once and merged at read time: audience-wide, and not linked to an
+     * entity (a per-recipient row is needed to carry the link).
+     */
+    private boolean isFanOutOnRead(NotificationBroadcastJob job) {
+        boolean audienceWide = AUDIENCE_ALL.equals(job.getTargetAudience()) || AUDIENCE_ROLE.equals(job.getTargetAudience());
+        return audienceWide && job.getServiceRequestId() == null && job.getPaymentId() == null && job.getDisputeId() == null;
+    }
+
+    private long countRecipients(NotificationBroadcastJob job) {
+        Long count = namedJdbcTemplate.queryForObject("SELECT COUNT(*) " + recipientSource(job), recipientParams(job), Long.class);
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * FROM/WHERE clause selecting the job's recipients as {@code u.id}; callers append further conditions with AND.
+     */
+    private String recipientSource(NotificationBroadcastJob job) {
+        return switch (job.getTargetAudience()) {
+            case AUDIENCE_ALL -> "FROM users u WHERE 1 = 1";
+            case AUDIENCE_ROLE -> "FROM users u JOIN user_roles ur ON ur.user_id = u.id JOIN roles r ON r.id = ur.role_id " +
+                    "WHERE r.name = :roleName";
+            case AUDIENCE_SPECIFIC_USERS -> "FROM users u WHERE u.id IN (:userIds)";
+            default -> throw new IllegalStateException("Unsupported target audience: " + job.getTargetAudience());
+        };
+    }
+
+    private MapSqlParameterSource recipientParams(NotificationBroadcastJob job) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (AUDIENCE_ROLE.equals(job.getTargetAudience())) {
+            params.addValue("roleName", job.getTargetRole());
+        } else if (AUDIENCE_SPECIFIC_USERS.equals(job.getTargetAudience())) {
+            params.addValue("userIds", new ArrayList<>(targetUserIds(job)));
+        }
+        return params;
+    }
+
+    private Set<Long> targetUserIds(NotificationBroadcastJob job) {
+        if (!AUDIENCE_SPECIFIC_USERS.equals(job.getTargetAudience())) {
+            return null;
+        }
+        return Arrays.stream(job.getTargetUserIds().split(",")).map(Long::valueOf).collect(Collectors.toSet());
+    }
+
+    private NotificationBroadcastJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceException("Broadcast job", "id", jobId.toString()));
+    }
+
+    private BroadcastJobDTO toDto(NotificationBroadcastJob job) {
+        BroadcastJobDTO dto = new BroadcastJobDTO();
+        dto.setId(job.getId());
+        dto.setSubject(job.getSubject());
+        dto.setNotificationType(job.getNotificationType());
+        dto.setTargetAudience(job.getTargetAudience());
+        dto.setTargetRole(job.getTargetRole());
+        dto.setStatus(job.getStatus());
+        dto.setProcessedCount(job.getProcessedCount());
+        dto.setTotalRecipients(job.getTotalRecipients());
+        if (job.getTotalRecipients() != null && job.getTotalRecipients() > 0) {
+            dto.setProgressPercent(Math.min(100.0, job.getProcessedCount() * 100.0 / job.getTotalRecipients()));
+        } else {
+            dto.setProgressPercent(job.getStatus() == BroadcastJobStatus.COMPLETED ? 100.0 : 0.0);
+        }
+        dto.setBroadcastNotificationId(job.getBroadcastNotificationId());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,239 @@
+// File: com/wastecollect/backend/service/NotificationCounterService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.service.push.AudienceNotificationEvent;
+import com.wastecollect.common.models.User;
+import com.wastecollect.common.models.UserNotificationCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread notification counts per user, answered from memory in O(1).
+ * <p>
+ * The durable count of unread personal notifications is the {@link UserNotificationCounter} row, adjusted by the
+ * caller's transaction with a single-row UPDATE (or a set-based one for bulk changes). The in-memory entry also
+ * caches the user's unread broadcasts. It is dropped after every committed change and rebuilt on the next read
+ * with a primary-key lookup plus a count of the few broadcasts visible to the user.
+ * <p>
+ * Entries carry a generation so that a read which started before a change cannot put back a stale value, and
+ * an epoch that moves whenever a broadcast is published (every user's broadcast part changes at once).
+ */
+@Service
+public class NotificationCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationCounterService.class);
+
+    private static final String INCREMENT_SQL =
+            "UPDATE user_notification_counters SET unread_count = GREATEST(unread_count + :delta, 0), updated_at = NOW() " +
+            "WHERE user_id = :userId";
+
+    private static final String RESET_SQL =
+            "UPDATE user_notification_counters SET unread_count = 0, updated_at = NOW() WHERE user_id = :userId";
+
+    // Exact count taken once per user; the scan locks the recipient's index range, so concurrent inserts wait for it
+    private static final String INITIALIZE_SQL =
+            "INSERT IGNORE INTO user_notification_counters (user_id, unread_count, updated_at) " +
+            "SELECT :userId, COUNT(*), NOW() FROM notifications WHERE recipient_user_id = :userId AND is_read = FALSE";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private NotificationInboxService inboxService;
+
+    @Value("${app.notification-counters.max-cached-users:100000}")
+    private int maxCachedUsers;
+
+    private final Map<Long, CachedCount> cache = new ConcurrentHashMap<>();
+
+    // Moves when every cached broadcast part becomes stale, or when the cache is cleared
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Returns the number of unread notifications of a user, personal and broadcast.
+     *
+     * @param user The user.
+     * @return The unread count.
+     */
+    public long getUnreadCount(User user) {
+        long currentEpoch = epoch.get();
+        CachedCount cached = cache.get(user.getId());
+        if (cached != null && cached.isValid(currentEpoch)) {
+            return cached.personal + cached.broadcast;
+        }
+        long generation = cached != null ? cached.generation : 0L;
+
+        long personal = loadPersonalCount(user.getId());
+        long broadcast = inboxService.countUnreadBroadcasts(user);
+
+        if (cache.size() >= maxCachedUsers) {
+            cache.clear();
+            epoch.incrementAndGet();
+            return personal + broadcast;
+        }
+        // Only stored if no change was committed for this user while we were reading
+        cache.compute(user.getId(), (id, current) -> {
+            long currentGeneration = current != null ? current.generation : 0L;
+            return currentGeneration == generation
+                    ? new CachedCount(generation, currentEpoch, personal, broadcast)
+                    : current;
+        });
+        return personal + broadcast;
+    }
+
+    /**
+     * Adjusts a user's count of unread personal notifications. Must be called inside the transaction that
+     * creates, reads, unreads or deletes the notification; the cached entry is dropped once it commits.
+     *
+     * @param userId The recipient.
+     * @param delta The change (+1 for a new unread notification, -n when n notifications are read or deleted).
+     */
+    public void adjustUnread(Long userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        namedJdbcTemplate.update(INCREMENT_SQL, new MapSqlParameterSource("userId", userId).addValue("delta", delta));
+        invalidateAfterCommit(userId);
+    }
+
+    /**
+     * Sets a user's count of unread personal notifications to zero. Must be called inside the transaction that marks
+     * all of them as read: the count is then exact whatever drift it had, where subtracting the rows updated would
+     * keep it. The cached entry is dropped once the transaction commits.
+     *
+     * @param userId The recipient.
+     */
+    public void resetUnread(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        namedJdbcTemplate.update(RESET_SQL, new MapSqlParameterSource("userId", userId));
+        invalidateAfterCommit(userId);
+    }
+
+    /**
+     * Adds one unread notification to each recipient of a set-based insert. The recipients are given as the
+     * {@code FROM ... WHERE} clause that produced them, selecting user IDs as {@code u.id}.
+     *
+     * @param recipientSource The FROM/WHERE clause of the recipients.
+     * @param params The parameters of the clause.
+     * @return The number of counters updated.
+     */
+    public int incrementForRecipients(String recipientSource, MapSqlParameterSource params) {
+        int updated = namedJdbcTemplate.update(
+                "UPDATE user_notification_counters c JOIN (SELECT u.id " + recipientSource + ") recipients " +
+                "ON recipients.id = c.user_id SET c.unread_count = c.unread_count + 1, c.updated_at = NOW()", params);
+        // Too many users to invalidate one by one: make every cached entry stale
+        afterCommit(epoch::incrementAndGet);
+        return updated;
+    }
+
+    /**
+     * Removes the unread notifications among the given rows from their recipients' counters, before the rows
+     * are deleted or moved elsewhere (archiving, retention).
+     *
+     * @param notificationIds IDs of the notifications about to leave the {@code notifications} table.
+     */
+    public void decrementForNotifications(List<Long> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return;
+        }
+        int updated = namedJdbcTemplate.update(
+                "UPDATE user_notification_counters c JOIN (SELECT recipient_user_id, COUNT(*) AS unread FROM notifications " +
+                "WHERE id IN (:ids) AND is_read = FALSE GROUP BY recipient_user_id) removed " +
+                "ON removed.recipient_user_id = c.user_id " +
+                "SET c.unread_count = GREATEST(c.unread_count - removed.unread, 0), c.updated_at = NOW()",
+                new MapSqlParameterSource("ids", notificationIds));
+        if (updated > 0) {
+            afterCommit(epoch::incrementAndGet);
+        }
+    }
+
+    /**
+     * Drops a user's cached count once the current transaction commits (e.g. after a broadcast read marker changed).
+     */
+    public void invalidateAfterCommit(Long userId) {
+        afterCommit(() -> cache.compute(userId, (id, current) ->
+                CachedCount.tombstone(current != null ? current.generation + 1 : 1L)));
+    }
+
+    /**
+     * A published broadcast changes the unread count of its whole audience.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAudienceNotification(AudienceNotificationEvent event) {
+        if (event.getBroadcastNotificationId() != null) {
+            epoch.incrementAndGet();
+        }
+    }
+
+    private long loadPersonalCount(Long userId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        List<Long> counts = namedJdbcTemplate.queryForList(
+                "SELECT unread_count FROM user_notification_counters WHERE user_id = :userId", params, Long.class);
+        if (!counts.isEmpty()) {
+            return counts.get(0);
+        }
+        namedJdbcTemplate.update(INITIALIZE_SQL, params);
+        logger.debug("Unread notification counter initialized for user ID: {}", userId);
+        return namedJdbcTemplate.queryForObject(
+                "SELECT unread_count FROM user_notification_counters WHERE user_id = :userId", params, Long.class);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Cached count of one user. A tombstone only remembers the generation of the last committed change.
+     */
+    private static final class CachedCount {
+        private final long generation;
+        private final long epoch;
+        private final long personal;
+        private final long broadcast;
+        private final boolean tombstone;
+
+        private CachedCount(long generation, long epoch, long personal, long broadcast) {
+            this(generation, epoch, personal, broadcast, false);
+        }
+
+        private CachedCount(long generation, long epoch, long personal, long broadcast, boolean tombstone) {
+            this.generation = generation;
+            this.epoch = epoch;
+            this.personal = personal;
+            this.broadcast = broadcast;
+            this.tombstone = tombstone;
+        }
+
+        static CachedCount tombstone(long generation) {
+            return new CachedCount(generation, -1L, 0L, 0L, true);
+        }
+
+        boolean isValid(long currentEpoch) {
+            return !tombstone && epoch == currentEpoch;
+        }
+    }
+}
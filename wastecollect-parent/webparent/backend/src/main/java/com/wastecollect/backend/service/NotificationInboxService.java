@@ -0,0 +1,291 @@
+// File: com/wastecollect/backend/service/NotificationInboxService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.ResourceException;
+import com.wastecollect.backend.repository.KeysetCursor;
+import com.wastecollect.common.dto.NotificationDTO;
+import com.wastecollect.common.models.BroadcastNotification;
+import com.wastecollect.common.models.User;
+import com.wastecollect.common.utils.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A user's inbox: personal {@code notifications} rows merged at read time with the
+ * {@link BroadcastNotification}s addressed to the user's audience (fan-out on read).
+ * <p>
+ * A broadcast is visible to a user when it targets everyone or one of the user's roles and was published after
+ * the user's account was created. It counts as read once a {@code broadcast_notification_reads} marker exists.
+ * Both sources are read newest first through their (…, created_at, id) indexes and merged by one
+ * {@code UNION ALL}, so broadcasting never writes per recipient.
+ * <p>
+ * Broadcast IDs come from another sequence than personal notification IDs: broadcasts are returned with
+ * {@code broadcast = true} and their ID in {@code broadcastId}, and the inbox is ordered by
+ * (createdAt DESC, broadcast, id DESC) so that IDs are only compared within one source.
+ */
+@Service
+public class NotificationInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationInboxService.class);
+
+    private static final String COLUMNS =
+            "id, broadcast, subject, message, notification_type, created_at, read_at, is_read, service_request_id, payment_id, dispute_id";
+
+    private static final String PERSONAL_SQL =
+            "SELECT n.id, FALSE AS broadcast, n.subject, n.message, n.notification_type, n.created_at, n.read_at, n.is_read, " +
+            "n.service_request_id, n.payment_id, n.dispute_id " +
+            "FROM notifications n WHERE n.recipient_user_id = :userId " +
+            "AND (:isRead IS NULL OR n.is_read = :isRead) " +
+            "AND (:notificationType IS NULL OR n.notification_type = :notificationType)";
+
+    // Broadcasts visible to :userId; the joined marker tells whether the user has read it
+    private static final String VISIBLE_BROADCASTS =
+            "FROM broadcast_notifications b " +
+            "LEFT JOIN broadcast_notification_reads r ON r.user_id = :userId AND r.broadcast_id = b.id " +
+            "WHERE b.created_at >= :userCreatedAt " +
+            "AND (b.target_role IS NULL OR b.target_role IN " +
+            "(SELECT ro.name FROM user_roles ur JOIN roles ro ON ro.id = ur.role_id WHERE ur.user_id = :userId))";
+
+    private static final String BROADCAST_SQL =
+            "SELECT b.id, TRUE AS broadcast, b.subject, b.message, b.notification_type, b.created_at, r.read_at, " +
+            "(r.user_id IS NOT NULL) AS is_read, NULL AS service_request_id, NULL AS payment_id, NULL AS dispute_id " +
+            VISIBLE_BROADCASTS +
+            " AND (:isRead IS NULL OR (r.user_id IS NOT NULL) = :isRead)" +
+            " AND (:notificationType IS NULL OR b.notification_type = :notificationType)";
+
+    private static final String INBOX_ORDER = " ORDER BY created_at DESC, broadcast, id DESC";
+
+    // At the cursor's instant, personal notifications come before broadcasts (cursor source 0 = personal, 1 = broadcast)
+    private static final String PERSONAL_SEEK = " AND (n.created_at < :cursorCreatedAt OR " +
+            "(n.created_at = :cursorCreatedAt AND :cursorSource = 0 AND n.id < :cursorId))";
+    private static final String BROADCAST_SEEK = " AND (b.created_at < :cursorCreatedAt OR " +
+            "(b.created_at = :cursorCreatedAt AND (:cursorSource = 0 OR b.id < :cursorId)))";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Returns one page of the merged inbox, newest first. The sort of {@code pageable} is ignored: the inbox is
+     * always ordered by (createdAt DESC, broadcast, id DESC).
+     *
+     * @param recipient The inbox owner.
+     * @param isRead Read status filter, null for all.
+     * @param notificationType Notification type filter, null for all types.
+     * @param pageable Page number and size.
+     * @return The page, with the total of both sources.
+     */
+    @Transactional(readOnly = true)
+    public Page<NotificationDTO> getInboxPage(User recipient, Boolean isRead, NotificationType notificationType, Pageable pageable) {
+        MapSqlParameterSource params = baseParams(recipient, isRead, notificationType);
+        if (pageable.isUnpaged()) {
+            List<NotificationDTO> all = namedJdbcTemplate.query(
+                    "SELECT " + COLUMNS + " FROM (" + PERSONAL_SQL + " UNION ALL " + BROADCAST_SQL + ") inbox " +
+                    INBOX_ORDER, params, rowMapper(recipient.getId()));
+            return new PageImpl<>(all, pageable, all.size());
+        }
+
+        // Each branch only needs its own first (offset + size) rows, which it reads straight from its index
+        long top = pageable.getOffset() + pageable.getPageSize();
+        params.addValue("top", top)
+                .addValue("offset", pageable.getOffset())
+                .addValue("size", pageable.getPageSize());
+        List<NotificationDTO> content = namedJdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM (" +
+                "(" + PERSONAL_SQL + " ORDER BY n.created_at DESC, n.id DESC LIMIT :top) UNION ALL " +
+                "(" + BROADCAST_SQL + " ORDER BY b.created_at DESC, b.id DESC LIMIT :top)) inbox " +
+                INBOX_ORDER + " LIMIT :size OFFSET :offset", params, rowMapper(recipient.getId()));
+        return new PageImpl<>(content, pageable, countInbox(recipient, isRead, notificationType));
+    }
+
+    /**
+     * Returns the slice of the merged inbox that follows the given keyset position.
+     *
+     * @param recipient The inbox owner.
+     * @param isRead Read status filter, null for all.
+     * @param notificationType Notification type filter, null for all types.
+     * @param position Position of the last entry of the previous slice, null for the first slice.
+     * @param limit Maximum number of entries.
+     * @return Up to {@code limit} entries ordered by (createdAt DESC, broadcast, id DESC).
+     */
+    @Transactional(readOnly = true)
+    public List<NotificationDTO> getInboxSlice(User recipient, Boolean isRead, NotificationType notificationType,
+                                               KeysetCursor position, int limit) {
+        MapSqlParameterSource params = baseParams(recipient, isRead, notificationType).addValue("limit", limit);
+        String personalSeek = "";
+        String broadcastSeek = "";
+        if (position != null) {
+            params.addValue("cursorCreatedAt", Timestamp.valueOf(position.getTimestamp()))
+                    .addValue("cursorSource", position.getSource())
+                    .addValue("cursorId", position.getId());
+            personalSeek = PERSONAL_SEEK;
+            broadcastSeek = BROADCAST_SEEK;
+        }
+        return namedJdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM (" +
+                "(" + PERSONAL_SQL + personalSeek + " ORDER BY n.created_at DESC, n.id DESC LIMIT :limit) UNION ALL " +
+                "(" + BROADCAST_SQL + broadcastSeek + " ORDER BY b.created_at DESC, b.id DESC LIMIT :limit)) inbox " +
+                INBOX_ORDER + " LIMIT :limit", params, rowMapper(recipient.getId()));
+    }
+
+    /**
+     * Returns the slice of the user's archived personal notifications that follows the given keyset position.
+     * Archived notifications have left the inbox, so they are read-only and never merged with broadcasts.
+     *
+     * @param recipient The owner of the notifications.
+     * @param archiveTable The notification archive table, as found by {@link DataArchivingService}.
+     * @param position Position of the last entry of the previous slice, null for the first slice.
+     * @param limit Maximum number of entries.
+     * @return Up to {@code limit} entries ordered by (createdAt DESC, id DESC).
+     */
+    @Transactional(readOnly = true)
+    public List<NotificationDTO> getArchivedSlice(User recipient, String archiveTable, KeysetCursor position, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", recipient.getId()).addValue("limit", limit);
+        String seek = "";
+        if (position != null) {
+            params.addValue("cursorCreatedAt", Timestamp.valueOf(position.getTimestamp()))
+                    .addValue("cursorId", position.getId());
+            seek = " AND (n.created_at < :cursorCreatedAt OR (n.created_at = :cursorCreatedAt AND n.id < :cursorId))";
+        }
+        return namedJdbcTemplate.query(
+                "SELECT n.id, FALSE AS broadcast, n.subject, n.message, n.notification_type, n.created_at, n.read_at, " +
+                "n.is_read, n.service_request_id, n.payment_id, n.dispute_id FROM " + archiveTable + " n " +
+                "WHERE n.recipient_user_id = :userId" + seek + " ORDER BY n.created_at DESC, n.id DESC LIMIT :limit",
+                params, rowMapper(recipient.getId()));
+    }
+
+    /**
+     * Counts the merged inbox entries matching the filters.
+     */
+    @Transactional(readOnly = true)
+    public long countInbox(User recipient, Boolean isRead, NotificationType notificationType) {
+        Long count = namedJdbcTemplate.queryForObject(
+                "SELECT (SELECT COUNT(*) FROM (" + PERSONAL_SQL + ") p) + (SELECT COUNT(*) FROM (" + BROADCAST_SQL + ") b)",
+                baseParams(recipient, isRead, notificationType), Long.class);
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * Counts the broadcasts visible to the user that they have not read yet.
+     */
+    @Transactional(readOnly = true)
+    public long countUnreadBroadcasts(User recipient) {
+        Long count = namedJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) " + VISIBLE_BROADCASTS + " AND r.user_id IS NULL",
+                baseParams(recipient, null, null), Long.class);
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * Marks a broadcast as read for a user.
+     *
+     * @param recipient The user.
+     * @param broadcastId The broadcast notification ID.
+     * @return The broadcast as seen by the user.
+     * @throws ResourceException if the broadcast does not exist or is not addressed to the user.
+     */
+    @Transactional
+    public NotificationDTO markBroadcastAsRead(User recipient, Long broadcastId) {
+        NotificationDTO broadcast = findVisibleBroadcast(recipient, broadcastId);
+        if (!Boolean.TRUE.equals(broadcast.getIsRead())) {
+            LocalDateTime now = LocalDateTime.now();
+            namedJdbcTemplate.update(
+                    "INSERT IGNORE INTO broadcast_notification_reads (user_id, broadcast_id, read_at) VALUES (:userId, :broadcastId, :now)",
+                    new MapSqlParameterSource("userId", recipient.getId()).addValue("broadcastId", broadcastId).addValue("now", now));
+            broadcast.setIsRead(true);
+            broadcast.setReadAt(now);
+            logger.info("Broadcast notification ID: {} marked as read for user ID: {}.", broadcastId, recipient.getId());
+        }
+        return broadcast;
+    }
+
+    /**
+     * Marks a broadcast as unread for a user by removing the read marker.
+     *
+     * @param recipient The user.
+     * @param broadcastId The broadcast notification ID.
+     * @return The broadcast as seen by the user.
+     * @throws ResourceException if the broadcast does not exist or is not addressed to the user.
+     */
+    @Transactional
+    public NotificationDTO markBroadcastAsUnread(User recipient, Long broadcastId) {
+        NotificationDTO broadcast = findVisibleBroadcast(recipient, broadcastId);
+        if (Boolean.TRUE.equals(broadcast.getIsRead())) {
+            namedJdbcTemplate.update(
+                    "DELETE FROM broadcast_notification_reads WHERE user_id = :userId AND broadcast_id = :broadcastId",
+                    new MapSqlParameterSource("userId", recipient.getId()).addValue("broadcastId", broadcastId));
+            broadcast.setIsRead(false);
+            broadcast.setReadAt(null);
+            logger.info("Broadcast notification ID: {} marked as unread for user ID: {}.", broadcastId, recipient.getId());
+        }
+        return broadcast;
+    }
+
+    /**
+     * Marks every broadcast visible to the user as read, with a single set-based insert of the missing markers.
+     *
+     * @param recipient The user.
+     * @return The number of broadcasts that were unread.
+     */
+    @Transactional
+    public int markAllBroadcastsAsRead(User recipient) {
+        MapSqlParameterSource params = baseParams(recipient, null, null).addValue("now", LocalDateTime.now());
+        return namedJdbcTemplate.update(
+                "INSERT IGNORE INTO broadcast_notification_reads (user_id, broadcast_id, read_at) " +
+                "SELECT :userId, b.id, :now " + VISIBLE_BROADCASTS + " AND r.user_id IS NULL", params);
+    }
+
+    private NotificationDTO findVisibleBroadcast(User recipient, Long broadcastId) {
+        MapSqlParameterSource params = baseParams(recipient, null, null).addValue("broadcastId", broadcastId);
+        List<NotificationDTO> rows = namedJdbcTemplate.query(
+                BROADCAST_SQL + " AND b.id = :broadcastId", params, rowMapper(recipient.getId()));
+        if (rows.isEmpty()) {
+            throw new ResourceException("Broadcast notification not found", broadcastId.toString());
+        }
+        return rows.get(0);
+    }
+
+    private MapSqlParameterSource baseParams(User recipient, Boolean isRead, NotificationType notificationType) {
+        LocalDateTime userCreatedAt = recipient.getCreationDate() != null
+                ? recipient.getCreationDate() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        return new MapSqlParameterSource("userId", recipient.getId())
+                .addValue("userCreatedAt", Timestamp.valueOf(userCreatedAt))
+                .addValue("isRead", isRead)
+                .addValue("notificationType", notificationType != null ? notificationType.name() : null);
+    }
+
+    private RowMapper<NotificationDTO> rowMapper(Long recipientId) {
+        return (rs, rowNum) -> {
+            NotificationDTO dto = new NotificationDTO();
+            boolean broadcast = rs.getBoolean("broadcast");
+            dto.setId(broadcast ? null : rs.getLong("id"));
+            dto.setBroadcastId(broadcast ? rs.getLong("id") : null);
+            dto.setBroadcast(broadcast);
+            dto.setRecipientId(recipientId);
+            dto.setSubject(rs.getString("subject"));
+            dto.setMessage(rs.getString("message"));
+            dto.setNotificationType(NotificationType.valueOf(rs.getString("notification_type")));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            dto.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+            Timestamp readAt = rs.getTimestamp("read_at");
+            dto.setReadAt(readAt != null ? readAt.toLocalDateTime() : null);
+            dto.setIsRead(rs.getBoolean("is_read"));
+            dto.setServiceRequestId(rs.getObject("service_request_id", Long.class));
+            dto.setPaymentId(rs.getObject("payment_id", Long.class));
+            dto.setDisputeId(rs.getObject("dispute_id", Long.class));
+            return dto;
+        };
+    }
+}
@@ -0,0 +1,312 @@
+// File: com/wastecollect/backend/service/NotificationRetentionService.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.config.NotificationRetentionProperties;
+import com.wastecollect.common.utils.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes expired notifications according to the per-type TTL policies of {@link NotificationRetentionProperties}.
+ * <p>
+ * Expired rows are found through the (notification_type, is_read, created_at) index and deleted by primary key
+ * in small batches, one short transaction each, with a pause in between so the sweep never holds locks for long
+ * nor saturates the database. Both the hot table and its archive are swept. Unread notifications removed from the
+ * hot table are also removed from their recipients' unread counters.
+ * <p>
+ * Optionally, before the TTLs apply, the old read updates of a service request are collapsed into a single
+ * digest notification per recipient.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    // Digest rows are tagged through source_event_id so they are never digested again
+    private static final String DIGEST_PREFIX = "digest-";
+
+    private static final DateTimeFormatter DIGEST_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private static final String DIGEST_CANDIDATES =
+            "FROM notifications WHERE notification_type = 'SERVICE_REQUEST_UPDATE' AND is_read = TRUE " +
+            "AND created_at < :cutoff AND service_request_id IS NOT NULL " +
+            "AND (source_event_id IS NULL OR source_event_id NOT LIKE '" + DIGEST_PREFIX + "%') ";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private NotificationRetentionProperties properties;
+
+    @Autowired
+    private DataArchivingService dataArchivingService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final Map<NotificationType, AtomicLong> totalDeleted = new ConcurrentHashMap<>();
+    private final AtomicLong totalDigests = new AtomicLong();
+    private final AtomicLong totalSummarized = new AtomicLong();
+    private final AtomicLong totalRuns = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    /**
+     * Nightly sweep, after the archival job. Skipped if disabled or if a previous sweep is still running.
+     */
+    @Scheduled(cron = "${app.notification-retention.cron:0 0 4 * * *}")
+    public void sweepScheduled() {
+        if (properties.isEnabled()) {
+            sweep();
+        }
+    }
+
+    /**
+     * Runs the digest step (if enabled) and deletes every expired notification, within the per-run batch budget.
+     *
+     * @return The report of this run, or an empty map if a sweep was already running.
+     */
+    public Map<String, Object> sweep() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Notification retention already running, skipping this trigger.");
+            return Map.of();
+        }
+        try {
+            Run run = new Run();
+            if (properties.getDigest().isEnabled()) {
+                summarize(run);
+            }
+            List<String> tables = tables();
+            for (Map.Entry<NotificationType, NotificationRetentionProperties.Policy> entry : properties.getPolicies().entrySet()) {
+                for (String table : tables) {
+                    purge(table, entry.getKey(), true, entry.getValue().getReadTtlDays(), run);
+                    purge(table, entry.getKey(), false, entry.getValue().getUnreadTtlDays(), run);
+                }
+            }
+
+            Map<String, Object> report = run.report();
+            lastRun = report;
+            totalRuns.incrementAndGet();
+            totalDigests.addAndGet(run.digests);
+            totalSummarized.addAndGet(run.summarized);
+            run.deleted.forEach((type, count) -> totalDeleted.computeIfAbsent(type, t -> new AtomicLong()).addAndGet(count));
+            logger.info("Notification retention finished: {} notifications deleted, {} digests replacing {} updates, {} batches in {} ms.",
+                    report.get("deletedTotal"), run.digests, run.summarized, run.batches, report.get("durationMs"));
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Returns the report of the last run and the totals since startup.
+     *
+     * @return The retention metrics.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("running", running.get());
+        metrics.put("runs", totalRuns.get());
+        Map<String, Long> deleted = new LinkedHashMap<>();
+        totalDeleted.forEach((type, count) -> deleted.put(type.name(), count.get()));
+        metrics.put("deletedByType", deleted);
+        metrics.put("digestsCreated", totalDigests.get());
+        metrics.put("notificationsSummarized", totalSummarized.get());
+        metrics.put("lastRun", lastRun);
+        return metrics;
+    }
+
+    private void purge(String table, NotificationType type, boolean isRead, Integer ttlDays, Run run) {
+        if (ttlDays == null) {
+            return;
+        }
+        boolean hot = DataArchivingService.NOTIFICATIONS.equals(table);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        MapSqlParameterSource params = new MapSqlParameterSource("type", type.name())
+                .addValue("isRead", isRead)
+                .addValue("cutoff", LocalDateTime.now().minusDays(ttlDays))
+                .addValue("batchSize", properties.getBatchSize());
+        // Keyset over the index, so each batch starts where the previous one ended
+        LocalDateTime afterCreatedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        long afterId = 0L;
+
+        while (run.hasBudget()) {
+            params.addValue("afterCreatedAt", afterCreatedAt).addValue("afterId", afterId);
+            List<Map<String, Object>> batch = transaction.execute(status -> {
+                List<Map<String, Object>> rows = namedJdbcTemplate.queryForList(
+                        "SELECT id, created_at FROM " + table + " WHERE notification_type = :type AND is_read = :isRead " +
+                        "AND created_at < :cutoff AND (created_at > :afterCreatedAt OR (created_at = :afterCreatedAt AND id > :afterId)) " +
+                        "ORDER BY created_at, id LIMIT :batchSize", params);
+                if (rows.isEmpty()) {
+                    return rows;
+                }
+                List<Long> ids = rows.stream().map(row -> ((Number) row.get("id")).longValue()).collect(Collectors.toList());
+                if (hot && !isRead) {
+                    notificationCounterService.decrementForNotifications(ids);
+                }
+                int deleted = namedJdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+                run.deleted.merge(type, (long) deleted, Long::sum);
+                return rows;
+            });
+            run.batches++;
+            if (batch == null || batch.size() < properties.getBatchSize()) {
+                return;
+            }
+            Map<String, Object> last = batch.get(batch.size() - 1);
+            afterCreatedAt = toLocalDateTime(last.get("created_at"));
+            afterId = ((Number) last.get("id")).longValue();
+            pause();
+        }
+    }
+
+    private void summarize(Run run) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", LocalDateTime.now().minusDays(properties.getDigest().getAfterDays()))
+                .addValue("groups", properties.getDigest().getGroupsPerBatch());
+
+        while (run.hasBudget()) {
+            Integer groups = transaction.execute(status -> {
+                List<Map<String, Object>> keys = namedJdbcTemplate.queryForList(
+                        "SELECT recipient_user_id, service_request_id " + DIGEST_CANDIDATES +
+                        "GROUP BY recipient_user_id, service_request_id HAVING COUNT(*) > 1 LIMIT :groups", params);
+                for (Map<String, Object> key : keys) {
+                    digest(((Number) key.get("recipient_user_id")).longValue(), ((Number) key.get("service_request_id")).longValue(), params, run);
+                }
+                return keys.size();
+            });
+            run.batches++;
+            if (groups == null || groups < properties.getDigest().getGroupsPerBatch()) {
+                return;
+            }
+            pause();
+        }
+    }
+
+    /**
+     * Replaces the old read updates of one service request for one recipient with a single digest notification.
+     */
+    private void digest(long recipientId, long serviceRequestId, MapSqlParameterSource cutoffParams, Run run) {
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", cutoffParams.getValue("cutoff"))
+                .addValue("recipientId", recipientId)
+                .addValue("serviceRequestId", serviceRequestId);
+        List<Map<String, Object>> updates = namedJdbcTemplate.queryForList(
+                "SELECT id, subject, created_at, read_at " + DIGEST_CANDIDATES +
+                "AND recipient_user_id = :recipientId AND service_request_id = :serviceRequestId ORDER BY created_at, id", params);
+        if (updates.size() < 2) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder();
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime readAt = null;
+        for (Map<String, Object> update : updates) {
+            ids.add(((Number) update.get("id")).longValue());
+            LocalDateTime updateReadAt = toLocalDateTime(update.get("read_at"));
+            if (updateReadAt != null && (readAt == null || updateReadAt.isAfter(readAt))) {
+                readAt = updateReadAt;
+            }
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(toLocalDateTime(update.get("created_at")).format(DIGEST_DATE_FORMAT)).append(" - ").append(update.get("subject"));
+        }
+        LocalDateTime lastCreatedAt = toLocalDateTime(updates.get(updates.size() - 1).get("created_at"));
+
+        namedJdbcTemplate.update(
+                "INSERT INTO notifications (recipient_user_id, subject, message, notification_type, created_at, read_at, is_read, " +
+                "service_request_id, source_event_id) VALUES (:recipientId, :subject, :message, 'SERVICE_REQUEST_UPDATE', " +
+                ":createdAt, :readAt, TRUE, :serviceRequestId, :sourceEventId)",
+                new MapSqlParameterSource("recipientId", recipientId)
+                        .addValue("subject", "Service request #" + serviceRequestId + ": " + updates.size() + " updates")
+                        .addValue("message", message.toString())
+                        .addValue("createdAt", lastCreatedAt)
+                        .addValue("readAt", readAt)
+                        .addValue("serviceRequestId", serviceRequestId)
+                        .addValue("sourceEventId", DIGEST_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 29)));
+        namedJdbcTemplate.update("DELETE FROM notifications WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+        run.digests++;
+        run.summarized += ids.size();
+    }
+
+    private List<String> tables() {
+        List<String> tables = new ArrayList<>(List.of(DataArchivingService.NOTIFICATIONS));
+        dataArchivingService.findArchiveTable(DataArchivingService.NOTIFICATIONS).ifPresent(tables::add);
+        return tables;
+    }
+
+    private void pause() {
+        if (properties.getPauseMs() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(properties.getPauseMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    /**
+     * Counters of one sweep.
+     */
+    private final class Run {
+        private final long startedAt = System.currentTimeMillis();
+        private final LocalDateTime startedAtTime = LocalDateTime.now();
+        private final Map<NotificationType, Long> deleted = new EnumMap<>(NotificationType.class);
+        private long digests;
+        private long summarized;
+        private int batches;
+
+        boolean hasBudget() {
+            int max = properties.getMaxBatchesPerRun();
+            return !Thread.currentThread().isInterrupted() && (max <= 0 || batches < max);
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("startedAt", startedAtTime);
+            report.put("durationMs", System.currentTimeMillis() - startedAt);
+            Map<String, Long> byType = new LinkedHashMap<>();
+            deleted.forEach((type, count) -> byType.put(type.name(), count));
+            report.put("deletedByType", byType);
+            report.put("deletedTotal", deleted.values().stream().mapToLong(Long::longValue).sum());
+            report.put("digestsCreated", digests);
+            report.put("notificationsSummarized", summarized);
+            report.put("batches", batches);
+            report.put("budgetExhausted", !hasBudget());
+            return report;
+        }
+    }
+}
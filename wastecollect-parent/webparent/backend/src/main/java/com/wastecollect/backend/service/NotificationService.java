@@ -1,20 +1,28 @@
 // File: com/wastecollect/backend/service/NotificationService.java
 package com.wastecollect.backend.service;
 
+import com.wastecollect.common.dto.CursorPageDTO;
 import com.wastecollect.common.dto.NotificationDTO;
 import com.wastecollect.common.models.Notification;
 import com.wastecollect.common.models.User; // Assuming User model exists
 import com.wastecollect.common.models.ServiceRequest; // Assuming ServiceRequest model exists
 import com.wastecollect.common.models.Payment; // Assuming Payment model exists
 import com.wastecollect.common.models.Dispute; // Assuming Dispute model exists
+import com.wastecollect.backend.repository.KeysetCursor;
 import com.wastecollect.backend.repository.NotificationRepository;
 import com.wastecollect.backend.repository.UserRepository; // Assuming UserRepository exists for fetching User
 import com.wastecollect.backend.exception.ResourceException; // Custom exception for resource not found
+import com.wastecollect.backend.service.push.NotificationCreatedEvent;
 import com.wastecollect.common.utils.NotificationType;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // For transaction management
 import org.slf4j.Logger;
@@ -23,7 +31,6 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service class for managing notifications.
@@ -40,6 +47,21 @@ public class NotificationService {
     @Autowired
     private UserRepository userRepository; // Assuming you have a UserRepository to fetch User entities
 
+    @Autowired
+    private NotificationInboxService inboxService;
+
+    @Autowired
+    private NotificationCounterService counterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SyncChangeRecorder syncChangeRecorder;
+
+    @Autowired
+    private DataArchivingService dataArchivingService;
+
     // You might also need repositories for ServiceRequest, Payment, Dispute
     // @Autowired private ServiceRequestRepository serviceRequestRepository;
     // @Autowired private PaymentRepository paymentRepository;
@@ -88,8 +110,12 @@ public class NotificationService {
         );
 
         Notification savedNotification = notificationRepository.save(newNotification);
+        counterService.adjustUnread(recipient.getId(), 1);
         logger.info("Notification created successfully with ID: {}", savedNotification.getId());
-        return convertToDto(savedNotification);
+        NotificationDTO created = convertToDto(savedNotification);
+        // Pushed to the recipient's live streams once this transaction commits
+        eventPublisher.publishEvent(new NotificationCreatedEvent(created));
+        return created;
     }
 
     /**
@@ -108,7 +134,7 @@ public class NotificationService {
 
     /**
      * Retrieves notifications for a specific user, with optional filters for read status and notification type,
-     * with pagination.
+     * with pagination. Personal notifications and the broadcasts addressed to the user are merged, newest first.
      *
      * @param userId The ID of the recipient user.
      * @param isReadFilter Optional: True for read, False for unread, null for all.
@@ -127,10 +153,86 @@ public class NotificationService {
         User recipient = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
 
-        // Ensure the query in NotificationRepository can handle nulls for optional filters
-        Page<Notification> notifications = notificationRepository.findByRecipientAndFilters(
-                recipient, isReadFilter, typeFilter, pageable);
-        return notifications.map(this::convertToDto);
+        return inboxService.getInboxPage(recipient, isReadFilter, typeFilter, pageable);
+    }
+
+    /**
+     * Retrieves notifications for a specific user using keyset (seek) pagination.
+     * Personal notifications and the broadcasts addressed to the user are merged, newest first.
+     * The cost of fetching a slice does not depend on how deep the client has scrolled,
+     * and no COUNT query is issued unless {@code includeTotal} is set.
+     *
+     * @param userId The ID of the recipient user.
+     * @param isReadFilter Optional: True for read, False for unread, null for all.
+     * @param typeFilter Optional: The NotificationType to filter by, null for all types.
+     * @param cursor Opaque cursor returned with the previous slice, null for the first slice.
+     * @param size Maximum number of notifications to return.
+     * @param includeTotal Whether to also compute the total number of matching notifications.
+     * @return A CursorPageDTO of NotificationDTOs, newest first.
+     * @throws ResourceException if the user is not found.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<NotificationDTO> getNotificationsForUserByCursor(
+            Long userId,
+            Boolean isReadFilter,
+            NotificationType typeFilter,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+        logger.info("Retrieving notification slice for user ID: {} after cursor: {}", userId, cursor);
+        User recipient = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        // Fetch one extra row to know whether another slice follows without counting
+        List<NotificationDTO> rows = inboxService.getInboxSlice(recipient, isReadFilter, typeFilter, position, size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<NotificationDTO> slice = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            NotificationDTO last = slice.get(slice.size() - 1);
+            nextCursor = Boolean.TRUE.equals(last.getBroadcast())
+                    ? new KeysetCursor(last.getCreatedAt(), 1, last.getBroadcastId()).encode()
+                    : new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        Long total = includeTotal
+                ? inboxService.countInbox(recipient, isReadFilter, typeFilter)
+                : null;
+
+        return new CursorPageDTO<>(slice, nextCursor, hasNext, slice.size(), total);
+    }
+
+    /**
+     * Retrieves a user's archived notifications with keyset pagination, newest first.
+     * Notifications older than the hot window are moved out of the inbox by {@link DataArchivingService}; this is
+     * the only way to read them back.
+     *
+     * @param userId The ID of the recipient user.
+     * @param cursor Opaque cursor returned with the previous slice, null for the first slice.
+     * @param size Maximum number of notifications to return.
+     * @return A CursorPageDTO of archived NotificationDTOs, without total.
+     * @throws ResourceException if the user is not found.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<NotificationDTO> getArchivedNotificationsForUser(Long userId, String cursor, int size) {
+        logger.info("Retrieving archived notification slice for user ID: {} after cursor: {}", userId, cursor);
+        User recipient = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
+
+        Optional<String> archiveTable = dataArchivingService.findArchiveTableFor(DataArchivingService.NOTIFICATIONS, null);
+        if (archiveTable.isEmpty()) {
+            return new CursorPageDTO<>(List.of(), null, false, 0, null);
+        }
+        List<NotificationDTO> rows = inboxService.getArchivedSlice(recipient, archiveTable.get(), KeysetCursor.decode(cursor), size + 1);
+        boolean hasNext = rows.size() > size;
+        List<NotificationDTO> slice = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            NotificationDTO last = slice.get(slice.size() - 1);
+            nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPageDTO<>(slice, nextCursor, hasNext, slice.size(), null);
     }
 
     /**
@@ -146,32 +248,33 @@ public class NotificationService {
         User recipient = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
 
-        Page<Notification> notifications = notificationRepository.findByRecipientAndIsRead(recipient, false, pageable);
-        return notifications.map(this::convertToDto);
+        return inboxService.getInboxPage(recipient, false, null, pageable);
     }
 
     /**
-     * Marks a specific notification as read.
+     * Marks a specific notification as read. Broadcasts are marked through {@link #markBroadcastAsRead}.
      *
      * @param notificationId The ID of the notification to mark as read.
      * @return The updated NotificationDTO.
      * @throws ResourceException if the notification is not found.
+     * @throws SecurityException if the current user is neither its recipient nor an administrator.
      */
     @Transactional
     public NotificationDTO markNotificationAsRead(Long notificationId) {
         logger.info("Marking notification with ID: {} as read.", notificationId);
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceException("Notification not found", notificationId.toString()));
+        checkRecipient(notification);
 
-        if (!notification.getIsRead()) {
-            notification.markAsRead();
-            Notification updatedNotification = notificationRepository.save(notification);
+        // Guarded update: only the request that actually flips the flag moves the unread counter
+        if (notificationRepository.markAsReadIfUnread(notificationId, LocalDateTime.now()) == 1) {
+            counterService.adjustUnread(notification.getRecipient().getId(), -1);
+            syncChangeRecorder.record(SyncScope.USER, notification.getRecipient().getId(), SyncEntityType.NOTIFICATION, notificationId);
             logger.info("Notification ID: {} marked as read successfully.", notificationId);
-            return convertToDto(updatedNotification);
         } else {
             logger.info("Notification ID: {} was already read.", notificationId);
-            return convertToDto(notification);
         }
+        return getNotificationById(notificationId);
     }
 
     /**
@@ -180,26 +283,77 @@ public class NotificationService {
      * @param notificationId The ID of the notification to mark as unread.
      * @return The updated NotificationDTO.
      * @throws ResourceException if the notification is not found.
+     * @throws SecurityException if the current user is neither its recipient nor an administrator.
      */
     @Transactional
     public NotificationDTO markNotificationAsUnread(Long notificationId) {
         logger.info("Marking notification with ID: {} as unread.", notificationId);
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceException("Notification not found", notificationId.toString()));
+        checkRecipient(notification);
 
-        if (notification.getIsRead()) {
-            notification.markAsUnread();
-            Notification updatedNotification = notificationRepository.save(notification);
+        if (notificationRepository.markAsUnreadIfRead(notificationId) == 1) {
+            counterService.adjustUnread(notification.getRecipient().getId(), 1);
+            syncChangeRecorder.record(SyncScope.USER, notification.getRecipient().getId(), SyncEntityType.NOTIFICATION, notificationId);
             logger.info("Notification ID: {} marked as unread successfully.", notificationId);
-            return convertToDto(updatedNotification);
         } else {
             logger.info("Notification ID: {} was already unread.", notificationId);
-            return convertToDto(notification);
         }
+        return getNotificationById(notificationId);
+    }
+
+    /**
+     * Counts the unread notifications of a user, personal and broadcast.
+     * Served from the maintained counters, without counting the user's notifications.
+     *
+     * @param userId The ID of the user.
+     * @return The number of unread notifications.
+     * @throws ResourceException if the user is not found.
+     */
+    public long getUnreadCountForUser(Long userId) {
+        User recipient = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
+        return counterService.getUnreadCount(recipient);
+    }
+
+    /**
+     * Marks a broadcast notification as read for a user.
+     *
+     * @param userId The ID of the user.
+     * @param broadcastId The ID of the broadcast notification.
+     * @return The broadcast as seen by the user.
+     * @throws ResourceException if the user or the broadcast is not found.
+     */
+    @Transactional
+    public NotificationDTO markBroadcastAsRead(Long userId, Long broadcastId) {
+        User recipient = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
+        NotificationDTO broadcast = inboxService.markBroadcastAsRead(recipient, broadcastId);
+        counterService.invalidateAfterCommit(userId);
+        syncChangeRecorder.record(SyncScope.USER, userId, SyncEntityType.BROADCAST, broadcastId);
+        return broadcast;
+    }
+
+    /**
+     * Marks a broadcast notification as unread for a user.
+     *
+     * @param userId The ID of the user.
+     * @param broadcastId The ID of the broadcast notification.
+     * @return The broadcast as seen by the user.
+     * @throws ResourceException if the user or the broadcast is not found.
+     */
+    @Transactional
+    public NotificationDTO markBroadcastAsUnread(Long userId, Long broadcastId) {
+        User recipient = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
+        NotificationDTO broadcast = inboxService.markBroadcastAsUnread(recipient, broadcastId);
+        counterService.invalidateAfterCommit(userId);
+        syncChangeRecorder.record(SyncScope.USER, userId, SyncEntityType.BROADCAST, broadcastId);
+        return broadcast;
     }
 
     /**
-     * Marks all unread notifications for a specific user as read.
+     * Marks all unread notifications for a specific user as read, including the broadcasts addressed to them.
      *
      * @param userId The ID of the user whose notifications should be marked as read.
      * @return The count of notifications marked as read.
@@ -211,11 +365,17 @@ public class NotificationService {
         User recipient = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceException("User not found", userId.toString()));
 
-        List<Notification> unreadNotifications = notificationRepository.findByRecipientAndIsRead(recipient, false, Pageable.unpaged()).getContent();
-        unreadNotifications.forEach(Notification::markAsRead);
-        notificationRepository.saveAll(unreadNotifications); // Save all updated notifications
-        logger.info("{} notifications marked as read for user ID: {}", unreadNotifications.size(), userId);
-        return unreadNotifications.size();
+        // One set-based UPDATE instead of loading and saving every unread notification
+        int notifications = notificationRepository.markAllAsReadForRecipient(recipient, LocalDateTime.now());
+        // Nothing is left unread: zero the counter rather than subtract, so that any drift is corrected too
+        counterService.resetUnread(userId);
+        int broadcasts = inboxService.markAllBroadcastsAsRead(recipient);
+        if (notifications > 0 || broadcasts > 0) {
+            syncChangeRecorder.record(SyncScope.USER, userId, SyncEntityType.NOTIFICATIONS_READ, null);
+        }
+        counterService.invalidateAfterCommit(userId);
+        logger.info("{} notifications and {} broadcasts marked as read for user ID: {}", notifications, broadcasts, userId);
+        return notifications + broadcasts;
     }
 
     /**
@@ -227,10 +387,15 @@ public class NotificationService {
     @Transactional
     public void deleteNotification(Long id) {
         logger.info("Attempting to delete notification with ID: {}", id);
-        if (!notificationRepository.existsById(id)) {
+        Notification notification = notificationRepository.findById(id)
+                .orElseThrow(() -> new ResourceException("Notification not found", id.toString()));
+        Long recipientId = notification.getRecipient().getId();
+        if (notificationRepository.deleteByIdAndIsRead(id, false) == 1) {
+            counterService.adjustUnread(recipientId, -1);
+        } else if (notificationRepository.deleteByIdAndIsRead(id, true) == 0) {
             throw new ResourceException("Notification not found", id.toString());
         }
-        notificationRepository.deleteById(id);
+        syncChangeRecorder.record(SyncScope.USER, recipientId, SyncEntityType.NOTIFICATION, id);
         logger.info("Notification with ID: {} deleted successfully.", id);
     }
 
@@ -257,6 +422,19 @@ public class NotificationService {
         return null; // Return null if no alert is found
     }
 
+    /**
+     * Only the recipient of a notification, or an administrator, may change its read status.
+     */
+    private void checkRecipient(Notification notification) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        Long currentUserId = authentication != null && authentication.getPrincipal() instanceof User user ? user.getId() : null;
+        if (!admin && (currentUserId == null || !currentUserId.equals(notification.getRecipient().getId()))) {
+            throw new SecurityException("Unauthorized: the notification belongs to another user.");
+        }
+    }
+
     /**
      * Helper method to convert a Notification entity to a NotificationDTO.
      *
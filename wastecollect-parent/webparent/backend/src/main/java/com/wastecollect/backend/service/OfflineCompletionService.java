@@ -0,0 +1,281 @@
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.ConflictException;
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.backend.service.outbox.NotificationOutboxService;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.dto.OfflineCompletionDTO;
+import com.wastecollect.common.dto.OfflineCompletionResultDTO;
+import com.wastecollect.common.models.Collector;
+import com.wastecollect.common.utils.CompletionOutcome;
+import com.wastecollect.common.utils.NotificationEventType;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Records a batch of pickups that a collector completed offline, in one transaction and a fixed number of
+ * statements whatever the batch size.
+ * <p>
+ * The requests of the batch are locked and read with a single {@code SELECT ... FOR UPDATE}, then every completion
+ * is checked against them: the request must be held by the collector and ACCEPTED or IN_PROGRESS (the START may not
+ * have reached the server). The accepted completions are applied with one batched guarded UPDATE, their waste
+ * collections written with one batched INSERT and their household notifications queued with another. Each
+ * completion gets its own result; a bad one does not fail the others.
+ * <p>
+ * Completions are idempotent on the client ID the device generates: it is stored on the waste collection, unique per
+ * collector, and a completion whose client ID is already recorded is answered as DUPLICATE with the original record.
+ * Since the request rows are locked before the client IDs are looked up, a batch retried while the first upload is
+ * still running waits for it and then sees its records.
+ */
+@Service
+public class OfflineCompletionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineCompletionService.class);
+
+    private static final List<String> OPEN_STATUSES =
+            ServiceRequestStateMachine.Transition.COMPLETE_OFFLINE.getFrom().stream().map(Enum::name).toList();
+
+    private static final String LOCK_REQUESTS_SQL =
+            "SELECT id, status, collector_id, household_id, municipality_id, address FROM service_requests " +
+            "WHERE id IN (:ids) FOR UPDATE";
+
+    private static final String RECORDED_SQL =
+            "SELECT id, client_completion_id FROM waste_collections " +
+            "WHERE collector_id = :collectorId AND client_completion_id IN (:clientIds)";
+
+    private static final String COMPLETE_SQL =
+            "UPDATE service_requests SET status = 'COMPLETED', comment = COALESCE(:comment, comment), updated_at = :now " +
+            "WHERE id = :id AND collector_id = :collectorId AND status IN (:fromStatuses)";
+
+    private static final String INSERT_COLLECTION_SQL =
+            "INSERT INTO waste_collections (collection_date, actual_weight, adresse, latitude, longitude, collector_comment, " +
+            "service_request_id, collector_id, household_id, municipality_id, status, client_completion_id) " +
+            "VALUES (:collectionDate, :actualWeight, :address, :latitude, :longitude, :note, :serviceRequestId, " +
+            ":collectorId, :householdId, :municipalityId, 'COMPLETED', :clientId)";
+
+    // The note goes to service_requests.comment (varchar 255) and waste_collections.collector_comment (500)
+    private static final int MAX_NOTE_LENGTH = 255;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.offline-completions.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${app.offline-completions.max-clock-skew-minutes:10}")
+    private long maxClockSkewMinutes;
+
+    @Value("${app.offline-completions.max-age-days:30}")
+    private long maxAgeDays;
+
+    /**
+     * Columns of a locked request needed to check and record its completion.
+     */
+    private record LockedRequest(long id, String status, Long collectorId, Long householdId, Long municipalityId,
+                                 String address) {}
+
+    /**
+     * Records the completions of a batch.
+     *
+     * @param collector   The collector that completed the pickups.
+     * @param completions The completions, in the order they were made.
+     * @return One result per completion, in the same order.
+     * @throws RequestValidationException if the batch is empty or larger than {@code app.offline-completions.max-batch-size}.
+     */
+    @Transactional
+    public List<OfflineCompletionResultDTO> complete(Collector collector, List<OfflineCompletionDTO> completions) {
+        if (completions == null || completions.isEmpty()) {
+            throw new RequestValidationException("The batch contains no completion.");
+        }
+        if (completions.size() > maxBatchSize) {
+            throw new RequestValidationException("A batch holds at most " + maxBatchSize + " completions.");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        OfflineCompletionResultDTO[] results = new OfflineCompletionResultDTO[completions.size()];
+
+        // Checks that need no database: shape of each item, and repeats within the batch
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> clientIds = new HashSet<>();
+        Set<Long> requestIds = new HashSet<>();
+        for (int i = 0; i < completions.size(); i++) {
+            OfflineCompletionDTO completion = completions.get(i);
+            String problem = validate(completion, now);
+            if (problem == null && !clientIds.add(completion.getClientId())) {
+                problem = "Client ID repeated in the batch.";
+            }
+            if (problem != null) {
+                results[i] = result(completion, CompletionOutcome.INVALID, null, problem);
+            } else if (!requestIds.add(completion.getServiceRequestId())) {
+                results[i] = result(completion, CompletionOutcome.CONFLICT, null, "Service request completed earlier in the batch.");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        List<Integer> accepted = new ArrayList<>();
+        if (!candidates.isEmpty()) {
+            // Locked first, so that the client IDs read next include those of a concurrent upload of the same batch
+            Map<Long, LockedRequest> requests = lockRequests(candidates.stream()
+                    .map(i -> completions.get(i).getServiceRequestId()).collect(Collectors.toList()));
+            Map<String, Long> recorded = findRecorded(collector.getId(), candidates.stream()
+                    .map(i -> completions.get(i).getClientId()).collect(Collectors.toList()));
+
+            for (int i : candidates) {
+                OfflineCompletionDTO completion = completions.get(i);
+                LockedRequest request = requests.get(completion.getServiceRequestId());
+                Long wasteCollectionId = recorded.get(completion.getClientId());
+                if (wasteCollectionId != null) {
+                    results[i] = result(completion, CompletionOutcome.DUPLICATE, wasteCollectionId, null);
+                } else if (request == null) {
+                    results[i] = result(completion, CompletionOutcome.NOT_FOUND, null, "Service request not found.");
+                } else if (!collector.getId().equals(request.collectorId())) {
+                    results[i] = result(completion, CompletionOutcome.CONFLICT, null, "Service request is not assigned to you.");
+                } else if (!OPEN_STATUSES.contains(request.status())) {
+                    results[i] = result(completion, CompletionOutcome.CONFLICT, null, "Service request is " + request.status() + ".");
+                } else {
+                    accepted.add(i);
+                }
+            }
+            if (!accepted.isEmpty()) {
+                record(collector, completions, accepted, requests, now, results);
+            }
+        }
+
+        logger.info("Collector ID: {} uploaded {} offline completions, {} recorded.", collector.getId(),
+                completions.size(), accepted.size());
+        return List.of(results);
+    }
+
+    private void record(Collector collector, List<OfflineCompletionDTO> completions, List<Integer> accepted,
+                        Map<Long, LockedRequest> requests, LocalDateTime now, OfflineCompletionResultDTO[] results) {
+        List<SqlParameterSource> updates = new ArrayList<>(accepted.size());
+        List<SqlParameterSource> inserts = new ArrayList<>(accepted.size());
+        List<NotificationOutboxService.Entry> notifications = new ArrayList<>(accepted.size());
+        Map<String, String> values = Map.of("collectorName", collector.getFirstName() + " " + collector.getLastName());
+        for (int i : accepted) {
+            OfflineCompletionDTO completion = completions.get(i);
+            LockedRequest request = requests.get(completion.getServiceRequestId());
+            updates.add(new MapSqlParameterSource("id", request.id())
+                    .addValue("collectorId", collector.getId())
+                    .addValue("fromStatuses", OPEN_STATUSES)
+                    .addValue("comment", completion.getNote())
+                    .addValue("now", now));
+            inserts.add(new MapSqlParameterSource("collectionDate",
+                    completion.getCompletedAt() != null ? completion.getCompletedAt() : now)
+                    .addValue("actualWeight", completion.getActualWeight())
+                    .addValue("address", request.address() != null ? request.address() : "")
+                    .addValue("latitude", completion.getLatitude())
+                    .addValue("longitude", completion.getLongitude())
+                    .addValue("note", completion.getNote())
+                    .addValue("serviceRequestId", request.id())
+                    .addValue("collectorId", collector.getId())
+                    .addValue("householdId", request.householdId())
+                    .addValue("municipalityId", request.municipalityId())
+                    .addValue("clientId", completion.getClientId()));
+            if (request.householdId() != null) {
+                notifications.add(new NotificationOutboxService.Entry(request.householdId(), request.id(), values));
+            }
+        }
+
+        // The rows are locked and were checked above; the guard only makes a mistake here fail loudly
+        int[] updated = namedJdbcTemplate.batchUpdate(COMPLETE_SQL, updates.toArray(SqlParameterSource[]::new));
+        for (int count : updated) {
+            if (count == 0) {
+                throw new ConflictException("A locked service request changed during its completion.");
+            }
+        }
+        namedJdbcTemplate.batchUpdate(INSERT_COLLECTION_SQL, inserts.toArray(SqlParameterSource[]::new));
+        Map<String, Long> recorded = findRecorded(collector.getId(), accepted.stream()
+                .map(i -> completions.get(i).getClientId()).collect(Collectors.toList()));
+        notificationOutboxService.enqueueAll(NotificationEventType.SERVICE_REQUEST_COMPLETED, notifications);
+
+        for (int i : accepted) {
+            OfflineCompletionDTO completion = completions.get(i);
+            LockedRequest request = requests.get(completion.getServiceRequestId());
+            results[i] = result(completion, CompletionOutcome.COMPLETED, recorded.get(completion.getClientId()), null);
+            eventPublisher.publishEvent(new ServiceRequestChangedEvent(request.id(), ServiceRequestStatus.COMPLETED,
+                    request.householdId(), collector.getId(), false));
+        }
+    }
+
+    private String validate(OfflineCompletionDTO completion, LocalDateTime now) {
+        if (completion == null) {
+            return "Empty completion.";
+        }
+        if (completion.getClientId() == null || completion.getClientId().isBlank() || completion.getClientId().length() > 64) {
+            return "A client ID of 1 to 64 characters is required.";
+        }
+        if (completion.getServiceRequestId() == null) {
+            return "A service request ID is required.";
+        }
+        if (completion.getCompletedAt() != null && completion.getCompletedAt().isAfter(now.plusMinutes(maxClockSkewMinutes))) {
+            return "Completion time is in the future.";
+        }
+        if (completion.getCompletedAt() != null && completion.getCompletedAt().isBefore(now.minusDays(maxAgeDays))) {
+            return "Completion time is more than " + maxAgeDays + " days old.";
+        }
+        if (completion.getNote() != null && completion.getNote().length() > MAX_NOTE_LENGTH) {
+            return "The note holds at most " + MAX_NOTE_LENGTH + " characters.";
+        }
+        if (completion.getActualWeight() != null && (completion.getActualWeight() < 0 || completion.getActualWeight().isNaN())) {
+            return "Weight cannot be negative.";
+        }
+        Double latitude = completion.getLatitude();
+        Double longitude = completion.getLongitude();
+        if ((latitude == null) != (longitude == null)
+                || (latitude != null && (Math.abs(latitude) > 90 || Math.abs(longitude) > 180))) {
+            return "A position needs a latitude within ±90 and a longitude within ±180.";
+        }
+        return null;
+    }
+
+    private Map<Long, LockedRequest> lockRequests(List<Long> ids) {
+        Map<Long, LockedRequest> requests = new HashMap<>();
+        namedJdbcTemplate.query(LOCK_REQUESTS_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            LockedRequest request = new LockedRequest(rs.getLong("id"), rs.getString("status"),
+                    rs.getObject("collector_id", Long.class), rs.getObject("household_id", Long.class),
+                    rs.getObject("municipality_id", Long.class), rs.getString("address"));
+            requests.put(request.id(), request);
+        });
+        return requests;
+    }
+
+    private Map<String, Long> findRecorded(Long collectorId, List<String> clientIds) {
+        Map<String, Long> recorded = new HashMap<>();
+        namedJdbcTemplate.query(RECORDED_SQL, new MapSqlParameterSource("collectorId", collectorId)
+                .addValue("clientIds", clientIds), rs -> {
+            recorded.put(rs.getString("client_completion_id"), rs.getLong("id"));
+        });
+        return recorded;
+    }
+
+    private static OfflineCompletionResultDTO result(OfflineCompletionDTO completion, CompletionOutcome outcome,
+                                                     Long wasteCollectionId, String message) {
+        return new OfflineCompletionResultDTO(completion != null ? completion.getClientId() : null,
+                completion != null ? completion.getServiceRequestId() : null, outcome, wasteCollectionId, message);
+    }
+}
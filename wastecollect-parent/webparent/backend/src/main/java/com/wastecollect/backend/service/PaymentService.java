@@ -1,14 +1,19 @@
 // backend/service/PaymentService.java
 package com.wastecollect.backend.service;
 
+import com.wastecollect.common.dto.CursorPageDTO;
 import com.wastecollect.common.dto.PaymentDTO;
 import com.wastecollect.common.models.Payment;
+import com.wastecollect.backend.repository.KeysetCursor;
 import com.wastecollect.backend.repository.PaymentRepository;
 import com.wastecollect.backend.exception.ResourceException; // Assuming this exception exists
 import com.wastecollect.common.utils.PaymentMethod;
 import com.wastecollect.common.utils.PaymentStatus;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Import for @Transactional
@@ -24,6 +29,12 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private SyncChangeRecorder syncChangeRecorder;
+
+    @Autowired
+    private CollectorKpiService collectorKpiService;
+
     // Assuming you have HouseholdRepository, ServiceRequestRepository, CollectorRepository
     // for mapping IDs to entities during creation if needed, or if DTO directly sends IDs.
 
@@ -45,6 +56,10 @@ public class PaymentService {
         // newPayment.setCollector(collectorRepository.findById(paymentDTO.getCollectorId()).orElse(null));
 
         paymentRepository.save(newPayment);
+        if (newPayment.getCollector() != null) {
+            syncChangeRecorder.record(SyncScope.USER, newPayment.getCollector().getId(), SyncEntityType.PAYMENT, newPayment.getId());
+            collectorKpiService.invalidateAfterCommit(newPayment.getCollector().getId());
+        }
     }
 
     public List<PaymentDTO> getPaymentHistory() {
@@ -116,6 +131,57 @@ public class PaymentService {
         return payments.map(this::convertToDto);
     }
 
+    /**
+     * Keyset (seek) variant of {@link #getPaymentHistoryForHousehold}: returns the household's payments
+     * newest first, one slice at a time, without an offset scan or a COUNT query per page.
+     *
+     * @param householdId The household whose payments are listed.
+     * @param cursor Opaque cursor returned with the previous slice, null for the first slice.
+     * @param size Maximum number of payments to return.
+     * @param includeTotal Whether to also compute the total number of matching payments.
+     * @return A CursorPageDTO of PaymentDTOs.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<PaymentDTO> getPaymentHistoryForHouseholdByCursor(
+            Long householdId,
+            String status,
+            String paymentMethod,
+            LocalDate startDate,
+            LocalDate endDate,
+            String searchReference,
+            String cursor,
+            int size,
+            boolean includeTotal
+    ) {
+        PaymentStatus statusFilter = status != null ? PaymentStatus.valueOf(status.toUpperCase()) : null;
+        PaymentMethod methodFilter = paymentMethod != null ? PaymentMethod.valueOf(paymentMethod.toUpperCase()) : null;
+        LocalDateTime start = startDate != null ? startDate.atStartOfDay() : null;
+        LocalDateTime end = endDate != null ? endDate.atTime(23, 59, 59) : null;
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        // One extra row tells us whether another slice follows
+        List<Payment> rows = paymentRepository.findSliceByHouseholdIdAndFilters(
+                householdId, statusFilter, methodFilter, start, end, searchReference,
+                position != null ? position.getTimestamp() : null,
+                position != null ? position.getId() : null,
+                PageRequest.of(0, size + 1));
+
+        boolean hasNext = rows.size() > size;
+        List<Payment> slice = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Payment last = slice.get(slice.size() - 1);
+            nextCursor = new KeysetCursor(last.getPaymentDate(), last.getId()).encode();
+        }
+        Long total = includeTotal
+                ? paymentRepository.countByHouseholdIdAndFilters(householdId, statusFilter, methodFilter, start, end, searchReference)
+                : null;
+
+        return new CursorPageDTO<>(
+                slice.stream().map(this::convertToDto).collect(Collectors.toList()),
+                nextCursor, hasNext, slice.size(), total);
+    }
+
     public byte[] generateReceipt(Long paymentId) {
         // Retrieve payment details
         Payment payment = paymentRepository.findById(paymentId)
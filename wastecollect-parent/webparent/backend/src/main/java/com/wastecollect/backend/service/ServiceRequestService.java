@@ -8,11 +8,17 @@ import com.wastecollect.common.models.ServiceRequest;
 import com.wastecollect.common.models.Household;
 import com.wastecollect.common.models.Collector;
 import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
 import com.wastecollect.backend.repository.ServiceRequestRepository;
 import com.wastecollect.backend.repository.HouseholdRepository;
 import com.wastecollect.backend.repository.CollectorRepository;
+import com.wastecollect.backend.exception.ConflictException;
 import com.wastecollect.backend.exception.ResourceException;
+import com.wastecollect.backend.exception.ResourceNotFoundException;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
@@ -37,6 +43,18 @@ public class ServiceRequestService {
     @Autowired
     private CollectorRepository collectorRepository;
 
+    @Autowired
+    private ServiceRequestStateMachine stateMachine;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SyncChangeRecorder syncChangeRecorder;
+
+    @Autowired
+    private CollectorKpiService collectorKpiService;
+
     @Transactional
     public ServiceRequestDTO createServiceRequest(ServiceRequestCreationDTO creationDTO) {
         logger.info("Creating new service request for household ID: {}", creationDTO.getHouseholdId());
@@ -60,6 +78,8 @@ public class ServiceRequestService {
 
         ServiceRequest savedRequest = serviceRequestRepository.save(serviceRequest);
         logger.info("Service request created with ID: {}", savedRequest.getId());
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(savedRequest.getId(), ServiceRequestStatus.PENDING,
+                household.getId(), null, true));
         return convertToDto(savedRequest);
     }
 
@@ -89,6 +109,9 @@ public class ServiceRequestService {
         ServiceRequest serviceRequest = serviceRequestRepository.findById(id)
                 .orElseThrow(() -> new ResourceException("ServiceRequest", "id", id.toString()));
 
+        // The previous holder must learn that the request changed, or left it
+        Long previousCollectorId = serviceRequest.getCollector() != null ? serviceRequest.getCollector().getId() : null;
+
         Optional.ofNullable(updateDTO.getDescription()).ifPresent(serviceRequest::setDescription);
         Optional.ofNullable(updateDTO.getWasteType()).ifPresent(serviceRequest::setWasteType);
         Optional.ofNullable(updateDTO.getEstimatedVolume()).ifPresent(serviceRequest::setEstimatedVolume);
@@ -106,80 +129,87 @@ public class ServiceRequestService {
 
         serviceRequest.setUpdatedAt(LocalDateTime.now());
         ServiceRequest updatedRequest = serviceRequestRepository.save(serviceRequest);
+        recordSyncChange(id, previousCollectorId, serviceRequest.getMunicipality() != null ? serviceRequest.getMunicipality().getId() : null);
+        collectorKpiService.invalidateAfterCommit(previousCollectorId);
+        if (updatedRequest.getCollector() != null) {
+            syncChangeRecorder.record(SyncScope.USER, updatedRequest.getCollector().getId(), SyncEntityType.SERVICE_REQUEST, id);
+            collectorKpiService.invalidateAfterCommit(updatedRequest.getCollector().getId());
+        }
         logger.info("Service request ID: {} updated successfully.", id);
         return convertToDto(updatedRequest);
     }
 
+    /**
+     * Assigns a collector to a service request with a guarded UPDATE.
+     * Only PENDING, ACCEPTED (reassignment) or REJECTED requests can be assigned.
+     *
+     * @throws ConflictException if the request has moved past assignment.
+     */
     @Transactional
     public ServiceRequestDTO assignCollectorToServiceRequest(Long serviceRequestId, Long collectorId) {
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", serviceRequestId.toString()));
-
-        Collector collector = collectorRepository.findById(collectorId)
-                .orElseThrow(() -> new ResourceException("Collector", "id", collectorId.toString()));
-
-        serviceRequest.setCollector(collector);
-        serviceRequest.setStatus(ServiceRequestStatus.ACCEPTED);
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        ServiceRequest updatedRequest = serviceRequestRepository.save(serviceRequest);
+        if (!collectorRepository.existsById(collectorId)) {
+            throw new ResourceException("Collector", "id", collectorId.toString());
+        }
+        applyTransition(serviceRequestId, ServiceRequestStateMachine.Transition.ASSIGN, collectorId);
         logger.info("Service request ID: {} assigned to collector ID: {}.", serviceRequestId, collectorId);
+
+        ServiceRequest updatedRequest = serviceRequestRepository.findById(serviceRequestId)
+                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", serviceRequestId.toString()));
         return convertToDto(updatedRequest);
     }
 
+    /**
+     * @throws ConflictException if the request is not IN_PROGRESS or ACCEPTED.
+     */
     @Transactional
     public void completeServiceRequest(Long serviceRequestId) {
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", serviceRequestId.toString()));
-
-        if (serviceRequest.getStatus() != ServiceRequestStatus.IN_PROGRESS && serviceRequest.getStatus() != ServiceRequestStatus.ACCEPTED) {
-            throw new IllegalStateException("Service request must be IN_PROGRESS or ACCEPTED to be completed.");
-        }
-
-        serviceRequest.setStatus(ServiceRequestStatus.COMPLETED);
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
+        applyTransition(serviceRequestId, ServiceRequestStateMachine.Transition.COMPLETE_ANY, null);
         logger.info("Service request ID: {} marked as COMPLETED.", serviceRequestId);
     }
     
+    /**
+     * @throws ConflictException if the request is not ACCEPTED.
+     */
     @Transactional
     public void startServiceRequest(Long serviceRequestId) {
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", serviceRequestId.toString()));
-
-        if (serviceRequest.getStatus() != ServiceRequestStatus.ACCEPTED) {
-            throw new IllegalStateException("Service request must be ACCEPTED to be started.");
-        }
-
-        serviceRequest.setStatus(ServiceRequestStatus.IN_PROGRESS);
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
+        applyTransition(serviceRequestId, ServiceRequestStateMachine.Transition.START_ANY, null);
         logger.info("Service request ID: {} marked as IN_PROGRESS.", serviceRequestId);
     }
 
+    /**
+     * @throws ConflictException if the request is already COMPLETED.
+     */
     @Transactional
     public void cancelServiceRequest(Long serviceRequestId) {
-        ServiceRequest serviceRequest = serviceRequestRepository.findById(serviceRequestId)
-                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", serviceRequestId.toString()));
+        applyTransition(serviceRequestId, ServiceRequestStateMachine.Transition.CANCEL, null);
+        logger.info("Service request ID: {} marked as CANCELLED.", serviceRequestId);
+    }
 
-        if (serviceRequest.getStatus() == ServiceRequestStatus.COMPLETED) {
-            throw new IllegalStateException("Completed service requests cannot be cancelled.");
+    // Keeps this service's ResourceException (404) contract for unknown requests
+    private void applyTransition(Long serviceRequestId, ServiceRequestStateMachine.Transition transition, Long collectorId) {
+        try {
+            stateMachine.apply(serviceRequestId, transition, collectorId, null);
+        } catch (ResourceNotFoundException e) {
+            throw new ResourceException("ServiceRequest", "id", serviceRequestId.toString());
         }
-
-        serviceRequest.setStatus(ServiceRequestStatus.CANCELLED);
-        serviceRequest.setUpdatedAt(LocalDateTime.now());
-        serviceRequestRepository.save(serviceRequest);
-        logger.info("Service request ID: {} marked as CANCELLED.", serviceRequestId);
     }
 
     @Transactional
     public void deleteServiceRequest(Long id) {
-        if (!serviceRequestRepository.existsById(id)) {
-            throw new ResourceException("ServiceRequest", "id", id.toString());
-        }
+        ServiceRequestRepository.TransitionView request = serviceRequestRepository.findTransitionViewById(id)
+                .orElseThrow(() -> new ResourceException("ServiceRequest", "id", id.toString()));
         serviceRequestRepository.deleteById(id);
+        recordSyncChange(id, request.getCollectorId(), request.getMunicipalityId());
+        collectorKpiService.invalidateAfterCommit(request.getCollectorId());
         logger.info("Service request with ID {} deleted successfully.", id);
     }
 
+    // For the collectors' delta sync: the holder and the municipality's collectors, whatever the status
+    private void recordSyncChange(Long serviceRequestId, Long collectorId, Long municipalityId) {
+        syncChangeRecorder.record(SyncScope.USER, collectorId, SyncEntityType.SERVICE_REQUEST, serviceRequestId);
+        syncChangeRecorder.record(SyncScope.MUNICIPALITY, municipalityId, SyncEntityType.SERVICE_REQUEST, serviceRequestId);
+    }
+
     private ServiceRequestDTO convertToDto(ServiceRequest serviceRequest) {
         ServiceRequestDTO dto = new ServiceRequestDTO();
         dto.setId(serviceRequest.getId());
@@ -0,0 +1,167 @@
+// File: com/wastecollect/backend/service/ServiceRequestStateMachine.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.exception.ConflictException;
+import com.wastecollect.backend.exception.ResourceNotFoundException;
+import com.wastecollect.backend.repository.CollectorRepository;
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.models.Collector;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Applies service request lifecycle transitions as single guarded UPDATE statements.
+ * The expected source status (and, where relevant, the owning collector) is checked by the database
+ * in the WHERE clause, so concurrent callers cannot both win and the entity graph is never loaded.
+ * A failed guard is reported as a {@link ConflictException} (HTTP 409).
+ */
+@Service
+public class ServiceRequestStateMachine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceRequestStateMachine.class);
+
+    /**
+     * Who is allowed to perform a transition, relative to the collector currently assigned to the request.
+     */
+    public enum Ownership {
+        /** No ownership check (admin / manager / household actions). */
+        ANY,
+        /** The request must be assigned to the acting collector. */
+        OWNER,
+        /** The request must be unassigned or assigned to the acting collector. */
+        OWNER_OR_UNASSIGNED,
+        /** The acting collector becomes the assignee. */
+        CLAIM
+    }
+
+    /**
+     * The supported transitions with their allowed source statuses.
+     */
+    public enum Transition {
+        ACCEPT(EnumSet.of(ServiceRequestStatus.PENDING), ServiceRequestStatus.ACCEPTED, Ownership.CLAIM),
+        ASSIGN(EnumSet.of(ServiceRequestStatus.PENDING, ServiceRequestStatus.ACCEPTED, ServiceRequestStatus.REJECTED),
+                ServiceRequestStatus.ACCEPTED, Ownership.CLAIM),
+        REJECT(EnumSet.of(ServiceRequestStatus.PENDING, ServiceRequestStatus.ACCEPTED),
+                ServiceRequestStatus.REJECTED, Ownership.OWNER_OR_UNASSIGNED),
+        START(EnumSet.of(ServiceRequestStatus.ACCEPTED), ServiceRequestStatus.IN_PROGRESS, Ownership.OWNER),
+        COMPLETE(EnumSet.of(ServiceRequestStatus.IN_PROGRESS), ServiceRequestStatus.COMPLETED, Ownership.OWNER),
+        // Completions uploaded from a collector's offline queue may arrive without the START that preceded them
+        COMPLETE_OFFLINE(EnumSet.of(ServiceRequestStatus.ACCEPTED, ServiceRequestStatus.IN_PROGRESS),
+                ServiceRequestStatus.COMPLETED, Ownership.OWNER),
+        START_ANY(EnumSet.of(ServiceRequestStatus.ACCEPTED), ServiceRequestStatus.IN_PROGRESS, Ownership.ANY),
+        COMPLETE_ANY(EnumSet.of(ServiceRequestStatus.IN_PROGRESS, ServiceRequestStatus.ACCEPTED),
+                ServiceRequestStatus.COMPLETED, Ownership.ANY),
+        CANCEL(EnumSet.complementOf(EnumSet.of(ServiceRequestStatus.COMPLETED)),
+                ServiceRequestStatus.CANCELLED, Ownership.ANY);
+
+        private final Set<ServiceRequestStatus> from;
+        private final ServiceRequestStatus to;
+        private final Ownership ownership;
+
+        Transition(Set<ServiceRequestStatus> from, ServiceRequestStatus to, Ownership ownership) {
+            this.from = from;
+            this.to = to;
+            this.ownership = ownership;
+        }
+
+        public Set<ServiceRequestStatus> getFrom() {
+            return from;
+        }
+
+        public ServiceRequestStatus getTo() {
+            return to;
+        }
+
+        public Ownership getOwnership() {
+            return ownership;
+        }
+    }
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private CollectorRepository collectorRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Applies a transition atomically.
+     *
+     * @param serviceRequestId The ID of the service request.
+     * @param transition       The transition to apply.
+     * @param collectorId      The acting (or assigned) collector; required unless the ownership is {@link Ownership#ANY}.
+     * @param comment          Optional comment stored on the request; null keeps the existing one.
+     * @throws ResourceNotFoundException if the service request does not exist.
+     * @throws ConflictException if the request is not in an allowed source status or not owned by the collector.
+     */
+    @Transactional
+    public void apply(Long serviceRequestId, Transition transition, Long collectorId, String comment) {
+        List<ServiceRequestStatus> from = List.copyOf(transition.getFrom());
+        LocalDateTime now = LocalDateTime.now();
+        // A claim of a held request (reassignment) takes it from its collector, who is named in the event too
+        Long previousCollectorId = transition.getOwnership() == Ownership.CLAIM
+                && transition.getFrom().contains(ServiceRequestStatus.ACCEPTED)
+                ? serviceRequestRepository.findTransitionViewById(serviceRequestId)
+                        .map(ServiceRequestRepository.TransitionView::getCollectorId).orElse(null)
+                : null;
+
+        int updated = switch (transition.getOwnership()) {
+            case ANY -> serviceRequestRepository.transitionStatus(
+                    serviceRequestId, from, transition.getTo(), comment, now);
+            case OWNER -> serviceRequestRepository.transitionStatusForCollector(
+                    serviceRequestId, requireCollectorId(collectorId, transition), from, transition.getTo(), comment, now);
+            case OWNER_OR_UNASSIGNED -> serviceRequestRepository.transitionStatusForCollectorOrUnassigned(
+                    serviceRequestId, requireCollectorId(collectorId, transition), from, transition.getTo(), comment, now);
+            case CLAIM -> {
+                Collector collector = collectorRepository.getReferenceById(requireCollectorId(collectorId, transition));
+                yield serviceRequestRepository.assignCollectorIfStatusIn(
+                        serviceRequestId, collector, from, transition.getTo(), comment, now);
+            }
+        };
+
+        if (updated == 0) {
+            throw explainFailure(serviceRequestId, transition);
+        }
+        logger.info("Service request ID: {} moved to {} ({}).", serviceRequestId, transition.getTo(), transition);
+        eventPublisher.publishEvent(new ServiceRequestChangedEvent(serviceRequestId, transition.getTo(), null,
+                transition.getOwnership() == Ownership.ANY ? null : collectorId,
+                Objects.equals(previousCollectorId, collectorId) ? null : previousCollectorId,
+                transition.getFrom().contains(ServiceRequestStatus.PENDING)));
+    }
+
+    private Long requireCollectorId(Long collectorId, Transition transition) {
+        if (collectorId == null) {
+            throw new IllegalArgumentException("A collector is required for transition " + transition);
+        }
+        return collectorId;
+    }
+
+    /**
+     * Called only when the guarded UPDATE matched no row, to tell a missing request from a lost race.
+     */
+    private RuntimeException explainFailure(Long serviceRequestId, Transition transition) {
+        ServiceRequestStatus current = serviceRequestRepository.findStatusById(serviceRequestId).orElse(null);
+        if (current == null) {
+            return new ResourceNotFoundException("Service request not found with ID: " + serviceRequestId);
+        }
+        if (!transition.getFrom().contains(current)) {
+            return new ConflictException("Service request " + serviceRequestId + " is " + current
+                    + " and cannot move to " + transition.getTo() + ".");
+        }
+        return new ConflictException("Service request " + serviceRequestId + " is not assigned to this collector.");
+    }
+}
@@ -0,0 +1,254 @@
+// File: com/wastecollect/backend/service/SyncChangeRecorder.java
+package com.wastecollect.backend.service;
+
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.backend.service.push.NotificationCreatedEvent;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.models.SyncChange;
+import com.wastecollect.common.models.SyncSequence;
+import com.wastecollect.common.utils.RoleName;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.SyncEntityType;
+import com.wastecollect.common.utils.SyncScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes the change log read by the collector delta sync ({@link SyncChange}).
+ * <p>
+ * Changes recorded inside a transaction are buffered and written just before it commits, so a rolled back change
+ * leaves no entry. Each scope touched by the transaction then takes its next sequence numbers from its
+ * {@link SyncSequence} row, which stays locked until the commit: the numbers of a scope become visible in order,
+ * and a sync that has read number N can never see a smaller one appear later. Scopes are locked in a fixed order,
+ * and the persistence context is flushed first, so that no row lock is taken while a sequence is held.
+ * A change recorded outside any transaction is written at once in its own.
+ * <p>
+ * Only collectors sync: changes for users who are not collectors, and for roles other than the collector role, are
+ * dropped rather than logged where nobody would read them.
+ */
+@Service
+public class SyncChangeRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncChangeRecorder.class);
+
+    private static final String INCREMENT_SQL =
+            "UPDATE sync_sequences SET seq = seq + :count WHERE scope_type = :scopeType AND scope_id = :scopeId";
+
+    private static final String CREATE_SQL =
+            "INSERT IGNORE INTO sync_sequences (scope_type, scope_id, seq) VALUES (:scopeType, :scopeId, 0)";
+
+    private static final String INSERT_CHANGE_SQL =
+            "INSERT INTO sync_changes (scope_type, scope_id, seq, entity_type, entity_id, changed_at) " +
+            "VALUES (:scopeType, :scopeId, :seq, :entityType, :entityId, :changedAt)";
+
+    private static final Comparator<Scope> SCOPE_ORDER =
+            Comparator.comparing((Scope scope) -> scope.type().name()).thenComparingLong(Scope::id);
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.sync.token-ttl-days:7}")
+    private int tokenTtlDays;
+
+    @Value("${app.sync.prune-batch-size:5000}")
+    private int pruneBatchSize;
+
+    private record Scope(SyncScope type, long id) {}
+
+    private record Change(Scope scope, SyncEntityType entityType, Long entityId) {}
+
+    /**
+     * Records that a row changed for the collectors of a scope.
+     *
+     * @param scopeType  The audience: a user, or every collector of a municipality.
+     * @param scopeId    The user or municipality ID; nothing is recorded when null.
+     * @param entityType The kind of row.
+     * @param entityId   The row, or null for a change covering every row of the kind in the scope.
+     */
+    public void record(SyncScope scopeType, Long scopeId, SyncEntityType entityType, Long entityId) {
+        if (scopeId == null) {
+            return;
+        }
+        Change change = new Change(new Scope(scopeType, scopeId), entityType, entityId);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> write(List.of(change)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Change> pending = (Set<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Change> buffer = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    entityManager.flush();
+                    write(buffer);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SyncChangeRecorder.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.add(change);
+    }
+
+    /**
+     * Records a change for every user of a role, or for every role when {@code roleName} is null. Only the collector
+     * role's log is read, so nothing is recorded for the other roles.
+     *
+     * @param roleName   The role name as stored in {@code roles}, or null for all roles.
+     * @param entityType The kind of row.
+     * @param entityId   The row.
+     */
+    public void recordForRole(String roleName, SyncEntityType entityType, Long entityId) {
+        if (roleName != null && !RoleName.COLLECTOR.name().equals(roleName)) {
+            return;
+        }
+        namedJdbcTemplate.queryForList("SELECT id FROM roles WHERE name = :name",
+                new MapSqlParameterSource("name", RoleName.COLLECTOR.name()), Long.class)
+                .forEach(roleId -> record(SyncScope.ROLE, roleId, entityType, entityId));
+    }
+
+    /**
+     * Records a change to a service request for the collectors who can see it: the collector holding it and the one
+     * that acted on it, and the whole municipality while the request enters, sits in or leaves the PENDING pool.
+     */
+    @EventListener
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        boolean pendingPool = event.isPendingPoolChanged() || event.getStatus() == ServiceRequestStatus.PENDING;
+        if (!pendingPool && event.getCollectorId() != null) {
+            // Outside the pool the acting collector is the holder (START, COMPLETE): no need to look the request up
+            record(SyncScope.USER, event.getCollectorId(), SyncEntityType.SERVICE_REQUEST, event.getServiceRequestId());
+            return;
+        }
+        serviceRequestRepository.findTransitionViewById(event.getServiceRequestId()).ifPresent(request -> {
+            record(SyncScope.USER, request.getCollectorId(), SyncEntityType.SERVICE_REQUEST, request.getId());
+            if (event.getCollectorId() != null && !event.getCollectorId().equals(request.getCollectorId())) {
+                record(SyncScope.USER, event.getCollectorId(), SyncEntityType.SERVICE_REQUEST, request.getId());
+            }
+            if (pendingPool) {
+                record(SyncScope.MUNICIPALITY, request.getMunicipalityId(), SyncEntityType.SERVICE_REQUEST, request.getId());
+            }
+        });
+    }
+
+    @EventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        record(SyncScope.USER, event.getNotification().getRecipientId(), SyncEntityType.NOTIFICATION,
+                event.getNotification().getId());
+    }
+
+    /**
+     * Drops the entries older than the token lifetime, with a day of margin so that a token that has just expired
+     * never meets a log pruned past its position.
+     */
+    @Scheduled(initialDelayString = "${app.sync.prune-ms:3600000}", fixedDelayString = "${app.sync.prune-ms:3600000}")
+    public void prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tokenTtlDays + 1L);
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", cutoff).addValue("limit", pruneBatchSize);
+        long removed = 0;
+        int deleted;
+        do {
+            deleted = namedJdbcTemplate.update("DELETE FROM sync_changes WHERE changed_at < :cutoff LIMIT :limit", params);
+            removed += deleted;
+        } while (deleted == pruneBatchSize && !Thread.currentThread().isInterrupted());
+        if (removed > 0) {
+            logger.info("{} sync changes older than {} pruned.", removed, cutoff);
+        }
+    }
+
+    private void write(Iterable<Change> changes) {
+        Map<Scope, List<Change>> byScope = new TreeMap<>(SCOPE_ORDER);
+        for (Change change : changes) {
+            byScope.computeIfAbsent(change.scope(), scope -> new ArrayList<>()).add(change);
+        }
+        dropNonCollectors(byScope);
+        if (byScope.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<SqlParameterSource> rows = new ArrayList<>();
+        byScope.forEach((scope, scopeChanges) -> {
+            long last = allocate(scope, scopeChanges.size());
+            long seq = last - scopeChanges.size();
+            for (Change change : scopeChanges) {
+                rows.add(new MapSqlParameterSource("scopeType", scope.type().name())
+                        .addValue("scopeId", scope.id())
+                        .addValue("seq", ++seq)
+                        .addValue("entityType", change.entityType().name())
+                        .addValue("entityId", change.entityId())
+                        .addValue("changedAt", now));
+            }
+        });
+        namedJdbcTemplate.batchUpdate(INSERT_CHANGE_SQL, rows.toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Removes the user scopes of users who are not collectors, in one query for the whole transaction.
+     */
+    private void dropNonCollectors(Map<Scope, List<Change>> byScope) {
+        Set<Long> userIds = new HashSet<>();
+        byScope.keySet().stream().filter(scope -> scope.type() == SyncScope.USER).forEach(scope -> userIds.add(scope.id()));
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> collectors = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE user_type = 'COLLECTOR' AND id IN (:ids)",
+                new MapSqlParameterSource("ids", userIds), Long.class));
+        byScope.keySet().removeIf(scope -> scope.type() == SyncScope.USER && !collectors.contains(scope.id()));
+    }
+
+    /**
+     * Reserves the next {@code count} numbers of a scope and returns the last one. The row stays locked until the
+     * current transaction ends.
+     */
+    private long allocate(Scope scope, int count) {
+        MapSqlParameterSource params = new MapSqlParameterSource("scopeType", scope.type().name())
+                .addValue("scopeId", scope.id())
+                .addValue("count", count);
+        if (namedJdbcTemplate.update(INCREMENT_SQL, params) == 0) {
+            namedJdbcTemplate.update(CREATE_SQL, params);
+            namedJdbcTemplate.update(INCREMENT_SQL, params);
+        }
+        return namedJdbcTemplate.queryForObject(
+                "SELECT seq FROM sync_sequences WHERE scope_type = :scopeType AND scope_id = :scopeId", params, Long.class);
+    }
+}
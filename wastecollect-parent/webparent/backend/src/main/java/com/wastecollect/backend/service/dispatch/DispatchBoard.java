@@ -0,0 +1,243 @@
+package com.wastecollect.backend.service.dispatch;
+
+import com.wastecollect.common.utils.WasteType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Open service requests and active collectors of one municipality, as seen by the {@link DispatchService}.
+ * <p>
+ * Requests are kept oldest first so that matching is fair; collectors carry their last known position and their
+ * current load (accepted or in progress requests, per waste type). A collector's load is raised as soon as a request
+ * is matched to it, before the assignment is committed, so that one batch does not overload it; the reservation is
+ * released if the assignment is lost. All methods are called from the matching loop and from event listeners, hence
+ * synchronized.
+ */
+final class DispatchBoard {
+
+    // Oldest first, then by ID for requests created in the same instant
+    private static final Comparator<OpenRequest> AGE = Comparator
+            .comparing(OpenRequest::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(OpenRequest::id);
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    /**
+     * A PENDING request waiting for a collector. Coordinates are those of the household and may be unknown.
+     */
+    record OpenRequest(Long id, WasteType wasteType, Double latitude, Double longitude, LocalDateTime createdAt) {
+    }
+
+    /**
+     * A request matched to a collector, to be committed.
+     */
+    record Assignment(OpenRequest request, Long collectorId) {
+    }
+
+    /**
+     * Weights of the matching cost, all expressed in kilometres.
+     *
+     * @param maxLoad       Requests a collector may hold at once.
+     * @param maxDistanceKm Farthest a request may be from a collector whose position is known.
+     * @param loadPenaltyKm Cost of each request the collector already holds.
+     * @param mixPenaltyKm  Cost of giving a collector a waste type it does not carry yet.
+     */
+    record Weights(int maxLoad, double maxDistanceKm, double loadPenaltyKm, double mixPenaltyKm) {
+    }
+
+    private static final class CollectorSlot {
+        private final Long id;
+        private Double latitude;
+        private Double longitude;
+        private int load;
+        private final Map<WasteType, Integer> loadByType = new EnumMap<>(WasteType.class);
+
+        private CollectorSlot(Long id) {
+            this.id = id;
+        }
+
+        private void add(WasteType type, int count) {
+            load += count;
+            if (type != null) {
+                loadByType.merge(type, count, Integer::sum);
+            }
+        }
+
+        private void remove(WasteType type) {
+            load = Math.max(0, load - 1);
+            if (type != null) {
+                loadByType.computeIfPresent(type, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private final Long municipalityId;
+    private final TreeSet<OpenRequest> requests = new TreeSet<>(AGE);
+    private final Map<Long, OpenRequest> requestsById = new HashMap<>();
+    private final Map<Long, CollectorSlot> collectors = new HashMap<>();
+
+    DispatchBoard(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    synchronized void addRequest(OpenRequest request) {
+        OpenRequest previous = requestsById.put(request.id(), request);
+        if (previous != null) {
+            requests.remove(previous);
+        }
+        requests.add(request);
+    }
+
+    synchronized void removeRequest(Long requestId) {
+        OpenRequest request = requestsById.remove(requestId);
+        if (request != null) {
+            requests.remove(request);
+        }
+    }
+
+    /**
+     * Replaces the requests and collectors with a fresh read of the database. Known positions are kept for
+     * collectors still active, unless the read brings one.
+     *
+     * @param loads Per collector, the number of requests held per waste type (a null key for requests without one).
+     */
+    synchronized void replace(List<OpenRequest> openRequests, Map<Long, double[]> positions,
+                              Map<Long, Map<WasteType, Integer>> loads) {
+        requests.clear();
+        requestsById.clear();
+        openRequests.forEach(this::addRequest);
+
+        Map<Long, CollectorSlot> previous = new HashMap<>(collectors);
+        collectors.clear();
+        for (Map.Entry<Long, double[]> entry : positions.entrySet()) {
+            Long collectorId = entry.getKey();
+            CollectorSlot slot = new CollectorSlot(collectorId);
+            double[] position = entry.getValue();
+            CollectorSlot known = previous.get(collectorId);
+            if (position != null) {
+                slot.latitude = position[0];
+                slot.longitude = position[1];
+            } else if (known != null) {
+                slot.latitude = known.latitude;
+                slot.longitude = known.longitude;
+            }
+            loads.getOrDefault(collectorId, Map.of()).forEach((type, count) -> slot.add(type, count));
+            collectors.put(collectorId, slot);
+        }
+    }
+
+    /**
+     * Records a collector's position. Ignored for collectors not active on this board.
+     */
+    synchronized void updatePosition(Long collectorId, double latitude, double longitude) {
+        CollectorSlot slot = collectors.get(collectorId);
+        if (slot != null) {
+            slot.latitude = latitude;
+            slot.longitude = longitude;
+        }
+    }
+
+    /**
+     * Matches the oldest open requests to the cheapest eligible collector, greedily. Matched requests leave the
+     * board and their collector's load is reserved; requests no collector can take stay for the next round.
+     * <p>
+     * A collector without a known position, or any collector for a request without one, cannot be placed within
+     * {@code maxDistanceKm}: it is only chosen when no located collector is eligible, ranked by load and waste type
+     * alone. A located collector is therefore never passed over for one that may be across the municipality.
+     */
+    synchronized List<Assignment> match(int batchSize, Weights weights) {
+        List<Assignment> assignments = new ArrayList<>();
+        if (collectors.isEmpty()) {
+            return assignments;
+        }
+        Iterator<OpenRequest> iterator = requests.iterator();
+        while (iterator.hasNext() && assignments.size() < batchSize) {
+            OpenRequest request = iterator.next();
+            CollectorSlot located = null;
+            double locatedCost = Double.MAX_VALUE;
+            CollectorSlot unlocated = null;
+            double unlocatedCost = Double.MAX_VALUE;
+            // Collectors per municipality are in the hundreds: a scan is cheaper than maintaining a spatial index
+            for (CollectorSlot slot : collectors.values()) {
+                if (slot.load >= weights.maxLoad()) {
+                    continue;
+                }
+                double cost = slot.load * weights.loadPenaltyKm();
+                if (!slot.loadByType.isEmpty() && !slot.loadByType.containsKey(request.wasteType())) {
+                    cost += weights.mixPenaltyKm();
+                }
+                if (!isLocated(request, slot)) {
+                    if (cost < unlocatedCost) {
+                        unlocatedCost = cost;
+                        unlocated = slot;
+                    }
+                    continue;
+                }
+                double distance = distanceKm(request, slot);
+                if (distance > weights.maxDistanceKm()) {
+                    continue;
+                }
+                cost += distance;
+                if (cost < locatedCost) {
+                    locatedCost = cost;
+                    located = slot;
+                }
+            }
+            CollectorSlot best = located != null ? located : unlocated;
+            if (best != null) {
+                iterator.remove();
+                requestsById.remove(request.id());
+                best.add(request.wasteType(), 1);
+                assignments.add(new Assignment(request, best.id));
+            }
+        }
+        return assignments;
+    }
+
+    /**
+     * Releases the load reserved for an assignment that was not committed. The request is put back on the board
+     * only if it may still be open.
+     */
+    synchronized void release(Assignment assignment, boolean stillOpen) {
+        CollectorSlot slot = collectors.get(assignment.collectorId());
+        if (slot != null) {
+            slot.remove(assignment.request().wasteType());
+        }
+        if (stillOpen) {
+            addRequest(assignment.request());
+        }
+    }
+
+    synchronized int openRequests() {
+        return requests.size();
+    }
+
+    synchronized int activeCollectors() {
+        return collectors.size();
+    }
+
+    private static boolean isLocated(OpenRequest request, CollectorSlot slot) {
+        return request.latitude() != null && request.longitude() != null && slot.latitude != null && slot.longitude != null;
+    }
+
+    /**
+     * Equirectangular approximation: accurate to well under a percent at city scale, and much cheaper than haversine.
+     */
+    private static double distanceKm(OpenRequest request, CollectorSlot slot) {
+        double x = (request.longitude() - slot.longitude) * Math.cos(Math.toRadians((request.latitude() + slot.latitude) / 2));
+        double y = request.latitude() - slot.latitude;
+        return Math.sqrt(x * x + y * y) * KM_PER_DEGREE;
+    }
+}
@@ -0,0 +1,305 @@
+package com.wastecollect.backend.service.dispatch;
+
+import com.wastecollect.backend.repository.CollectorRepository;
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.backend.service.telemetry.TelemetryService;
+import com.wastecollect.common.dto.CollectorPositionDTO;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.WasteType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns PENDING service requests to active collectors automatically.
+ * <p>
+ * Each municipality has an in-memory {@link DispatchBoard} of its open requests and its ACTIVE collectors with their
+ * last known position and load. Positions are the live ones reported to the {@link TelemetryService}, refreshed every
+ * round, or where the collector last collected. Every {@code app.dispatch.interval-ms}, the matching loop gives up to
+ * {@code app.dispatch.batch-size} requests per municipality to the collector with the lowest cost (distance, plus a
+ * penalty per request already held and for mixing waste types) and commits the batch in one transaction, through the
+ * same guarded UPDATE as a manual assignment: a request accepted or cancelled meanwhile, here or on another instance,
+ * simply matches no row and leaves the board.
+ * <p>
+ * New requests reach the board through {@link ServiceRequestChangedEvent} and are read in bulk by the next round;
+ * requests leaving PENDING are dropped as their event arrives. The boards are rebuilt from the database every
+ * {@code app.dispatch.resync-ms}, which corrects loads changed elsewhere, picks up collectors whose status changed
+ * and catches requests created on other instances.
+ */
+@Service
+public class DispatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DispatchService.class);
+
+    private static final List<ServiceRequestStatus> FROM_PENDING = List.of(ServiceRequestStatus.PENDING);
+
+    // Bounds the IN list when reading newly created requests
+    private static final int LOAD_CHUNK = 500;
+
+    private static final String OPEN_REQUEST_COLUMNS =
+            "SELECT sr.id, sr.municipality_id, sr.waste_type, sr.created_at, h.latitude, h.longitude " +
+            "FROM service_requests sr LEFT JOIN users h ON h.id = sr.household_id ";
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private CollectorRepository collectorRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Value("${app.dispatch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.dispatch.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.dispatch.resync-ms:60000}")
+    private long resyncMs;
+
+    @Value("${app.dispatch.max-load:10}")
+    private int maxLoad;
+
+    @Value("${app.dispatch.max-distance-km:20}")
+    private double maxDistanceKm;
+
+    @Value("${app.dispatch.load-penalty-km:1}")
+    private double loadPenaltyKm;
+
+    @Value("${app.dispatch.mix-penalty-km:3}")
+    private double mixPenaltyKm;
+
+    private final Map<Long, DispatchBoard> boards = new ConcurrentHashMap<>();
+
+    // Requests announced as PENDING, read in bulk by the next round
+    private final Set<Long> announced = ConcurrentHashMap.newKeySet();
+
+    // Only touched by the matching loop
+    private long lastResync;
+
+    /**
+     * Keeps the boards up to date with requests created or changed on this instance.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getStatus() == ServiceRequestStatus.PENDING) {
+            announced.add(event.getServiceRequestId());
+        } else {
+            announced.remove(event.getServiceRequestId());
+            boards.values().forEach(board -> board.removeRequest(event.getServiceRequestId()));
+        }
+    }
+
+    /**
+     * Records the last known position of a collector, used to match it with nearby requests.
+     */
+    public void updatePosition(Long collectorId, Long municipalityId, double latitude, double longitude) {
+        DispatchBoard board = boards.get(municipalityId);
+        if (board != null) {
+            board.updatePosition(collectorId, latitude, longitude);
+        }
+    }
+
+    /**
+     * One round of the matching loop: refreshes the boards, then matches and commits one batch per municipality.
+     */
+    @Scheduled(initialDelayString = "${app.dispatch.interval-ms:3000}", fixedDelayString = "${app.dispatch.interval-ms:3000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - lastResync >= resyncMs) {
+                resync();
+            } else {
+                loadAnnounced();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Dispatch boards could not be refreshed: {}", e.getMessage(), e);
+        }
+        for (CollectorPositionDTO position : telemetryService.livePositions().values()) {
+            if (position.getMunicipalityId() != null) {
+                updatePosition(position.getCollectorId(), position.getMunicipalityId(),
+                        position.getLatitude(), position.getLongitude());
+            }
+        }
+
+        DispatchBoard.Weights weights = new DispatchBoard.Weights(maxLoad, maxDistanceKm, loadPenaltyKm,
+                mixPenaltyKm);
+        for (DispatchBoard board : boards.values()) {
+            List<DispatchBoard.Assignment> assignments = board.match(batchSize, weights);
+            if (!assignments.isEmpty()) {
+                commit(board, assignments);
+            }
+        }
+    }
+
+    /**
+     * Returns, per municipality, the number of open requests and active collectors on its board.
+     */
+    public Map<Long, Map<String, Integer>> getStatus() {
+        Map<Long, Map<String, Integer>> status = new HashMap<>();
+        boards.forEach((municipalityId, board) -> status.put(municipalityId,
+                Map.of("openRequests", board.openRequests(), "activeCollectors", board.activeCollectors())));
+        return status;
+    }
+
+    void commit(DispatchBoard board, List<DispatchBoard.Assignment> assignments) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<DispatchBoard.Assignment> lost = new ArrayList<>();
+        try {
+            transaction.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (DispatchBoard.Assignment assignment : assignments) {
+                    Long requestId = assignment.request().id();
+                    int updated = serviceRequestRepository.assignCollectorIfStatusIn(requestId,
+                            collectorRepository.getReferenceById(assignment.collectorId()), FROM_PENDING,
+                            ServiceRequestStatus.ACCEPTED, null, now);
+                    if (updated == 0) {
+                        lost.add(assignment);
+                        continue;
+                    }
+                    // Delivered after commit, like a manual assignment
+                    eventPublisher.publishEvent(new ServiceRequestChangedEvent(requestId, ServiceRequestStatus.ACCEPTED,
+                            null, assignment.collectorId(), true));
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Dispatch batch of {} requests in municipality ID: {} failed: {}",
+                    assignments.size(), board.getMunicipalityId(), e.getMessage(), e);
+            assignments.forEach(assignment -> board.release(assignment, true));
+            return;
+        }
+        // Accepted, cancelled or deleted meanwhile: no longer open
+        lost.forEach(assignment -> board.release(assignment, false));
+        logger.info("Dispatched {} service requests in municipality ID: {} ({} already taken).",
+                assignments.size() - lost.size(), board.getMunicipalityId(), lost.size());
+    }
+
+    /**
+     * Rebuilds every board from the database. Read on the replica: a request it still shows as PENDING after an
+     * assignment is only offered again to the guarded UPDATE, which leaves it alone.
+     */
+    private void resync() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            announced.clear();
+            Map<Long, List<DispatchBoard.OpenRequest>> requests = new HashMap<>();
+            namedJdbcTemplate.query(OPEN_REQUEST_COLUMNS + "WHERE sr.status = 'PENDING' AND sr.municipality_id IS NOT NULL",
+                    rs -> {
+                        requests.computeIfAbsent(rs.getLong("municipality_id"), id -> new ArrayList<>()).add(openRequest(rs));
+                    });
+
+            Map<Long, Map<Long, double[]>> collectors = new HashMap<>();
+            Map<Long, Long> municipalityOf = new HashMap<>();
+            namedJdbcTemplate.query("SELECT id, municipality_id FROM users WHERE user_type = 'COLLECTOR' " +
+                    "AND status = 'ACTIVE' AND municipality_id IS NOT NULL", rs -> {
+                collectors.computeIfAbsent(rs.getLong("municipality_id"), id -> new HashMap<>()).put(rs.getLong("id"), null);
+                municipalityOf.put(rs.getLong("id"), rs.getLong("municipality_id"));
+            });
+
+            Map<Long, Map<WasteType, Integer>> loads = new HashMap<>();
+            if (!municipalityOf.isEmpty()) {
+                MapSqlParameterSource ids = new MapSqlParameterSource("ids", municipalityOf.keySet());
+                namedJdbcTemplate.query("SELECT collector_id, waste_type, COUNT(*) AS held FROM service_requests " +
+                        "WHERE collector_id IN (:ids) AND status IN ('ACCEPTED', 'IN_PROGRESS') GROUP BY collector_id, waste_type",
+                        ids, rs -> {
+                    loads.computeIfAbsent(rs.getLong("collector_id"), id -> new HashMap<>())
+                            .put(wasteType(rs.getString("waste_type")), rs.getInt("held"));
+                });
+                // Without a live position, a collector is where it last collected
+                namedJdbcTemplate.query("SELECT wc.collector_id, wc.latitude, wc.longitude FROM waste_collections wc " +
+                        "JOIN (SELECT collector_id, MAX(id) AS id FROM waste_collections WHERE collector_id IN (:ids) " +
+                        "AND latitude IS NOT NULL AND longitude IS NOT NULL GROUP BY collector_id) latest ON latest.id = wc.id",
+                        ids, rs -> {
+                    Long collectorId = rs.getLong("collector_id");
+                    collectors.get(municipalityOf.get(collectorId))
+                            .put(collectorId, new double[] {rs.getDouble("latitude"), rs.getDouble("longitude")});
+                });
+            }
+
+            Set<Long> municipalities = new HashSet<>(requests.keySet());
+            municipalities.addAll(collectors.keySet());
+            boards.keySet().retainAll(municipalities);
+            for (Long municipalityId : municipalities) {
+                boards.computeIfAbsent(municipalityId, DispatchBoard::new).replace(
+                        requests.getOrDefault(municipalityId, List.of()),
+                        collectors.getOrDefault(municipalityId, Map.of()), loads);
+            }
+        });
+        lastResync = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads the requests announced since the last round and puts them on their board. Read on the primary, since
+     * they were just created.
+     */
+    private void loadAnnounced() {
+        if (announced.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(announced);
+        announced.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + LOAD_CHUNK));
+            namedJdbcTemplate.query(OPEN_REQUEST_COLUMNS + "WHERE sr.id IN (:ids) AND sr.status = 'PENDING' " +
+                    "AND sr.municipality_id IS NOT NULL", new MapSqlParameterSource("ids", chunk), rs -> {
+                boards.computeIfAbsent(rs.getLong("municipality_id"), DispatchBoard::new).addRequest(openRequest(rs));
+            });
+        }
+    }
+
+    private static DispatchBoard.OpenRequest openRequest(ResultSet rs) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new DispatchBoard.OpenRequest(rs.getLong("id"), wasteType(rs.getString("waste_type")),
+                rs.getObject("latitude", Double.class), rs.getObject("longitude", Double.class),
+                createdAt != null ? createdAt.toLocalDateTime() : null);
+    }
+
+    private static WasteType wasteType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return WasteType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
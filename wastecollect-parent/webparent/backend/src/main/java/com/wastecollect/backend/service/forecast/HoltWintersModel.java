@@ -0,0 +1,160 @@
+package com.wastecollect.backend.service.forecast;
+
+/**
+ * Additive Holt-Winters model of a daily series with a seasonal period (a week): level, trend and one seasonal term
+ * per day of the period, smoothed by {@code alpha}, {@code beta} and {@code gamma}.
+ * <p>
+ * Instances are immutable: {@link #update(double)} folds one new observation in O(period) time and memory, i.e. O(1)
+ * for a fixed period, and returns a new model, so a model can be read while the next one is being computed. The
+ * variance of the one-step errors is tracked with an exponential moving average and drives the prediction intervals.
+ */
+final class HoltWintersModel {
+
+    // Candidate smoothing parameters of the initial fit; every combination is tried and the smallest error kept
+    private static final double[] ALPHAS = {0.05, 0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.8};
+    private static final double[] BETAS = {0.0, 0.01, 0.05, 0.1, 0.2};
+    private static final double[] GAMMAS = {0.05, 0.1, 0.2, 0.3, 0.5};
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final double level;
+    private final double trend;
+    private final double[] season;
+
+    // Seasonal index of the next observation
+    private final int phase;
+
+    private final double errorVariance;
+    private final double varianceDecay;
+
+    private HoltWintersModel(double alpha, double beta, double gamma, double level, double trend, double[] season,
+                             int phase, double errorVariance, double varianceDecay) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.level = level;
+        this.trend = trend;
+        this.season = season;
+        this.phase = phase;
+        this.errorVariance = errorVariance;
+        this.varianceDecay = varianceDecay;
+    }
+
+    /**
+     * Fits a model to a series, choosing the smoothing parameters with the smallest sum of squared one-step errors.
+     *
+     * @param values        The series, oldest first; at least two periods long.
+     * @param period        The seasonal period, in observations.
+     * @param varianceDecay Weight of each new squared error in the error variance (e.g. 2 / (window + 1)).
+     * @return The model after the last observation, or null if the series is too short.
+     */
+    static HoltWintersModel fit(double[] values, int period, double varianceDecay) {
+        if (values.length < 2 * period) {
+            return null;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        double[] bestParameters = null;
+        for (double alpha : ALPHAS) {
+            for (double beta : BETAS) {
+                for (double gamma : GAMMAS) {
+                    double error = initial(values, period, alpha, beta, gamma, varianceDecay).run(values, period);
+                    if (error < best) {
+                        best = error;
+                        bestParameters = new double[] {alpha, beta, gamma};
+                    }
+                }
+            }
+        }
+        HoltWintersModel model = initial(values, period, bestParameters[0], bestParameters[1], bestParameters[2], varianceDecay);
+        for (double value : values) {
+            model = model.update(value);
+        }
+        return model;
+    }
+
+    /**
+     * Returns the model after one more observation.
+     */
+    HoltWintersModel update(double value) {
+        double seasonal = season[phase];
+        double error = value - (level + trend + seasonal);
+        double newLevel = alpha * (value - seasonal) + (1 - alpha) * (level + trend);
+        double newTrend = beta * (newLevel - level) + (1 - beta) * trend;
+        double[] newSeason = season.clone();
+        newSeason[phase] = gamma * (value - newLevel) + (1 - gamma) * seasonal;
+        double variance = Double.isNaN(errorVariance)
+                ? error * error
+                : (1 - varianceDecay) * errorVariance + varianceDecay * error * error;
+        return new HoltWintersModel(alpha, beta, gamma, newLevel, newTrend, newSeason, (phase + 1) % season.length,
+                variance, varianceDecay);
+    }
+
+    /**
+     * Forecasts the next {@code horizon} observations.
+     *
+     * @param z Width of the interval in standard deviations (1.96 for 95%).
+     * @return One row per step: {expected, lower, upper}. Values are weights, so none is negative.
+     */
+    double[][] forecast(int horizon, double z) {
+        double[][] rows = new double[horizon][];
+        double variance = Double.isNaN(errorVariance) ? 0 : errorVariance;
+        // Variance of the h-step error: sigma^2 * (1 + sum over j < h of c_j^2) for additive Holt-Winters
+        double accumulated = 1;
+        for (int h = 1; h <= horizon; h++) {
+            if (h > 1) {
+                int j = h - 1;
+                double c = alpha * (1 + j * beta) + (j % season.length == 0 ? gamma : 0);
+                accumulated += c * c;
+            }
+            double expected = level + h * trend + season[(phase + h - 1) % season.length];
+            double halfWidth = z * Math.sqrt(variance * accumulated);
+            rows[h - 1] = new double[] {Math.max(0, expected), Math.max(0, expected - halfWidth), Math.max(0, expected + halfWidth)};
+        }
+        return rows;
+    }
+
+    /**
+     * Model before the first observation: level and trend from the means of the first two periods, seasonal terms
+     * from the average deviation of each day from its period's mean.
+     */
+    private static HoltWintersModel initial(double[] values, int period, double alpha, double beta, double gamma,
+                                            double varianceDecay) {
+        double first = 0;
+        double second = 0;
+        for (int i = 0; i < period; i++) {
+            first += values[i];
+            second += values[period + i];
+        }
+        first /= period;
+        second /= period;
+        double[] season = new double[period];
+        for (int i = 0; i < period; i++) {
+            season[i] = ((values[i] - first) + (values[period + i] - second)) / 2;
+        }
+        return new HoltWintersModel(alpha, beta, gamma, first, (second - first) / period, season, 0, Double.NaN,
+                varianceDecay);
+    }
+
+    /**
+     * Sum of the squared one-step errors over the series, after the first period, without allocating a model per step.
+     */
+    private double run(double[] values, int period) {
+        double l = level;
+        double b = trend;
+        double[] s = season.clone();
+        double sum = 0;
+        for (int t = 0; t < values.length; t++) {
+            int p = t % period;
+            double error = values[t] - (l + b + s[p]);
+            if (t >= period) {
+                sum += error * error;
+            }
+            double newLevel = alpha * (values[t] - s[p]) + (1 - alpha) * (l + b);
+            b = beta * (newLevel - l) + (1 - beta) * b;
+            s[p] = gamma * (values[t] - newLevel) + (1 - gamma) * s[p];
+            l = newLevel;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,370 @@
+package com.wastecollect.backend.service.forecast;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.common.dto.WasteForecastDTO;
+import com.wastecollect.common.dto.WasteForecastPointDTO;
+import com.wastecollect.common.models.WasteCollectionDailyRollup;
+import com.wastecollect.common.utils.WasteType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forecasts the weight collected per municipality and waste type, day by day, for capacity planning.
+ * <p>
+ * Completed days are first folded into {@link WasteCollectionDailyRollup} rows, restating the last
+ * {@code app.forecast.restate-days} to catch late uploads. Each (municipality, waste type) series is a daily weight
+ * series with zeros on days without collections, modelled by a weekly {@link HoltWintersModel}. Models are fitted on
+ * the last {@code app.forecast.history-days} every {@code app.forecast.refit-days}, and in between are only updated
+ * with each new day, in O(1) per series; both run on a dedicated fork-join pool of {@code app.forecast.parallelism}
+ * threads. Since the restated days may still change, each series also keeps its model as of the last settled day,
+ * before them, and every update folds the restated days again from it with their current rollups. Forecasts are
+ * answered from the cached models.
+ */
+@Service
+public class WasteForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WasteForecastService.class);
+
+    private static final int WEEK = 7;
+
+    // Recomputes whole days; municipality 0 stands for "no municipality", like the monthly rollups
+    private static final String ROLLUP_SQL =
+            "INSERT INTO waste_collection_daily_rollups " +
+            "(municipality_id, period_day, waste_type, collection_count, total_weight_kg, updated_at) " +
+            "SELECT COALESCE(wc.municipality_id, 0), DATE(wc.collection_date), COALESCE(sr.waste_type, 'OTHER'), " +
+            "COUNT(*), COALESCE(SUM(wc.actual_weight), 0), NOW() " +
+            "FROM waste_collections wc LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+            "WHERE wc.collection_date >= :from AND wc.collection_date < :to " +
+            "GROUP BY COALESCE(wc.municipality_id, 0), DATE(wc.collection_date), COALESCE(sr.waste_type, 'OTHER') " +
+            "ON DUPLICATE KEY UPDATE collection_count = VALUES(collection_count), " +
+            "total_weight_kg = VALUES(total_weight_kg), updated_at = VALUES(updated_at)";
+
+    private static final String SERIES_SQL =
+            "SELECT municipality_id, period_day, waste_type, total_weight_kg FROM waste_collection_daily_rollups " +
+            "WHERE period_day BETWEEN :from AND :to";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.forecast.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.forecast.history-days:365}")
+    private int historyDays;
+
+    @Value("${app.forecast.refit-days:7}")
+    private int refitDays;
+
+    @Value("${app.forecast.restate-days:3}")
+    private int restateDays;
+
+    @Value("${app.forecast.max-horizon-days:30}")
+    private int maxHorizonDays;
+
+    @Value("${app.forecast.interval-z:1.96}")
+    private double intervalZ;
+
+    @Value("${app.forecast.error-window-days:56}")
+    private int errorWindowDays;
+
+    /**
+     * A daily weight series.
+     */
+    public record SeriesKey(long municipalityId, WasteType wasteType) {}
+
+    /**
+     * The fitted models, all up to the same last day, and the same models up to the last settled day, {@code
+     * restate-days} before it. Replaced as a whole on every refresh.
+     */
+    private record Snapshot(Map<SeriesKey, HoltWintersModel> models, Map<SeriesKey, HoltWintersModel> settled,
+                            LocalDate lastDay, LocalDate fittedOn) {}
+
+    /**
+     * A series' model up to the last settled day, and up to the last day.
+     */
+    private record Fitted(HoltWintersModel settled, HoltWintersModel current) {}
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), null, null);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Brings the rollups and models up to yesterday. Cheap when no day has ended since the previous run.
+     */
+    @Scheduled(initialDelayString = "${app.forecast.initial-delay-ms:60000}", fixedDelayString = "${app.forecast.refresh-ms:3600000}")
+    public void refresh() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDate lastDay = LocalDate.now().minusDays(1);
+            Snapshot current = snapshot;
+            if (lastDay.equals(current.lastDay())) {
+                return;
+            }
+            rollUp(lastDay);
+            if (current.fittedOn() == null || ChronoUnit.DAYS.between(current.fittedOn(), lastDay) >= refitDays) {
+                snapshot = fitAll(lastDay);
+            } else {
+                snapshot = updateAll(current, lastDay);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Waste forecasts could not be refreshed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Returns the forecasts of the series matching the filters, for the days after the last complete day.
+     *
+     * @param municipalityId Restricts to a municipality (0 for collections without one); null for all.
+     * @param wasteType      Restricts to a waste type; null for all.
+     * @param horizonDays    Number of days to forecast, 1 to {@code app.forecast.max-horizon-days}.
+     * @throws RequestValidationException if the horizon is out of range.
+     */
+    public List<WasteForecastDTO> getForecasts(Long municipalityId, WasteType wasteType, int horizonDays) {
+        if (horizonDays < 1 || horizonDays > maxHorizonDays) {
+            throw new RequestValidationException("The horizon must be between 1 and " + maxHorizonDays + " days.");
+        }
+        Snapshot current = snapshot;
+        List<WasteForecastDTO> forecasts = new ArrayList<>();
+        current.models().forEach((key, model) -> {
+            if ((municipalityId == null || municipalityId == key.municipalityId())
+                    && (wasteType == null || wasteType == key.wasteType())) {
+                forecasts.add(toDto(key, model, current.lastDay(), horizonDays));
+            }
+        });
+        forecasts.sort(Comparator.comparingLong(WasteForecastDTO::getMunicipalityId)
+                .thenComparing(WasteForecastDTO::getWasteType));
+        return forecasts;
+    }
+
+    /**
+     * Returns the expected total weight over the next {@code horizonDays} across every series, or null while no
+     * series has enough history to be modelled.
+     */
+    public Double getTotalForecast(int horizonDays) {
+        Snapshot current = snapshot;
+        if (current.models().isEmpty()) {
+            return null;
+        }
+        double total = 0;
+        for (HoltWintersModel model : current.models().values()) {
+            for (double[] row : model.forecast(horizonDays, intervalZ)) {
+                total += row[0];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of modelled series and the days the models cover.
+     */
+    public Map<String, Object> getStatus() {
+        Snapshot current = snapshot;
+        Map<String, Object> status = new HashMap<>();
+        status.put("series", current.models().size());
+        status.put("lastObservedDay", current.lastDay());
+        status.put("fittedOn", current.fittedOn());
+        return status;
+    }
+
+    /**
+     * Recomputes the daily rollups from the last rolled up day (minus the restated days) to {@code lastDay}, one
+     * month per transaction. The first run starts from the oldest collection still in the hot table.
+     */
+    private void rollUp(LocalDate lastDay) {
+        Date rolled = namedJdbcTemplate.queryForObject(
+                "SELECT MAX(period_day) FROM waste_collection_daily_rollups", new MapSqlParameterSource(), Date.class);
+        LocalDate from;
+        if (rolled != null) {
+            from = rolled.toLocalDate().minusDays(restateDays);
+        } else {
+            Date oldest = namedJdbcTemplate.queryForObject(
+                    "SELECT DATE(MIN(collection_date)) FROM waste_collections", new MapSqlParameterSource(), Date.class);
+            from = oldest != null ? oldest.toLocalDate() : lastDay;
+        }
+        from = later(from, lastDay.minusDays(historyDays));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (LocalDate start = from; !start.isAfter(lastDay); start = start.plusMonths(1)) {
+            LocalDate end = start.plusMonths(1).isAfter(lastDay) ? lastDay.plusDays(1) : start.plusMonths(1);
+            MapSqlParameterSource params = new MapSqlParameterSource("from", start.atStartOfDay())
+                    .addValue("to", end.atStartOfDay());
+            transaction.executeWithoutResult(status -> namedJdbcTemplate.update(ROLLUP_SQL, params));
+        }
+    }
+
+    /**
+     * Fits every series on its history up to the last settled day, in parallel, then folds the restated days in.
+     */
+    private Snapshot fitAll(LocalDate lastDay) {
+        LocalDate from = lastDay.minusDays(historyDays - 1L);
+        Map<SeriesKey, double[]> series = loadSeries(from, lastDay);
+        double varianceDecay = 2.0 / (errorWindowDays + 1);
+
+        Map<SeriesKey, ForkJoinTask<Fitted>> tasks = new HashMap<>();
+        series.forEach((key, values) -> tasks.put(key, pool.submit(() -> {
+            double[] trimmed = trimLeadingZeros(values);
+            int settledDays = Math.max(0, trimmed.length - restateDays);
+            HoltWintersModel settled = HoltWintersModel.fit(Arrays.copyOf(trimmed, settledDays), WEEK, varianceDecay);
+            return settled != null ? new Fitted(settled, fold(settled, trimmed, settledDays, trimmed.length)) : null;
+        })));
+        Map<SeriesKey, HoltWintersModel> models = new HashMap<>();
+        Map<SeriesKey, HoltWintersModel> settled = new HashMap<>();
+        tasks.forEach((key, task) -> {
+            try {
+                Fitted fitted = task.join();
+                if (fitted != null) {
+                    models.put(key, fitted.current());
+                    settled.put(key, fitted.settled());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Forecast model of municipality ID: {} and waste type {} could not be fitted: {}",
+                        key.municipalityId(), key.wasteType(), e.getMessage(), e);
+            }
+        });
+        logger.info("Fitted {} waste forecast models on {} series up to {}.", models.size(), series.size(), lastDay);
+        return new Snapshot(Map.copyOf(models), Map.copyOf(settled), lastDay, lastDay);
+    }
+
+    /**
+     * Folds the restated days and the days since the snapshot into every model, in parallel, starting again from the
+     * settled models so that late uploads in the restated days are taken into account. Series that appeared since the
+     * last fit wait for the next one.
+     */
+    private Snapshot updateAll(Snapshot current, LocalDate lastDay) {
+        LocalDate from = current.lastDay().minusDays(restateDays - 1L);
+        Map<SeriesKey, double[]> series = loadSeries(from, lastDay);
+        int days = (int) ChronoUnit.DAYS.between(from, lastDay) + 1;
+        int settledDays = days - restateDays;
+        double[] none = new double[days];
+
+        Map<SeriesKey, ForkJoinTask<Fitted>> tasks = new HashMap<>();
+        current.settled().forEach((key, model) -> {
+            double[] values = series.getOrDefault(key, none);
+            tasks.put(key, pool.submit(() -> {
+                HoltWintersModel settled = fold(model, values, 0, settledDays);
+                return new Fitted(settled, fold(settled, values, settledDays, days));
+            }));
+        });
+        Map<SeriesKey, HoltWintersModel> models = new HashMap<>();
+        Map<SeriesKey, HoltWintersModel> settled = new HashMap<>();
+        tasks.forEach((key, task) -> {
+            Fitted fitted = task.join();
+            models.put(key, fitted.current());
+            settled.put(key, fitted.settled());
+        });
+        logger.debug("Updated {} waste forecast models with {} days up to {}.", models.size(), days, lastDay);
+        return new Snapshot(Map.copyOf(models), Map.copyOf(settled), lastDay, current.fittedOn());
+    }
+
+    // Folds values[from..to) into a model
+    private static HoltWintersModel fold(HoltWintersModel model, double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            model = model.update(values[i]);
+        }
+        return model;
+    }
+
+    /**
+     * Reads the daily weights of every series between two days, zero-filled.
+     */
+    private Map<SeriesKey, double[]> loadSeries(LocalDate from, LocalDate to) {
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        Map<SeriesKey, double[]> series = new HashMap<>();
+        namedJdbcTemplate.query(SERIES_SQL, new MapSqlParameterSource("from", from).addValue("to", to), rs -> {
+            WasteType wasteType = wasteType(rs.getString("waste_type"));
+            if (wasteType == null) {
+                return;
+            }
+            SeriesKey key = new SeriesKey(rs.getLong("municipality_id"), wasteType);
+            int index = (int) ChronoUnit.DAYS.between(from, rs.getDate("period_day").toLocalDate());
+            series.computeIfAbsent(key, k -> new double[days])[index] += rs.getDouble("total_weight_kg");
+        });
+        return series;
+    }
+
+    private WasteForecastDTO toDto(SeriesKey key, HoltWintersModel model, LocalDate lastDay, int horizonDays) {
+        List<WasteForecastPointDTO> points = new ArrayList<>(horizonDays);
+        double expected = 0;
+        double lower = 0;
+        double upper = 0;
+        double[][] rows = model.forecast(horizonDays, intervalZ);
+        for (int i = 0; i < rows.length; i++) {
+            points.add(new WasteForecastPointDTO(lastDay.plusDays(i + 1L), rows[i][0], rows[i][1], rows[i][2]));
+            expected += rows[i][0];
+            lower += rows[i][1];
+            upper += rows[i][2];
+        }
+        WasteForecastDTO dto = new WasteForecastDTO();
+        dto.setMunicipalityId(key.municipalityId());
+        dto.setWasteType(key.wasteType());
+        dto.setLastObservedDay(lastDay);
+        dto.setHorizonDays(horizonDays);
+        dto.setDays(points);
+        dto.setTotalExpectedWeightKg(expected);
+        dto.setTotalLowerWeightKg(lower);
+        dto.setTotalUpperWeightKg(upper);
+        return dto;
+    }
+
+    // A series starts on its first collection, not on the first day of the history window
+    private static double[] trimLeadingZeros(double[] values) {
+        int start = 0;
+        while (start < values.length && values[start] == 0) {
+            start++;
+        }
+        return start == 0 ? values : Arrays.copyOfRange(values, start, values.length);
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static WasteType wasteType(String value) {
+        try {
+            return WasteType.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.wastecollect.backend.service.heatmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Demand counts per municipality and geohash cell, at several precisions and over several trailing windows of days,
+ * as seen by the {@link DemandHeatmapService}.
+ * <p>
+ * Contributions are kept in one bucket per day and precision, and summed into a running total per window and
+ * precision as they arrive. When the day changes, the bucket leaving each window is subtracted from its total and
+ * buckets older than the longest window are dropped, so a query only walks the cells of one total. Requests of
+ * households without coordinates are counted under {@link #UNLOCATED}, which shows in municipality totals but never
+ * as a cell. All methods are called from event listeners, the rebuild and the request threads, hence synchronized.
+ */
+final class DemandHeatmap {
+
+    static final String UNLOCATED = "";
+
+    /**
+     * Figures of a cell, or of a municipality.
+     */
+    static final class Counts {
+        private long requests;
+        private long collections;
+        private double weightKg;
+
+        private Counts() {
+        }
+
+        private Counts(Counts other) {
+            this.requests = other.requests;
+            this.collections = other.collections;
+            this.weightKg = other.weightKg;
+        }
+
+        private void add(long requests, long collections, double weightKg) {
+            this.requests += requests;
+            this.collections += collections;
+            this.weightKg += weightKg;
+        }
+
+        private void add(Counts other) {
+            add(other.requests, other.collections, other.weightKg);
+        }
+
+        private void subtract(Counts other) {
+            add(-other.requests, -other.collections, -other.weightKg);
+        }
+
+        // Weights are only ever added with a collection, so what is left when both counts are back to zero is rounding
+        private boolean isEmpty() {
+            return requests <= 0 && collections <= 0;
+        }
+
+        long requests() {
+            return requests;
+        }
+
+        long collections() {
+            return collections;
+        }
+
+        double weightKg() {
+            return weightKg;
+        }
+    }
+
+    /**
+     * A cell and its figures; {@code municipalityId} is null when they are summed over several municipalities.
+     */
+    record Cell(String geohash, Long municipalityId, Counts counts) {
+    }
+
+    private record CellKey(long municipalityId, String geohash) {
+    }
+
+    private final int[] precisions;
+    private final int[] windows;
+    private final int retentionDays;
+
+    // Epoch day -> one map per precision
+    private final Map<Long, List<Map<CellKey, Counts>>> days = new HashMap<>();
+    // Window -> precision -> municipality -> geohash
+    private final List<List<Map<Long, Map<String, Counts>>>> totals = new ArrayList<>();
+    private long today;
+
+    /**
+     * @param precisions The geohash precisions, in ascending order.
+     * @param windows    The window lengths in days, in ascending order.
+     * @param today      The current day; the windows end on it.
+     */
+    DemandHeatmap(int[] precisions, int[] windows, LocalDate today) {
+        this.precisions = precisions.clone();
+        this.windows = windows.clone();
+        this.retentionDays = windows[windows.length - 1];
+        this.today = today.toEpochDay();
+        for (int w = 0; w < windows.length; w++) {
+            List<Map<Long, Map<String, Counts>>> byPrecision = new ArrayList<>();
+            for (int p = 0; p < precisions.length; p++) {
+                byPrecision.add(new HashMap<>());
+            }
+            totals.add(byPrecision);
+        }
+    }
+
+    /**
+     * Counts requests, collections and collected weight on a day. Days outside the longest window are ignored.
+     *
+     * @param latitude  Latitude of the household, or null if unknown.
+     * @param longitude Longitude of the household, or null if unknown.
+     */
+    synchronized void add(LocalDate day, long municipalityId, Double latitude, Double longitude,
+                          long requests, long collections, double weightKg) {
+        long epochDay = day.toEpochDay();
+        if (epochDay > today || epochDay <= today - retentionDays) {
+            return;
+        }
+        String finest = latitude != null && longitude != null
+                ? Geohash.encode(latitude, longitude, precisions[precisions.length - 1])
+                : null;
+        List<Map<CellKey, Counts>> bucket = days.computeIfAbsent(epochDay, d -> newBucket());
+        for (int p = 0; p < precisions.length; p++) {
+            String geohash = finest != null ? finest.substring(0, precisions[p]) : UNLOCATED;
+            bucket.get(p).computeIfAbsent(new CellKey(municipalityId, geohash), k -> new Counts())
+                    .add(requests, collections, weightKg);
+            for (int w = 0; w < windows.length; w++) {
+                if (today - epochDay < windows[w]) {
+                    totals.get(w).get(p).computeIfAbsent(municipalityId, m -> new HashMap<>())
+                            .computeIfAbsent(geohash, g -> new Counts()).add(requests, collections, weightKg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the windows so that they end on {@code day}.
+     */
+    synchronized void advanceTo(LocalDate day) {
+        long target = day.toEpochDay();
+        if (target <= today) {
+            return;
+        }
+        if (target - today >= retentionDays) {
+            days.clear();
+            totals.forEach(byPrecision -> byPrecision.forEach(Map::clear));
+            today = target;
+            return;
+        }
+        while (today < target) {
+            today++;
+            for (int w = 0; w < windows.length; w++) {
+                List<Map<CellKey, Counts>> leaving = days.get(today - windows[w]);
+                if (leaving == null) {
+                    continue;
+                }
+                for (int p = 0; p < precisions.length; p++) {
+                    Map<Long, Map<String, Counts>> total = totals.get(w).get(p);
+                    leaving.get(p).forEach((key, counts) -> subtract(total, key, counts));
+                }
+            }
+            days.remove(today - retentionDays);
+        }
+    }
+
+    /**
+     * Returns the {@code limit} cells with the highest figures in a window, highest first.
+     *
+     * @param precisionIndex Index of the precision in the configured precisions.
+     * @param windowIndex    Index of the window in the configured windows.
+     * @param municipalityId Restricts to the cells of a municipality; null to sum every municipality per cell.
+     * @param box            {minLatitude, minLongitude, maxLatitude, maxLongitude} the cell centres must fall in, or null.
+     * @param order          Ascending order of the figures.
+     */
+    synchronized List<Cell> top(int precisionIndex, int windowIndex, Long municipalityId, double[] box, int limit,
+                                Comparator<Counts> order) {
+        Map<Long, Map<String, Counts>> total = totals.get(windowIndex).get(precisionIndex);
+        List<Cell> candidates = new ArrayList<>();
+        if (municipalityId != null) {
+            total.getOrDefault(municipalityId, Map.of()).forEach((geohash, counts) -> {
+                if (!UNLOCATED.equals(geohash) && inBox(geohash, box)) {
+                    candidates.add(new Cell(geohash, municipalityId, counts));
+                }
+            });
+        } else {
+            // A cell on a municipal boundary is counted under each municipality: merge them first
+            Map<String, Counts> merged = new HashMap<>();
+            Map<String, Long> owner = new HashMap<>();
+            total.forEach((municipality, cells) -> cells.forEach((geohash, counts) -> {
+                if (!UNLOCATED.equals(geohash) && inBox(geohash, box)) {
+                    merged.computeIfAbsent(geohash, g -> new Counts()).add(counts);
+                    owner.merge(geohash, municipality, (a, b) -> a.equals(b) ? a : -1L);
+                }
+            }));
+            merged.forEach((geohash, counts) -> {
+                Long municipality = owner.get(geohash);
+                candidates.add(new Cell(geohash, municipality == -1L ? null : municipality, counts));
+            });
+        }
+        List<Cell> cells = new ArrayList<>();
+        for (Cell cell : top(candidates, limit, Comparator.comparing(Cell::counts, order)
+                .thenComparing(Cell::geohash, Comparator.reverseOrder()))) {
+            cells.add(new Cell(cell.geohash(), cell.municipalityId(), new Counts(cell.counts())));
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the figures of every municipality in a window, geolocated or not.
+     */
+    synchronized Map<Long, Counts> municipalityTotals(int windowIndex) {
+        Map<Long, Counts> result = new HashMap<>();
+        totals.get(windowIndex).get(0).forEach((municipality, cells) -> {
+            Counts sum = new Counts();
+            cells.values().forEach(sum::add);
+            result.put(municipality, sum);
+        });
+        return result;
+    }
+
+    /**
+     * Returns the number of cells per precision in the longest window.
+     */
+    synchronized Map<Integer, Integer> cellCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        List<Map<Long, Map<String, Counts>>> longest = totals.get(windows.length - 1);
+        for (int p = 0; p < precisions.length; p++) {
+            counts.put(precisions[p], longest.get(p).values().stream().mapToInt(Map::size).sum());
+        }
+        return counts;
+    }
+
+    /**
+     * Selects the {@code limit} greatest elements with a bounded min-heap, in O(n log limit), greatest first.
+     */
+    static <T> List<T> top(Iterable<T> elements, int limit, Comparator<T> order) {
+        PriorityQueue<T> heap = new PriorityQueue<>(limit + 1, order);
+        for (T element : elements) {
+            if (heap.size() < limit) {
+                heap.add(element);
+            } else if (order.compare(element, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(element);
+            }
+        }
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    private List<Map<CellKey, Counts>> newBucket() {
+        List<Map<CellKey, Counts>> bucket = new ArrayList<>();
+        for (int p = 0; p < precisions.length; p++) {
+            bucket.add(new HashMap<>());
+        }
+        return bucket;
+    }
+
+    private static void subtract(Map<Long, Map<String, Counts>> total, CellKey key, Counts counts) {
+        Map<String, Counts> cells = total.get(key.municipalityId());
+        if (cells == null) {
+            return;
+        }
+        Counts current = cells.get(key.geohash());
+        if (current == null) {
+            return;
+        }
+        current.subtract(counts);
+        if (current.isEmpty()) {
+            cells.remove(key.geohash());
+            if (cells.isEmpty()) {
+                total.remove(key.municipalityId());
+            }
+        }
+    }
+
+    private static boolean inBox(String geohash, double[] box) {
+        if (box == null) {
+            return true;
+        }
+        double[] bounds = Geohash.bounds(geohash);
+        double latitude = (bounds[0] + bounds[2]) / 2;
+        double longitude = (bounds[1] + bounds[3]) / 2;
+        return latitude >= box[0] && longitude >= box[1] && latitude <= box[2] && longitude <= box[3];
+    }
+}
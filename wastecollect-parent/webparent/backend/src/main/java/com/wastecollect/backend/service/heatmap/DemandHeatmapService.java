@@ -0,0 +1,367 @@
+package com.wastecollect.backend.service.heatmap;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.dto.DemandCellDTO;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where service requests come from: a heatmap of requests, collections and collected weight per geohash cell, at the
+ * precisions of {@code app.heatmap.precisions} and over the trailing windows of {@code app.heatmap.windows-days}.
+ * <p>
+ * The heatmap lives in memory ({@link DemandHeatmap}). A request is counted in the cell of its household on the day it
+ * was created, once the creation commits; a waste collection, with its weight, on the day it was recorded. It is
+ * rebuilt from the database at startup and every {@code app.heatmap.resync-ms}, which also brings in the changes made
+ * on other instances. The changes committed while a rebuild runs are applied to both heatmaps and the scan stops at
+ * the instant the rebuild started, so that they are neither lost nor, but for those committing as the scan begins,
+ * counted twice. Hot cells are selected with a bounded heap over the cells of one window, without touching the
+ * database.
+ * <p>
+ * The requests created or completed in a transaction are gathered and located together once it commits, with one
+ * query per kind, so that a batch of offline completions costs two queries rather than one per request.
+ */
+@Service
+public class DemandHeatmapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandHeatmapService.class);
+
+    private static final String REQUESTS_SQL =
+            "SELECT COALESCE(sr.municipality_id, h.municipality_id, 0) AS municipality_id, " +
+            "h.latitude AS latitude, h.longitude AS longitude, DATE(sr.created_at) AS day " +
+            "FROM service_requests sr LEFT JOIN users h ON h.id = sr.household_id WHERE sr.id IN (:ids)";
+
+    // The household's coordinates locate the demand; those recorded by the collector only stand in for missing ones
+    private static final String COLLECTION_COLUMNS =
+            "COALESCE(wc.municipality_id, sr.municipality_id, h.municipality_id, 0) AS municipality_id, " +
+            "CASE WHEN h.latitude IS NOT NULL AND h.longitude IS NOT NULL THEN h.latitude ELSE wc.latitude END AS latitude, " +
+            "CASE WHEN h.latitude IS NOT NULL AND h.longitude IS NOT NULL THEN h.longitude ELSE wc.longitude END AS longitude, " +
+            "DATE(wc.collection_date) AS day";
+
+    // The latest collection of each request
+    private static final String COLLECTIONS_SQL =
+            "SELECT " + COLLECTION_COLUMNS + ", COALESCE(wc.actual_weight, 0) AS weight " +
+            "FROM waste_collections wc LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+            "LEFT JOIN users h ON h.id = COALESCE(sr.household_id, wc.household_id) " +
+            "WHERE wc.id IN (SELECT MAX(id) FROM waste_collections WHERE service_request_id IN (:ids) " +
+            "GROUP BY service_request_id)";
+
+    private static final String REBUILD_REQUESTS_SQL =
+            "SELECT COALESCE(sr.municipality_id, h.municipality_id, 0) AS municipality_id, " +
+            "h.latitude AS latitude, h.longitude AS longitude, DATE(sr.created_at) AS day, COUNT(*) AS requests " +
+            "FROM service_requests sr LEFT JOIN users h ON h.id = sr.household_id " +
+            "WHERE sr.created_at >= :from AND sr.created_at < :until GROUP BY 1, 2, 3, 4";
+
+    private static final String REBUILD_COLLECTIONS_SQL =
+            "SELECT " + COLLECTION_COLUMNS + ", COUNT(*) AS collections, COALESCE(SUM(wc.actual_weight), 0) AS weight " +
+            "FROM waste_collections wc LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+            "LEFT JOIN users h ON h.id = COALESCE(sr.household_id, wc.household_id) " +
+            "WHERE wc.collection_date >= :from AND wc.collection_date < :until GROUP BY 1, 2, 3, 4";
+
+    /**
+     * The figure hot cells are ranked by.
+     */
+    public enum Metric {
+        REQUESTS,
+        COLLECTIONS,
+        WEIGHT
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Value("${app.heatmap.precisions:5,6,7}")
+    private int[] precisions;
+
+    @Value("${app.heatmap.windows-days:1,7,30}")
+    private int[] windows;
+
+    @Value("${app.heatmap.max-results:100}")
+    private int maxResults;
+
+    private volatile DemandHeatmap heatmap;
+
+    // The heatmap being rebuilt, if any
+    private volatile DemandHeatmap building;
+
+    @PostConstruct
+    void init() {
+        precisions = Arrays.stream(precisions).distinct().sorted().toArray();
+        windows = Arrays.stream(windows).distinct().sorted().toArray();
+        if (precisions.length == 0 || precisions[0] < 1 || precisions[precisions.length - 1] > Geohash.MAX_PRECISION
+                || windows.length == 0 || windows[0] < 1) {
+            throw new IllegalStateException("app.heatmap.precisions must be between 1 and " + Geohash.MAX_PRECISION
+                    + " and app.heatmap.windows-days positive.");
+        }
+        heatmap = new DemandHeatmap(precisions, windows, LocalDate.now());
+    }
+
+    /**
+     * Replaces the heatmap with one built from the requests and collections of the longest window.
+     */
+    @Scheduled(initialDelayString = "${app.heatmap.initial-delay-ms:30000}", fixedDelayString = "${app.heatmap.resync-ms:21600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDateTime until = LocalDateTime.now();
+        LocalDate today = until.toLocalDate();
+        DemandHeatmap rebuilt = new DemandHeatmap(precisions, windows, today);
+        building = rebuilt;
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource("from", today.minusDays(windows[windows.length - 1] - 1L).atStartOfDay())
+                    .addValue("until", until);
+            namedJdbcTemplate.query(REBUILD_REQUESTS_SQL, params, (RowCallbackHandler) rs -> rebuilt.add(
+                    rs.getDate("day").toLocalDate(), rs.getLong("municipality_id"), coordinate(rs, "latitude"),
+                    coordinate(rs, "longitude"), rs.getLong("requests"), 0, 0));
+            namedJdbcTemplate.query(REBUILD_COLLECTIONS_SQL, params, (RowCallbackHandler) rs -> rebuilt.add(
+                    rs.getDate("day").toLocalDate(), rs.getLong("municipality_id"), coordinate(rs, "latitude"),
+                    coordinate(rs, "longitude"), 0, rs.getLong("collections"), rs.getDouble("weight")));
+            heatmap = rebuilt;
+            logger.info("Demand heatmap rebuilt in {} ms: {} cells per precision.", System.currentTimeMillis() - start,
+                    rebuilt.cellCounts());
+        } catch (RuntimeException e) {
+            logger.error("Demand heatmap could not be rebuilt: {}", e.getMessage(), e);
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * The requests created and completed by the current transaction.
+     */
+    private record Pending(Set<Long> created, Set<Long> completed) {}
+
+    /**
+     * Counts a created request, or a recorded collection, in the cell of its household once the transaction commits,
+     * or at once outside any transaction.
+     */
+    @EventListener
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        // No transition leads back to PENDING: a PENDING request has just been created
+        if (event.getStatus() != ServiceRequestStatus.PENDING && event.getStatus() != ServiceRequestStatus.COMPLETED) {
+            return;
+        }
+        boolean created = event.getStatus() == ServiceRequestStatus.PENDING;
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            count(created, List.of(event.getServiceRequestId()));
+            return;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending buffer = new Pending(new LinkedHashSet<>(), new LinkedHashSet<>());
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(true, buffer.created());
+                    count(false, buffer.completed());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DemandHeatmapService.this);
+                }
+            });
+            pending = buffer;
+        }
+        (created ? pending.created() : pending.completed()).add(event.getServiceRequestId());
+    }
+
+    /**
+     * Counts created requests, or recorded collections, in the cells of their households with a single query.
+     */
+    private void count(boolean created, Collection<Long> serviceRequestIds) {
+        if (serviceRequestIds.isEmpty()) {
+            return;
+        }
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", serviceRequestIds);
+            // A completion without a collection record (e.g. by an administrator) is not counted, as in the rebuild
+            namedJdbcTemplate.query(created ? REQUESTS_SQL : COLLECTIONS_SQL, params, (RowCallbackHandler) rs -> {
+                LocalDate day = rs.getDate("day").toLocalDate();
+                long municipalityId = rs.getLong("municipality_id");
+                Double latitude = coordinate(rs, "latitude");
+                Double longitude = coordinate(rs, "longitude");
+                long requests = created ? 1 : 0;
+                long collections = created ? 0 : 1;
+                double weight = created ? 0 : rs.getDouble("weight");
+                // The rebuild publishes its heatmap before clearing it as the one being built: read in the other
+                // order, a heatmap that is both is only counted once, and none is ever missed
+                DemandHeatmap rebuilt = building;
+                DemandHeatmap current = heatmap;
+                apply(current, day, municipalityId, latitude, longitude, requests, collections, weight);
+                if (rebuilt != null && rebuilt != current) {
+                    apply(rebuilt, day, municipalityId, latitude, longitude, requests, collections, weight);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Corrected by the next rebuild
+            logger.warn("{} service requests could not be counted in the demand heatmap: {}",
+                    serviceRequestIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the hottest cells of a window.
+     *
+     * @param precision      Geohash precision of the cells, one of {@code app.heatmap.precisions}.
+     * @param windowDays     Length of the window ending today, one of {@code app.heatmap.windows-days}.
+     * @param municipalityId Restricts to a municipality (0 for requests without one); null for all.
+     * @param minLatitude    South edge of the area the cell centres must fall in; the four edges go together.
+     * @param minLongitude   West edge of the area.
+     * @param maxLatitude    North edge of the area.
+     * @param maxLongitude   East edge of the area.
+     * @param metric         The figure cells are ranked by.
+     * @param limit          Number of cells, 1 to {@code app.heatmap.max-results}.
+     * @throws RequestValidationException if a parameter is out of range.
+     */
+    public List<DemandCellDTO> getHotCells(int precision, int windowDays, Long municipalityId, Double minLatitude,
+                                           Double minLongitude, Double maxLatitude, Double maxLongitude, Metric metric,
+                                           int limit) {
+        int precisionIndex = Arrays.binarySearch(precisions, precision);
+        if (precisionIndex < 0) {
+            throw new RequestValidationException("The precision must be one of " + Arrays.toString(precisions) + ".");
+        }
+        int windowIndex = windowIndex(windowDays);
+        if (limit < 1 || limit > maxResults) {
+            throw new RequestValidationException("The limit must be between 1 and " + maxResults + ".");
+        }
+        double[] box = box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+
+        DemandHeatmap current = heatmap;
+        current.advanceTo(LocalDate.now());
+        List<DemandCellDTO> cells = new ArrayList<>();
+        for (DemandHeatmap.Cell cell : current.top(precisionIndex, windowIndex, municipalityId, box, limit,
+                order(metric != null ? metric : Metric.REQUESTS))) {
+            cells.add(toDto(cell, precision));
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the municipalities with the most requests in a window, most first. Requests without a municipality are
+     * left out.
+     *
+     * @param windowDays Length of the window ending today, one of {@code app.heatmap.windows-days}.
+     * @throws RequestValidationException if the window is not configured.
+     */
+    public List<Long> getTopMunicipalities(int windowDays, int limit) {
+        int windowIndex = windowIndex(windowDays);
+        DemandHeatmap current = heatmap;
+        current.advanceTo(LocalDate.now());
+        List<Map.Entry<Long, DemandHeatmap.Counts>> municipalities = new ArrayList<>();
+        current.municipalityTotals(windowIndex).forEach((municipalityId, counts) -> {
+            if (municipalityId != 0) {
+                municipalities.add(Map.entry(municipalityId, counts));
+            }
+        });
+        Comparator<Map.Entry<Long, DemandHeatmap.Counts>> order = Comparator
+                .comparing((Map.Entry<Long, DemandHeatmap.Counts> entry) -> entry.getValue(), order(Metric.REQUESTS))
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        return DemandHeatmap.top(municipalities, limit, order).stream().map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Returns the longest configured window, in days.
+     */
+    public int getLongestWindowDays() {
+        return windows[windows.length - 1];
+    }
+
+    /**
+     * Returns the configured precisions and windows, and the number of cells per precision in the longest window.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("precisions", precisions);
+        status.put("windowsDays", windows);
+        status.put("cells", heatmap.cellCounts());
+        status.put("rebuilding", building != null);
+        return status;
+    }
+
+    private static void apply(DemandHeatmap target, LocalDate day, long municipalityId, Double latitude,
+                              Double longitude, long requests, long collections, double weight) {
+        target.advanceTo(LocalDate.now());
+        target.add(day, municipalityId, latitude, longitude, requests, collections, weight);
+    }
+
+    private int windowIndex(int windowDays) {
+        int windowIndex = Arrays.binarySearch(windows, windowDays);
+        if (windowIndex < 0) {
+            throw new RequestValidationException("The window must be one of " + Arrays.toString(windows) + " days.");
+        }
+        return windowIndex;
+    }
+
+    private static double[] box(Double minLatitude, Double minLongitude, Double maxLatitude, Double maxLongitude) {
+        if (minLatitude == null && minLongitude == null && maxLatitude == null && maxLongitude == null) {
+            return null;
+        }
+        if (minLatitude == null || minLongitude == null || maxLatitude == null || maxLongitude == null
+                || minLatitude > maxLatitude || minLongitude > maxLongitude) {
+            throw new RequestValidationException("An area needs its four edges, minimums below maximums.");
+        }
+        return new double[] {minLatitude, minLongitude, maxLatitude, maxLongitude};
+    }
+
+    private static Comparator<DemandHeatmap.Counts> order(Metric metric) {
+        return switch (metric) {
+            case REQUESTS -> Comparator.comparingLong(DemandHeatmap.Counts::requests)
+                    .thenComparingDouble(DemandHeatmap.Counts::weightKg);
+            case COLLECTIONS -> Comparator.comparingLong(DemandHeatmap.Counts::collections)
+                    .thenComparingDouble(DemandHeatmap.Counts::weightKg);
+            case WEIGHT -> Comparator.comparingDouble(DemandHeatmap.Counts::weightKg)
+                    .thenComparingLong(DemandHeatmap.Counts::collections);
+        };
+    }
+
+    private static DemandCellDTO toDto(DemandHeatmap.Cell cell, int precision) {
+        double[] bounds = Geohash.bounds(cell.geohash());
+        DemandCellDTO dto = new DemandCellDTO();
+        dto.setGeohash(cell.geohash());
+        dto.setPrecision(precision);
+        dto.setMunicipalityId(cell.municipalityId());
+        dto.setMinLatitude(bounds[0]);
+        dto.setMinLongitude(bounds[1]);
+        dto.setMaxLatitude(bounds[2]);
+        dto.setMaxLongitude(bounds[3]);
+        dto.setCenterLatitude((bounds[0] + bounds[2]) / 2);
+        dto.setCenterLongitude((bounds[1] + bounds[3]) / 2);
+        dto.setRequestCount(cell.counts().requests());
+        dto.setCollectionCount(cell.counts().collections());
+        dto.setWeightKg(cell.counts().weightKg());
+        return dto;
+    }
+
+    private static Double coordinate(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,293 @@
+package com.wastecollect.backend.service.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wastecollect.backend.service.NotificationCounterService;
+import com.wastecollect.backend.service.push.NotificationCreatedEvent;
+import com.wastecollect.common.dto.NotificationDTO;
+import com.wastecollect.common.utils.NotificationEventType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the notification outbox in batches on a background thread.
+ * <p>
+ * Each batch is one transaction: the pending events are locked with {@code SKIP LOCKED} (several instances can
+ * drain concurrently without taking the same events), rendered from their templates, inserted with one batched
+ * statement, added to the recipients' unread counters and deleted from the outbox. The notifications are pushed
+ * to live streams after the commit.
+ * <p>
+ * Delivery is at least once: an event stays in the outbox until the batch that delivered it commits. An event
+ * whose notification already exists (same {@code source_event_id}) is only deleted, so a redelivery never
+ * creates a duplicate. If a batch fails, its events are retried one by one so a single bad event cannot hold
+ * back the others; an event that keeps failing is left in the outbox after {@code app.outbox.max-attempts}.
+ */
+@Service
+public class NotificationOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxDispatcher.class);
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+
+    private static final String CLAIM_SQL =
+            "SELECT id, event_id, event_type, recipient_user_id, service_request_id, payload, created_at " +
+            "FROM notification_outbox WHERE attempts < :maxAttempts ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM_ONE_SQL =
+            "SELECT id, event_id, event_type, recipient_user_id, service_request_id, payload, created_at " +
+            "FROM notification_outbox WHERE id = :id FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERT_NOTIFICATION_SQL =
+            "INSERT INTO notifications (recipient_user_id, subject, message, notification_type, created_at, is_read, " +
+            "service_request_id, source_event_id) " +
+            "VALUES (:recipientId, :subject, :message, :notificationType, :createdAt, FALSE, :serviceRequestId, :eventId)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationCounterService notificationCounterService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Set while a drain is queued but not started, so a burst of commits triggers a single drain
+    private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+
+    /**
+     * Queues a drain of the outbox unless one is already waiting to start.
+     */
+    public void wakeUp() {
+        if (drainQueued.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    drainQueued.set(false);
+                    drain();
+                });
+            } catch (RuntimeException e) {
+                drainQueued.set(false);
+                logger.warn("Outbox drain could not be queued: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Safety net for events whose wake-up was lost (crash, restart, another instance's commit, failed batch).
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Undelivered events stay in the outbox and are drained after the restart
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int delivered = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            AtomicReference<List<OutboxRow>> claimed = new AtomicReference<>();
+            try {
+                transaction.executeWithoutResult(status -> {
+                    List<OutboxRow> rows = claim(CLAIM_SQL, new MapSqlParameterSource("maxAttempts", maxAttempts)
+                            .addValue("batchSize", batchSize));
+                    claimed.set(rows);
+                    deliver(rows);
+                });
+            } catch (RuntimeException e) {
+                List<OutboxRow> rows = claimed.get();
+                if (rows == null) {
+                    logger.warn("Outbox could not be read: {}", e.getMessage());
+                    return;
+                }
+                logger.warn("Outbox batch of {} events failed, retrying them one by one: {}", rows.size(), e.getMessage());
+                rows.forEach(row -> deliverAlone(transaction, row));
+                // Leave what remains to the next poll rather than spinning on failing events
+                return;
+            }
+            int batch = claimed.get().size();
+            delivered += batch;
+            if (batch < batchSize) {
+                break;
+            }
+        }
+        if (delivered > 0) {
+            logger.debug("{} outbox events dispatched.", delivered);
+        }
+    }
+
+    private void deliverAlone(TransactionTemplate transaction, OutboxRow row) {
+        try {
+            transaction.executeWithoutResult(status ->
+                    deliver(claim(CLAIM_ONE_SQL, new MapSqlParameterSource("id", row.id))));
+        } catch (RuntimeException e) {
+            logger.error("Outbox event {} ({}) could not be dispatched: {}", row.eventId, row.eventType, e.getMessage());
+            String error = e.getMessage() != null && e.getMessage().length() > 1000 ? e.getMessage().substring(0, 1000) : e.getMessage();
+            namedJdbcTemplate.update(
+                    "UPDATE notification_outbox SET attempts = attempts + 1, last_error = :error WHERE id = :id",
+                    new MapSqlParameterSource("id", row.id).addValue("error", error));
+        }
+    }
+
+    private List<OutboxRow> claim(String sql, MapSqlParameterSource params) {
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) -> new OutboxRow(
+                rs.getLong("id"),
+                rs.getString("event_id"),
+                NotificationEventType.valueOf(rs.getString("event_type")),
+                rs.getLong("recipient_user_id"),
+                rs.getObject("service_request_id", Long.class),
+                rs.getString("payload"),
+                rs.getObject("created_at", LocalDateTime.class)));
+    }
+
+    /**
+     * Writes the notifications of the claimed events and removes the events, in the current transaction.
+     */
+    private void deliver(List<OutboxRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Set<String> alreadyDelivered = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT source_event_id FROM notifications WHERE source_event_id IN (:eventIds)",
+                new MapSqlParameterSource("eventIds", rows.stream().map(row -> row.eventId).collect(Collectors.toList())),
+                String.class));
+        // Keyed by event ID, which is what links a notification back to its event
+        Map<String, NotificationDTO> notifications = new LinkedHashMap<>();
+        rows.stream()
+                .filter(row -> !alreadyDelivered.contains(row.eventId))
+                .forEach(row -> notifications.put(row.eventId, render(row)));
+
+        if (!notifications.isEmpty()) {
+            SqlParameterSource[] batch = notifications.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource("recipientId", entry.getValue().getRecipientId())
+                            .addValue("subject", entry.getValue().getSubject())
+                            .addValue("message", entry.getValue().getMessage())
+                            .addValue("notificationType", entry.getValue().getNotificationType().name())
+                            .addValue("createdAt", entry.getValue().getCreatedAt())
+                            .addValue("serviceRequestId", entry.getValue().getServiceRequestId())
+                            .addValue("eventId", entry.getKey()))
+                    .toArray(SqlParameterSource[]::new);
+            namedJdbcTemplate.batchUpdate(INSERT_NOTIFICATION_SQL, batch);
+
+            namedJdbcTemplate.query(
+                    "SELECT id, source_event_id FROM notifications WHERE source_event_id IN (:eventIds)",
+                    new MapSqlParameterSource("eventIds", new ArrayList<>(notifications.keySet())),
+                    rs -> { notifications.get(rs.getString("source_event_id")).setId(rs.getLong("id")); });
+
+            notifications.values().stream()
+                    .collect(Collectors.groupingBy(NotificationDTO::getRecipientId, Collectors.counting()))
+                    .forEach(notificationCounterService::adjustUnread);
+            // Pushed to the recipients' live streams once this batch commits
+            notifications.values().forEach(notification -> eventPublisher.publishEvent(new NotificationCreatedEvent(notification)));
+        }
+
+        namedJdbcTemplate.update("DELETE FROM notification_outbox WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", rows.stream().map(row -> row.id).collect(Collectors.toList())));
+    }
+
+    private NotificationDTO render(OutboxRow row) {
+        Map<String, String> values = parsePayload(row.payload);
+        values.putIfAbsent("serviceRequestId", row.serviceRequestId != null ? row.serviceRequestId.toString() : "");
+
+        NotificationDTO notification = new NotificationDTO();
+        notification.setRecipientId(row.recipientUserId);
+        notification.setSubject(fill(row.eventType.getSubjectTemplate(), values));
+        notification.setMessage(fill(row.eventType.getMessageTemplate(), values));
+        notification.setNotificationType(row.eventType.getNotificationType());
+        notification.setCreatedAt(row.createdAt);
+        notification.setIsRead(false);
+        notification.setServiceRequestId(row.serviceRequestId);
+        return notification;
+    }
+
+    private Map<String, String> parsePayload(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(payload, new TypeReference<HashMap<String, String>>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException("Invalid outbox payload: " + e.getMessage(), e);
+        }
+    }
+
+    private static String fill(String template, Map<String, String> values) {
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = values.get(matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : ""));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static final class OutboxRow {
+        private final long id;
+        private final String eventId;
+        private final NotificationEventType eventType;
+        private final long recipientUserId;
+        private final Long serviceRequestId;
+        private final String payload;
+        private final LocalDateTime createdAt;
+
+        private OutboxRow(long id, String eventId, NotificationEventType eventType, long recipientUserId,
+                          Long serviceRequestId, String payload, LocalDateTime createdAt) {
+            this.id = id;
+            this.eventId = eventId;
+            this.eventType = eventType;
+            this.recipientUserId = recipientUserId;
+            this.serviceRequestId = serviceRequestId;
+            this.payload = payload;
+            this.createdAt = createdAt;
+        }
+    }
+}
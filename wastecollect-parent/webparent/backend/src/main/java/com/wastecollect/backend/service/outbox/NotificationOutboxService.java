@@ -0,0 +1,115 @@
+package com.wastecollect.backend.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wastecollect.backend.repository.NotificationOutboxRepository;
+import com.wastecollect.common.models.NotificationOutboxEvent;
+import com.wastecollect.common.utils.NotificationEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records domain events that must produce a notification, inside the transaction of the change itself.
+ * Only one small row is written on the caller's path; rendering, inserting and pushing the notification is
+ * left to {@link NotificationOutboxDispatcher}, which is woken up as soon as the transaction commits.
+ */
+@Service
+public class NotificationOutboxService {
+
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    @Autowired
+    private NotificationOutboxDispatcher dispatcher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * One event of a batch: who to notify, about which request, with which template values.
+     */
+    public record Entry(Long recipientUserId, Long serviceRequestId, Map<String, String> values) {}
+
+    /**
+     * Adds an event to the outbox. Must run inside the transaction of the change the event describes.
+     *
+     * @param eventType        The event, which selects the notification template.
+     * @param recipientUserId  The user to notify.
+     * @param serviceRequestId The service request the notification links to, if any.
+     * @param values           The template values.
+     * @return The ID of the event, copied to the notification it produces.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String enqueue(NotificationEventType eventType, Long recipientUserId, Long serviceRequestId, Map<String, String> values) {
+        NotificationOutboxEvent event = new NotificationOutboxEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setEventType(eventType);
+        event.setRecipientUserId(recipientUserId);
+        event.setServiceRequestId(serviceRequestId);
+        event.setPayload(toJson(values));
+        event.setCreatedAt(LocalDateTime.now());
+        outboxRepository.save(event);
+        wakeUpAfterCommit();
+        return event.getEventId();
+    }
+
+    /**
+     * Adds events of the same type to the outbox with one batched INSERT. Must run inside the transaction of the
+     * changes the events describe.
+     *
+     * @param eventType The event, which selects the notification template.
+     * @param entries   The events.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(NotificationEventType eventType, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] batch = entries.stream()
+                .map(entry -> new MapSqlParameterSource("eventId", UUID.randomUUID().toString())
+                        .addValue("eventType", eventType.name())
+                        .addValue("recipientUserId", entry.recipientUserId())
+                        .addValue("serviceRequestId", entry.serviceRequestId())
+                        .addValue("payload", toJson(entry.values()))
+                        .addValue("createdAt", now))
+                .toArray(SqlParameterSource[]::new);
+        namedJdbcTemplate.batchUpdate(
+                "INSERT INTO notification_outbox (event_id, event_type, recipient_user_id, service_request_id, payload, " +
+                "created_at, attempts) VALUES (:eventId, :eventType, :recipientUserId, :serviceRequestId, :payload, :createdAt, 0)",
+                batch);
+        wakeUpAfterCommit();
+    }
+
+    private void wakeUpAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+
+    private String toJson(Map<String, String> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Notification event values cannot be serialized", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.wastecollect.backend.service.push;
+
+import com.wastecollect.common.utils.NotificationType;
+
+import java.util.Set;
+
+/**
+ * Published when an admin broadcast reaches a whole audience at once: either a fan-out-on-read broadcast,
+ * or one committed chunk of a per-recipient broadcast job. Only the users connected at that moment are pushed;
+ * everyone else sees the notification at their next inbox read.
+ */
+public class AudienceNotificationEvent {
+
+    private final String subject;
+    private final NotificationType notificationType;
+    private final String targetRole;
+    private final Set<Long> targetUserIds;
+    private final Long minUserId;
+    private final Long maxUserId;
+    private final Long broadcastNotificationId;
+
+    /**
+     * @param subject                 Subject of the notification, sent as a preview.
+     * @param notificationType        Type of the notification.
+     * @param targetRole              Role of the audience, or null for every user.
+     * @param targetUserIds           Explicit recipients, or null when the audience is not a list of users.
+     * @param minUserId               Exclusive lower bound of the recipients' IDs, or null for no bound.
+     * @param maxUserId               Inclusive upper bound of the recipients' IDs, or null for no bound.
+     * @param broadcastNotificationId ID of the stored broadcast when published once for the audience.
+     */
+    public AudienceNotificationEvent(String subject, NotificationType notificationType, String targetRole,
+                                     Set<Long> targetUserIds, Long minUserId, Long maxUserId, Long broadcastNotificationId) {
+        this.subject = subject;
+        this.notificationType = notificationType;
+        this.targetRole = targetRole;
+        this.targetUserIds = targetUserIds;
+        this.minUserId = minUserId;
+        this.maxUserId = maxUserId;
+        this.broadcastNotificationId = broadcastNotificationId;
+    }
+
+    /**
+     * Whether a connected user with the given ID and roles belongs to this audience.
+     */
+    public boolean matches(Long userId, Set<String> roles) {
+        if (minUserId != null && userId <= minUserId) {
+            return false;
+        }
+        if (maxUserId != null && userId > maxUserId) {
+            return false;
+        }
+        if (targetUserIds != null) {
+            return targetUserIds.contains(userId);
+        }
+        return targetRole == null || roles.contains(targetRole);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public String getTargetRole() {
+        return targetRole;
+    }
+
+    public Long getBroadcastNotificationId() {
+        return broadcastNotificationId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.wastecollect.backend.service.push;
+
+import com.wastecollect.common.dto.NotificationDTO;
+
+/**
+ * Published when a personal notification row has been written for a user.
+ * Delivered to the recipient's live streams once the writing transaction commits.
+ */
+public class NotificationCreatedEvent {
+
+    private final NotificationDTO notification;
+
+    public NotificationCreatedEvent(NotificationDTO notification) {
+        this.notification = notification;
+    }
+
+    public NotificationDTO getNotification() {
+        return notification;
+    }
+}
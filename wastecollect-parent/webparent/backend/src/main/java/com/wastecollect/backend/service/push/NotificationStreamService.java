@@ -0,0 +1,405 @@
+package com.wastecollect.backend.service.push;
+
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.common.dto.NotificationDTO;
+import com.wastecollect.common.models.User;
+import com.wastecollect.common.utils.NotificationType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Server-Sent Events push channel: one stream per connected client, fed by the in-process events published
+ * when notifications are written or service requests change status.
+ * <ul>
+ *   <li>Events are only pushed after the publishing transaction commits, so clients never see rolled-back data.</li>
+ *   <li>Each connection has a bounded queue drained by a small sender pool. A client that cannot keep up loses
+ *       its queued events and receives a single {@code resync} event instead, telling it to reload once.</li>
+ *   <li>Recent events are kept in per-user (and per-audience) replay buffers. A client reconnecting with
+ *       {@code Last-Event-ID} gets what it missed, or {@code resync} when the gap is no longer in the buffer.</li>
+ *   <li>A heartbeat comment keeps idle connections open through proxies and detects dead clients.</li>
+ * </ul>
+ * Event IDs grow across restarts (they start from the current time), so IDs from a previous process are
+ * recognized and answered with {@code resync}.
+ */
+@Service
+public class NotificationStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    static final String EVENT_NOTIFICATION = "notification";
+    static final String EVENT_ALERT = "alert";
+    static final String EVENT_BROADCAST = "broadcast";
+    static final String EVENT_SERVICE_REQUEST = "service-request";
+    static final String EVENT_RESYNC = "resync";
+
+    private static final String COLLECTOR_ROLE = "COLLECTOR";
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Value("${app.push.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.push.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.push.replay-size:100}")
+    private int replaySize;
+
+    @Value("${app.push.replay-ttl-ms:600000}")
+    private long replayTtlMs;
+
+    @Value("${app.push.reconnect-ms:3000}")
+    private long reconnectMs;
+
+    @Value("${app.push.sender-threads:4}")
+    private int senderThreads;
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final long firstEventId = sequence.get() + 1;
+
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, ReplayBuffer> userReplay = new ConcurrentHashMap<>();
+    private ReplayBuffer audienceReplay;
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        audienceReplay = new ReplayBuffer(replaySize);
+        AtomicInteger threadCount = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        subscriptions.values().forEach(set -> set.forEach(subscription -> subscription.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    /**
+     * Opens a stream for a user.
+     *
+     * @param user        The authenticated user.
+     * @param lastEventId The {@code Last-Event-ID} sent by a reconnecting client, or null.
+     * @return The emitter to return from the controller.
+     */
+    public SseEmitter subscribe(User user, String lastEventId) {
+        Set<String> roles = user.getRoles().stream().map(role -> role.getName().name()).collect(Collectors.toSet());
+        Subscription subscription = new Subscription(user.getId(), roles, new SseEmitter(emitterTimeoutMs));
+        subscription.emitter.onCompletion(() -> unregister(subscription));
+        subscription.emitter.onTimeout(() -> unregister(subscription));
+        subscription.emitter.onError(error -> unregister(subscription));
+
+        // Registered and replayed under the subscription's lock: live events wait and are deduplicated by ID
+        synchronized (subscription) {
+            subscriptions.computeIfAbsent(user.getId(), id -> ConcurrentHashMap.newKeySet()).add(subscription);
+            subscription.offer(PushEvent.comment("connected"));
+            Long resumeFrom = parseEventId(lastEventId);
+            if (resumeFrom != null) {
+                replay(subscription, resumeFrom);
+            }
+        }
+        logger.debug("SSE stream opened for user ID: {} (last event ID: {}).", user.getId(), lastEventId);
+        return subscription.emitter;
+    }
+
+    /**
+     * Number of open streams, for monitoring.
+     */
+    public int getConnectionCount() {
+        return subscriptions.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        NotificationDTO notification = event.getNotification();
+        String name = notification.getNotificationType() == NotificationType.ALERT ? EVENT_ALERT : EVENT_NOTIFICATION;
+        publishToUser(notification.getRecipientId(), name, notification);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAudienceNotification(AudienceNotificationEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("subject", event.getSubject());
+        data.put("notificationType", event.getNotificationType());
+        data.put("broadcastNotificationId", event.getBroadcastNotificationId());
+        publishToAudience(event, EVENT_BROADCAST, data);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServiceRequestChanged(ServiceRequestChangedEvent event) {
+        Long householdId = event.getHouseholdId();
+        Long collectorId = event.getCollectorId();
+        if (householdId == null || collectorId == null) {
+            // One indexed lookup of two foreign keys; the request graph is not loaded
+            ServiceRequestRepository.TransitionView view =
+                    serviceRequestRepository.findTransitionViewById(event.getServiceRequestId()).orElse(null);
+            if (view != null) {
+                householdId = householdId != null ? householdId : view.getHouseholdId();
+                collectorId = collectorId != null ? collectorId : view.getCollectorId();
+            }
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("serviceRequestId", event.getServiceRequestId());
+        data.put("status", event.getStatus());
+
+        if (householdId != null) {
+            publishToUser(householdId, EVENT_SERVICE_REQUEST, data);
+        }
+        if (event.isPendingPoolChanged()) {
+            // Every collector's list of open requests changed; the assigned collector is a collector too
+            publishToAudience(new AudienceNotificationEvent(null, null, COLLECTOR_ROLE, null, null, null, null),
+                    EVENT_SERVICE_REQUEST, data);
+        } else if (collectorId != null) {
+            publishToUser(collectorId, EVENT_SERVICE_REQUEST, data);
+        }
+    }
+
+    /**
+     * Keeps idle connections alive, and drops replay buffers nobody can resume from anymore.
+     */
+    @Scheduled(fixedDelayString = "${app.push.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(set -> set.forEach(subscription -> subscription.offer(PushEvent.comment("heartbeat"))));
+        long expiredBefore = System.currentTimeMillis() - replayTtlMs;
+        userReplay.entrySet().removeIf(entry -> entry.getValue().lastAppendMillis() < expiredBefore
+                && !subscriptions.containsKey(entry.getKey()));
+    }
+
+    private void publishToUser(Long userId, String name, Object data) {
+        if (userId == null) {
+            return;
+        }
+        PushEvent event = new PushEvent(sequence.incrementAndGet(), name, data, null);
+        userReplay.computeIfAbsent(userId, id -> new ReplayBuffer(replaySize)).append(event);
+        Set<Subscription> targets = subscriptions.get(userId);
+        if (targets != null) {
+            targets.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    private void publishToAudience(AudienceNotificationEvent audience, String name, Object data) {
+        PushEvent event = new PushEvent(sequence.incrementAndGet(), name, data, audience);
+        audienceReplay.append(event);
+        subscriptions.values().forEach(set -> set.forEach(subscription -> {
+            if (audience.matches(subscription.userId, subscription.roles)) {
+                subscription.offer(event);
+            }
+        }));
+    }
+
+    private void replay(Subscription subscription, long lastEventId) {
+        if (lastEventId < firstEventId - 1) {
+            subscription.offer(PushEvent.resync(sequence.get()));
+            return;
+        }
+        ReplayBuffer userBuffer = userReplay.get(subscription.userId);
+        List<PushEvent> missed = new ArrayList<>();
+        List<PushEvent> userEvents = userBuffer != null ? userBuffer.after(lastEventId) : List.of();
+        List<PushEvent> audienceEvents = audienceReplay.after(lastEventId);
+        if (userEvents == null || audienceEvents == null) {
+            subscription.offer(PushEvent.resync(sequence.get()));
+            return;
+        }
+        missed.addAll(userEvents);
+        audienceEvents.stream()
+                .filter(event -> event.audience.matches(subscription.userId, subscription.roles))
+                .forEach(missed::add);
+        missed.sort(Comparator.comparingLong(event -> event.id));
+        missed.forEach(subscription::offer);
+    }
+
+    private void unregister(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0L; // Unknown origin: answered with a resync
+        }
+    }
+
+    /**
+     * One event as queued for sending. Comments (heartbeats) have no ID and are never replayed.
+     */
+    private static final class PushEvent {
+        private final Long id;
+        private final String name;
+        private final Object data;
+        private final AudienceNotificationEvent audience;
+
+        private PushEvent(Long id, String name, Object data, AudienceNotificationEvent audience) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+            this.audience = audience;
+        }
+
+        static PushEvent comment(String text) {
+            return new PushEvent(null, null, text, null);
+        }
+
+        static PushEvent resync(long id) {
+            return new PushEvent(id, EVENT_RESYNC, Map.of("reason", "events-lost"), null);
+        }
+
+        boolean isComment() {
+            return id == null;
+        }
+    }
+
+    /**
+     * Bounded buffer of the most recent events, remembering the highest ID it had to drop.
+     */
+    private static final class ReplayBuffer {
+        private final int capacity;
+        private final Deque<PushEvent> events = new ArrayDeque<>();
+        private long evictedUpTo = 0;
+        private volatile long lastAppendMillis = System.currentTimeMillis();
+
+        private ReplayBuffer(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void append(PushEvent event) {
+            if (events.size() >= capacity) {
+                evictedUpTo = Math.max(evictedUpTo, events.pollFirst().id);
+            }
+            events.addLast(event);
+            lastAppendMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * @return The events after the given ID, or null if some of them were already evicted.
+         */
+        synchronized List<PushEvent> after(long lastEventId) {
+            if (lastEventId < evictedUpTo) {
+                return null;
+            }
+            return events.stream().filter(event -> event.id > lastEventId).collect(Collectors.toList());
+        }
+
+        long lastAppendMillis() {
+            return lastAppendMillis;
+        }
+    }
+
+    /**
+     * One open stream with its bounded send queue.
+     */
+    private final class Subscription {
+        private final Long userId;
+        private final Set<String> roles;
+        private final SseEmitter emitter;
+        private final Deque<PushEvent> queue = new ArrayDeque<>();
+        private long highestQueuedId = 0;
+        private boolean draining = false;
+        private boolean firstEvent = true;
+
+        private Subscription(Long userId, Set<String> roles, SseEmitter emitter) {
+            this.userId = userId;
+            this.roles = roles;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(PushEvent event) {
+            if (!event.isComment()) {
+                if (event.id <= highestQueuedId) {
+                    return; // Already queued by the replay
+                }
+                highestQueuedId = event.id;
+            }
+            if (queue.size() >= queueCapacity) {
+                // The client is too slow: drop what it has not received and ask it to reload once
+                queue.clear();
+                queue.addLast(PushEvent.resync(highestQueuedId));
+                logger.warn("SSE queue overflow for user ID: {}; sending resync.", userId);
+                if (event.isComment()) {
+                    return;
+                }
+            } else {
+                queue.addLast(event);
+            }
+            if (!draining) {
+                draining = true;
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                PushEvent event;
+                boolean withReconnect;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                    withReconnect = firstEvent;
+                    firstEvent = false;
+                }
+                try {
+                    emitter.send(toSse(event, withReconnect));
+                } catch (IOException | IllegalStateException e) {
+                    logger.debug("SSE stream closed for user ID: {}: {}", userId, e.getMessage());
+                    synchronized (this) {
+                        queue.clear();
+                        draining = false;
+                    }
+                    unregister(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toSse(PushEvent event, boolean withReconnect) {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (withReconnect) {
+                builder.reconnectTime(reconnectMs);
+            }
+            if (event.isComment()) {
+                return builder.comment(String.valueOf(event.data));
+            }
+            return builder.id(String.valueOf(event.id)).name(event.name).data(event.data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
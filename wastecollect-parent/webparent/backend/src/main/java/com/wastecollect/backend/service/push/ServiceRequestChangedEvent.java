@@ -0,0 +1,67 @@
+package com.wastecollect.backend.service.push;
+
+import com.wastecollect.common.utils.ServiceRequestStatus;
+
+/**
+ * Published when a service request is created or changes status.
+ * The household and the assigned collector are pushed; connected collectors are also pushed when the pool of
+ * pending requests changed, which is what their service request list shows.
+ */
+public class ServiceRequestChangedEvent {
+
+    private final Long serviceRequestId;
+    private final ServiceRequestStatus status;
+    private final Long householdId;
+    private final Long collectorId;
+    private final Long previousCollectorId;
+    private final boolean pendingPoolChanged;
+
+    /**
+     * @param serviceRequestId   The service request ID.
+     * @param status             The new status.
+     * @param householdId        The requesting household, or null if unknown to the publisher.
+     * @param collectorId        The acting or assigned collector, or null.
+     * @param pendingPoolChanged Whether the request entered or left the PENDING status.
+     */
+    public ServiceRequestChangedEvent(Long serviceRequestId, ServiceRequestStatus status, Long householdId,
+                                      Long collectorId, boolean pendingPoolChanged) {
+        this(serviceRequestId, status, householdId, collectorId, null, pendingPoolChanged);
+    }
+
+    /**
+     * @param previousCollectorId The collector the request was taken from by a reassignment, or null.
+     */
+    public ServiceRequestChangedEvent(Long serviceRequestId, ServiceRequestStatus status, Long householdId,
+                                      Long collectorId, Long previousCollectorId, boolean pendingPoolChanged) {
+        this.serviceRequestId = serviceRequestId;
+        this.status = status;
+        this.householdId = householdId;
+        this.collectorId = collectorId;
+        this.previousCollectorId = previousCollectorId;
+        this.pendingPoolChanged = pendingPoolChanged;
+    }
+
+    public Long getServiceRequestId() {
+        return serviceRequestId;
+    }
+
+    public ServiceRequestStatus getStatus() {
+        return status;
+    }
+
+    public Long getHouseholdId() {
+        return householdId;
+    }
+
+    public Long getCollectorId() {
+        return collectorId;
+    }
+
+    public Long getPreviousCollectorId() {
+        return previousCollectorId;
+    }
+
+    public boolean isPendingPoolChanged() {
+        return pendingPoolChanged;
+    }
+}
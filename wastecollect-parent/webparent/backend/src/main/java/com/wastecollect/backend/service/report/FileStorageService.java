@@ -5,10 +5,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for handling file storage operations.
@@ -19,11 +26,44 @@ import java.nio.file.StandardCopyOption;
 public interface FileStorageService {
     String saveFile(byte[] content, String fileName) throws IOException;
     byte[] downloadFile(String filePath) throws IOException;
+
+    /**
+     * Resolves a stored file so that it can be streamed instead of loaded with {@link #downloadFile(String)}.
+     *
+     * @throws IOException if the file does not exist or is not readable.
+     */
+    Path resolveFile(String filePath) throws IOException;
+
+    /**
+     * Creates an empty work file inside the storage area, so a generated file can be written progressively
+     * and then published with {@link #saveContent(Path, String)} without being copied.
+     */
+    Path createTempFile(String suffix) throws IOException;
+
+    /**
+     * Stores a work file created by {@link #createTempFile(String)} under the hash of its content (SHA-256). If the
+     * same content is already stored, the work file is dropped and the existing file is shared.
+     *
+     * @param extension The file extension, without the dot.
+     * @return The stored file path.
+     */
+    String saveContent(Path source, String extension) throws IOException;
+
+    /**
+     * Lists every file of the storage area, work files included.
+     */
+    List<Path> listFiles() throws IOException;
+
+    /**
+     * Deletes a stored file. Does nothing if the file does not exist.
+     */
+    void deleteFile(String filePath) throws IOException;
 }
 
 @Service
 class LocalFileStorageService implements FileStorageService {
     private static final Logger logger = LoggerFactory.getLogger(LocalFileStorageService.class);
+    private static final String BLOBS = "blobs";
     private final Path fileStorageLocation;
 
     public LocalFileStorageService(@Value("${file.upload-dir}") String uploadDir) {
@@ -43,6 +83,70 @@ class LocalFileStorageService implements FileStorageService {
         return targetLocation.toString();
     }
 
+    @Override
+    public Path createTempFile(String suffix) throws IOException {
+        return Files.createTempFile(this.fileStorageLocation, "work-", suffix);
+    }
+
+    @Override
+    public String saveContent(Path source, String extension) throws IOException {
+        String hash = sha256(source);
+        // Two-character fan-out keeps directories small
+        Path targetLocation = this.fileStorageLocation.resolve(BLOBS).resolve(hash.substring(0, 2)).resolve(hash + "." + extension);
+        if (Files.exists(targetLocation)) {
+            // The stored file is left untouched: its modification time is what downloads are validated against.
+            // The report that shares it records the use in the database once it is completed.
+            Files.delete(source);
+            logger.info("Content already stored at local path: {}", targetLocation);
+            return targetLocation.toString();
+        }
+        Files.createDirectories(targetLocation.getParent());
+        // Same file system, so the move is a rename: readers never see a partially written file
+        Files.move(source, targetLocation, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Saved file to local path: {}", targetLocation);
+        return targetLocation.toString();
+    }
+
+    @Override
+    public List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(this.fileStorageLocation)) {
+            return files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public Path resolveFile(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new IOException("File not found or is not readable: " + filePath);
+        }
+        return path;
+    }
+
+    @Override
+    public void deleteFile(String filePath) throws IOException {
+        if (Files.deleteIfExists(Paths.get(filePath))) {
+            logger.info("Deleted file at local path: {}", filePath);
+        }
+    }
+
     @Override
     public byte[] downloadFile(String filePath) throws IOException {
         Path path = Paths.get(filePath);
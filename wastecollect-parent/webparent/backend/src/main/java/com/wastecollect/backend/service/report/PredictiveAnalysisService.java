@@ -1,14 +1,18 @@
 package com.wastecollect.backend.service.report;
 
+import com.wastecollect.backend.repository.MunicipalityRepository;
 import com.wastecollect.backend.repository.ServiceRequestRepository;
-import com.wastecollect.common.models.ServiceRequest;
+import com.wastecollect.backend.service.forecast.WasteForecastService;
+import com.wastecollect.backend.service.heatmap.DemandHeatmapService;
+import com.wastecollect.backend.service.routing.RoutePlanningService;
+import com.wastecollect.common.models.Municipality;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -22,60 +26,90 @@ import java.util.stream.Collectors;
 public class PredictiveAnalysisService {
 
     private final ServiceRequestRepository serviceRequestRepository;
+    private final RoutePlanningService routePlanningService;
+    private final WasteForecastService wasteForecastService;
+    private final DemandHeatmapService demandHeatmapService;
+    private final MunicipalityRepository municipalityRepository;
 
     /**
      * Constructs a PredictiveAnalysisService with the necessary repository.
      * @param serviceRequestRepository Repository for ServiceRequest entities.
+     * @param routePlanningService Route optimizer for the collectors' current requests.
+     * @param wasteForecastService Seasonal forecasts of the collected weight.
+     * @param demandHeatmapService Requests per area over the recent days.
+     * @param municipalityRepository Repository for Municipality entities.
      */
-    public PredictiveAnalysisService(ServiceRequestRepository serviceRequestRepository) {
+    public PredictiveAnalysisService(ServiceRequestRepository serviceRequestRepository,
+                                     RoutePlanningService routePlanningService,
+                                     WasteForecastService wasteForecastService,
+                                     DemandHeatmapService demandHeatmapService,
+                                     MunicipalityRepository municipalityRepository) {
         this.serviceRequestRepository = serviceRequestRepository;
+        this.routePlanningService = routePlanningService;
+        this.wasteForecastService = wasteForecastService;
+        this.demandHeatmapService = demandHeatmapService;
+        this.municipalityRepository = municipalityRepository;
     }
 
     /**
      * Performs a predictive analysis for waste management, including:
      * 1. Predicting next week's waste volume.
      * 2. Identifying high-demand areas.
-     * 3. Suggesting (mocked) optimal collection routes.
+     * 3. Optimizing the routes of the collectors over the requests they hold.
      *
      * @param config A map for configuration parameters. Can be extended to
-     * allow dynamic adjustment of prediction periods, etc.
+     * allow dynamic adjustment of prediction periods, etc. "vehicleCapacity" sets
+     * the volume a collector can carry before unloading (no limit if 0).
      * @return A Map containing the results of the predictive analysis.
      */
     public Map<String, Object> getWastePredictionAnalysis(Map<String, Object> config) {
         Map<String, Object> analysisResult = new HashMap<>();
 
-        // 1. Predict next week's waste volume (simple historical average)
-        // This prediction is based on the average actual weight collected over the last 4 weeks.
+        // 1. Predict next week's waste volume: sum of the 7-day forecasts of every municipality and waste type
         double prediction = predictNextWeekVolume();
         analysisResult.put("nextWeekWasteVolumePrediction", prediction);
 
-        // 2. Identify high-demand areas (based on last month's service requests)
+        // 2. Identify high-demand areas (based on the service requests of the longest heatmap window)
         // These are municipalities with the highest number of service requests.
         List<String> highDemandAreas = findHighDemandAreas();
         analysisResult.put("highDemandAreas", highDemandAreas);
 
-        // 3. Suggest optimal routes (currently mocked)
-        // In a real application, this would involve a complex Vehicle Routing Problem (VRP)
-        // optimization engine, considering factors like traffic, collector capacity,
-        // and service request locations.
-        analysisResult.put("optimalCollectorRoutes", Arrays.asList(
-            "Route Alpha: Collector 1 -> Households [A, B, C]",
-            "Route Bravo: Collector 2 -> Households [D, E, F]",
-            "Route Charlie: Collector 3 -> Households [G, H, I]" // Added one more for illustrative purposes
-        ));
+        // 3. Optimize the route of each collector over its accepted and in-progress requests
+        Map<String, Object> routing = routePlanningService.planCollectorRoutes(vehicleCapacity(config));
+        analysisResult.put("optimalCollectorRoutes", routing.get("routes"));
+        analysisResult.put("unroutedRequests", routing.get("unroutedRequests"));
 
         return analysisResult;
     }
 
+    private static Double vehicleCapacity(Map<String, Object> config) {
+        Object value = config != null ? config.get("vehicleCapacity") : null;
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return Double.parseDouble(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
-     * Predicts the total waste volume for the next week based on the average
-     * actual weight collected in completed service requests over the past four weeks.
-     * Assumes actual weight data is associated with 'WasteCollection' entities
-     * which are linked to completed service requests.
+     * Predicts the total waste volume for the next week from the seasonal forecasts of every
+     * municipality and waste type. Until the forecasting models have enough history (two weeks),
+     * falls back to the average weekly weight collected over the past four weeks.
      *
      * @return The predicted weekly waste volume in a double format.
      */
     private double predictNextWeekVolume() {
+        Double forecast = wasteForecastService.getTotalForecast(7);
+        if (forecast != null) {
+            return forecast;
+        }
+
         // Define the time window for historical data: last 4 weeks
         LocalDateTime fourWeeksAgo = LocalDateTime.now().minusWeeks(4);
         LocalDateTime now = LocalDateTime.now();
@@ -94,38 +128,22 @@ public class PredictiveAnalysisService {
     }
 
     /**
-     * Identifies the top 3 high-demand areas (municipalities) based on the
-     * number of service requests created in the last month.
+     * Identifies the top 3 high-demand areas (municipalities) based on the number of
+     * service requests created over the longest window of the demand heatmap (30 days by default).
      *
      * @return A list of municipality names representing the high-demand areas.
      */
     private List<String> findHighDemandAreas() {
-        // Define the time window for recent requests: last month
-        LocalDateTime oneMonthAgo = LocalDateTime.now().minusMonths(1);
-
-        // Fetch all service requests created after 'oneMonthAgo'
-        // Note: For very large datasets, consider a more targeted query if available,
-        // e.g., finding distinct municipalities with counts directly in the database.
-        List<ServiceRequest> recentRequests = serviceRequestRepository.findByCreatedAtAfter(oneMonthAgo);
-
-        // Group requests by municipality name and count them, then sort to find top 3
-        return recentRequests.stream()
-            // Filter out requests without a household or municipality assigned
-            .filter(req -> req.getHousehold() != null && req.getHousehold().getMunicipality() != null)
-            // Group by municipality name and count occurrences
-            .collect(Collectors.groupingBy(
-                req -> req.getHousehold().getMunicipality().getMunicipalityName(),
-                Collectors.counting()
-            ))
-            // Convert to a stream of Map entries
-            .entrySet().stream()
-            // Sort entries in descending order based on the count (value)
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            // Limit to the top 3 high-demand areas
-            .limit(3)
-            // Map back to just the municipality names
-            .map(Map.Entry::getKey)
-            // Collect the results into a List
-            .collect(Collectors.toList());
+        List<Long> municipalityIds = demandHeatmapService.getTopMunicipalities(demandHeatmapService.getLongestWindowDays(), 3);
+        if (municipalityIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> names = municipalityRepository.findAllById(municipalityIds).stream()
+                .collect(Collectors.toMap(Municipality::getId, Municipality::getMunicipalityName));
+        // Keep the heatmap's order
+        return municipalityIds.stream()
+                .map(names::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,259 @@
+package com.wastecollect.backend.service.report;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.backend.repository.ReportRepository;
+import com.wastecollect.common.dto.report.ReportConfigDTO;
+import com.wastecollect.common.models.Report;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reuses generated reports and bounds the disk space they take.
+ * <p>
+ * A report is identified by the SHA-256 of its canonical configuration (type, format, period or dates, filters;
+ * the title is left out since it is not part of the file) and by its data watermark: the latest
+ * {@code last_modified} of the tables it reads, which MySQL maintains on every insert and update, with their total
+ * row count, which changes when rows are deleted or archived (a deletion leaves no {@code last_modified} behind; a
+ * deletion and an insertion together move the timestamp). A request whose key and watermark match a completed report gets that report back instead of a new generation, and a request matching a
+ * report still being generated joins it. Reports over a period relative to now ("monthly"...) only match while
+ * younger than {@code app.reports.cache.relative-ttl-minutes}, since their window moves even when the data does not.
+ * <p>
+ * Files are evicted least recently used first once the stored reports exceed {@code app.reports.storage.max-bytes},
+ * or when unused for {@code app.reports.storage.max-idle-days}; their reports become "expired". Work files and
+ * stored files no report refers to are removed after a grace period.
+ */
+@Service
+public class ReportCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCacheService.class);
+
+    private static final List<String> REUSABLE_STATUSES = List.of("completed", "pending", "processing");
+
+    // Watermark of reports whose source tables are all empty
+    private static final LocalDateTime EMPTY_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportQueries reportQueries;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.reports.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reports.cache.relative-ttl-minutes:60}")
+    private long relativeTtlMinutes;
+
+    @Value("${app.reports.storage.max-bytes:10737418240}")
+    private long maxBytes;
+
+    @Value("${app.reports.storage.max-idle-days:30}")
+    private long maxIdleDays;
+
+    @Value("${app.reports.storage.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    /**
+     * Cache key and data watermark of a requested report, and the existing report that can be returned for it.
+     *
+     * @param reusable A completed report, or one still being generated, with the same key and watermark; null if none.
+     */
+    public record Lookup(String cacheKey, DataWatermark watermark, Report reusable) {
+    }
+
+    /**
+     * State of the source tables of a report: their latest modification and their total number of rows.
+     */
+    public record DataWatermark(LocalDateTime lastModified, long rows) {
+    }
+
+    /**
+     * Validates a report configuration and looks for an existing report that answers it.
+     *
+     * @throws RequestValidationException if the type, period, dates or format are not supported.
+     */
+    public Lookup lookup(ReportConfigDTO config) {
+        ReportFormat format;
+        ReportQueries.ReportDefinition definition;
+        try {
+            format = ReportFormat.from(config.getFormat());
+            definition = reportQueries.build(config);
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException(e.getMessage());
+        }
+        boolean relative = !hasExplicitDates(config);
+        String cacheKey = cacheKey(config, definition, format, relative);
+        DataWatermark watermark = watermark(definition);
+        if (!enabled) {
+            return new Lookup(cacheKey, watermark, null);
+        }
+
+        Report reusable = reportRepository
+                .findFirstByCacheKeyAndDataWatermarkAndDataRowsAndStatusInOrderByIdDesc(cacheKey, watermark.lastModified(),
+                        watermark.rows(), REUSABLE_STATUSES)
+                .filter(report -> !relative || report.getGeneratedDate().isAfter(LocalDateTime.now().minusMinutes(relativeTtlMinutes)))
+                .filter(this::fileAvailable)
+                .orElse(null);
+        if (reusable != null) {
+            logger.info("Report request matches report ID: {} ({}), reusing it.", reusable.getId(), reusable.getStatus());
+            reportRepository.markAccessed(reusable.getId(), LocalDateTime.now());
+        }
+        return new Lookup(cacheKey, watermark, reusable);
+    }
+
+    /**
+     * Latest modification and row count of the source tables of a report. Inside the generation's read-only
+     * transaction this is the first read, so it describes the same snapshot as the rows of the report. The count
+     * scans the smallest index of each table; the hot tables stay bounded by the archiving.
+     */
+    DataWatermark watermark(ReportQueries.ReportDefinition definition) {
+        String sql = definition.sourceTables().stream()
+                .map(table -> "SELECT MAX(last_modified) AS last_modified, COUNT(*) AS row_count FROM " + table)
+                .collect(Collectors.joining(" UNION ALL ",
+                        "SELECT MAX(last_modified) AS last_modified, SUM(row_count) AS row_count FROM (", ") watermarks"));
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> {
+            LocalDateTime lastModified = rs.getObject("last_modified", LocalDateTime.class);
+            return new DataWatermark(lastModified != null ? lastModified : EMPTY_WATERMARK, rs.getLong("row_count"));
+        });
+    }
+
+    /**
+     * Evicts stored reports beyond the size and idle limits and removes files no report refers to.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.storage.eviction-ms:600000}")
+    public void evict() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Set<String> referenced = new HashSet<>(reportRepository.findStoredFilePaths());
+            removeOrphans(referenced);
+
+            // Least recently used first
+            List<Object[]> files = reportRepository.findStoredFilesByLastUse();
+            long total = 0;
+            for (Object[] file : files) {
+                total += sizeOf((String) file[0]);
+            }
+            LocalDateTime idleCutoff = now.minusDays(maxIdleDays);
+            int evicted = 0;
+            for (Object[] file : files) {
+                String path = (String) file[0];
+                LocalDateTime lastUse = (LocalDateTime) file[1];
+                if (total <= maxBytes && lastUse != null && lastUse.isAfter(idleCutoff)) {
+                    break;
+                }
+                if (storedRecently(path)) {
+                    // A generation may just have been given this file for identical content
+                    continue;
+                }
+                long size = sizeOf(path);
+                int expired = reportRepository.expireByFilePath(path, now);
+                fileStorageService.deleteFile(path);
+                total -= size;
+                evicted++;
+                logger.info("Evicted report file {} ({} bytes, last used {}, {} reports expired).", path, size, lastUse, expired);
+            }
+            if (evicted > 0) {
+                logger.info("Report storage eviction: {} files evicted, {} bytes remain.", evicted, total);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Report storage eviction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void removeOrphans(Set<String> referenced) throws IOException {
+        long graceCutoff = System.currentTimeMillis() - orphanGraceMinutes * 60_000;
+        for (Path file : fileStorageService.listFiles()) {
+            String name = file.getFileName().toString();
+            // Only work files and content-addressed files (blobs/xx/hash.ext); anything else is left alone
+            Path fanOut = file.getParent() != null ? file.getParent().getParent() : null;
+            boolean managed = name.startsWith("work-") || fanOut != null && fanOut.endsWith("blobs");
+            if (!managed || referenced.contains(file.toString())) {
+                continue;
+            }
+            // Recent files may belong to a report about to be saved
+            if (Files.getLastModifiedTime(file).toMillis() < graceCutoff) {
+                fileStorageService.deleteFile(file.toString());
+            }
+        }
+    }
+
+    private boolean fileAvailable(Report report) {
+        if (!"completed".equals(report.getStatus())) {
+            return true;
+        }
+        try {
+            fileStorageService.resolveFile(report.getFilePath());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("File of report ID: {} is missing, expiring the report.", report.getId());
+            if (report.getFilePath() != null) {
+                reportRepository.expireByFilePath(report.getFilePath(), LocalDateTime.now());
+            }
+            return false;
+        }
+    }
+
+    private boolean storedRecently(String path) {
+        try {
+            return Files.getLastModifiedTime(Path.of(path)).toMillis() > System.currentTimeMillis() - orphanGraceMinutes * 60_000;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long sizeOf(String path) {
+        try {
+            return Files.size(Path.of(path));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String cacheKey(ReportConfigDTO config, ReportQueries.ReportDefinition definition, ReportFormat format,
+                                   boolean relative) {
+        String canonical = "v1"
+                + "|type=" + definition.type()
+                + "|format=" + format.name()
+                + (relative
+                    ? "|period=" + config.getPeriod().trim().toLowerCase(Locale.ROOT)
+                    : "|range=" + definition.start() + ".." + definition.end())
+                + "|municipality=" + (config.getMunicipalityId() != null ? config.getMunicipalityId() : "")
+                + "|collector=" + (config.getCollectorId() != null ? config.getCollectorId() : "");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean hasExplicitDates(ReportConfigDTO config) {
+        return config.getStartDate() != null && !config.getStartDate().isBlank()
+                && config.getEndDate() != null && !config.getEndDate().isBlank();
+    }
+}
@@ -0,0 +1,30 @@
+package com.wastecollect.backend.service.report;
+
+/**
+ * A column of a generated report: its header and how its values are read and written.
+ */
+public record ReportColumn(String header, Type type) {
+
+    public enum Type {
+        TEXT,
+        INTEGER,
+        DECIMAL,
+        DATETIME
+    }
+
+    public static ReportColumn text(String header) {
+        return new ReportColumn(header, Type.TEXT);
+    }
+
+    public static ReportColumn integer(String header) {
+        return new ReportColumn(header, Type.INTEGER);
+    }
+
+    public static ReportColumn decimal(String header) {
+        return new ReportColumn(header, Type.DECIMAL);
+    }
+
+    public static ReportColumn dateTime(String header) {
+        return new ReportColumn(header, Type.DATETIME);
+    }
+}
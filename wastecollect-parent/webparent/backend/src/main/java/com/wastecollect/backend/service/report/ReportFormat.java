@@ -0,0 +1,59 @@
+package com.wastecollect.backend.service.report;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Output formats of generated reports, as sent in {@code ReportConfigDTO.format}.
+ */
+public enum ReportFormat {
+    CSV("csv", "text/csv"),
+    EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String contentType;
+
+    ReportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Resolves a requested format ("csv", "excel" or "xlsx").
+     *
+     * @throws IllegalArgumentException if the format is not supported.
+     */
+    public static ReportFormat from(String format) {
+        String value = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "csv" -> CSV;
+            case "excel", "xlsx" -> EXCEL;
+            default -> throw new IllegalArgumentException("Unsupported report format: " + format + " (supported: csv, excel)");
+        };
+    }
+
+    /**
+     * Media type of a stored report file, from its extension.
+     */
+    public static String contentTypeOf(String fileName) {
+        for (ReportFormat format : values()) {
+            if (fileName.toLowerCase(Locale.ROOT).endsWith("." + format.extension)) {
+                return format.contentType;
+            }
+        }
+        return "application/octet-stream";
+    }
+
+    ReportWriter open(Path file) throws IOException {
+        return this == CSV ? new CsvReportWriter(file) : new XlsxReportWriter(file);
+    }
+}
@@ -2,90 +2,235 @@ package com.wastecollect.backend.service.report;
 
 import com.wastecollect.backend.repository.ReportRepository;
 import com.wastecollect.common.dto.report.ReportConfigDTO;
-import com.wastecollect.common.models.Report;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
- * Handles the logic for asynchronously generating different types of reports.
- * This version is updated to use String-based status fields to align with
- * the provided Report entity.
+ * Generates report files by streaming rows from the database straight into a CSV or XLSX writer on disk.
+ * <p>
+ * Statements run in a read-only transaction (served by the replica when one is configured) with a forward-only
+ * streaming result set, so the driver hands rows over one at a time instead of buffering the whole result. Each
+ * row is written as soon as it is read and nothing is accumulated, so memory stays flat whatever the report size.
+ * The file is written under a temporary name and renamed once complete.
  */
 @Service
 public class ReportGenerationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportGenerationService.class);
 
+    // MySQL Connector/J streams a forward-only, read-only result set row by row when the fetch size is Integer.MIN_VALUE
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
     @Autowired
     private ReportRepository reportRepository;
 
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ReportQueries reportQueries;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
     /**
-     * Asynchronously generates a report.
-     *
-     * @param reportId The ID of the report entity to update.
-     * @param config The configuration for the report.
+     * Generates the report of a job. Called on a worker thread of the {@link ReportJobScheduler}.
+     * <p>
+     * The report is claimed first, so a report already taken by another worker (or cancelled meanwhile) is skipped.
+     * Each status change is conditional on this worker still holding the claim: if the report was cancelled,
+     * re-queued or claimed by another worker during generation, the file is discarded and the report is left to
+     * whoever changed it.
      */
-    @Async("taskExecutor") // Ensure you have a bean named "taskExecutor" configured
-    @Transactional
-    public void generateReportAsync(Long reportId, ReportConfigDTO config) {
-        logger.info("Starting async generation for report ID: {}", reportId);
-
-        Report report = reportRepository.findById(reportId).orElse(null);
-        if (report == null) {
-            logger.error("Cannot generate report. Report with ID {} not found.", reportId);
+    void generate(ReportJob job) {
+        Long reportId = job.getReportId();
+        String token = job.getClaimToken();
+        if (reportRepository.claim(reportId, token, LocalDateTime.now()) == 0) {
+            logger.info("Report ID: {} is no longer pending, skipping generation.", reportId);
             return;
         }
+        job.markClaimed();
+        logger.info("Starting generation for report ID: {}", reportId);
 
-        // 1. Update status to "processing"
-        report.setStatus("processing");
-        reportRepository.saveAndFlush(report);
-
+        Path workFile = null;
         try {
-            // Simulate processing time
-            Thread.sleep(5000 + new Random().nextInt(5000));
-
-            // 2. Generate the report content
-            byte[] reportContent = createReportContent(config);
-
-            // 3. Store the generated file
-            String fileName = String.format("report-%d-%s.%s", report.getId(), config.getType(), config.getFormat());
-            String filePath = fileStorageService.saveFile(reportContent, fileName);
-            
-            // 4. Update the report entity to "completed"
-            report.setStatus("completed");
-            report.setFilePath(filePath);
-            report.setFileSize(formatFileSize(reportContent.length));
-            logger.info("Successfully generated and stored report ID: {}. Path: {}", reportId, filePath);
+            ReportQueries.ReportDefinition definition = reportQueries.build(job.getConfig());
+            ReportFormat format = ReportFormat.from(job.getConfig().getFormat());
+            long startedAt = System.currentTimeMillis();
+
+            // 1. Stream the rows into a work file
+            workFile = fileStorageService.createTempFile("." + format.getExtension());
+            ReportCacheService.DataWatermark[] watermark = new ReportCacheService.DataWatermark[1];
+            long rows = write(definition, format, workFile, job, watermark);
+            long size = Files.size(workFile);
+
+            // 2. Store the file under the hash of its content, shared with any identical report
+            String filePath = fileStorageService.saveContent(workFile, format.getExtension());
+            workFile = null;
 
+            // 3. Mark the report as completed, unless the claim was lost meanwhile
+            if (reportRepository.markCompleted(reportId, token, filePath, formatFileSize(size),
+                    watermark[0].lastModified(), watermark[0].rows(), LocalDateTime.now()) == 0) {
+                throw new CancellationException();
+            }
+            // A shared file may have been evicted between the deduplication and the completion: the report is then
+            // expired rather than left pointing at nothing, and is generated again on the next request
+            try {
+                fileStorageService.resolveFile(filePath);
+            } catch (IOException e) {
+                logger.warn("File of report ID: {} was evicted while the report was being completed.", reportId);
+                reportRepository.expireByFilePath(filePath, LocalDateTime.now());
+                return;
+            }
+            logger.info("Successfully generated report ID: {} ({} rows, {}) in {} ms. Path: {}",
+                    reportId, rows, formatFileSize(size), System.currentTimeMillis() - startedAt, filePath);
+
+        } catch (CancellationException e) {
+            // Cancelled, re-queued or claimed by another worker: the status already says so and is not ours to change
+            logger.info("Generation of report ID: {} stopped, the claim was cancelled or lost.", reportId);
+            // A stored file may be shared with other reports: if unused it is removed by the storage eviction
+            deleteQuietly(workFile);
         } catch (Exception e) {
             logger.error("Failed to generate report ID: {}", reportId, e);
-            // 5. Update the report entity to "failed"
-            report.setStatus("failed");
-            // Optionally store the failure reason if you add the field to your Report entity.
-            // report.setFailureReason(e.getMessage()); 
-        } finally {
-            reportRepository.save(report);
+            if (reportRepository.finishClaimed(reportId, token, "failed", LocalDateTime.now()) == 0) {
+                logger.info("Report ID: {} is no longer claimed by this worker, leaving its status.", reportId);
+            }
+            deleteQuietly(workFile);
+        }
+    }
+
+    /**
+     * Runs the statements of a report and writes every row to the file, publishing the progress on the job. The data
+     * watermark is read first in the same transaction, so it matches the snapshot the rows come from.
+     *
+     * @return The number of data rows written.
+     * @throws CancellationException if the job was cancelled during generation.
+     */
+    private long write(ReportQueries.ReportDefinition definition, ReportFormat format, Path file, ReportJob job,
+                       ReportCacheService.DataWatermark[] watermark) throws IOException {
+        List<ReportColumn> columns = definition.columns();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        try (ReportWriter writer = format.open(file)) {
+            writer.writeHeader(columns);
+            long[] rows = {0L};
+            // Reused for every row: the writer consumes the values before the next row is read
+            Object[] values = new Object[columns.size()];
+            readOnly.executeWithoutResult(status -> {
+                watermark[0] = reportCacheService.watermark(definition);
+                ProgressEstimator progress = progressEstimator(definition);
+                for (String sql : definition.statements()) {
+                    streamingJdbcTemplate.query(sql, definition.params(), rs -> {
+                        if (job.isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        readRow(rs, columns, values);
+                        try {
+                            writer.writeRow(values);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                        job.setProgress(progress.percent(rows[0], values));
+                    });
+                }
+            });
+            return rows[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
-    
-    private byte[] createReportContent(ReportConfigDTO config) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        String content = String.format("--- %s ---\nPeriod: %s\nGenerated at: %s",
-                config.getTitle(), config.getPeriod(), LocalDateTime.now());
-        outputStream.write(content.getBytes());
-        return outputStream.toByteArray();
+
+    /**
+     * Percentage done after a row, capped at 99 until the report is completed.
+     */
+    @FunctionalInterface
+    private interface ProgressEstimator {
+        int percent(long rows, Object[] row);
+    }
+
+    private ProgressEstimator progressEstimator(ReportQueries.ReportDefinition definition) {
+        if (definition.progressColumn() >= 0) {
+            // Rows come in date order: the position of the current row in the period tells how far along we are
+            long start = definition.start().toEpochSecond(ZoneOffset.UTC);
+            long span = Math.max(1, definition.end().toEpochSecond(ZoneOffset.UTC) - start);
+            int column = definition.progressColumn();
+            return (rows, row) -> row[column] instanceof LocalDateTime date
+                    ? clamp((date.toEpochSecond(ZoneOffset.UTC) - start) * 100 / span)
+                    : 0;
+        }
+        Long total = definition.countStatement() == null ? null
+                : streamingJdbcTemplate.queryForObject(definition.countStatement(), definition.params(), Long.class);
+        long expected = total == null ? 0 : total;
+        return (rows, row) -> expected > 0 ? clamp(rows * 100 / expected) : 0;
+    }
+
+    private static int clamp(long percent) {
+        return (int) Math.max(0, Math.min(99, percent));
+    }
+
+    private static void readRow(ResultSet rs, List<ReportColumn> columns, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            int index = i + 1;
+            values[i] = switch (columns.get(i).type()) {
+                case DATETIME -> {
+                    Timestamp timestamp = rs.getTimestamp(index);
+                    yield timestamp != null ? timestamp.toLocalDateTime() : null;
+                }
+                case INTEGER -> {
+                    long value = rs.getLong(index);
+                    yield rs.wasNull() ? null : value;
+                }
+                case DECIMAL -> rs.getBigDecimal(index);
+                case TEXT -> rs.getString(index);
+            };
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete work file {}: {}", file, e.getMessage());
+        }
     }
 
     private String formatFileSize(long size) {
@@ -95,4 +240,3 @@ public class ReportGenerationService {
         return String.format("%.1f %sB", size / Math.pow(1024, exp), pre);
     }
 }
-
@@ -0,0 +1,86 @@
+package com.wastecollect.backend.service.report;
+
+import com.wastecollect.common.dto.report.ReportConfigDTO;
+
+import java.util.UUID;
+
+/**
+ * A report waiting for or undergoing generation in the {@link ReportJobScheduler}.
+ * <p>
+ * The worker publishes its progress here and checks the cancellation flag between rows; the scheduler persists the
+ * progress on its own thread, so generation never waits on those writes.
+ */
+final class ReportJob {
+
+    private final Long reportId;
+    private final ReportConfigDTO config;
+    private final String user;
+    private final boolean bulk;
+    private final long sequence;
+    // Written with the claim: the worker's writes only apply while the report still carries it
+    private final String claimToken = UUID.randomUUID().toString();
+
+    private volatile int progress;
+    private volatile boolean cancelled;
+    // Set once the worker has moved the report from pending to processing in the database
+    private volatile boolean claimed;
+
+    ReportJob(Long reportId, ReportConfigDTO config, String user, boolean bulk, long sequence) {
+        this.reportId = reportId;
+        this.config = config;
+        this.user = user;
+        this.bulk = bulk;
+        this.sequence = sequence;
+    }
+
+    Long getReportId() {
+        return reportId;
+    }
+
+    ReportConfigDTO getConfig() {
+        return config;
+    }
+
+    String getUser() {
+        return user;
+    }
+
+    /**
+     * Whether the report covers a long period and runs behind interactive reports.
+     */
+    boolean isBulk() {
+        return bulk;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    String getClaimToken() {
+        return claimToken;
+    }
+
+    int getProgress() {
+        return progress;
+    }
+
+    void setProgress(int progress) {
+        this.progress = progress;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    boolean isClaimed() {
+        return claimed;
+    }
+
+    void markClaimed() {
+        this.claimed = true;
+    }
+}
@@ -0,0 +1,351 @@
+package com.wastecollect.backend.service.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wastecollect.backend.exception.ConflictException;
+import com.wastecollect.backend.repository.ReportRepository;
+import com.wastecollect.common.dto.report.ReportConfigDTO;
+import com.wastecollect.common.models.Report;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues report generations and runs them on a small, bounded pool of workers.
+ * <p>
+ * Reports over a short period are interactive and always run before bulk reports (longer than
+ * {@code app.reports.bulk-after-days}); within a class, reports run in submission order. At most
+ * {@code app.reports.max-bulk-running} bulk reports run at once so that they never take every worker, and each
+ * user has at most {@code app.reports.max-running-per-user} reports running: further reports of that user wait
+ * while other users' reports go ahead. The queue holds at most {@code app.reports.max-queued} reports.
+ * <p>
+ * Progress is persisted on the report every {@code app.reports.progress-ms}, which also serves as a heartbeat. A
+ * report still "processing" without a heartbeat for {@code app.reports.stale-after-ms} was abandoned by a crash
+ * and is put back in the queue, as are "pending" reports no worker picked up; the configuration needed to
+ * regenerate them is stored on the report. Workers claim a report before generating it, so a report queued on
+ * several instances is still generated once.
+ */
+@Service
+public class ReportJobScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobScheduler.class);
+
+    // Interactive reports first, then submission order
+    private static final Comparator<ReportJob> PRIORITY = Comparator
+            .comparing(ReportJob::isBulk)
+            .thenComparingLong(ReportJob::getSequence);
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private ReportGenerationService reportGenerationService;
+
+    @Autowired
+    private ReportQueries reportQueries;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.reports.workers:2}")
+    private int workers;
+
+    @Value("${app.reports.max-running-per-user:1}")
+    private int maxRunningPerUser;
+
+    @Value("${app.reports.max-bulk-running:1}")
+    private int maxBulkRunning;
+
+    @Value("${app.reports.max-queued:50}")
+    private int maxQueued;
+
+    @Value("${app.reports.bulk-after-days:31}")
+    private int bulkAfterDays;
+
+    @Value("${app.reports.stale-after-ms:120000}")
+    private long staleAfterMs;
+
+    private ExecutorService executor;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Guards the queue and the running counters
+    private final Object lock = new Object();
+    private final TreeSet<ReportJob> queue = new TreeSet<>(PRIORITY);
+    private final Map<Long, ReportJob> jobs = new HashMap<>();
+    private final Map<Long, ReportJob> running = new HashMap<>();
+    private final Map<String, Integer> runningByUser = new HashMap<>();
+    private int runningBulk;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        // Jobs are only handed over when a worker is free, so the executor's own queue stays empty
+        executor = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Reports being generated stop sending heartbeats and are re-queued after the restart
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks that the queue has room for another report.
+     *
+     * @throws ConflictException if too many reports are already waiting.
+     */
+    public void checkCapacity() {
+        synchronized (lock) {
+            if (queue.size() >= maxQueued) {
+                throw new ConflictException("Too many reports are waiting to be generated (" + queue.size()
+                        + "). Please try again once some of them are done.");
+            }
+        }
+    }
+
+    /**
+     * Serializes a configuration so that it can be stored on its report and used again after a restart.
+     */
+    public String writeConfig(ReportConfigDTO config) {
+        try {
+            return objectMapper.writeValueAsString(config);
+        } catch (Exception e) {
+            throw new IllegalStateException("Report configuration could not be serialized", e);
+        }
+    }
+
+    /**
+     * Queues the generation of a saved report. Inside a transaction the report is queued once it commits, so that
+     * the worker can see it.
+     */
+    public void submit(Long reportId, ReportConfigDTO config, String user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(reportId, config, user);
+                }
+            });
+        } else {
+            enqueue(reportId, config, user);
+        }
+    }
+
+    /**
+     * Cancels a pending or processing report. A queued report is dropped; a report being generated stops at its next
+     * row and its file is discarded.
+     *
+     * @return {@code false} if the report had already reached a final status.
+     */
+    public boolean cancel(Long reportId) {
+        // Written first, so that a worker stopped by the flag below finds the report already cancelled. Also stops a
+        // generation running on another instance, which sees it at its next progress write
+        boolean cancelled = reportRepository.finish(reportId, "cancelled", LocalDateTime.now()) > 0;
+        synchronized (lock) {
+            ReportJob job = jobs.get(reportId);
+            if (job != null) {
+                job.cancel();
+                if (queue.remove(job)) {
+                    jobs.remove(reportId);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Persists the progress of the reports being generated. A report this worker no longer holds the claim of was
+     * cancelled, re-queued or claimed again elsewhere, so its generation is stopped. Jobs handed to a worker that has not
+     * claimed the report yet are skipped: the report is still pending, which says nothing about them.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.progress-ms:2000}")
+    public void persistProgress() {
+        List<ReportJob> snapshot;
+        synchronized (lock) {
+            snapshot = new ArrayList<>(running.values());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (ReportJob job : snapshot) {
+            if (!job.isClaimed()) {
+                continue;
+            }
+            try {
+                if (reportRepository.updateProgress(job.getReportId(), job.getClaimToken(), job.getProgress(), now) == 0) {
+                    job.cancel();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Progress of report ID: {} could not be saved: {}", job.getReportId(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover();
+    }
+
+    /**
+     * Re-queues reports abandoned while processing and picks up pending reports that are not queued here.
+     */
+    @Scheduled(initialDelayString = "${app.reports.recovery-ms:60000}", fixedDelayString = "${app.reports.recovery-ms:60000}")
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(Duration.ofMillis(staleAfterMs));
+        try {
+            for (Report report : reportRepository.findStaleProcessing(cutoff)) {
+                if (reportRepository.requeueStale(report.getId(), cutoff, now) > 0) {
+                    logger.warn("Report ID: {} was abandoned while processing, re-queuing it.", report.getId());
+                }
+            }
+            for (Report report : reportRepository.findByStatusOrderByIdAsc("pending")) {
+                synchronized (lock) {
+                    if (jobs.containsKey(report.getId())) {
+                        continue;
+                    }
+                }
+                ReportConfigDTO config = readConfig(report);
+                if (config == null) {
+                    logger.error("Report ID: {} has no stored configuration and cannot be regenerated.", report.getId());
+                    reportRepository.finish(report.getId(), "failed", now);
+                    continue;
+                }
+                enqueue(report.getId(), config, report.getGeneratedBy());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Report recovery failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the scheduler: queued and running reports, per class and per user.
+     */
+    public Map<String, Object> getStatus() {
+        synchronized (lock) {
+            Map<String, Object> status = new HashMap<>();
+            status.put("workers", workers);
+            status.put("queued", queue.size());
+            status.put("queuedBulk", queue.stream().filter(ReportJob::isBulk).count());
+            status.put("running", running.size());
+            status.put("runningBulk", runningBulk);
+            status.put("runningByUser", new HashMap<>(runningByUser));
+            return status;
+        }
+    }
+
+    private void enqueue(Long reportId, ReportConfigDTO config, String user) {
+        ReportJob job = new ReportJob(reportId, config, user != null ? user : "", isBulk(config), sequence.incrementAndGet());
+        synchronized (lock) {
+            if (jobs.putIfAbsent(reportId, job) != null) {
+                return;
+            }
+            queue.add(job);
+        }
+        logger.info("Report ID: {} queued ({}).", reportId, job.isBulk() ? "bulk" : "interactive");
+        dispatch();
+    }
+
+    /**
+     * Hands the best eligible queued reports to free workers.
+     */
+    private void dispatch() {
+        List<ReportJob> started = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<ReportJob> candidates = queue.iterator();
+            while (running.size() < workers && candidates.hasNext()) {
+                ReportJob job = candidates.next();
+                if (job.isBulk() && runningBulk >= maxBulkRunning) {
+                    continue;
+                }
+                if (runningByUser.getOrDefault(job.getUser(), 0) >= maxRunningPerUser) {
+                    continue;
+                }
+                candidates.remove();
+                running.put(job.getReportId(), job);
+                runningByUser.merge(job.getUser(), 1, Integer::sum);
+                if (job.isBulk()) {
+                    runningBulk++;
+                }
+                started.add(job);
+            }
+        }
+        for (ReportJob job : started) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (RuntimeException e) {
+                // Shutting down: the report stays pending and is picked up after the restart
+                release(job);
+            }
+        }
+    }
+
+    private void run(ReportJob job) {
+        try {
+            reportGenerationService.generate(job);
+        } catch (RuntimeException e) {
+            logger.error("Report worker failed on report ID: {}", job.getReportId(), e);
+        } finally {
+            release(job);
+            dispatch();
+        }
+    }
+
+    private void release(ReportJob job) {
+        synchronized (lock) {
+            running.remove(job.getReportId());
+            jobs.remove(job.getReportId());
+            runningByUser.computeIfPresent(job.getUser(), (user, count) -> count > 1 ? count - 1 : null);
+            if (job.isBulk()) {
+                runningBulk--;
+            }
+        }
+    }
+
+    private boolean isBulk(ReportConfigDTO config) {
+        try {
+            LocalDateTime[] range = reportQueries.resolveRange(config);
+            return Duration.between(range[0], range[1]).toDays() > bulkAfterDays;
+        } catch (IllegalArgumentException e) {
+            // Fails at generation anyway; no reason to hold it back
+            return false;
+        }
+    }
+
+    private ReportConfigDTO readConfig(Report report) {
+        if (report.getConfig() == null || report.getConfig().isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(report.getConfig(), ReportConfigDTO.class);
+        } catch (Exception e) {
+            logger.warn("Stored configuration of report ID: {} is invalid: {}", report.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
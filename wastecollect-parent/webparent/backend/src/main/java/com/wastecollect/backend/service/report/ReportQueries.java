@@ -0,0 +1,212 @@
+package com.wastecollect.backend.service.report;
+
+import com.wastecollect.backend.service.DataArchivingService;
+import com.wastecollect.common.dto.report.ReportConfigDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Builds the SQL of each report type from a {@link ReportConfigDTO}.
+ * <p>
+ * Every statement returns its rows already in output order, through an index where the report lists raw rows,
+ * so the database can start streaming immediately instead of sorting the whole result first. Waste collections
+ * that the archival job moved to {@code waste_collections_archive} are included when the period reaches them.
+ */
+@Component
+public class ReportQueries {
+
+    public static final String COLLECTIONS = "collections";
+    public static final String PERFORMANCE = "performance";
+    public static final String FINANCIAL = "financial";
+    public static final String MUNICIPALITY = "municipality";
+
+    private static final String COLLECTION_ROWS =
+            "SELECT wc.id, wc.collection_date, m.municipality_name, CONCAT(c.first_name, ' ', c.last_name), " +
+            "CONCAT(h.first_name, ' ', h.last_name), sr.waste_type, wc.actual_weight, wc.collector_rating, wc.status, wc.adresse " +
+            "FROM %s wc " +
+            "LEFT JOIN municipalities m ON m.id = wc.municipality_id " +
+            "LEFT JOIN users c ON c.id = wc.collector_id " +
+            "LEFT JOIN users h ON h.id = wc.household_id " +
+            "LEFT JOIN service_requests sr ON sr.id = wc.service_request_id " +
+            "WHERE wc.collection_date >= :start AND wc.collection_date < :end%s " +
+            "ORDER BY wc.collection_date, wc.id";
+
+    private static final String PERFORMANCE_ROWS =
+            "SELECT c.id, c.collector_id, CONCAT(c.first_name, ' ', c.last_name), m.municipality_name, " +
+            "COALESCE(wc.collections, 0), COALESCE(wc.total_weight, 0), wc.average_rating, COALESCE(wc.ratings, 0), COALESCE(sr.rejected, 0) " +
+            "FROM users c " +
+            "LEFT JOIN municipalities m ON m.id = c.municipality_id " +
+            "LEFT JOIN (SELECT collector_id, COUNT(*) AS collections, SUM(actual_weight) AS total_weight, " +
+            "AVG(collector_rating) AS average_rating, COUNT(collector_rating) AS ratings " +
+            "FROM %s WHERE collection_date >= :start AND collection_date < :end GROUP BY collector_id) wc ON wc.collector_id = c.id " +
+            "LEFT JOIN (SELECT collector_id, COUNT(*) AS rejected FROM service_requests " +
+            "WHERE status = 'REJECTED' AND updated_at >= :start AND updated_at < :end GROUP BY collector_id) sr ON sr.collector_id = c.id " +
+            "WHERE c.user_type = 'COLLECTOR'%s " +
+            "ORDER BY c.id";
+
+    private static final String FINANCIAL_ROWS =
+            "SELECT p.id, p.payment_date, p.amount, p.payment_method, p.status, p.transaction_reference, " +
+            "CONCAT(h.first_name, ' ', h.last_name), CONCAT(c.first_name, ' ', c.last_name), p.service_request_id " +
+            "FROM payments p " +
+            "LEFT JOIN users h ON h.id = p.household_id " +
+            "LEFT JOIN users c ON c.id = p.collector_id " +
+            "LEFT JOIN service_requests sr ON sr.id = p.service_request_id " +
+            "WHERE p.payment_date >= :start AND p.payment_date < :end%s " +
+            "ORDER BY p.payment_date, p.id";
+
+    private static final String MUNICIPALITY_ROWS =
+            "SELECT m.id, m.municipality_name, m.province, m.population, m.waste_management_budget, " +
+            "COALESCE(wc.collections, 0), COALESCE(wc.total_weight, 0), wc.average_rating, COALESCE(sr.requests, 0), COALESCE(pay.revenue, 0) " +
+            "FROM municipalities m " +
+            "LEFT JOIN (SELECT municipality_id, COUNT(*) AS collections, SUM(actual_weight) AS total_weight, AVG(collector_rating) AS average_rating " +
+            "FROM %s WHERE collection_date >= :start AND collection_date < :end GROUP BY municipality_id) wc ON wc.municipality_id = m.id " +
+            "LEFT JOIN (SELECT municipality_id, COUNT(*) AS requests FROM service_requests " +
+            "WHERE created_at >= :start AND created_at < :end GROUP BY municipality_id) sr ON sr.municipality_id = m.id " +
+            "LEFT JOIN (SELECT r.municipality_id, SUM(p.amount) AS revenue FROM payments p JOIN service_requests r ON r.id = p.service_request_id " +
+            "WHERE p.payment_date >= :start AND p.payment_date < :end AND p.status = 'SUCCESSFUL' GROUP BY r.municipality_id) pay ON pay.municipality_id = m.id" +
+            "%s ORDER BY m.id";
+
+    @Autowired
+    private DataArchivingService dataArchivingService;
+
+    /**
+     * Statements and columns of a report. Statements are run one after the other and their rows concatenated.
+     * <p>
+     * Progress is measured on the date column rows are ordered by ({@code progressColumn}) for reports listing
+     * raw rows, and against the row count returned by {@code countStatement} for aggregated reports.
+     * {@code sourceTables} are the hot tables the report reads, whose last modification and row count are its data
+     * watermark.
+     */
+    public record ReportDefinition(String type, List<ReportColumn> columns, List<String> statements,
+                                   MapSqlParameterSource params, LocalDateTime start, LocalDateTime end,
+                                   int progressColumn, String countStatement, List<String> sourceTables) {
+    }
+
+    /**
+     * Builds the definition of the report requested by a configuration.
+     *
+     * @throws IllegalArgumentException if the type, period or dates are not valid.
+     */
+    public ReportDefinition build(ReportConfigDTO config) {
+        String type = config.getType() == null ? "" : config.getType().trim().toLowerCase(Locale.ROOT);
+        LocalDateTime[] range = resolveRange(config);
+        MapSqlParameterSource params = new MapSqlParameterSource("start", range[0]).addValue("end", range[1]);
+        if (config.getMunicipalityId() != null) {
+            params.addValue("municipalityId", config.getMunicipalityId());
+        }
+        if (config.getCollectorId() != null) {
+            params.addValue("collectorId", config.getCollectorId());
+        }
+        boolean byMunicipality = config.getMunicipalityId() != null;
+        boolean byCollector = config.getCollectorId() != null;
+        Optional<String> archive = collectionArchive(range[0]);
+
+        return switch (type) {
+            case COLLECTIONS -> {
+                String filter = (byMunicipality ? " AND wc.municipality_id = :municipalityId" : "")
+                        + (byCollector ? " AND wc.collector_id = :collectorId" : "");
+                List<String> statements = new ArrayList<>();
+                // Archived rows are older than every hot row, so reading the archive first keeps the date order
+                archive.ifPresent(table -> statements.add(String.format(COLLECTION_ROWS, table, filter)));
+                statements.add(String.format(COLLECTION_ROWS, DataArchivingService.WASTE_COLLECTIONS, filter));
+                yield new ReportDefinition(type, List.of(
+                        ReportColumn.integer("Collection ID"), ReportColumn.dateTime("Collection date"),
+                        ReportColumn.text("Municipality"), ReportColumn.text("Collector"), ReportColumn.text("Household"),
+                        ReportColumn.text("Waste type"), ReportColumn.decimal("Weight (kg)"), ReportColumn.integer("Rating"),
+                        ReportColumn.text("Status"), ReportColumn.text("Address")),
+                        statements, params, range[0], range[1], 1, null,
+                        List.of(DataArchivingService.WASTE_COLLECTIONS, "municipalities", "users", "service_requests"));
+            }
+            case PERFORMANCE -> {
+                String filter = (byMunicipality ? " AND c.municipality_id = :municipalityId" : "")
+                        + (byCollector ? " AND c.id = :collectorId" : "");
+                yield new ReportDefinition(type, List.of(
+                        ReportColumn.integer("Collector ID"), ReportColumn.text("Badge"), ReportColumn.text("Collector"),
+                        ReportColumn.text("Municipality"), ReportColumn.integer("Collections"), ReportColumn.decimal("Total weight (kg)"),
+                        ReportColumn.decimal("Average rating"), ReportColumn.integer("Ratings"), ReportColumn.integer("Rejected requests")),
+                        List.of(String.format(PERFORMANCE_ROWS, collectionSource(archive), filter)), params, range[0], range[1],
+                        -1, "SELECT COUNT(*) FROM users c WHERE c.user_type = 'COLLECTOR'" + filter,
+                        List.of("users", "municipalities", DataArchivingService.WASTE_COLLECTIONS, "service_requests"));
+            }
+            case FINANCIAL -> {
+                String filter = (byMunicipality ? " AND sr.municipality_id = :municipalityId" : "")
+                        + (byCollector ? " AND p.collector_id = :collectorId" : "");
+                yield new ReportDefinition(type, List.of(
+                        ReportColumn.integer("Payment ID"), ReportColumn.dateTime("Payment date"), ReportColumn.decimal("Amount"),
+                        ReportColumn.text("Method"), ReportColumn.text("Status"), ReportColumn.text("Transaction reference"),
+                        ReportColumn.text("Household"), ReportColumn.text("Collector"), ReportColumn.integer("Service request ID")),
+                        List.of(String.format(FINANCIAL_ROWS, filter)), params, range[0], range[1], 1, null,
+                        List.of("payments", "users", "service_requests"));
+            }
+            case MUNICIPALITY -> {
+                String filter = byMunicipality ? " WHERE m.id = :municipalityId" : "";
+                yield new ReportDefinition(type, List.of(
+                        ReportColumn.integer("Municipality ID"), ReportColumn.text("Municipality"), ReportColumn.text("Province"),
+                        ReportColumn.integer("Population"), ReportColumn.decimal("Budget"), ReportColumn.integer("Collections"),
+                        ReportColumn.decimal("Total weight (kg)"), ReportColumn.decimal("Average rating"),
+                        ReportColumn.integer("Service requests"), ReportColumn.decimal("Revenue")),
+                        List.of(String.format(MUNICIPALITY_ROWS, collectionSource(archive), filter)), params, range[0], range[1],
+                        -1, "SELECT COUNT(*) FROM municipalities m" + filter,
+                        List.of("municipalities", DataArchivingService.WASTE_COLLECTIONS, "service_requests", "payments"));
+            }
+            default -> throw new IllegalArgumentException("Unsupported report type: " + config.getType()
+                    + " (supported: collections, performance, financial, municipality)");
+        };
+    }
+
+    /**
+     * Start (inclusive) and end (exclusive) of the reported period: the explicit dates if given, otherwise the
+     * period ending now.
+     */
+    LocalDateTime[] resolveRange(ReportConfigDTO config) {
+        if (hasText(config.getStartDate()) && hasText(config.getEndDate())) {
+            try {
+                LocalDateTime start = LocalDate.parse(config.getStartDate().substring(0, 10)).atStartOfDay();
+                LocalDateTime end = LocalDate.parse(config.getEndDate().substring(0, 10)).plusDays(1).atStartOfDay();
+                if (!start.isBefore(end)) {
+                    throw new IllegalArgumentException("Report start date must not be after its end date");
+                }
+                return new LocalDateTime[] {start, end};
+            } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Report dates must be ISO dates (yyyy-MM-dd)");
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String period = config.getPeriod() == null ? "" : config.getPeriod().trim().toLowerCase(Locale.ROOT);
+        LocalDateTime start = switch (period) {
+            case "daily" -> now.toLocalDate().atStartOfDay();
+            case "weekly" -> now.minusWeeks(1);
+            case "monthly" -> now.minusMonths(1);
+            case "quarterly" -> now.minusMonths(3);
+            case "yearly" -> now.minusYears(1);
+            default -> throw new IllegalArgumentException("Unsupported report period: " + config.getPeriod()
+                    + " (use daily, weekly, monthly, quarterly, yearly, or a start and end date)");
+        };
+        return new LocalDateTime[] {start, now};
+    }
+
+    private Optional<String> collectionArchive(LocalDateTime start) {
+        return dataArchivingService.findArchiveTableFor(DataArchivingService.WASTE_COLLECTIONS, start);
+    }
+
+    private static String collectionSource(Optional<String> archive) {
+        return archive
+                .map(table -> "(SELECT collector_id, municipality_id, collection_date, actual_weight, collector_rating FROM " + table
+                        + " UNION ALL SELECT collector_id, municipality_id, collection_date, actual_weight, collector_rating FROM "
+                        + DataArchivingService.WASTE_COLLECTIONS + ") collections")
+                .orElse(DataArchivingService.WASTE_COLLECTIONS);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
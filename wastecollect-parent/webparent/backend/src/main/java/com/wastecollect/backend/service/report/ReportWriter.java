@@ -0,0 +1,16 @@
+package com.wastecollect.backend.service.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes report rows to a file as they are read, one at a time, so memory does not grow with the report size.
+ * Values arrive as {@link String}, {@link Number} or {@link java.time.LocalDateTime}, or null.
+ */
+interface ReportWriter extends Closeable {
+
+    void writeHeader(List<ReportColumn> columns) throws IOException;
+
+    void writeRow(Object[] values) throws IOException;
+}
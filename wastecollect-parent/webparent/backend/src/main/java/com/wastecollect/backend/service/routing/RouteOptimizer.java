@@ -0,0 +1,562 @@
+package com.wastecollect.backend.service.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vehicle routing for a single collector: a nearest-neighbour route improved by 2-opt and Or-opt local search.
+ * <p>
+ * Stops live in primitive arrays, and the start of the route is one more node after them. Great-circle (haversine)
+ * distances are precomputed in a matrix for instances up to {@code matrixLimit} nodes, and computed on demand
+ * above that, where a matrix would no longer fit in memory. Both the seed and the local search only look at the
+ * {@code neighbourCount} nearest stops of each node, found through a uniform grid, so a pass over the route is
+ * linear in its size instead of quadratic.
+ * <p>
+ * With a capacity, the seed closes a trip (back to the start to unload) when the next stop's volume does not fit,
+ * and the local search works inside each trip, which keeps every trip within the capacity. The search stops at a
+ * local optimum or when the time budget runs out, whichever comes first; the best route so far is always returned.
+ * The budget also bounds the seed and the neighbour lists: past the deadline the seed takes the remaining stops in
+ * their given order, and no local search is attempted.
+ * Instances are independent and the optimizer keeps no state, so it can solve several collectors concurrently.
+ */
+public final class RouteOptimizer {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    // Smallest gain worth a move; avoids cycling on rounding noise
+    private static final double EPSILON = 1e-7;
+
+    // Longest run of stops moved by Or-opt
+    private static final int MAX_SEGMENT = 3;
+
+    // The deadline is checked every 64 positions of a pass
+    private static final int DEADLINE_MASK = 63;
+
+    private final int matrixLimit;
+    private final int neighbourCount;
+
+    /**
+     * @param matrixLimit    Largest number of nodes (stops and start) for which the distance matrix is precomputed.
+     * @param neighbourCount Candidate stops considered around each node.
+     */
+    public RouteOptimizer(int matrixLimit, int neighbourCount) {
+        this.matrixLimit = matrixLimit;
+        this.neighbourCount = Math.max(1, neighbourCount);
+    }
+
+    /**
+     * Builds and improves a route.
+     *
+     * @param budgetNanos Time allowed for the whole solve; the local search stops when it runs out.
+     */
+    public RoutePlan solve(RoutingProblem problem, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int n = problem.size();
+        if (n == 0) {
+            return new RoutePlan(problem.collectorId(), List.of(), 0, 0, 0, false);
+        }
+        Geometry geometry = new Geometry(problem, matrixLimit);
+        SpatialGrid grid = new SpatialGrid(geometry, n);
+
+        List<int[]> trips = new ArrayList<>();
+        boolean[] timedOut = {false};
+        int overloaded = seed(problem, grid, trips, deadline, timedOut);
+        int[][] neighbours = timedOut[0] ? null : grid.nearestNeighbours(neighbourCount, deadline);
+        if (neighbours == null) {
+            timedOut[0] = true;
+        }
+        double seedDistance = 0;
+        for (int[] trip : trips) {
+            seedDistance += length(geometry, trip);
+        }
+
+        // Moves only consider neighbours on the same trip
+        int[] tripOf = new int[n + 1];
+        for (int t = 0; t < trips.size(); t++) {
+            int[] trip = trips.get(t);
+            for (int k = 1; k < trip.length; k++) {
+                tripOf[trip[k]] = t;
+            }
+        }
+        tripOf[n] = -1;
+        int[] position = new int[n + 1];
+
+        double distance = 0;
+        List<List<Long>> routes = new ArrayList<>(trips.size());
+        for (int t = 0; t < trips.size(); t++) {
+            int[] trip = trips.get(t);
+            if (!timedOut[0] && !improve(geometry, trip, t, tripOf, position, neighbours, deadline)) {
+                timedOut[0] = true;
+            }
+            distance += length(geometry, trip);
+            List<Long> stops = new ArrayList<>(trip.length - 1);
+            for (int k = 1; k < trip.length; k++) {
+                stops.add(problem.stopIds()[trip[k]]);
+            }
+            routes.add(stops);
+        }
+        return new RoutePlan(problem.collectorId(), routes, distance, seedDistance, overloaded, timedOut[0]);
+    }
+
+    /**
+     * Nearest-neighbour construction. Each trip is an array starting with the start node. Once the deadline has
+     * passed, the remaining stops are taken in their given order and {@code timedOut[0]} is set.
+     *
+     * @return The number of stops that exceed the capacity on their own.
+     */
+    private static int seed(RoutingProblem problem, SpatialGrid grid, List<int[]> trips, long deadline, boolean[] timedOut) {
+        int n = problem.size();
+        boolean capacitated = problem.hasCapacity();
+        int[] buffer = new int[n + 1];
+        int length = 0;
+        buffer[length++] = n;
+        double load = 0;
+        int current = n;
+        int overloaded = 0;
+        for (int visited = 0; visited < n; visited++) {
+            if (!timedOut[0] && (visited & DEADLINE_MASK) == 0 && System.nanoTime() > deadline) {
+                timedOut[0] = true;
+            }
+            int next = timedOut[0] ? grid.takeNext() : grid.takeNearest(current);
+            double demand = capacitated ? problem.demands()[next] : 0;
+            if (capacitated && length > 1 && load + demand > problem.capacity()) {
+                trips.add(Arrays.copyOf(buffer, length));
+                length = 1;
+                load = 0;
+            }
+            if (capacitated && demand > problem.capacity()) {
+                overloaded++;
+            }
+            buffer[length++] = next;
+            load += demand;
+            current = next;
+        }
+        trips.add(Arrays.copyOf(buffer, length));
+        return overloaded;
+    }
+
+    /**
+     * Applies improving 2-opt and Or-opt moves to a closed trip until none is left.
+     *
+     * @return {@code false} if the deadline interrupted the search.
+     */
+    private static boolean improve(Geometry geometry, int[] tour, int trip, int[] tripOf, int[] position,
+                                   int[][] neighbours, long deadline) {
+        int m = tour.length;
+        // The start and two stops can only be visited one way round
+        if (m < 4) {
+            return true;
+        }
+        for (int k = 0; k < m; k++) {
+            position[tour[k]] = k;
+        }
+        int[] scratch = new int[m];
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < m; i++) {
+                if ((i & DEADLINE_MASK) == 0 && System.nanoTime() > deadline) {
+                    return false;
+                }
+                if (twoOpt(geometry, tour, i, trip, tripOf, position, neighbours)
+                        || i > 0 && orOpt(geometry, tour, i, trip, tripOf, position, neighbours, scratch)) {
+                    improved = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tries to replace the edge leaving position {@code i} and another edge by two shorter ones, reversing the
+     * stops between them.
+     */
+    static boolean twoOpt(Geometry geometry, int[] tour, int i, int trip, int[] tripOf, int[] position,
+                          int[][] neighbours) {
+        int m = tour.length;
+        int a = tour[i];
+        double removed = geometry.distance(a, tour[(i + 1) % m]);
+        for (int c : neighbours[a]) {
+            if (tripOf[c] != trip) {
+                continue;
+            }
+            // Neighbours are sorted: no closer one is left to gain from
+            if (geometry.distance(a, c) >= removed) {
+                break;
+            }
+            int j = position[c];
+            int x = Math.min(i, j);
+            int y = Math.max(i, j);
+            int afterY = (y + 1) % m;
+            if (y - x < 2 || afterY == x) {
+                continue;
+            }
+            int p = tour[x];
+            int pNext = tour[x + 1];
+            int q = tour[y];
+            int qNext = tour[afterY];
+            double gain = geometry.distance(p, pNext) + geometry.distance(q, qNext)
+                    - geometry.distance(p, q) - geometry.distance(pNext, qNext);
+            if (gain > EPSILON) {
+                reverse(tour, position, x + 1, y);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to move the run of one to {@link #MAX_SEGMENT} stops starting at position {@code i} next to one of its
+     * first stop's neighbours, either after it or reversed before it.
+     */
+    static boolean orOpt(Geometry geometry, int[] tour, int i, int trip, int[] tripOf, int[] position,
+                         int[][] neighbours, int[] scratch) {
+        int m = tour.length;
+        for (int length = 1; length <= MAX_SEGMENT && i + length <= m && m - length >= 3; length++) {
+            int first = tour[i];
+            int last = tour[i + length - 1];
+            int previous = tour[i - 1];
+            int next = tour[(i + length) % m];
+            double removeGain = geometry.distance(previous, first) + geometry.distance(last, next)
+                    - geometry.distance(previous, next);
+            if (removeGain <= EPSILON) {
+                continue;
+            }
+            for (int c : neighbours[first]) {
+                if (tripOf[c] != trip) {
+                    continue;
+                }
+                double attach = geometry.distance(first, c);
+                if (attach >= removeGain) {
+                    break;
+                }
+                int j = position[c];
+                if (j >= i && j < i + length) {
+                    continue;
+                }
+                // c, first..last, then c's successor
+                if (c != previous) {
+                    int cNext = tour[(j + 1) % m];
+                    double added = attach + geometry.distance(last, cNext) - geometry.distance(c, cNext);
+                    if (removeGain - added > EPSILON) {
+                        move(tour, position, scratch, i, length, j, true);
+                        return true;
+                    }
+                }
+                // c's predecessor once the run is removed, last..first, then c
+                int cPrevious = j == i + length ? previous : tour[(j - 1 + m) % m];
+                double added = geometry.distance(cPrevious, last) + attach - geometry.distance(cPrevious, c);
+                if (removeGain - added > EPSILON) {
+                    move(tour, position, scratch, i, length, j, false);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void reverse(int[] tour, int[] position, int from, int to) {
+        while (from < to) {
+            int swap = tour[from];
+            tour[from] = tour[to];
+            tour[to] = swap;
+            position[tour[from]] = from;
+            position[tour[to]] = to;
+            from++;
+            to--;
+        }
+    }
+
+    /**
+     * Moves {@code tour[start..start+length)} right after position {@code target}, or reversed right before it.
+     */
+    private static void move(int[] tour, int[] position, int[] scratch, int start, int length, int target, boolean after) {
+        int m = tour.length;
+        int k = 0;
+        for (int p = 0; p < m; p++) {
+            if (p >= start && p < start + length) {
+                continue;
+            }
+            if (!after && p == target) {
+                for (int s = start + length - 1; s >= start; s--) {
+                    scratch[k++] = tour[s];
+                }
+            }
+            scratch[k++] = tour[p];
+            if (after && p == target) {
+                for (int s = start; s < start + length; s++) {
+                    scratch[k++] = tour[s];
+                }
+            }
+        }
+        System.arraycopy(scratch, 0, tour, 0, m);
+        for (int p = 0; p < m; p++) {
+            position[tour[p]] = p;
+        }
+    }
+
+    static double length(Geometry geometry, int[] tour) {
+        double total = 0;
+        for (int k = 0; k < tour.length; k++) {
+            total += geometry.distance(tour[k], tour[(k + 1) % tour.length]);
+        }
+        return total;
+    }
+
+    /**
+     * Node coordinates and distances. Node {@code n} is the start: the given one, or the centre of the stops.
+     */
+    static final class Geometry {
+
+        private final int size;
+        private final double[] latitude;
+        private final double[] longitude;
+        private final double[] cosLatitude;
+        // Local plane projection in km, only used to find neighbours
+        private final double[] x;
+        private final double[] y;
+        private final float[] matrix;
+
+        Geometry(RoutingProblem problem, int matrixLimit) {
+            int n = problem.size();
+            size = n + 1;
+            latitude = new double[size];
+            longitude = new double[size];
+            cosLatitude = new double[size];
+            x = new double[size];
+            y = new double[size];
+
+            double sumLatitude = 0;
+            double sumLongitude = 0;
+            for (int i = 0; i < n; i++) {
+                sumLatitude += problem.latitudes()[i];
+                sumLongitude += problem.longitudes()[i];
+                latitude[i] = Math.toRadians(problem.latitudes()[i]);
+                longitude[i] = Math.toRadians(problem.longitudes()[i]);
+            }
+            boolean started = problem.startLatitude() != null && problem.startLongitude() != null;
+            latitude[n] = Math.toRadians(started ? problem.startLatitude() : sumLatitude / n);
+            longitude[n] = Math.toRadians(started ? problem.startLongitude() : sumLongitude / n);
+
+            double reference = Math.cos(Math.toRadians(sumLatitude / n));
+            for (int i = 0; i < size; i++) {
+                cosLatitude[i] = Math.cos(latitude[i]);
+                x[i] = longitude[i] * reference * EARTH_RADIUS_KM;
+                y[i] = latitude[i] * EARTH_RADIUS_KM;
+            }
+
+            if (size <= matrixLimit) {
+                matrix = new float[size * size];
+                for (int i = 0; i < size; i++) {
+                    for (int j = i + 1; j < size; j++) {
+                        float d = (float) haversine(i, j);
+                        matrix[i * size + j] = d;
+                        matrix[j * size + i] = d;
+                    }
+                }
+            } else {
+                matrix = null;
+            }
+        }
+
+        double distance(int i, int j) {
+            return matrix != null ? matrix[i * size + j] : haversine(i, j);
+        }
+
+        private double haversine(int i, int j) {
+            double sinLatitude = Math.sin((latitude[j] - latitude[i]) / 2);
+            double sinLongitude = Math.sin((longitude[j] - longitude[i]) / 2);
+            double a = sinLatitude * sinLatitude + cosLatitude[i] * cosLatitude[j] * sinLongitude * sinLongitude;
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+        }
+    }
+
+    /**
+     * Uniform grid over the stops (about two per cell), searched in rings of cells around a node. After ring
+     * {@code r}, every stop closer than {@code r} cells has been seen, which bounds the search.
+     */
+    private static final class SpatialGrid {
+
+        private final Geometry geometry;
+        private final int count;
+        private final double minX;
+        private final double minY;
+        private final double cell;
+        private final int columns;
+        private final int rows;
+        private final int[] cellStart;
+        private final int[] items;
+        private final int[] remaining;
+        private final boolean[] taken;
+        // Lowest stop that may not be taken yet, for takeNext()
+        private int nextUntaken;
+
+        // Search state, reused across queries
+        private int[] bestNodes;
+        private double[] bestDistances;
+        private int found;
+        private int limit;
+        private int exclude;
+
+        private SpatialGrid(Geometry geometry, int count) {
+            this.geometry = geometry;
+            this.count = count;
+            double lowX = Double.MAX_VALUE;
+            double lowY = Double.MAX_VALUE;
+            double highX = -Double.MAX_VALUE;
+            double highY = -Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                lowX = Math.min(lowX, geometry.x[i]);
+                lowY = Math.min(lowY, geometry.y[i]);
+                highX = Math.max(highX, geometry.x[i]);
+                highY = Math.max(highY, geometry.y[i]);
+            }
+            minX = lowX;
+            minY = lowY;
+            double width = Math.max(highX - lowX, 0.001);
+            double height = Math.max(highY - lowY, 0.001);
+            // Also keeps the cell count linear when the stops lie on a line
+            cell = Math.max(Math.sqrt(width * height * 2 / count), Math.max(width, height) / count);
+            columns = (int) (width / cell) + 1;
+            rows = (int) (height / cell) + 1;
+
+            cellStart = new int[columns * rows + 1];
+            int[] cellOfStop = new int[count];
+            for (int i = 0; i < count; i++) {
+                cellOfStop[i] = row(geometry.y[i]) * columns + column(geometry.x[i]);
+                cellStart[cellOfStop[i] + 1]++;
+            }
+            for (int c = 0; c < columns * rows; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            items = new int[count];
+            int[] fill = Arrays.copyOf(cellStart, columns * rows);
+            for (int i = 0; i < count; i++) {
+                items[fill[cellOfStop[i]]++] = i;
+            }
+            remaining = new int[columns * rows];
+            for (int c = 0; c < columns * rows; c++) {
+                remaining[c] = cellStart[c + 1] - cellStart[c];
+            }
+            taken = new boolean[count];
+        }
+
+        /**
+         * The nearest stops of every node (stops and start), closest first.
+         *
+         * @return The lists, or null if the deadline passed before they were all built.
+         */
+        private int[][] nearestNeighbours(int k, long deadline) {
+            int[][] neighbours = new int[geometry.size][];
+            for (int node = 0; node < geometry.size; node++) {
+                if ((node & DEADLINE_MASK) == 0 && System.nanoTime() > deadline) {
+                    return null;
+                }
+                neighbours[node] = search(node, Math.min(k, node < count ? count - 1 : count), false);
+            }
+            return neighbours;
+        }
+
+        /**
+         * Removes and returns the stop nearest to a node among those not taken yet.
+         */
+        private int takeNearest(int node) {
+            return take(search(node, 1, true)[0]);
+        }
+
+        /**
+         * Removes and returns the lowest-numbered stop not taken yet.
+         */
+        private int takeNext() {
+            while (taken[nextUntaken]) {
+                nextUntaken++;
+            }
+            return take(nextUntaken);
+        }
+
+        private int take(int stop) {
+            taken[stop] = true;
+            remaining[row(geometry.y[stop]) * columns + column(geometry.x[stop])]--;
+            return stop;
+        }
+
+        private int[] search(int node, int k, boolean skipTaken) {
+            if (k <= 0) {
+                return new int[0];
+            }
+            if (bestNodes == null || bestNodes.length < k) {
+                bestNodes = new int[k];
+                bestDistances = new double[k];
+            }
+            found = 0;
+            limit = k;
+            exclude = node;
+            double px = geometry.x[node];
+            double py = geometry.y[node];
+            // A node outside the grid (a far start) searches from the nearest cell: every cell beyond ring r is still
+            // more than r cells away from it, so the bound below holds, and the rings stop at the grid's far side
+            int cx = column(px);
+            int cy = row(py);
+            int maxRing = Math.max(Math.max(Math.abs(cx), Math.abs(columns - 1 - cx)),
+                    Math.max(Math.abs(cy), Math.abs(rows - 1 - cy)));
+            for (int r = 0; r <= maxRing; r++) {
+                if (r == 0) {
+                    visit(cx, cy, px, py, skipTaken);
+                } else {
+                    for (int dx = -r; dx <= r; dx++) {
+                        visit(cx + dx, cy - r, px, py, skipTaken);
+                        visit(cx + dx, cy + r, px, py, skipTaken);
+                    }
+                    for (int dy = -r + 1; dy <= r - 1; dy++) {
+                        visit(cx - r, cy + dy, px, py, skipTaken);
+                        visit(cx + r, cy + dy, px, py, skipTaken);
+                    }
+                }
+                if (found == limit && bestDistances[limit - 1] <= r * cell) {
+                    break;
+                }
+            }
+            return Arrays.copyOf(bestNodes, found);
+        }
+
+        private void visit(int column, int row, double px, double py, boolean skipTaken) {
+            if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                return;
+            }
+            int c = row * columns + column;
+            if (skipTaken && remaining[c] == 0) {
+                return;
+            }
+            for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                int stop = items[p];
+                if (stop == exclude || skipTaken && taken[stop]) {
+                    continue;
+                }
+                double dx = geometry.x[stop] - px;
+                double dy = geometry.y[stop] - py;
+                double d = Math.sqrt(dx * dx + dy * dy);
+                if (found == limit && d >= bestDistances[limit - 1]) {
+                    continue;
+                }
+                // Insertion into the short sorted list of best candidates
+                int at = found == limit ? limit - 1 : found++;
+                while (at > 0 && bestDistances[at - 1] > d) {
+                    bestDistances[at] = bestDistances[at - 1];
+                    bestNodes[at] = bestNodes[at - 1];
+                    at--;
+                }
+                bestDistances[at] = d;
+                bestNodes[at] = stop;
+            }
+        }
+
+        private int column(double px) {
+            return Math.min(columns - 1, Math.max(0, (int) ((px - minX) / cell)));
+        }
+
+        private int row(double py) {
+            return Math.min(rows - 1, Math.max(0, (int) ((py - minY) / cell)));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wastecollect.backend.service.routing;
+
+import java.util.List;
+
+/**
+ * An optimized route for one collector.
+ *
+ * @param collectorId     The collector.
+ * @param trips           Service request IDs in visiting order, one list per trip from the start and back; a single
+ *                        trip without a capacity.
+ * @param distanceKm      Total great-circle length of the trips.
+ * @param seedDistanceKm  Length of the nearest-neighbour route the optimization started from.
+ * @param overloadedStops Stops whose volume alone exceeds the capacity; each one is a trip of its own.
+ * @param timedOut        Whether the time budget ran out before no improving move was left.
+ */
+public record RoutePlan(Long collectorId, List<List<Long>> trips, double distanceKm, double seedDistanceKm,
+                        int overloadedStops, boolean timedOut) {
+}
@@ -0,0 +1,161 @@
+package com.wastecollect.backend.service.routing;
+
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.backend.repository.WasteCollectionRepository;
+import com.wastecollect.backend.service.telemetry.TelemetryService;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans the routes of collectors over the requests they hold (ACCEPTED or IN_PROGRESS), from the coordinates of
+ * the requesting households.
+ * <p>
+ * Each collector is an independent {@link RoutingProblem} solved by the {@link RouteOptimizer} on a dedicated
+ * fork-join pool of {@code app.routing.parallelism} threads, with {@code app.routing.budget-ms} per collector. A
+ * route starts at the collector's live position, else where it last collected, or at the centre of its stops if it never did. Volumes come from
+ * the requests' estimated volume and only constrain the route when a vehicle capacity is given.
+ */
+@Service
+public class RoutePlanningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePlanningService.class);
+
+    private static final List<ServiceRequestStatus> HELD = List.of(ServiceRequestStatus.ACCEPTED, ServiceRequestStatus.IN_PROGRESS);
+
+    @Autowired
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Autowired
+    private WasteCollectionRepository wasteCollectionRepository;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Value("${app.routing.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.routing.budget-ms:2000}")
+    private long budgetMs;
+
+    @Value("${app.routing.matrix-limit:2000}")
+    private int matrixLimit;
+
+    @Value("${app.routing.neighbours:10}")
+    private int neighbours;
+
+    @Value("${app.routing.vehicle-capacity:0}")
+    private double defaultCapacity;
+
+    private ForkJoinPool pool;
+    private RouteOptimizer optimizer;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        optimizer = new RouteOptimizer(matrixLimit, neighbours);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Optimizes the route of every collector holding requests.
+     *
+     * @param capacity Vehicle capacity in the unit of the estimated volumes; null for {@code app.routing.vehicle-capacity},
+     *                 0 or less for no limit.
+     * @return The routes ("routes", one per collector) and the number of requests left out for lack of coordinates
+     * ("unroutedRequests").
+     */
+    public Map<String, Object> planCollectorRoutes(Double capacity) {
+        double vehicleCapacity = capacity != null ? capacity : defaultCapacity;
+        Map<Long, List<ServiceRequestRepository.RouteStopView>> stopsByCollector = new LinkedHashMap<>();
+        int unrouted = 0;
+        for (ServiceRequestRepository.RouteStopView stop : serviceRequestRepository.findRouteStops(HELD)) {
+            if (stop.getLatitude() == null || stop.getLongitude() == null) {
+                unrouted++;
+                continue;
+            }
+            stopsByCollector.computeIfAbsent(stop.getCollectorId(), id -> new ArrayList<>()).add(stop);
+        }
+
+        Map<Long, double[]> starts = new HashMap<>();
+        List<Long> unlocated = new ArrayList<>();
+        for (Long collectorId : stopsByCollector.keySet()) {
+            double[] live = telemetryService.lastPosition(collectorId);
+            if (live != null) {
+                starts.put(collectorId, live);
+            } else {
+                unlocated.add(collectorId);
+            }
+        }
+        if (!unlocated.isEmpty()) {
+            for (Object[] row : wasteCollectionRepository.findLastPositions(unlocated)) {
+                starts.put((Long) row[0], new double[] {(Double) row[1], (Double) row[2]});
+            }
+        }
+
+        List<RoutingProblem> problems = new ArrayList<>(stopsByCollector.size());
+        stopsByCollector.forEach((collectorId, stops) -> problems.add(toProblem(collectorId, stops, vehicleCapacity,
+                starts.get(collectorId))));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("routes", optimize(problems));
+        result.put("unroutedRequests", unrouted);
+        return result;
+    }
+
+    /**
+     * Solves the problems in parallel. A problem whose solve fails is logged and left out.
+     */
+    public List<RoutePlan> optimize(List<RoutingProblem> problems) {
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        List<ForkJoinTask<RoutePlan>> tasks = new ArrayList<>(problems.size());
+        for (RoutingProblem problem : problems) {
+            tasks.add(pool.submit(() -> optimizer.solve(problem, budgetNanos)));
+        }
+        List<RoutePlan> plans = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                plans.add(tasks.get(i).join());
+            } catch (RuntimeException e) {
+                logger.error("Route of collector ID: {} could not be optimized: {}", problems.get(i).collectorId(), e.getMessage(), e);
+            }
+        }
+        return plans;
+    }
+
+    private static RoutingProblem toProblem(Long collectorId, List<ServiceRequestRepository.RouteStopView> stops,
+                                            double capacity, double[] start) {
+        int n = stops.size();
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] demands = new double[n];
+        for (int i = 0; i < n; i++) {
+            ServiceRequestRepository.RouteStopView stop = stops.get(i);
+            ids[i] = stop.getId();
+            latitudes[i] = stop.getLatitude();
+            longitudes[i] = stop.getLongitude();
+            demands[i] = stop.getEstimatedVolume() != null ? Math.max(0, stop.getEstimatedVolume()) : 0;
+        }
+        return new RoutingProblem(collectorId, ids, latitudes, longitudes, demands, capacity,
+                start != null ? start[0] : null, start != null ? start[1] : null);
+    }
+}
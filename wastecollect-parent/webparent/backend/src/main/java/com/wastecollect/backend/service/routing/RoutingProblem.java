@@ -0,0 +1,25 @@
+package com.wastecollect.backend.service.routing;
+
+/**
+ * The stops one collector has to visit, as primitive arrays indexed by stop.
+ *
+ * @param collectorId    The collector, or null for synthetic instances.
+ * @param stopIds        The service request of each stop.
+ * @param latitudes      Latitude of each stop, in degrees.
+ * @param longitudes     Longitude of each stop, in degrees.
+ * @param demands        Volume collected at each stop; ignored without a capacity.
+ * @param capacity       Volume the vehicle can carry before going back to its start; 0 or less for no limit.
+ * @param startLatitude  Where the collector starts, or null to start from the centre of its stops.
+ * @param startLongitude Longitude of the start, or null.
+ */
+public record RoutingProblem(Long collectorId, long[] stopIds, double[] latitudes, double[] longitudes,
+                             double[] demands, double capacity, Double startLatitude, Double startLongitude) {
+
+    public int size() {
+        return stopIds.length;
+    }
+
+    public boolean hasCapacity() {
+        return capacity > 0;
+    }
+}
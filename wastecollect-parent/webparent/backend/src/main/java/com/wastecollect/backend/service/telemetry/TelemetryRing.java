@@ -0,0 +1,171 @@
+package com.wastecollect.backend.service.telemetry;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The latest GPS fixes of one collector, in fixed primitive arrays used as a ring: no object is allocated per fix
+ * and readers take no lock.
+ * <p>
+ * Writers check the time of a fix against the newest one accepted and take the next slot number in one short
+ * critical section, so slot order is time order even when two fixes of a collector arrive together; fixes older than
+ * the newest one accepted are rejected. The slot itself is written outside it. Each slot carries a stamp, cleared while
+ * the slot is written and then set to the number of the fix it holds; a reader copies the slot and keeps the copy only
+ * if the stamp is the expected one before and after, so a fix still being written, or overwritten under it, is skipped
+ * rather than read torn.
+ */
+final class TelemetryRing {
+
+    /**
+     * A copy of one fix. Speed and accuracy are NaN when the device did not report them.
+     */
+    record Fix(long time, double latitude, double longitude, float speed, float accuracy) {}
+
+    private final int mask;
+    private final long[] times;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final float[] speeds;
+    private final float[] accuracies;
+    private final AtomicLongArray stamps;
+    private final AtomicLong cursor = new AtomicLong();
+    private final Object claimLock = new Object();
+    // Time of the newest fix accepted, guarded by claimLock
+    private long newest = Long.MIN_VALUE;
+
+    // Last fix queued for persistence, for downsampling
+    private final AtomicReference<Fix> lastPersisted = new AtomicReference<>();
+
+    private final Long collectorId;
+    private volatile Long municipalityId;
+    private volatile long touchedAt;
+
+    TelemetryRing(Long collectorId, Long municipalityId, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.speeds = new float[size];
+        this.accuracies = new float[size];
+        this.stamps = new AtomicLongArray(size);
+        this.collectorId = collectorId;
+        this.municipalityId = municipalityId;
+        this.touchedAt = System.currentTimeMillis();
+    }
+
+    Long getCollectorId() {
+        return collectorId;
+    }
+
+    Long getMunicipalityId() {
+        return municipalityId;
+    }
+
+    void setMunicipalityId(Long municipalityId) {
+        this.municipalityId = municipalityId;
+    }
+
+    long getTouchedAt() {
+        return touchedAt;
+    }
+
+    /**
+     * Appends a fix.
+     *
+     * @return false if it is not newer than the newest fix already in the ring.
+     */
+    boolean add(long time, double latitude, double longitude, float speed, float accuracy) {
+        touchedAt = System.currentTimeMillis();
+        long sequence;
+        synchronized (claimLock) {
+            if (time <= newest) {
+                return false;
+            }
+            newest = time;
+            sequence = cursor.getAndIncrement();
+        }
+        int slot = (int) (sequence & mask);
+        stamps.set(slot, 0L);
+        // The cleared stamp must be visible before any of the new values
+        VarHandle.releaseFence();
+        times[slot] = time;
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        speeds[slot] = speed;
+        accuracies[slot] = accuracy;
+        stamps.setRelease(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Returns the newest readable fix, or null if there is none. A slot still being written is passed over for the
+     * one before it.
+     */
+    Fix latest() {
+        long end = cursor.get();
+        long start = Math.max(0, end - (mask + 1));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            Fix fix = read(sequence);
+            if (fix != null) {
+                return fix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns up to {@code limit} of the newest fixes, newest first.
+     */
+    List<Fix> recent(int limit) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(limit, mask + 1));
+        List<Fix> fixes = new ArrayList<>((int) (end - start));
+        for (long sequence = end - 1; sequence >= start; sequence--) {
+            Fix fix = read(sequence);
+            if (fix != null) {
+                fixes.add(fix);
+            }
+        }
+        return fixes;
+    }
+
+    /**
+     * Decides whether a fix goes to the persisted track: the first one, then one at least {@code intervalMs} or
+     * {@code distanceMetres} away from the last one persisted.
+     */
+    boolean claimPersistence(Fix fix, long intervalMs, double distanceMetres) {
+        Fix previous;
+        do {
+            previous = lastPersisted.get();
+            if (previous != null && fix.time() - previous.time() < intervalMs
+                    && distanceMetres(previous, fix) < distanceMetres) {
+                return false;
+            }
+        } while (!lastPersisted.compareAndSet(previous, fix));
+        return true;
+    }
+
+    private Fix read(long sequence) {
+        int slot = (int) (sequence & mask);
+        long stamp = stamps.getAcquire(slot);
+        if (stamp != sequence + 1) {
+            // Not written yet, or already overwritten
+            return null;
+        }
+        Fix fix = new Fix(times[slot], latitudes[slot], longitudes[slot], speeds[slot], accuracies[slot]);
+        // The values must be read before the stamp is checked again
+        VarHandle.acquireFence();
+        return stamps.get(slot) == stamp ? fix : null;
+    }
+
+    private static double distanceMetres(Fix a, Fix b) {
+        double x = (b.longitude() - a.longitude()) * Math.cos(Math.toRadians((a.latitude() + b.latitude()) / 2));
+        double y = b.latitude() - a.latitude();
+        return 111_320 * Math.sqrt(x * x + y * y);
+    }
+}
@@ -0,0 +1,362 @@
+package com.wastecollect.backend.service.telemetry;
+
+import com.wastecollect.backend.exception.RequestValidationException;
+import com.wastecollect.backend.repository.CollectorRepository;
+import com.wastecollect.common.dto.CollectorPositionDTO;
+import com.wastecollect.common.dto.GpsPingDTO;
+import com.wastecollect.common.models.Collector;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receives the GPS fixes sent by collectors' devices every few seconds.
+ * <p>
+ * The latest {@code app.telemetry.ring-size} fixes of each collector are kept in a {@link TelemetryRing}, which
+ * answers "where is everyone now" without touching the database; dispatch, routing and the work queue read it before
+ * falling back to where a collector last collected. Only a downsampled track is persisted ({@code collector_positions}):
+ * a fix is kept when it is {@code app.telemetry.persist-interval-ms} or {@code app.telemetry.persist-distance-m} away
+ * from the previous kept one. Kept fixes wait in a bounded queue, written in batches every
+ * {@code app.telemetry.flush-ms}; when the queue is full, fixes are dropped from the track but still update the rings.
+ * <p>
+ * The collector behind a device is resolved from its username once per {@code app.telemetry.identity-ttl-ms}, so that
+ * pings do not load the collector either.
+ */
+@Service
+public class TelemetryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO collector_positions (collector_id, municipality_id, recorded_at, latitude, longitude, speed, accuracy) " +
+            "VALUES (:collectorId, :municipalityId, :recordedAt, :latitude, :longitude, :speed, :accuracy)";
+
+    private static final String TRACK_SQL =
+            "SELECT collector_id, municipality_id, recorded_at, latitude, longitude, speed, accuracy FROM collector_positions " +
+            "WHERE collector_id = :collectorId ORDER BY recorded_at DESC LIMIT :limit";
+
+    @Autowired
+    private CollectorRepository collectorRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.telemetry.ring-size:256}")
+    private int ringSize;
+
+    @Value("${app.telemetry.max-pings-per-request:500}")
+    private int maxPingsPerRequest;
+
+    @Value("${app.telemetry.max-clock-skew-ms:60000}")
+    private long maxClockSkewMs;
+
+    @Value("${app.telemetry.live-max-age-ms:300000}")
+    private long liveMaxAgeMs;
+
+    @Value("${app.telemetry.persist-interval-ms:30000}")
+    private long persistIntervalMs;
+
+    @Value("${app.telemetry.persist-distance-m:100}")
+    private double persistDistanceMetres;
+
+    @Value("${app.telemetry.max-queued:50000}")
+    private int maxQueued;
+
+    @Value("${app.telemetry.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.telemetry.idle-ttl-ms:3600000}")
+    private long idleTtlMs;
+
+    @Value("${app.telemetry.identity-ttl-ms:600000}")
+    private long identityTtlMs;
+
+    @Value("${app.telemetry.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${app.telemetry.prune-batch-size:5000}")
+    private int pruneBatchSize;
+
+    private record Identity(Long collectorId, Long municipalityId, long loadedAt) {}
+
+    private record Sample(Long collectorId, Long municipalityId, TelemetryRing.Fix fix) {}
+
+    private final Map<Long, TelemetryRing> rings = new ConcurrentHashMap<>();
+    private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+
+    private final Queue<Sample> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Records the fixes sent by a collector's device. Fixes with invalid coordinates, too far in the future, or not
+     * newer than the collector's newest fix are ignored.
+     *
+     * @param username The authenticated collector's username.
+     * @return The number of fixes accepted.
+     * @throws IllegalStateException      if no collector has this username.
+     * @throws RequestValidationException if the batch is empty or too large.
+     */
+    public int ingest(String username, List<GpsPingDTO> pings) {
+        if (pings == null || pings.isEmpty()) {
+            throw new RequestValidationException("At least one position is required.");
+        }
+        if (pings.size() > maxPingsPerRequest) {
+            throw new RequestValidationException("At most " + maxPingsPerRequest + " positions can be sent at once.");
+        }
+        Identity identity = identity(username);
+        TelemetryRing ring = rings.computeIfAbsent(identity.collectorId(),
+                id -> new TelemetryRing(id, identity.municipalityId(), ringSize));
+        ring.setMunicipalityId(identity.municipalityId());
+
+        long now = System.currentTimeMillis();
+        List<GpsPingDTO> ordered = new ArrayList<>(pings.size());
+        for (GpsPingDTO ping : pings) {
+            if (ping != null && valid(ping.getLatitude(), ping.getLongitude())) {
+                ordered.add(ping);
+            }
+        }
+        // Devices buffering offline may send fixes out of order; the ring only takes them oldest first
+        ordered.sort(Comparator.comparingLong(ping -> epochMillis(ping.getRecordedAt(), now)));
+
+        int count = 0;
+        for (GpsPingDTO ping : ordered) {
+            long time = epochMillis(ping.getRecordedAt(), now);
+            if (time > now + maxClockSkewMs) {
+                continue;
+            }
+            float speed = ping.getSpeed() != null ? ping.getSpeed().floatValue() : Float.NaN;
+            float accuracy = ping.getAccuracy() != null ? ping.getAccuracy().floatValue() : Float.NaN;
+            if (!ring.add(time, ping.getLatitude(), ping.getLongitude(), speed, accuracy)) {
+                continue;
+            }
+            count++;
+            TelemetryRing.Fix fix = new TelemetryRing.Fix(time, ping.getLatitude(), ping.getLongitude(), speed, accuracy);
+            if (ring.claimPersistence(fix, persistIntervalMs, persistDistanceMetres)) {
+                enqueue(new Sample(identity.collectorId(), identity.municipalityId(), fix));
+            }
+        }
+        received.addAndGet(pings.size());
+        accepted.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Returns the latest position of every collector heard from within {@code maxAgeSeconds}, from memory.
+     *
+     * @param municipalityId Restricts the result to the collectors of a municipality; null for all.
+     */
+    public List<CollectorPositionDTO> currentPositions(Long municipalityId, long maxAgeSeconds) {
+        long since = System.currentTimeMillis() - maxAgeSeconds * 1000;
+        List<CollectorPositionDTO> positions = new ArrayList<>();
+        for (TelemetryRing ring : rings.values()) {
+            if (municipalityId != null && !municipalityId.equals(ring.getMunicipalityId())) {
+                continue;
+            }
+            TelemetryRing.Fix fix = ring.latest();
+            if (fix != null && fix.time() >= since) {
+                positions.add(toDto(ring.getCollectorId(), ring.getMunicipalityId(), fix));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the live positions, no older than {@code app.telemetry.live-max-age-ms}, by collector ID.
+     */
+    public Map<Long, CollectorPositionDTO> livePositions() {
+        Map<Long, CollectorPositionDTO> positions = new HashMap<>();
+        for (CollectorPositionDTO position : currentPositions(null, liveMaxAgeMs / 1000)) {
+            positions.put(position.getCollectorId(), position);
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the live position of a collector as {latitude, longitude}, or null if it has not reported one within
+     * {@code app.telemetry.live-max-age-ms}.
+     */
+    public double[] lastPosition(Long collectorId) {
+        TelemetryRing ring = rings.get(collectorId);
+        TelemetryRing.Fix fix = ring != null ? ring.latest() : null;
+        if (fix == null || fix.time() < System.currentTimeMillis() - liveMaxAgeMs) {
+            return null;
+        }
+        return new double[] {fix.latitude(), fix.longitude()};
+    }
+
+    /**
+     * Returns up to {@code limit} of a collector's latest positions, newest first: every fix still in memory, or the
+     * persisted track if the collector has not reported since this instance started.
+     */
+    public List<CollectorPositionDTO> track(Long collectorId, int limit) {
+        int size = Math.max(1, Math.min(limit, 1000));
+        TelemetryRing ring = rings.get(collectorId);
+        if (ring != null) {
+            List<CollectorPositionDTO> track = new ArrayList<>();
+            for (TelemetryRing.Fix fix : ring.recent(size)) {
+                track.add(toDto(collectorId, ring.getMunicipalityId(), fix));
+            }
+            return track;
+        }
+        return namedJdbcTemplate.query(TRACK_SQL, new MapSqlParameterSource("collectorId", collectorId).addValue("limit", size),
+                (rs, rowNum) -> new CollectorPositionDTO(rs.getLong("collector_id"), rs.getObject("municipality_id", Long.class),
+                        rs.getDouble("latitude"), rs.getDouble("longitude"), rs.getTimestamp("recorded_at").toLocalDateTime(),
+                        rs.getObject("speed", Double.class), rs.getObject("accuracy", Double.class)));
+    }
+
+    /**
+     * Returns the ingestion counters since startup and the current size of the persistence queue.
+     */
+    public Map<String, Long> getStatus() {
+        return Map.of("trackedCollectors", (long) rings.size(),
+                "received", received.get(),
+                "accepted", accepted.get(),
+                "persisted", persisted.get(),
+                "dropped", dropped.get(),
+                "queued", (long) queued.get());
+    }
+
+    /**
+     * Writes the queued fixes in batches, then forgets collectors idle for {@code app.telemetry.idle-ttl-ms}.
+     */
+    @Scheduled(initialDelayString = "${app.telemetry.flush-ms:5000}", fixedDelayString = "${app.telemetry.flush-ms:5000}")
+    public void flush() {
+        List<Sample> batch = new ArrayList<>(batchSize);
+        Sample sample;
+        while ((sample = pending.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(sample);
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+
+        long now = System.currentTimeMillis();
+        rings.values().removeIf(ring -> now - ring.getTouchedAt() > idleTtlMs);
+        identities.values().removeIf(identity -> now - identity.loadedAt() > identityTtlMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Drops the persisted positions older than {@code app.telemetry.retention-days}.
+     */
+    @Scheduled(initialDelayString = "${app.telemetry.prune-ms:3600000}", fixedDelayString = "${app.telemetry.prune-ms:3600000}")
+    public void prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        MapSqlParameterSource params = new MapSqlParameterSource("cutoff", cutoff).addValue("limit", pruneBatchSize);
+        long removed = 0;
+        int deleted;
+        do {
+            deleted = namedJdbcTemplate.update("DELETE FROM collector_positions WHERE recorded_at < :cutoff LIMIT :limit", params);
+            removed += deleted;
+        } while (deleted == pruneBatchSize && !Thread.currentThread().isInterrupted());
+        if (removed > 0) {
+            logger.info("{} collector positions older than {} pruned.", removed, cutoff);
+        }
+    }
+
+    private Identity identity(String username) {
+        Identity identity = identities.get(username);
+        if (identity != null && System.currentTimeMillis() - identity.loadedAt() <= identityTtlMs) {
+            return identity;
+        }
+        Collector collector = collectorRepository.findByEmail(username)
+                .orElseThrow(() -> new IllegalStateException("Authenticated collector not found."));
+        identity = new Identity(collector.getId(),
+                collector.getMunicipality() != null ? collector.getMunicipality().getId() : null, System.currentTimeMillis());
+        identities.put(username, identity);
+        return identity;
+    }
+
+    private void enqueue(Sample sample) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.add(sample);
+    }
+
+    private void write(List<Sample> batch) {
+        SqlParameterSource[] rows = new SqlParameterSource[batch.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Sample sample = batch.get(i);
+            TelemetryRing.Fix fix = sample.fix();
+            rows[i] = new MapSqlParameterSource("collectorId", sample.collectorId())
+                    .addValue("municipalityId", sample.municipalityId())
+                    .addValue("recordedAt", toLocalDateTime(fix.time()))
+                    .addValue("latitude", fix.latitude())
+                    .addValue("longitude", fix.longitude())
+                    .addValue("speed", Float.isNaN(fix.speed()) ? null : fix.speed())
+                    .addValue("accuracy", Float.isNaN(fix.accuracy()) ? null : fix.accuracy());
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(
+                    status -> namedJdbcTemplate.batchUpdate(INSERT_SQL, rows));
+            persisted.addAndGet(rows.length);
+        } catch (RuntimeException e) {
+            // The track is best effort: a failed batch is lost, the live positions are not affected
+            dropped.addAndGet(rows.length);
+            logger.error("Batch of {} collector positions could not be written: {}", rows.length, e.getMessage(), e);
+        }
+    }
+
+    private static boolean valid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180
+                && !(latitude == 0 && longitude == 0);
+    }
+
+    private static long epochMillis(LocalDateTime time, long fallback) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : fallback;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static CollectorPositionDTO toDto(Long collectorId, Long municipalityId, TelemetryRing.Fix fix) {
+        return new CollectorPositionDTO(collectorId, municipalityId, fix.latitude(), fix.longitude(),
+                toLocalDateTime(fix.time()),
+                Float.isNaN(fix.speed()) ? null : (double) fix.speed(),
+                Float.isNaN(fix.accuracy()) ? null : (double) fix.accuracy());
+    }
+}
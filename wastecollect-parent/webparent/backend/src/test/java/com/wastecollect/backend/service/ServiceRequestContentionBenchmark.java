@@ -0,0 +1,173 @@
+package com.wastecollect.backend.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention benchmark for the service request "accept" transition: many virtual collectors race
+ * for the same PENDING requests. Compares the guarded UPDATE used by {@link ServiceRequestStateMachine}
+ * with the former read-check-write sequence, and reports throughput and double-assignments.
+ *
+ * Not a unit test (not picked up by surefire); it needs a MySQL schema created by the application.
+ * Run from the backend module, e.g.:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.wastecollect.backend.service.ServiceRequestContentionBenchmark \
+ *   -Dbench.url=jdbc:mysql://localhost:3306/wastecollect_db -Dbench.user=root -Dbench.password=test1234 \
+ *   -Dbench.requests=2000 -Dbench.collectors=64
+ * </pre>
+ * At least one COLLECTOR user must exist; the inserted service requests are deleted afterwards.
+ */
+public class ServiceRequestContentionBenchmark {
+
+    private static final String GUARDED_ACCEPT =
+            "UPDATE service_requests SET status = 'ACCEPTED', collector_id = ?, updated_at = ? WHERE id = ? AND status = 'PENDING'";
+    private static final String NAIVE_READ = "SELECT status FROM service_requests WHERE id = ?";
+    private static final String NAIVE_WRITE =
+            "UPDATE service_requests SET status = 'ACCEPTED', collector_id = ?, updated_at = ? WHERE id = ?";
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "jdbc:mysql://localhost:3306/wastecollect_db");
+        String user = System.getProperty("bench.user", "root");
+        String password = System.getProperty("bench.password", "test1234");
+        int requests = Integer.getInteger("bench.requests", 2000);
+        int collectors = Integer.getInteger("bench.collectors", 64);
+
+        List<Long> collectorIds = loadCollectorIds(url, user, password);
+        if (collectorIds.isEmpty()) {
+            throw new IllegalStateException("No COLLECTOR user found; create at least one before running the benchmark.");
+        }
+
+        for (boolean guarded : new boolean[]{false, true}) {
+            List<Long> requestIds = insertPendingRequests(url, user, password, requests);
+            try {
+                run(url, user, password, requestIds, collectors, collectorIds, guarded);
+            } finally {
+                deleteRequests(url, user, password, requestIds);
+            }
+        }
+    }
+
+    private static void run(String url, String user, String password, List<Long> requestIds,
+                            int collectors, List<Long> collectorIds, boolean guarded) throws Exception {
+        AtomicLong wins = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(collectors);
+
+        for (int c = 0; c < collectors; c++) {
+            long collectorId = collectorIds.get(c % collectorIds.size());
+            long seed = c;
+            pool.submit(() -> {
+                List<Long> order = new ArrayList<>(requestIds);
+                Collections.shuffle(order, new Random(seed));
+                try (Connection connection = DriverManager.getConnection(url, user, password)) {
+                    start.await();
+                    for (Long requestId : order) {
+                        attempts.incrementAndGet();
+                        if (guarded ? acceptGuarded(connection, requestId, collectorId) : acceptNaive(connection, requestId, collectorId)) {
+                            wins.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("%-8s requests=%d collectors=%d attempts=%d wins=%d doubleAssignments=%d time=%.2fs throughput=%.0f attempts/s%n",
+                guarded ? "guarded" : "naive", requestIds.size(), collectors, attempts.get(), wins.get(),
+                wins.get() - requestIds.size(), seconds, attempts.get() / seconds);
+    }
+
+    private static boolean acceptGuarded(Connection connection, long requestId, long collectorId) throws Exception {
+        try (PreparedStatement update = connection.prepareStatement(GUARDED_ACCEPT)) {
+            update.setLong(1, collectorId);
+            update.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            update.setLong(3, requestId);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private static boolean acceptNaive(Connection connection, long requestId, long collectorId) throws Exception {
+        try (PreparedStatement read = connection.prepareStatement(NAIVE_READ)) {
+            read.setLong(1, requestId);
+            try (ResultSet rs = read.executeQuery()) {
+                if (!rs.next() || !"PENDING".equals(rs.getString(1))) {
+                    return false;
+                }
+            }
+        }
+        try (PreparedStatement write = connection.prepareStatement(NAIVE_WRITE)) {
+            write.setLong(1, collectorId);
+            write.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            write.setLong(3, requestId);
+            return write.executeUpdate() == 1;
+        }
+    }
+
+    private static List<Long> loadCollectorIds(String url, String user, String password) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM users WHERE user_type = 'COLLECTOR'")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static List<Long> insertPendingRequests(String url, String user, String password, int count) throws Exception {
+        List<Long> ids = new ArrayList<>(count);
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO service_requests (description, status, created_at, updated_at) VALUES (?, 'PENDING', ?, ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < count; i++) {
+                insert.setString(1, "contention-benchmark");
+                insert.setTimestamp(2, now);
+                insert.setTimestamp(3, now);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    ids.add(keys.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void deleteRequests(String url, String user, String password, List<Long> ids) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, user, password);
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM service_requests WHERE id = ?")) {
+            for (Long id : ids) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+}
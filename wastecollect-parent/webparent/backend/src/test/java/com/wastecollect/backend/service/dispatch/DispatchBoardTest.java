@@ -0,0 +1,130 @@
+package com.wastecollect.backend.service.dispatch;
+
+import com.wastecollect.common.utils.WasteType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatchBoardTest {
+
+    private static final DispatchBoard.Weights WEIGHTS = new DispatchBoard.Weights(10, 20, 1, 3);
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 10, 8, 0);
+
+    // A request in Dakar; a hundredth of a degree of latitude is about 1.1 km
+    private static final double LATITUDE = 14.69;
+    private static final double LONGITUDE = -17.44;
+
+    @Test
+    void nearestCollectorWins() {
+        DispatchBoard board = board(List.of(request(1L, WasteType.PLASTIC)),
+                Map.of(10L, at(0.05), 11L, at(0.01), 12L, at(0.03)), Map.of());
+
+        List<DispatchBoard.Assignment> assignments = board.match(10, WEIGHTS);
+
+        assertEquals(1, assignments.size());
+        assertEquals(11L, assignments.get(0).collectorId());
+        assertEquals(0, board.openRequests());
+    }
+
+    @Test
+    void locatedCollectorBeatsUnlocatedOne() {
+        // 15 km away and already busy, still preferred to a collector that may be anywhere
+        Map<Long, double[]> positions = new HashMap<>();
+        positions.put(10L, null);
+        positions.put(11L, at(0.135));
+        DispatchBoard board = board(List.of(request(1L, WasteType.PLASTIC)), positions,
+                Map.of(11L, Map.of(WasteType.PLASTIC, 3)));
+
+        assertEquals(11L, board.match(10, WEIGHTS).get(0).collectorId());
+    }
+
+    @Test
+    void unlocatedCollectorTakesRequestNoLocatedOneCanReach() {
+        Map<Long, double[]> positions = new HashMap<>();
+        positions.put(10L, null);
+        positions.put(11L, null);
+        positions.put(12L, at(0.3));
+        DispatchBoard board = board(List.of(request(1L, WasteType.PLASTIC)), positions,
+                Map.of(10L, Map.of(WasteType.PLASTIC, 2), 11L, Map.of(WasteType.PLASTIC, 1)));
+
+        // The located collector is past the maximum distance; the least loaded unlocated one is chosen
+        assertEquals(11L, board.match(10, WEIGHTS).get(0).collectorId());
+    }
+
+    @Test
+    void requestWithoutPositionGoesToLeastLoadedCollector() {
+        DispatchBoard.OpenRequest request = new DispatchBoard.OpenRequest(1L, WasteType.PLASTIC, null, null, CREATED_AT);
+        DispatchBoard board = board(List.of(request), Map.of(10L, at(0), 11L, at(0.05)),
+                Map.of(10L, Map.of(WasteType.PLASTIC, 2)));
+
+        assertEquals(11L, board.match(10, WEIGHTS).get(0).collectorId());
+    }
+
+    @Test
+    void loadAndMixPenaltiesOutweighDistance() {
+        // 1.1 km holding four requests (cost 5.1) against 3.3 km holding none (cost 3.3)
+        DispatchBoard loaded = board(List.of(request(1L, WasteType.PLASTIC)), Map.of(10L, at(0.01), 11L, at(0.03)),
+                Map.of(10L, Map.of(WasteType.PLASTIC, 4)));
+        assertEquals(11L, loaded.match(10, WEIGHTS).get(0).collectorId());
+
+        // 1.1 km carrying organic waste (cost 5.1) against 3.3 km carrying plastic (cost 4.3)
+        DispatchBoard mixed = board(List.of(request(1L, WasteType.PLASTIC)), Map.of(10L, at(0.01), 11L, at(0.03)),
+                Map.of(10L, Map.of(WasteType.ORGANIC, 1), 11L, Map.of(WasteType.PLASTIC, 1)));
+        assertEquals(11L, mixed.match(10, WEIGHTS).get(0).collectorId());
+    }
+
+    @Test
+    void fullCollectorTakesNoMoreAndOldestRequestsGoFirst() {
+        DispatchBoard.Weights weights = new DispatchBoard.Weights(2, 20, 1, 3);
+        DispatchBoard board = board(List.of(request(3L, WasteType.PLASTIC), request(1L, WasteType.PLASTIC),
+                request(2L, WasteType.PLASTIC)), Map.of(10L, at(0.01)), Map.of(10L, Map.of(WasteType.PLASTIC, 1)));
+
+        List<DispatchBoard.Assignment> assignments = board.match(10, weights);
+
+        assertEquals(1, assignments.size());
+        assertEquals(1L, assignments.get(0).request().id());
+        assertEquals(2, board.openRequests());
+        assertTrue(board.match(10, weights).isEmpty());
+    }
+
+    @Test
+    void releaseFreesLoadAndRequeuesOnlyOpenRequests() {
+        DispatchBoard.Weights weights = new DispatchBoard.Weights(1, 20, 1, 3);
+        DispatchBoard board = board(List.of(request(1L, WasteType.PLASTIC), request(2L, WasteType.PLASTIC)),
+                Map.of(10L, at(0.01)), Map.of());
+
+        DispatchBoard.Assignment first = board.match(10, weights).get(0);
+        board.release(first, false);
+        assertEquals(1, board.openRequests());
+
+        // The load reserved for the lost assignment is free again
+        DispatchBoard.Assignment second = board.match(10, weights).get(0);
+        assertEquals(2L, second.request().id());
+        board.release(second, true);
+        assertEquals(1, board.openRequests());
+        assertEquals(2L, board.match(10, weights).get(0).request().id());
+    }
+
+    private static DispatchBoard board(List<DispatchBoard.OpenRequest> requests, Map<Long, double[]> positions,
+                                       Map<Long, Map<WasteType, Integer>> loads) {
+        DispatchBoard board = new DispatchBoard(1L);
+        board.replace(requests, positions, loads);
+        return board;
+    }
+
+    // Requests are created a minute apart, in ID order
+    private static DispatchBoard.OpenRequest request(Long id, WasteType wasteType) {
+        return new DispatchBoard.OpenRequest(id, wasteType, LATITUDE, LONGITUDE, CREATED_AT.plusMinutes(id));
+    }
+
+    // A collector north of the requests
+    private static double[] at(double latitudeOffset) {
+        return new double[] {LATITUDE + latitudeOffset, LONGITUDE};
+    }
+}
@@ -0,0 +1,97 @@
+package com.wastecollect.backend.service.dispatch;
+
+import com.wastecollect.backend.repository.CollectorRepository;
+import com.wastecollect.backend.repository.ServiceRequestRepository;
+import com.wastecollect.backend.service.push.ServiceRequestChangedEvent;
+import com.wastecollect.common.utils.ServiceRequestStatus;
+import com.wastecollect.common.utils.WasteType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DispatchServiceTest {
+
+    private static final DispatchBoard.Weights WEIGHTS = new DispatchBoard.Weights(2, 20, 1, 3);
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 10, 8, 0);
+
+    @Mock
+    private ServiceRequestRepository serviceRequestRepository;
+
+    @Mock
+    private CollectorRepository collectorRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private DispatchService dispatchService;
+
+    @Test
+    void requestTakenMeanwhileLeavesBoardAndFreesLoad() {
+        DispatchBoard board = board(1L, 2L);
+        List<DispatchBoard.Assignment> assignments = board.match(10, WEIGHTS);
+        // Request 2 was accepted by hand after the board read it: the guarded UPDATE matches no row
+        when(serviceRequestRepository.assignCollectorIfStatusIn(eq(1L), any(), eq(List.of(ServiceRequestStatus.PENDING)),
+                eq(ServiceRequestStatus.ACCEPTED), any(), any())).thenReturn(1);
+
+        dispatchService.commit(board, assignments);
+
+        ArgumentCaptor<ServiceRequestChangedEvent> event = ArgumentCaptor.forClass(ServiceRequestChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(1L, event.getValue().getServiceRequestId());
+        assertEquals(10L, event.getValue().getCollectorId());
+        verify(transactionManager).commit(any());
+        assertEquals(0, board.openRequests());
+
+        // Only the committed assignment still counts towards the collector's load
+        board.addRequest(request(3L));
+        assertEquals(3L, board.match(10, WEIGHTS).get(0).request().id());
+    }
+
+    @Test
+    void failedBatchPutsEveryRequestBack() {
+        DispatchBoard board = board(1L, 2L);
+        List<DispatchBoard.Assignment> assignments = board.match(10, WEIGHTS);
+        when(serviceRequestRepository.assignCollectorIfStatusIn(eq(2L), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("lock wait timeout"));
+
+        dispatchService.commit(board, assignments);
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        assertEquals(2, board.openRequests());
+        assertEquals(2, board.match(10, WEIGHTS).size());
+    }
+
+    private static DispatchBoard board(Long... requestIds) {
+        DispatchBoard board = new DispatchBoard(1L);
+        board.replace(Arrays.stream(requestIds).map(DispatchServiceTest::request).toList(),
+                Map.of(10L, new double[] {14.70, -17.44}), Map.of());
+        return board;
+    }
+
+    private static DispatchBoard.OpenRequest request(Long id) {
+        return new DispatchBoard.OpenRequest(id, WasteType.PLASTIC, 14.69, -17.44, CREATED_AT.plusMinutes(id));
+    }
+}
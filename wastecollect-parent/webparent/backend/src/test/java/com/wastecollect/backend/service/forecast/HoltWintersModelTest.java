@@ -0,0 +1,113 @@
+package com.wastecollect.backend.service.forecast;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoltWintersModelTest {
+
+    private static final int WEEK = 7;
+    private static final double DECAY = 2.0 / 57;
+    private static final double Z = 1.96;
+
+    @Test
+    void fitNeedsTwoPeriods() {
+        assertNull(HoltWintersModel.fit(new double[2 * WEEK - 1], WEEK, DECAY));
+        assertNotNull(HoltWintersModel.fit(new double[2 * WEEK], WEEK, DECAY));
+    }
+
+    @Test
+    void weeklyPatternIsForecastExactly() {
+        double[] pattern = {110, 120, 130, 140, 150, 105, 100};
+        double[] values = new double[8 * WEEK];
+        for (int t = 0; t < values.length; t++) {
+            values[t] = pattern[t % WEEK];
+        }
+        HoltWintersModel model = HoltWintersModel.fit(values, WEEK, DECAY);
+
+        double[][] rows = model.forecast(2 * WEEK, Z);
+        for (int h = 0; h < rows.length; h++) {
+            assertEquals(pattern[h % WEEK], rows[h][0], 1e-6);
+            // Without any error the interval collapses on the forecast
+            assertEquals(rows[h][0], rows[h][1], 1e-6);
+            assertEquals(rows[h][0], rows[h][2], 1e-6);
+        }
+    }
+
+    @Test
+    void trendIsExtrapolated() {
+        double[] values = new double[12 * WEEK];
+        for (int t = 0; t < values.length; t++) {
+            values[t] = 100 + 2 * t;
+        }
+        HoltWintersModel model = HoltWintersModel.fit(values, WEEK, DECAY);
+
+        double[][] rows = model.forecast(WEEK, Z);
+        for (int h = 0; h < rows.length; h++) {
+            assertEquals(100 + 2 * (values.length + h), rows[h][0], 1.0);
+        }
+    }
+
+    @Test
+    void updateWithExpectedValueShiftsForecast() {
+        HoltWintersModel model = HoltWintersModel.fit(noisyWeeks(10, 1), WEEK, DECAY);
+        double[][] before = model.forecast(WEEK + 1, Z);
+
+        HoltWintersModel updated = model.update(before[0][0]);
+
+        // No error: level, trend and the seasonal term of the day are unchanged, the model only moves on by a day
+        double[][] after = updated.forecast(WEEK, Z);
+        for (int h = 0; h < after.length; h++) {
+            assertEquals(before[h + 1][0], after[h][0], 1e-9);
+        }
+        // and the error variance shrinks
+        assertTrue(after[0][2] - after[0][1] < before[0][2] - before[0][1]);
+    }
+
+    @Test
+    void updateRaisesForecastAfterHigherValue() {
+        HoltWintersModel model = HoltWintersModel.fit(noisyWeeks(10, 2), WEEK, DECAY);
+        double[][] before = model.forecast(WEEK + 1, Z);
+
+        HoltWintersModel updated = model.update(before[0][0] + 100);
+
+        // Level, trend and the seasonal term of the day all move up
+        double[][] after = updated.forecast(WEEK, Z);
+        for (int h = 0; h < after.length; h++) {
+            assertTrue(after[h][0] > before[h + 1][0]);
+        }
+        assertTrue(after[WEEK - 1][0] - before[WEEK][0] > after[0][0] - before[1][0],
+                "the day of the surprise carries the seasonal update too");
+        // and so does the error variance
+        assertTrue(after[0][2] - after[0][1] > before[0][2] - before[0][1]);
+    }
+
+    @Test
+    void updateLeavesOriginalUnchanged() {
+        HoltWintersModel model = HoltWintersModel.fit(noisyWeeks(4, 3), WEEK, DECAY);
+        double[][] before = model.forecast(WEEK, Z);
+
+        model.update(1000);
+
+        double[][] again = model.forecast(WEEK, Z);
+        for (int h = 0; h < WEEK; h++) {
+            assertEquals(before[h][0], again[h][0]);
+        }
+    }
+
+    // A weekly pattern around 200 kg with noise, never negative
+    private static double[] noisyWeeks(int weeks, long seed) {
+        Random random = new Random(seed);
+        double[] pattern = {210, 220, 230, 240, 250, 150, 100};
+        double[] values = new double[weeks * WEEK];
+        for (int t = 0; t < values.length; t++) {
+            values[t] = pattern[t % WEEK] + random.nextGaussian() * 10;
+        }
+        return values;
+    }
+}
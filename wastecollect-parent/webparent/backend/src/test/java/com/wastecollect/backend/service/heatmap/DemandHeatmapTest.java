@@ -0,0 +1,161 @@
+package com.wastecollect.backend.service.heatmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DemandHeatmapTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+    private static final int[] PRECISIONS = {5, 6};
+    private static final int[] WINDOWS = {1, 7};
+    private static final int DAY = 0;
+    private static final int WEEK = 1;
+
+    // Two points in the same precision 5 cell, in different precision 6 cells
+    private static final double LATITUDE = 14.6937;
+    private static final double LONGITUDE = -17.4441;
+    private static final double OTHER_LATITUDE = 14.7100;
+    private static final double OTHER_LONGITUDE = -17.4441;
+
+    private static final Comparator<DemandHeatmap.Counts> BY_REQUESTS =
+            Comparator.comparingLong(DemandHeatmap.Counts::requests);
+
+    @Test
+    void countsInEveryWindowCoveringTheDay() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 1, 15.5);
+        heatmap.add(TODAY.minusDays(3), 1, LATITUDE, LONGITUDE, 3, 0, 0);
+
+        assertEquals(2, requests(heatmap, 0, DAY));
+        assertEquals(5, requests(heatmap, 0, WEEK));
+        DemandHeatmap.Cell cell = heatmap.top(0, DAY, 1L, null, 1, BY_REQUESTS).get(0);
+        assertEquals(Geohash.encode(LATITUDE, LONGITUDE, 5), cell.geohash());
+        assertEquals(1, cell.counts().collections());
+        assertEquals(15.5, cell.counts().weightKg(), 1e-9);
+    }
+
+    @Test
+    void ignoresDaysOutsideTheLongestWindow() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY.plusDays(1), 1, LATITUDE, LONGITUDE, 1, 0, 0);
+        heatmap.add(TODAY.minusDays(7), 1, LATITUDE, LONGITUDE, 1, 0, 0);
+
+        assertEquals(0, requests(heatmap, 0, WEEK));
+    }
+
+    @Test
+    void advanceSubtractsTheDaysLeavingEachWindow() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+        heatmap.add(TODAY.minusDays(3), 1, LATITUDE, LONGITUDE, 3, 0, 0);
+
+        // Today leaves the one-day window, both days stay in the week
+        heatmap.advanceTo(TODAY.plusDays(1));
+        assertEquals(0, requests(heatmap, 0, DAY));
+        assertEquals(5, requests(heatmap, 0, WEEK));
+        heatmap.add(TODAY.plusDays(1), 1, LATITUDE, LONGITUDE, 1, 0, 0);
+        assertEquals(1, requests(heatmap, 0, DAY));
+
+        // Four days later the older day has left the week
+        heatmap.advanceTo(TODAY.plusDays(4));
+        assertEquals(0, requests(heatmap, 0, DAY));
+        assertEquals(3, requests(heatmap, 0, WEEK));
+        assertEquals(3, requests(heatmap, 1, WEEK));
+
+        // And once the newest day is out, the emptied cells are dropped
+        heatmap.advanceTo(TODAY.plusDays(8));
+        assertEquals(0, requests(heatmap, 0, WEEK));
+        assertEquals(Map.of(5, 0, 6, 0), heatmap.cellCounts());
+    }
+
+    @Test
+    void advanceBeyondTheLongestWindowClearsEverything() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+
+        heatmap.advanceTo(TODAY.plusDays(30));
+        assertEquals(Map.of(5, 0, 6, 0), heatmap.cellCounts());
+
+        // A day before the new window is ignored, today is counted
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 1, 0, 0);
+        heatmap.add(TODAY.plusDays(30), 1, LATITUDE, LONGITUDE, 4, 0, 0);
+        assertEquals(4, requests(heatmap, 0, WEEK));
+    }
+
+    @Test
+    void advanceToAnEarlierDayIsIgnored() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+
+        heatmap.advanceTo(TODAY.minusDays(2));
+        assertEquals(2, requests(heatmap, 0, DAY));
+    }
+
+    @Test
+    void finerPrecisionsSplitTheCell() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+        heatmap.add(TODAY, 1, OTHER_LATITUDE, OTHER_LONGITUDE, 1, 0, 0);
+
+        assertEquals(1, heatmap.top(0, WEEK, 1L, null, 10, BY_REQUESTS).size());
+        List<DemandHeatmap.Cell> fine = heatmap.top(1, WEEK, 1L, null, 10, BY_REQUESTS);
+        assertEquals(2, fine.size());
+        assertEquals(2, fine.get(0).counts().requests());
+        assertEquals(1, fine.get(1).counts().requests());
+    }
+
+    @Test
+    void unlocatedRequestsOnlyCountInMunicipalityTotals() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+        heatmap.add(TODAY, 1, null, null, 5, 0, 0);
+
+        assertEquals(2, requests(heatmap, 0, WEEK));
+        assertEquals(7, heatmap.municipalityTotals(WEEK).get(1L).requests());
+    }
+
+    @Test
+    void cellsSharedByMunicipalitiesAreMerged() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+        heatmap.add(TODAY, 2, LATITUDE, LONGITUDE, 3, 0, 0);
+
+        List<DemandHeatmap.Cell> merged = heatmap.top(0, WEEK, null, null, 10, BY_REQUESTS);
+        assertEquals(1, merged.size());
+        assertEquals(5, merged.get(0).counts().requests());
+        assertNull(merged.get(0).municipalityId());
+        assertEquals(3, heatmap.top(0, WEEK, 2L, null, 10, BY_REQUESTS).get(0).counts().requests());
+    }
+
+    @Test
+    void boxFiltersOnCellCentres() {
+        DemandHeatmap heatmap = new DemandHeatmap(PRECISIONS, WINDOWS, TODAY);
+        heatmap.add(TODAY, 1, LATITUDE, LONGITUDE, 2, 0, 0);
+
+        double[] around = {LATITUDE - 0.1, LONGITUDE - 0.1, LATITUDE + 0.1, LONGITUDE + 0.1};
+        double[] elsewhere = {0, 0, 1, 1};
+        assertEquals(1, heatmap.top(0, WEEK, 1L, around, 10, BY_REQUESTS).size());
+        assertTrue(heatmap.top(0, WEEK, 1L, elsewhere, 10, BY_REQUESTS).isEmpty());
+    }
+
+    @Test
+    void topKeepsTheGreatestInOrder() {
+        List<Integer> top = DemandHeatmap.top(List.of(5, 1, 9, 3, 7, 9, 2), 3, Comparator.naturalOrder());
+        assertEquals(List.of(9, 9, 7), top);
+        assertEquals(List.of(2, 1), DemandHeatmap.top(List.of(1, 2), 5, Comparator.naturalOrder()));
+    }
+
+    // Requests of the located cells of a municipality
+    private static long requests(DemandHeatmap heatmap, int precisionIndex, int windowIndex) {
+        return heatmap.top(precisionIndex, windowIndex, 1L, null, 100, BY_REQUESTS).stream()
+                .mapToLong(cell -> cell.counts().requests()).sum();
+    }
+}
@@ -0,0 +1,60 @@
+package com.wastecollect.backend.service.heatmap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeohashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertEquals("ezs42", Geohash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("s0000", Geohash.encode(0, 0, 5));
+    }
+
+    @Test
+    void everyPrefixIsTheEnclosingCell() {
+        String finest = Geohash.encode(14.6937, -17.4441, Geohash.MAX_PRECISION);
+        for (int precision = 1; precision <= Geohash.MAX_PRECISION; precision++) {
+            assertEquals(finest.substring(0, precision), Geohash.encode(14.6937, -17.4441, precision));
+        }
+    }
+
+    @Test
+    void boundsContainThePointAndHaveTheCellSize() {
+        double[] bounds = Geohash.bounds("ezs42");
+
+        assertTrue(bounds[0] <= 42.605 && 42.605 < bounds[2]);
+        assertTrue(bounds[1] <= -5.603 && -5.603 < bounds[3]);
+        // 25 bits: 12 halvings of the latitudes and 13 of the longitudes
+        assertEquals(180.0 / (1 << 12), bounds[2] - bounds[0], 1e-12);
+        assertEquals(360.0 / (1 << 13), bounds[3] - bounds[1], 1e-12);
+    }
+
+    @Test
+    void centreOfBoundsEncodesBackToTheCell() {
+        for (String hash : new String[] {"ezs42", "u4pruyd", "s0000", "zzzzz", "00000"}) {
+            double[] bounds = Geohash.bounds(hash);
+            assertEquals(hash, Geohash.encode((bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2, hash.length()));
+        }
+    }
+
+    @Test
+    void emptyHashIsTheWholeWorld() {
+        double[] bounds = Geohash.bounds("");
+        assertEquals(-90, bounds[0]);
+        assertEquals(-180, bounds[1]);
+        assertEquals(90, bounds[2]);
+        assertEquals(180, bounds[3]);
+    }
+
+    @Test
+    void rejectsCharactersOutsideTheAlphabet() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.bounds("ezs4a"));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.bounds("EZS42"));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.bounds("ezs4é"));
+    }
+}
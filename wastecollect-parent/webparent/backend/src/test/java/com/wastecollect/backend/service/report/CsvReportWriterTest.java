@@ -0,0 +1,45 @@
+package com.wastecollect.backend.service.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvReportWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void quotesSeparatorsAndQuotes() throws IOException {
+        assertEquals("\"Dakar, Plateau\",\"Le \"\"Grand\"\" Marché\",\"two\r\nlines\"\r\n",
+                row("Dakar, Plateau", "Le \"Grand\" Marché", "two\r\nlines"));
+    }
+
+    @Test
+    void neutralizesFormulas() throws IOException {
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\",\"'+221\",\"'-1+2\",\"'@SUM(A1)\",\"'\tTab\",\"'\rCR\"\r\n",
+                row("=HYPERLINK(\"http://x\")", "+221", "-1+2", "@SUM(A1)", "\tTab", "\rCR"));
+    }
+
+    @Test
+    void leavesNumbersAndPlainTextAlone() throws IOException {
+        assertEquals("-12,-3.50,Fatou Diop,,\r\n", row(-12L, new BigDecimal("-3.50"), "Fatou Diop", "", null));
+    }
+
+    private String row(Object... values) throws IOException {
+        Path file = directory.resolve("report.csv");
+        try (CsvReportWriter writer = new CsvReportWriter(file)) {
+            writer.writeRow(values);
+        }
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        // Drop the byte order mark
+        return content.substring(1);
+    }
+}
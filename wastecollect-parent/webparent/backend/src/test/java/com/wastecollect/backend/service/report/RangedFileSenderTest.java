@@ -0,0 +1,40 @@
+package com.wastecollect.backend.service.report;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RangedFileSenderTest {
+
+    private static final long[] WHOLE_FILE = new long[0];
+
+    @Test
+    void parsesSingleRanges() {
+        assertArrayEquals(new long[] {0, 99}, RangedFileSender.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[] {500, 999}, RangedFileSender.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[] {900, 999}, RangedFileSender.parseRange("bytes=-100", 1000));
+        // Past the end is clamped to the file
+        assertArrayEquals(new long[] {900, 999}, RangedFileSender.parseRange("bytes=900-5000", 1000));
+        assertArrayEquals(new long[] {0, 999}, RangedFileSender.parseRange("bytes=-5000", 1000));
+    }
+
+    @Test
+    void ignoresInvalidHeaders() {
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=500-100", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=--5", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=+5-10", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=-", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=a-b", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("items=0-10", 1000));
+        assertArrayEquals(WHOLE_FILE, RangedFileSender.parseRange("bytes=0-10,20-30", 1000));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertNull(RangedFileSender.parseRange("bytes=1000-", 1000));
+        assertNull(RangedFileSender.parseRange("bytes=1000-2000", 1000));
+        assertNull(RangedFileSender.parseRange("bytes=-0", 1000));
+        assertNull(RangedFileSender.parseRange("bytes=0-", 0));
+    }
+}
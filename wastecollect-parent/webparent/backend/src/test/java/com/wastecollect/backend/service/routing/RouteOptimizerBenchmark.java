@@ -0,0 +1,131 @@
+package com.wastecollect.backend.service.routing;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the {@link RouteOptimizer} on synthetic instances: stops clustered around a few neighbourhoods of a
+ * 20 km wide city, with random volumes. For each size it reports the nearest-neighbour and the improved route length,
+ * the solve time and whether the budget ran out, without and with a vehicle capacity, then solves several collectors
+ * at once on a fork-join pool. Every route is checked to visit each stop exactly once.
+ *
+ * Not a unit test (not picked up by surefire) and needs no database. Run from the backend module, e.g.:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=com.wastecollect.backend.service.routing.RouteOptimizerBenchmark \
+ *   -Dbench.sizes=1000,2000,5000,10000 -Dbench.budget-ms=2000 -Dbench.collectors=16
+ * </pre>
+ */
+public class RouteOptimizerBenchmark {
+
+    private static final double CENTER_LATITUDE = 14.70;
+    private static final double CENTER_LONGITUDE = -17.45;
+
+    public static void main(String[] args) {
+        String[] sizes = System.getProperty("bench.sizes", "1000,2000,5000,10000").split(",");
+        long budgetMs = Long.getLong("bench.budget-ms", 2000);
+        int collectors = Integer.getInteger("bench.collectors", 16);
+        int matrixLimit = Integer.getInteger("bench.matrix-limit", 2000);
+        int neighbours = Integer.getInteger("bench.neighbours", 10);
+        long seed = Long.getLong("bench.seed", 42);
+
+        RouteOptimizer optimizer = new RouteOptimizer(matrixLimit, neighbours);
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+
+        // Warm-up so that the first measured size is not paying for JIT compilation
+        optimizer.solve(instance(500, 0, new Random(seed)), budgetNanos);
+
+        System.out.printf("%8s %9s %12s %12s %8s %9s %7s %8s%n",
+                "stops", "capacity", "seed km", "route km", "gain", "time ms", "trips", "timeout");
+        for (String value : sizes) {
+            int size = Integer.parseInt(value.trim());
+            for (double capacity : new double[] {0, 200}) {
+                RoutingProblem problem = instance(size, capacity, new Random(seed + size));
+                long start = System.nanoTime();
+                RoutePlan plan = optimizer.solve(problem, budgetNanos);
+                long elapsed = System.nanoTime() - start;
+                check(problem, plan);
+                System.out.printf("%8d %9s %12.1f %12.1f %7.1f%% %9d %7d %8s%n", size,
+                        capacity > 0 ? String.valueOf((int) capacity) : "-", plan.seedDistanceKm(), plan.distanceKm(),
+                        100 * (1 - plan.distanceKm() / plan.seedDistanceKm()),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), plan.trips().size(), plan.timedOut());
+            }
+        }
+
+        // Many collectors of a realistic size at once, as the planning service solves them
+        int perCollector = Integer.getInteger("bench.stops-per-collector", 1000);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<RoutingProblem> problems = new ArrayList<>();
+            for (int c = 0; c < collectors; c++) {
+                problems.add(instance(perCollector, 0, new Random(seed + 1000 + c)));
+            }
+            long start = System.nanoTime();
+            List<ForkJoinTask<RoutePlan>> tasks = new ArrayList<>();
+            for (RoutingProblem problem : problems) {
+                tasks.add(pool.submit(() -> optimizer.solve(problem, budgetNanos)));
+            }
+            double total = 0;
+            int timedOut = 0;
+            for (int c = 0; c < tasks.size(); c++) {
+                RoutePlan plan = tasks.get(c).join();
+                check(problems.get(c), plan);
+                total += plan.distanceKm();
+                timedOut += plan.timedOut() ? 1 : 0;
+            }
+            System.out.printf("%nParallel: %d collectors x %d stops on %d threads in %d ms (%.1f km in total, %d timed out)%n",
+                    collectors, perCollector, pool.getParallelism(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), total, timedOut);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static RoutingProblem instance(int size, double capacity, Random random) {
+        int clusters = Math.max(3, size / 250);
+        double[][] centers = new double[clusters][2];
+        for (int c = 0; c < clusters; c++) {
+            centers[c][0] = CENTER_LATITUDE + (random.nextDouble() - 0.5) * 0.18;
+            centers[c][1] = CENTER_LONGITUDE + (random.nextDouble() - 0.5) * 0.18;
+        }
+        long[] ids = new long[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        double[] demands = new double[size];
+        for (int i = 0; i < size; i++) {
+            double[] center = centers[random.nextInt(clusters)];
+            ids[i] = i + 1;
+            latitudes[i] = center[0] + random.nextGaussian() * 0.01;
+            longitudes[i] = center[1] + random.nextGaussian() * 0.01;
+            demands[i] = 1 + random.nextInt(20);
+        }
+        return new RoutingProblem(null, ids, latitudes, longitudes, demands, capacity, CENTER_LATITUDE, CENTER_LONGITUDE);
+    }
+
+    private static void check(RoutingProblem problem, RoutePlan plan) {
+        BitSet seen = new BitSet(problem.size() + 1);
+        int visited = 0;
+        for (List<Long> trip : plan.trips()) {
+            double load = 0;
+            for (Long id : trip) {
+                if (seen.get(id.intValue())) {
+                    throw new IllegalStateException("Stop " + id + " visited twice");
+                }
+                seen.set(id.intValue());
+                load += problem.demands()[id.intValue() - 1];
+                visited++;
+            }
+            if (problem.hasCapacity() && load > problem.capacity() && trip.size() > 1) {
+                throw new IllegalStateException("Trip over capacity: " + load);
+            }
+        }
+        if (visited != problem.size()) {
+            throw new IllegalStateException("Visited " + visited + " of " + problem.size() + " stops");
+        }
+    }
+}
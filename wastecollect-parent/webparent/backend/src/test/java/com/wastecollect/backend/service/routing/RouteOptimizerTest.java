@@ -0,0 +1,220 @@
+package com.wastecollect.backend.service.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteOptimizerTest {
+
+    private static final double DELTA_KM = 1e-3;
+    private static final long BUDGET_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void twoOptUncrossesRoute() {
+        // Start at the origin, stops on the other corners of a square, visited along a diagonal first
+        RoutingProblem problem = problem(new double[][] {{0, 0.01}, {0.01, 0}, {0.01, 0.01}}, null, 0, 0.0, 0.0);
+        RouteOptimizer.Geometry geometry = new RouteOptimizer.Geometry(problem, 100);
+        int[] tour = {3, 0, 1, 2};
+        double crossed = RouteOptimizer.length(geometry, tour);
+
+        int[] position = positions(tour);
+        boolean improved = false;
+        for (int i = 0; i < tour.length && !improved; i++) {
+            improved = RouteOptimizer.twoOpt(geometry, tour, i, 0, tripOf(3), position, neighbours(geometry, 3));
+        }
+
+        assertTrue(improved);
+        assertConsistent(tour, position);
+        double perimeter = geometry.distance(3, 0) + geometry.distance(0, 2) + geometry.distance(2, 1)
+                + geometry.distance(1, 3);
+        assertEquals(perimeter, RouteOptimizer.length(geometry, tour), DELTA_KM);
+        assertTrue(perimeter < crossed);
+    }
+
+    @Test
+    void orOptMovesMisplacedStop() {
+        // Stops along the equator, the second and third swapped
+        RoutingProblem problem = problem(new double[][] {{0, 0.01}, {0, 0.02}, {0, 0.03}, {0, 0.04}}, null, 0, 0.0, 0.0);
+        RouteOptimizer.Geometry geometry = new RouteOptimizer.Geometry(problem, 100);
+        int[] tour = {4, 0, 2, 1, 3};
+        double before = RouteOptimizer.length(geometry, tour);
+
+        int[] position = positions(tour);
+        int[] tripOf = tripOf(4);
+        int[][] neighbours = neighbours(geometry, 4);
+        int[] scratch = new int[tour.length];
+        boolean improved = true;
+        int moves = 0;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < tour.length; i++) {
+                if (RouteOptimizer.orOpt(geometry, tour, i, 0, tripOf, position, neighbours, scratch)) {
+                    improved = true;
+                    moves++;
+                }
+            }
+        }
+
+        assertTrue(moves > 0);
+        assertConsistent(tour, position);
+        double outAndBack = 2 * geometry.distance(4, 3);
+        assertEquals(outAndBack, RouteOptimizer.length(geometry, tour), DELTA_KM);
+        assertTrue(outAndBack < before);
+    }
+
+    @Test
+    void solveImprovesOnSeed() {
+        RoutingProblem problem = randomProblem(300, null, 0, 14.70, -17.45, 1);
+        RoutePlan plan = new RouteOptimizer(2000, 10).solve(problem, BUDGET_NANOS);
+
+        assertVisitsEveryStopOnce(problem, plan);
+        assertFalse(plan.timedOut());
+        assertEquals(1, plan.trips().size());
+        assertTrue(plan.distanceKm() <= plan.seedDistanceKm());
+    }
+
+    @Test
+    void capacitySplitsTrips() {
+        double[][] stops = {{0, 0.01}, {0, 0.02}, {0, 0.03}, {0.01, 0.01}, {0.01, 0.02}};
+        double[] demands = {4, 4, 4, 4, 4};
+        RoutingProblem problem = problem(stops, demands, 10, 0.0, 0.0);
+        RoutePlan plan = new RouteOptimizer(100, 10).solve(problem, BUDGET_NANOS);
+
+        assertVisitsEveryStopOnce(problem, plan);
+        assertEquals(3, plan.trips().size());
+        assertEquals(0, plan.overloadedStops());
+        for (List<Long> trip : plan.trips()) {
+            assertTrue(load(problem, trip) <= problem.capacity());
+        }
+    }
+
+    @Test
+    void overloadedStopGetsTripOfItsOwn() {
+        double[][] stops = {{0, 0.01}, {0, 0.02}, {0, 0.03}};
+        double[] demands = {3, 25, 3};
+        RoutingProblem problem = problem(stops, demands, 10, 0.0, 0.0);
+        RoutePlan plan = new RouteOptimizer(100, 10).solve(problem, BUDGET_NANOS);
+
+        assertVisitsEveryStopOnce(problem, plan);
+        assertEquals(1, plan.overloadedStops());
+        for (List<Long> trip : plan.trips()) {
+            assertTrue(trip.size() == 1 || load(problem, trip) <= problem.capacity());
+            assertTrue(!trip.contains(2L) || trip.size() == 1);
+        }
+    }
+
+    @Test
+    void farStartIsSolved() {
+        // Stops in one city, the start on another continent
+        RoutingProblem problem = randomProblem(500, null, 0, 60.0, 120.0, 2);
+        RoutePlan plan = new RouteOptimizer(2000, 10).solve(problem, BUDGET_NANOS);
+
+        assertVisitsEveryStopOnce(problem, plan);
+        assertFalse(plan.timedOut());
+    }
+
+    @Test
+    void exhaustedBudgetStillVisitsEveryStop() {
+        RoutingProblem problem = randomProblem(1000, new double[1000], 50, 14.70, -17.45, 3);
+        Arrays.fill(problem.demands(), 3);
+        RoutePlan plan = new RouteOptimizer(2000, 10).solve(problem, 0);
+
+        assertVisitsEveryStopOnce(problem, plan);
+        assertTrue(plan.timedOut());
+        assertEquals(plan.seedDistanceKm(), plan.distanceKm(), DELTA_KM);
+        for (List<Long> trip : plan.trips()) {
+            assertTrue(load(problem, trip) <= problem.capacity());
+        }
+    }
+
+    private static RoutingProblem problem(double[][] stops, double[] demands, double capacity,
+                                          Double startLatitude, Double startLongitude) {
+        int n = stops.length;
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            latitudes[i] = stops[i][0];
+            longitudes[i] = stops[i][1];
+        }
+        return new RoutingProblem(null, ids, latitudes, longitudes, demands != null ? demands : new double[n],
+                capacity, startLatitude, startLongitude);
+    }
+
+    private static RoutingProblem randomProblem(int size, double[] demands, double capacity,
+                                                double startLatitude, double startLongitude, long seed) {
+        Random random = new Random(seed);
+        double[][] stops = new double[size][];
+        for (int i = 0; i < size; i++) {
+            stops[i] = new double[] {14.70 + random.nextGaussian() * 0.05, -17.45 + random.nextGaussian() * 0.05};
+        }
+        return problem(stops, demands, capacity, startLatitude, startLongitude);
+    }
+
+    // Every stop in trip 0, the start (last node) in none
+    private static int[] tripOf(int start) {
+        int[] tripOf = new int[start + 1];
+        tripOf[start] = -1;
+        return tripOf;
+    }
+
+    private static int[] positions(int[] tour) {
+        int[] position = new int[tour.length];
+        for (int k = 0; k < tour.length; k++) {
+            position[tour[k]] = k;
+        }
+        return position;
+    }
+
+    // Every other stop of every node, closest first, as the spatial grid would list them
+    private static int[][] neighbours(RouteOptimizer.Geometry geometry, int stops) {
+        int[][] neighbours = new int[stops + 1][];
+        for (int node = 0; node <= stops; node++) {
+            int from = node;
+            List<Integer> others = new ArrayList<>();
+            for (int stop = 0; stop < stops; stop++) {
+                if (stop != from) {
+                    others.add(stop);
+                }
+            }
+            others.sort(Comparator.comparingDouble(stop -> geometry.distance(from, stop)));
+            neighbours[node] = others.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return neighbours;
+    }
+
+    private static void assertConsistent(int[] tour, int[] position) {
+        assertEquals(tour.length - 1, tour[0], "the start stays first");
+        for (int k = 0; k < tour.length; k++) {
+            assertEquals(k, position[tour[k]]);
+        }
+    }
+
+    private static void assertVisitsEveryStopOnce(RoutingProblem problem, RoutePlan plan) {
+        BitSet seen = new BitSet(problem.size() + 1);
+        int visited = 0;
+        for (List<Long> trip : plan.trips()) {
+            for (Long id : trip) {
+                assertFalse(seen.get(id.intValue()), "stop " + id + " visited twice");
+                seen.set(id.intValue());
+                visited++;
+            }
+        }
+        assertEquals(problem.size(), visited);
+    }
+
+    private static double load(RoutingProblem problem, List<Long> trip) {
+        return trip.stream().mapToDouble(id -> problem.demands()[id.intValue() - 1]).sum();
+    }
+}
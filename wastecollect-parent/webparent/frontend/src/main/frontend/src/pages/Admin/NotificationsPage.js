@@ -117,25 +117,25 @@ const NotificationsPage = () => {
     };
 
     /**
-     * Marque une notification comme lue ou non lue.
-     * @param {number} id L'ID de la notification.
-     * @param {boolean} currentIsReadStatus Le statut de lecture actuel de la notification.
+     * Marque une notification (personnelle ou diffusion) comme lue ou non lue.
+     * @param {Object} notification La notification.
      */
-    const handleMarkAsRead = async (id, currentIsReadStatus) => {
+    const handleMarkAsRead = async (notification) => {
         setError(null);
+        const key = notificationService.inboxKey(notification);
         try {
-            if (currentIsReadStatus) { // If currently read, mark as unread
-                await notificationService.markNotificationAsUnread(id);
+            if (notification.isRead) { // If currently read, mark as unread
+                await notificationService.markAsUnread(user.id, notification);
                 setNotificationsData(prev => ({
                     ...prev,
-                    content: prev.content.map(notif => (notif.id === id ? { ...notif, isRead: false, readAt: null } : notif))
+                    content: prev.content.map(notif => (notificationService.inboxKey(notif) === key ? { ...notif, isRead: false, readAt: null } : notif))
                 }));
                 toast.success(`Notification marquée comme non lue.`);
             } else { // If currently unread, mark as read
-                await notificationService.markNotificationAsRead(id);
+                await notificationService.markAsRead(user.id, notification);
                 setNotificationsData(prev => ({
                     ...prev,
-                    content: prev.content.map(notif => (notif.id === id ? { ...notif, isRead: true, readAt: new Date().toISOString() } : notif))
+                    content: prev.content.map(notif => (notificationService.inboxKey(notif) === key ? { ...notif, isRead: true, readAt: new Date().toISOString() } : notif))
                 }));
                 toast.success(`Notification marquée comme lue.`);
             }
@@ -307,7 +307,7 @@ const NotificationsPage = () => {
                                     </tr>
                                 ) : (
                                     notificationsData.content.map((notif) => (
-                                        <tr key={notif.id}>
+                                        <tr key={notificationService.inboxKey(notif)}>
                                             <td>
                                                 <Badge bg={notif.isRead ? 'success' : 'primary'}>
                                                     {notif.isRead ? <FaCheckCircle className="me-1" /> : <FaEnvelope className="me-1" />}
@@ -326,19 +326,22 @@ const NotificationsPage = () => {
                                                     variant={notif.isRead ? 'outline-warning' : 'outline-success'}
                                                     size="sm"
                                                     className="me-2"
-                                                    onClick={() => handleMarkAsRead(notif.id, notif.isRead)}
+                                                    onClick={() => handleMarkAsRead(notif)}
                                                     title={notif.isRead ? 'Marquer comme non lue' : 'Marquer comme lue'}
                                                 >
                                                     {notif.isRead ? <FaEnvelopeOpen /> : <FaCheckCircle />}
                                                 </Button>
-                                                <Button
-                                                    variant="outline-danger"
-                                                    size="sm"
-                                                    onClick={() => confirmDeleteNotification(notif)}
-                                                    title="Supprimer"
-                                                >
-                                                    <FaTrash />
-                                                </Button>
+                                                {/* Broadcasts are shared by their whole audience and cannot be deleted from one inbox */}
+                                                {!notif.broadcast && (
+                                                    <Button
+                                                        variant="outline-danger"
+                                                        size="sm"
+                                                        onClick={() => confirmDeleteNotification(notif)}
+                                                        title="Supprimer"
+                                                    >
+                                                        <FaTrash />
+                                                    </Button>
+                                                )}
                                             </td>
                                         </tr>
                                     ))
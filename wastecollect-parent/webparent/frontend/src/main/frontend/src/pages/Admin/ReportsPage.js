@@ -37,7 +37,7 @@ import useAuth from '../../hooks/useAuth';
  * - Générer des rapports automatisés sur différentes périodes
  * - Filtrer les rapports par type, période, municipalité, collecteur
  * - Visualiser les données sous forme de tableaux et graphiques
- * - Exporter les rapports en différents formats (PDF, Excel)
+ * - Exporter les rapports en différents formats (Excel, CSV)
  * - Analyser les performances globales du système
  */
 const ReportsPage = () => {
@@ -60,7 +60,7 @@ const ReportsPage = () => {
         type: 'performance', // Default type
         period: 'monthly', // Default period
         includeCharts: true,
-        format: 'pdf', // Default format
+        format: 'excel', // Default format
         municipalityId: '', // Optional filter
         collectorId: '',    // Optional filter
         startDate: '',      // Optional date filter
@@ -89,11 +89,25 @@ const ReportsPage = () => {
         fetchFilterOptions(); // Fetch municipalities and collectors for dropdowns
     }, [currentPage, filterReportType, filterReportStatus, searchQuery]);
 
+    /**
+     * Rafraîchit la liste tant que des rapports sont en attente ou en cours, pour suivre leur avancement
+     */
+    useEffect(() => {
+        const inProgress = reports.some(report => report.status === 'pending' || report.status === 'processing');
+        if (!inProgress) {
+            return undefined;
+        }
+        const timer = setTimeout(() => fetchReports(true), 3000);
+        return () => clearTimeout(timer);
+    }, [reports]);
+
     /**
      * Récupère la liste des rapports depuis l'API
      */
-    const fetchReports = async () => {
-        setLoading(true);
+    const fetchReports = async (silent = false) => {
+        if (!silent) {
+            setLoading(true);
+        }
         setError(null);
         try {
             const filters = {
@@ -159,15 +173,17 @@ const ReportsPage = () => {
                 ...reportConfig,
                 generatedBy: user?.firstName && user?.lastName ? `${user.firstName} ${user.lastName}` : user?.email || 'Admin Inconnu',
             };
-            await adminService.generateReport(configToSend);
-            setSuccess("Rapport demandé avec succès ! Il apparaîtra bientôt dans la liste.");
+            const report = await adminService.generateReport(configToSend);
+            setSuccess(report && report.status === 'completed'
+                ? "Un rapport identique sur les mêmes données est déjà disponible : il a été réutilisé."
+                : "Rapport demandé avec succès ! Il apparaîtra bientôt dans la liste.");
             // Reset form
             setReportConfig({
                 title: '',
                 type: 'performance',
                 period: 'monthly',
                 includeCharts: true,
-                format: 'pdf',
+                format: 'excel',
                 municipalityId: '',
                 collectorId: '',
                 startDate: '',
@@ -182,6 +198,21 @@ const ReportsPage = () => {
         }
     };
 
+    /**
+     * Annule un rapport en attente ou en cours de génération
+     * @param {Long} reportId - ID du rapport à annuler
+     */
+    const cancelReport = async (reportId) => {
+        setError(null);
+        try {
+            await adminService.cancelReport(reportId);
+            fetchReports(true);
+        } catch (err) {
+            console.error("Erreur lors de l'annulation du rapport:", err);
+            setError("Erreur lors de l'annulation du rapport. " + (err.message || err || ""));
+        }
+    };
+
     /**
      * Ouvre la modale pour visualiser les détails d'un rapport
      * @param {Object} report - Le rapport sélectionné
@@ -207,7 +238,8 @@ const ReportsPage = () => {
             const link = document.createElement('a');
             link.href = url;
             // Determine filename based on report properties, or a generic name
-            const filename = selectedReport ? `${selectedReport.title.replace(/\s/g, '_')}.${selectedReport.format}` : `report_${reportId}.pdf`;
+            const extension = selectedReport && selectedReport.format === 'csv' ? 'csv' : 'xlsx';
+            const filename = selectedReport ? `${selectedReport.title.replace(/\s/g, '_')}.${extension}` : `report_${reportId}.${extension}`;
             link.setAttribute('download', filename);
             document.body.appendChild(link);
             link.click();
@@ -367,7 +399,6 @@ const ReportsPage = () => {
                                     required
                                     disabled={loading}
                                 >
-                                    <option value="pdf">PDF</option>
                                     <option value="excel">Excel</option>
                                     <option value="csv">CSV</option>
                                 </Form.Select>
@@ -498,9 +529,11 @@ const ReportsPage = () => {
                                         <td>
                                             <Badge bg={
                                                 report.status === 'completed' ? 'success' :
-                                                report.status === 'processing' ? 'warning' : 'danger'
+                                                report.status === 'processing' || report.status === 'pending' ? 'warning' :
+                                                report.status === 'cancelled' || report.status === 'expired' ? 'secondary' : 'danger'
                                             }>
                                                 {report.status}
+                                                {report.status === 'processing' && report.progress != null && ` ${report.progress}%`}
                                             </Badge>
                                         </td>
                                         <td>{report.format}</td>
@@ -513,6 +546,11 @@ const ReportsPage = () => {
                                                     <FaFileDownload /> Télécharger
                                                 </Button>
                                             )}
+                                            {(report.status === 'pending' || report.status === 'processing') && (
+                                                <Button variant="outline-danger" size="sm" onClick={() => cancelReport(report.id)}>
+                                                    Annuler
+                                                </Button>
+                                            )}
                                         </td>
                                     </tr>
                                 ))}
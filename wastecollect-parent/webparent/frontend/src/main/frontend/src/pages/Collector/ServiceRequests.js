@@ -16,12 +16,18 @@ import { useNavigate } from 'react-router-dom';
  * ServiceRequests Component - Manages service requests for collectors.
  * Allows viewing, filtering, accepting/rejecting, and tracking requests in real-time.
  */
+// Requests fetched per page of the work queue
+const QUEUE_PAGE_SIZE = 50;
+
 const ServiceRequests = () => {
   // States for managing requests
   const [requests, setRequests] = useState([]);
   const [filteredRequests, setFilteredRequests] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  // Cursor of the next page of the work queue, null when everything is loaded
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   // States for pagination
   const [currentPage, setCurrentPage] = useState(1);
@@ -48,29 +54,43 @@ const ServiceRequests = () => {
    * Fetches service requests for the current collector.
    */
   const loadRequests = useCallback(async () => {
-    console.log("ServiceRequests: Attempting to load requests...");
     try {
       setLoading(true);
       setError(null);
-      const response = await collectorService.getRequestsForCollector();
-      console.log("ServiceRequests: Raw response data from API:", response.data);
-      if (!Array.isArray(response.data)) {
-        console.error("ServiceRequests: API response data is not an array:", response.data);
+      const response = await collectorService.getWorkQueue({ size: QUEUE_PAGE_SIZE });
+      if (!response.data || !Array.isArray(response.data.content)) {
         throw new Error("Invalid data format received from API.");
       }
-      setRequests(response.data);
-      setFilteredRequests(response.data); // Initialize filtered requests with all data
-      console.log("ServiceRequests: Requests loaded successfully.");
+      setRequests(response.data.content);
+      setFilteredRequests(response.data.content);
+      setNextCursor(response.data.hasNext ? response.data.nextCursor : null);
     } catch (err) {
       console.error('ServiceRequests: Error loading service requests:', err);
       setError('Failed to load service requests. ' + (err.message || ''));
       toast.error('Failed to load service requests.');
     } finally {
       setLoading(false);
-      console.log("ServiceRequests: Loading finished.");
     }
   }, []);
 
+  /**
+   * Appends the next page of the work queue.
+   */
+  const loadMoreRequests = async () => {
+    if (!nextCursor) return;
+    try {
+      setLoadingMore(true);
+      const response = await collectorService.getWorkQueue({ size: QUEUE_PAGE_SIZE, cursor: nextCursor });
+      setRequests(previous => [...previous, ...response.data.content]);
+      setNextCursor(response.data.hasNext ? response.data.nextCursor : null);
+    } catch (err) {
+      console.error('ServiceRequests: Error loading more service requests:', err);
+      toast.error('Failed to load more service requests.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   /**
    * Applies filters and search query to the requests list.
    */
@@ -347,7 +367,12 @@ const ServiceRequests = () => {
                           <td className="py-3 px-4 text-sm text-gray-800">{request.household?.firstName} {request.household?.lastName}</td>
                           <td className="py-3 px-4 text-sm text-gray-800">{request.wasteType}</td>
                           <td className="py-3 px-4 text-sm text-gray-800">{new Date(request.preferredDate).toLocaleString()}</td>
-                          <td className="py-3 px-4 text-sm text-gray-800">{request.address}</td>
+                          <td className="py-3 px-4 text-sm text-gray-800">
+                            {request.address}
+                            {request.distanceKm != null && (
+                              <span className="text-muted ms-1">({request.distanceKm.toFixed(1)} km)</span>
+                            )}
+                          </td>
                           <td className="py-3 px-4 text-sm">
                             <Badge bg={getStatusBadgeVariant(request.status)} className="rounded-full px-3 py-1">
                               {request.status.replace('_', ' ')}
@@ -418,6 +443,13 @@ const ServiceRequests = () => {
                   <Pagination.Next onClick={() => paginate(currentPage + 1)} disabled={currentPage === totalPages} />
                 </Pagination>
               )}
+              {nextCursor && (
+                <div className="text-center mt-3">
+                  <Button variant="outline-success" onClick={loadMoreRequests} disabled={loadingMore}>
+                    {loadingMore ? 'Loading...' : 'Load more requests'}
+                  </Button>
+                </div>
+              )}
               {/* Added Return and Return to Dashboard buttons */}
               <div className="text-center mt-5 d-flex justify-content-center gap-3 flex-wrap">
                 <Button
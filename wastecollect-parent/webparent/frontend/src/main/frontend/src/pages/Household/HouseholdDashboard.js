@@ -2,6 +2,7 @@ import React, { useState, useEffect, useContext } from 'react';
 import { Container, Row, Col, Card, Button, Alert, Badge, ProgressBar, Modal } from 'react-bootstrap';
 import AuthContext from '../../contexts/AuthContext';
 import householdService from '../../services/householdService';
+import notificationService from '../../services/notificationService';
 import serviceRequestService from '../../services/serviceRequestService';
 import wasteCollectionService from '../../services/wasteCollectionService';
 import paymentService from '../../services/paymentService';
@@ -110,13 +111,15 @@ const HouseholdDashboard = () => {
         setShowNotificationModal(true);
         // Optionally mark as read on click
         if (!notification.read) {
-            householdService.markNotificationAsRead(notification.id)
+            // Broadcasts are marked through their own endpoint, by broadcast ID
+            const key = notificationService.inboxKey(notification);
+            notificationService.markAsRead(user.id, notification)
                 .then(() => {
                     // Refresh notifications after marking as read
                     setDashboardData(prev => ({
                         ...prev,
                         recentNotifications: prev.recentNotifications.map(n => 
-                            n.id === notification.id ? { ...n, read: true } : n
+                            notificationService.inboxKey(n) === key ? { ...n, read: true } : n
                         )
                     }));
                 })
@@ -304,7 +307,7 @@ const HouseholdDashboard = () => {
                                 <ul className="list-group list-group-flush cursor-pointer">
                                     {dashboardData.recentNotifications.map(notification => (
                                         <li 
-                                            key={notification.id} 
+                                            key={notificationService.inboxKey(notification)} 
                                             className={`list-group-item d-flex justify-content-between align-items-start ${!notification.read ? 'bg-light fw-bold' : ''} py-3`}
                                             onClick={() => handleNotificationClick(notification)}
                                         >
@@ -525,6 +525,22 @@ class AdminService {
     }
   }
 
+  /**
+   * Annule un rapport en attente ou en cours de génération
+   * @param {string} id - L'ID du rapport à annuler
+   * @returns {Promise<void>}
+   */
+  async cancelReport(id) {
+    try {
+      await axios.post(`${API_BASE_URL}/admin/reports/${id}/cancel`, null, {
+        headers: this.getAuthHeaders(),
+      });
+    } catch (error) {
+      console.error(`Erreur lors de l'annulation du rapport ${id}:`, error);
+      throw error.response?.data?.message || error.message || `Erreur lors de l'annulation du rapport ${id}.`;
+    }
+  }
+
   // ==================== DASHBOARD & ANALYTICS ====================
 
   /**
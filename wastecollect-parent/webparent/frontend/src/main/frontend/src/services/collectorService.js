@@ -25,6 +25,11 @@ const collectorService = {
         return api.get(`${COLLECTOR_API_BASE_URL}/recent-feedback`, { params: { limit } });
     },
 
+    // Fetches the collector's rating figures: { ratingCount, averageRating, recentAverageRating, starCounts }
+    getRatingSummary: () => {
+        return api.get(`${COLLECTOR_API_BASE_URL}/ratings/summary`);
+    },
+
     // Fetches all security alerts for the authenticated collector (for Dashboard and CollectorAlertsPage)
     getSecurityAlerts: () => {
         return api.get(`${COLLECTOR_API_BASE_URL}/alerts`);
@@ -51,6 +56,24 @@ const collectorService = {
         return api.get(`${COLLECTOR_API_BASE_URL}/service-requests`);
     },
 
+    // Fetches one page of the collector's work queue (own requests, then nearby pending ones)
+    // params: { cursor, size, latitude, longitude }
+    getWorkQueue: (params = {}) => {
+        return api.get(`${COLLECTOR_API_BASE_URL}/service-requests/queue`, { params });
+    },
+
+    // Fetches the requests, notifications and payments changed since the previous sync
+    // token: value returned by the previous sync, omitted for a full snapshot (the response then has reset = true)
+    sync: (token) => {
+        return api.get(`${COLLECTOR_API_BASE_URL}/sync`, { params: token ? { token } : {} });
+    },
+
+    // Sends the device's GPS fixes: [{ latitude, longitude, recordedAt, speed, accuracy }]
+    // Returns { accepted } with the number of fixes kept; fixes older than ones already sent are ignored
+    sendTelemetry: (pings) => {
+        return api.post(`${COLLECTOR_API_BASE_URL}/telemetry`, pings);
+    },
+
     // Accepts a service request
     acceptRequest: (requestId, actionData) => {
         return api.post(`${COLLECTOR_API_BASE_URL}/${requestId}/accept`, actionData);
@@ -66,6 +89,12 @@ const collectorService = {
         return api.post(`${COLLECTOR_API_BASE_URL}/${requestId}/start`);
     },
 
+    // Uploads completions recorded offline: [{ clientId, serviceRequestId, completedAt, actualWeight, latitude, longitude, note }]
+    // Returns one result per completion; safe to resend, completions are matched on clientId
+    completeOfflineBatch: (completions) => {
+        return api.post(`${COLLECTOR_API_BASE_URL}/completions`, completions);
+    },
+
     // Marks a service request as completed
     completeRequest: (requestId, actionData) => {
         return api.post(`${COLLECTOR_API_BASE_URL}/${requestId}/complete`, actionData);
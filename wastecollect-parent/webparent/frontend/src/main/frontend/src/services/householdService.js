@@ -399,29 +399,6 @@ class HouseholdService {
       throw error;
     }
   }
-
-  /**
-   * Marquage d'une notification comme lue
-   * @param {number} notificationId - ID de la notification
-   * @returns {Promise<Object>} - Confirmation de lecture
-   */
-  async markNotificationAsRead(notificationId) {
-    try {
-      const response = await fetch(`${API_BASE_URL}/households/notifications/${notificationId}/read`, {
-        method: 'POST',
-        headers: this.getAuthHeaders(),
-      });
-
-      if (!response.ok) {
-        throw new Error('Erreur lors du marquage de la notification');
-      }
-
-      return await response.json();
-    } catch (error) {
-      console.error('Erreur marquage notification:', error);
-      throw error;
-    }
-  }
 }
 
 // Export d'une instance unique du service
@@ -116,6 +116,66 @@ class NotificationService {
         }
     }
 
+  /**
+   * Marque une diffusion (broadcast) comme lue ou non lue pour un utilisateur.
+   * Les diffusions ont leur propre séquence d'IDs : elles arrivent avec broadcast = true et leur ID dans broadcastId.
+   * @param {Long} userId L'ID de l'utilisateur.
+   * @param {Long} broadcastId L'ID de la diffusion.
+   * @param {boolean} read true pour lue, false pour non lue.
+   * @returns {Promise<Object>} La diffusion telle que vue par l'utilisateur.
+   */
+  async setBroadcastRead(userId, broadcastId, read) {
+    const action = read ? 'mark-read' : 'mark-unread';
+    try {
+      const response = await fetch(`${API_BASE_URL}/notifications/user/${userId}/broadcasts/${broadcastId}/${action}`, {
+        method: 'PUT',
+        headers: this.getAuthHeaders(),
+      });
+
+      if (!response.ok) {
+        const errorData = await response.json().catch(() => ({ message: 'Erreur inconnue' }));
+        throw new Error(errorData.message || 'Erreur lors du marquage de la diffusion.');
+      }
+      return await response.json();
+    } catch (error) {
+      console.error('Erreur marquage diffusion:', error);
+      throw error;
+    }
+  }
+
+  /**
+   * Marque une entrée de la boîte de réception comme lue, qu'il s'agisse d'une notification personnelle ou d'une diffusion.
+   * @param {Long} userId L'ID de l'utilisateur.
+   * @param {Object} notification L'entrée telle que renvoyée par getNotificationsForUser.
+   * @returns {Promise<Object>} L'entrée mise à jour.
+   */
+  markAsRead(userId, notification) {
+    return notification.broadcast
+      ? this.setBroadcastRead(userId, notification.broadcastId, true)
+      : this.markNotificationAsRead(notification.id);
+  }
+
+  /**
+   * Marque une entrée de la boîte de réception comme non lue.
+   * @param {Long} userId L'ID de l'utilisateur.
+   * @param {Object} notification L'entrée telle que renvoyée par getNotificationsForUser.
+   * @returns {Promise<Object>} L'entrée mise à jour.
+   */
+  markAsUnread(userId, notification) {
+    return notification.broadcast
+      ? this.setBroadcastRead(userId, notification.broadcastId, false)
+      : this.markNotificationAsUnread(notification.id);
+  }
+
+  /**
+   * Clé unique d'une entrée de la boîte de réception (les IDs personnels et de diffusion peuvent se recouper).
+   * @param {Object} notification L'entrée.
+   * @returns {string} La clé.
+   */
+  inboxKey(notification) {
+    return notification.broadcast ? `broadcast-${notification.broadcastId}` : `notification-${notification.id}`;
+  }
+
   /**
    * Supprime une notification.
    * @param {Long} id L'ID de la notification.